@@ -0,0 +1,321 @@
+package com.bergerkiller.bukkit.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+
+import com.bergerkiller.bukkit.common.bases.IntVector2;
+import com.bergerkiller.bukkit.common.internal.CommonNMS;
+import com.bergerkiller.bukkit.common.internal.CommonPlugin;
+import com.bergerkiller.bukkit.common.reflection.classes.ChunkIOExecutorRef;
+import com.bergerkiller.bukkit.common.utils.ChunkUtil;
+import com.bergerkiller.bukkit.common.utils.MathUtil;
+
+/**
+ * Loads a batch of chunks without stalling the main thread, and tracks the progress of loading them.
+ * Chunks that exist on disk are read asynchronously by the chunk I/O executor, chunks that do not
+ * exist yet are generated on the main thread. Every tick, at most {@link #getBudget()} chunks
+ * that are not loaded yet are requested; chunks already loaded or already queued by the server
+ * do not count towards this budget.<br><br>
+ *
+ * All progress is made on the main thread. Completion listeners are called on the main thread,
+ * {@link #get()} may only be used from other threads.
+ * Create new batches using {@link ChunkUtil#loadChunksAsync(World, Collection, int)}.
+ */
+public class ChunkLoadFuture implements Future<List<Chunk>> {
+	private static final List<ChunkLoadFuture> active = new ArrayList<ChunkLoadFuture>();
+	private final World world;
+	private final Iterator<Long> remaining;
+	private final int total;
+	private final int budget;
+	private final List<Chunk> chunks;
+	private final List<Runnable> listeners = new ArrayList<Runnable>(1);
+	private int requested = 0;
+	private int loaded = 0;
+	private boolean cancelled = false;
+	private boolean done = false;
+
+	/**
+	 * Creates a new batch. Duplicate coordinates are only loaded once.
+	 * Use {@link ChunkUtil#loadChunksAsync(World, Collection, int)} to create and start a batch.
+	 *
+	 * @param world to load the chunks in
+	 * @param coordinates of the chunks to load
+	 * @param budget - maximum amount of chunks to request every tick
+	 */
+	public ChunkLoadFuture(World world, Collection<IntVector2> coordinates, int budget) {
+		if (budget <= 0) {
+			throw new IllegalArgumentException("Budget must be at least 1");
+		}
+		LinkedHashSet<Long> keys = new LinkedHashSet<Long>(coordinates.size());
+		for (IntVector2 coord : coordinates) {
+			keys.add(MathUtil.longHashToLong(coord.x, coord.z));
+		}
+		this.world = world;
+		this.remaining = keys.iterator();
+		this.total = keys.size();
+		this.budget = budget;
+		this.chunks = new ArrayList<Chunk>(this.total);
+	}
+
+	/**
+	 * Starts loading the chunks of this batch. Must be called on the main thread.
+	 *
+	 * @return this batch
+	 */
+	public ChunkLoadFuture start() {
+		if (this.total == 0) {
+			complete();
+		} else if (!this.done && !active.contains(this)) {
+			active.add(this);
+			request();
+		}
+		return this;
+	}
+
+	public World getWorld() {
+		return this.world;
+	}
+
+	/**
+	 * Gets the maximum amount of chunks requested every tick
+	 *
+	 * @return request budget per tick
+	 */
+	public int getBudget() {
+		return this.budget;
+	}
+
+	/**
+	 * Gets the total amount of chunks in this batch
+	 *
+	 * @return total chunk count
+	 */
+	public int getTotal() {
+		return this.total;
+	}
+
+	/**
+	 * Gets the amount of chunks that were requested so far
+	 *
+	 * @return requested chunk count
+	 */
+	public synchronized int getRequested() {
+		return this.requested;
+	}
+
+	/**
+	 * Gets the amount of chunks that finished loading so far
+	 *
+	 * @return loaded chunk count
+	 */
+	public synchronized int getLoaded() {
+		return this.loaded;
+	}
+
+	/**
+	 * Gets the progress of loading this batch
+	 *
+	 * @return progress, from 0.0 to 1.0
+	 */
+	public synchronized double getProgress() {
+		return this.total == 0 ? 1.0 : ((double) this.loaded / (double) this.total);
+	}
+
+	/**
+	 * Adds a task to run on the main thread once this batch is done or cancelled.
+	 * If this batch is already done, the task is run right away.
+	 *
+	 * @param listener to run
+	 */
+	public void addListener(Runnable listener) {
+		synchronized (this) {
+			if (!this.done) {
+				this.listeners.add(listener);
+				return;
+			}
+		}
+		listener.run();
+	}
+
+	@Override
+	public synchronized boolean isCancelled() {
+		return this.cancelled;
+	}
+
+	@Override
+	public synchronized boolean isDone() {
+		return this.done;
+	}
+
+	/**
+	 * Stops requesting chunks of this batch. Chunks already requested still load.
+	 * Must be called on the main thread.
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		synchronized (this) {
+			if (this.done) {
+				return false;
+			}
+			this.cancelled = true;
+		}
+		complete();
+		return true;
+	}
+
+	@Override
+	public List<Chunk> get() throws InterruptedException, ExecutionException {
+		checkNotMainThread();
+		synchronized (this) {
+			while (!this.done) {
+				this.wait();
+			}
+			return getResult();
+		}
+	}
+
+	@Override
+	public List<Chunk> get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		checkNotMainThread();
+		final long end = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (this) {
+			long remainingNanos;
+			while (!this.done) {
+				remainingNanos = end - System.nanoTime();
+				if (remainingNanos <= 0) {
+					throw new TimeoutException();
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+			}
+			return getResult();
+		}
+	}
+
+	private List<Chunk> getResult() {
+		if (this.cancelled) {
+			throw new CancellationException();
+		}
+		return Collections.unmodifiableList(this.chunks);
+	}
+
+	private static void checkNotMainThread() {
+		if (Bukkit.isPrimaryThread()) {
+			throw new IllegalStateException("Waiting for chunks to load on the main thread would block forever, use addListener instead");
+		}
+	}
+
+	/**
+	 * Requests the next chunks of this batch, within the budget
+	 */
+	private void request() {
+		final Map<?, ?> queuedTasks = getQueuedTasks();
+		int budgetLeft = this.budget;
+		while (budgetLeft > 0 && !this.cancelled && this.remaining.hasNext()) {
+			final long key = this.remaining.next();
+			final int cx = MathUtil.longHashMsw(key);
+			final int cz = MathUtil.longHashLsw(key);
+			synchronized (this) {
+				this.requested++;
+			}
+			final Chunk loadedChunk = ChunkUtil.getChunk(this.world, cx, cz);
+			if (loadedChunk != null) {
+				onLoaded(loadedChunk);
+				continue;
+			}
+			// Read from disk asynchronously, or generate it right away if it does not exist
+			final int queuedBefore = (queuedTasks == null) ? -1 : queuedTasks.size();
+			CommonNMS.getNative(this.world).chunkProviderServer.getChunkAt(cx, cz, new Runnable() {
+				@Override
+				public void run() {
+					onLoaded(ChunkUtil.getChunk(world, cx, cz));
+				}
+			});
+			// Chunks that were already queued by the server only get our callback added, which is free
+			if (queuedTasks == null || queuedTasks.size() != queuedBefore || ChunkUtil.getChunk(this.world, cx, cz) != null) {
+				budgetLeft--;
+			}
+		}
+	}
+
+	private void onLoaded(Chunk chunk) {
+		final boolean finished;
+		synchronized (this) {
+			if (this.done) {
+				return;
+			}
+			if (chunk != null) {
+				this.chunks.add(chunk);
+			}
+			this.loaded++;
+			finished = (this.loaded == this.total);
+		}
+		if (finished) {
+			complete();
+		}
+	}
+
+	private void complete() {
+		final List<Runnable> toRun;
+		synchronized (this) {
+			if (this.done) {
+				return;
+			}
+			this.done = true;
+			this.notifyAll();
+			toRun = new ArrayList<Runnable>(this.listeners);
+			this.listeners.clear();
+		}
+		active.remove(this);
+		for (Runnable listener : toRun) {
+			try {
+				listener.run();
+			} catch (Throwable t) {
+				CommonPlugin.LOGGER.log(Level.SEVERE, "An error occurred in a chunk load listener", t);
+			}
+		}
+	}
+
+	private static Map<?, ?> getQueuedTasks() {
+		try {
+			return ChunkIOExecutorRef.tasks.get(ChunkIOExecutorRef.asynchronousExecutor.get(null));
+		} catch (Throwable t) {
+			return null;
+		}
+	}
+
+	/**
+	 * Requests the next chunks of all active batches. Called every tick by BKCommonLib.
+	 */
+	public static void tickAll() {
+		if (active.isEmpty()) {
+			return;
+		}
+		for (ChunkLoadFuture future : active.toArray(new ChunkLoadFuture[0])) {
+			future.request();
+		}
+	}
+
+	/**
+	 * Cancels all active batches. Called by BKCommonLib when disabling.
+	 */
+	public static void cancelAll() {
+		for (ChunkLoadFuture future : active.toArray(new ChunkLoadFuture[0])) {
+			future.cancel(false);
+		}
+	}
+}
@@ -4,6 +4,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.bergerkiller.bukkit.common.reflection.ClassTemplate;
 
@@ -14,7 +15,14 @@ import com.bergerkiller.bukkit.common.reflection.ClassTemplate;
  * @param <V> - Value type to map to Class keys
  */
 public class ClassMap<V> {
+	private static final Object NO_VALUE = new Object();
 	private final LinkedHashMap<Class<?>, V> classes = new LinkedHashMap<Class<?>, V>();
+	/*
+	 * Caches the outcome of look-ups by the exact instance type, including look-ups that found nothing.
+	 * It is cleared whenever the mapping changes. Look-ups not in the cache, and changes to the mapping,
+	 * are synchronized so that the cache never stores the outcome of a look-up on outdated data.
+	 */
+	private final Map<Class<?>, Object> lookupCache = new ConcurrentHashMap<Class<?>, Object>();
 
 	/**
 	 * Puts a Class : Value pair into this map.
@@ -37,11 +45,36 @@ public class ClassMap<V> {
 	 * @param type to put
 	 * @param value to put
 	 */
-	public void put(Class<?> type, V value) {
+	public synchronized void put(Class<?> type, V value) {
 		if (type == null) {
 			return;
 		}
 		classes.put(type, value);
+		lookupCache.clear();
+	}
+
+	/**
+	 * Removes the value bound to a Class from this map.
+	 * Only the exact Class specified is removed, values bound to super types remain.
+	 * 
+	 * @param type to remove
+	 * @return the value that was bound to the Class, or null if there was none
+	 */
+	public synchronized V remove(Class<?> type) {
+		if (type == null) {
+			return null;
+		}
+		final V value = classes.remove(type);
+		lookupCache.clear();
+		return value;
+	}
+
+	/**
+	 * Removes all Class : Value pairs from this map
+	 */
+	public synchronized void clear() {
+		classes.clear();
+		lookupCache.clear();
 	}
 
 	/**
@@ -50,20 +83,16 @@ public class ClassMap<V> {
 	 * @param type of instance
 	 * @return the value bound to the instance type
 	 */
+	@SuppressWarnings("unchecked")
 	public V get(Class<?> type) {
 		if (type == null) {
 			return null;
 		}
-		final V value = classes.get(type);
-		if (value != null) {
-			return value;
+		Object value = lookupCache.get(type);
+		if (value == null) {
+			value = lookup(type);
 		}
-		for (Entry<Class<?>, V> entry : classes.entrySet()) {
-			if (entry.getKey().isAssignableFrom(type)) {
-				return entry.getValue();
-			}
-		}
-		return null;
+		return (value == NO_VALUE) ? null : (V) value;
 	}
 
 	/**
@@ -76,16 +105,22 @@ public class ClassMap<V> {
 		if (instance == null) {
 			return null;
 		}
-		final V value = classes.get(instance.getClass());
-		if (value != null) {
-			return value;
-		}
-		for (Entry<Class<?>, V> entry : classes.entrySet()) {
-			if (entry.getKey().isInstance(instance)) {
-				return entry.getValue();
+		return get(instance.getClass());
+	}
+
+	private synchronized Object lookup(Class<?> type) {
+		V value = classes.get(type);
+		if (value == null) {
+			for (Entry<Class<?>, V> entry : classes.entrySet()) {
+				if (entry.getKey().isAssignableFrom(type)) {
+					value = entry.getValue();
+					break;
+				}
 			}
 		}
-		return null;
+		final Object result = (value == null) ? NO_VALUE : value;
+		lookupCache.put(type, result);
+		return result;
 	}
 
 	/**
@@ -0,0 +1,215 @@
+package com.bergerkiller.bukkit.common.collections;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import com.bergerkiller.bukkit.common.BlockLocation;
+import com.bergerkiller.bukkit.common.bases.IntVector3;
+import com.bergerkiller.bukkit.common.utils.MathUtil;
+
+/**
+ * A map for mapping values to Blocks, offering the same methods as {@link BlockMap}.
+ * Instead of BlockLocation keys, every world (by UID) has its own hash table with the coordinates
+ * packed into a primitive long key (see {@link MathUtil#longBlockHash(int, int, int)}).
+ * Look-ups do not allocate, and every entry uses a fraction of the memory of a BlockMap entry.
+ * Supports x and z coordinates within +/- 33554432 and y coordinates within [-2048, 2048).
+ * Null values can not be stored.
+ *
+ * @param <V> - Value type to map to Blocks
+ */
+public class PackedBlockMap<V> {
+	private final Map<UUID, PackedBlockTable<V>> worlds = new HashMap<UUID, PackedBlockTable<V>>();
+	private int size = 0;
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public void clear() {
+		this.worlds.clear();
+		this.size = 0;
+	}
+
+	/**
+	 * Removes all values mapped to Blocks in a world
+	 *
+	 * @param world to clear
+	 */
+	public void clear(World world) {
+		final PackedBlockTable<V> table = this.worlds.remove(world.getUID());
+		if (table != null) {
+			this.size -= table.size();
+		}
+	}
+
+	/**
+	 * Gets the UIDs of all worlds that have values mapped to them
+	 *
+	 * @return world UIDs (unmodifiable)
+	 */
+	public Set<UUID> getWorlds() {
+		return Collections.unmodifiableSet(this.worlds.keySet());
+	}
+
+	public boolean containsKey(World world, IntVector3 coord) {
+		return this.get(world.getUID(), coord.x, coord.y, coord.z) != null;
+	}
+
+	public boolean containsKey(World world, final int x, final int y, final int z) {
+		return this.get(world.getUID(), x, y, z) != null;
+	}
+
+	public boolean containsKey(Block block) {
+		return this.get(block) != null;
+	}
+
+	public boolean containsKey(BlockLocation location) {
+		return this.get(location) != null;
+	}
+
+	public V get(World world, IntVector3 coord) {
+		return this.get(world.getUID(), coord.x, coord.y, coord.z);
+	}
+
+	public V get(World world, final int x, final int y, final int z) {
+		return this.get(world.getUID(), x, y, z);
+	}
+
+	public V get(Block block) {
+		return this.get(block.getWorld().getUID(), block.getX(), block.getY(), block.getZ());
+	}
+
+	public V get(BlockLocation location) {
+		final World world = location.getWorld();
+		return world == null ? null : this.get(world.getUID(), location.x, location.y, location.z);
+	}
+
+	public V get(UUID worldUID, final int x, final int y, final int z) {
+		final PackedBlockTable<V> table = this.worlds.get(worldUID);
+		return table == null ? null : table.get(MathUtil.longBlockHash(x, y, z));
+	}
+
+	public V put(World world, IntVector3 coord, V value) {
+		return this.put(world.getUID(), coord.x, coord.y, coord.z, value);
+	}
+
+	public V put(World world, final int x, final int y, final int z, V value) {
+		return this.put(world.getUID(), x, y, z, value);
+	}
+
+	public V put(Block block, V value) {
+		return this.put(block.getWorld().getUID(), block.getX(), block.getY(), block.getZ(), value);
+	}
+
+	/**
+	 * Puts a value for a Block Location. The world of the location has to be loaded.
+	 *
+	 * @param location to put at
+	 * @param value to put
+	 * @return previous value, or null if there was none
+	 * @throws IllegalArgumentException if the world of the location is not loaded
+	 */
+	public V put(BlockLocation location, V value) {
+		final World world = location.getWorld();
+		if (world == null) {
+			throw new IllegalArgumentException("World '" + location.world + "' is not loaded");
+		}
+		return this.put(world.getUID(), location.x, location.y, location.z, value);
+	}
+
+	public V put(UUID worldUID, final int x, final int y, final int z, V value) {
+		PackedBlockTable<V> table = this.worlds.get(worldUID);
+		if (table == null) {
+			table = new PackedBlockTable<V>();
+			this.worlds.put(worldUID, table);
+		}
+		final V previous = table.put(MathUtil.longBlockHash(x, y, z), value);
+		if (previous == null) {
+			this.size++;
+		}
+		return previous;
+	}
+
+	public V remove(World world, IntVector3 coord) {
+		return this.remove(world.getUID(), coord.x, coord.y, coord.z);
+	}
+
+	public V remove(World world, final int x, final int y, final int z) {
+		return this.remove(world.getUID(), x, y, z);
+	}
+
+	public V remove(Block block) {
+		return this.remove(block.getWorld().getUID(), block.getX(), block.getY(), block.getZ());
+	}
+
+	public V remove(BlockLocation location) {
+		final World world = location.getWorld();
+		return world == null ? null : this.remove(world.getUID(), location.x, location.y, location.z);
+	}
+
+	public V remove(UUID worldUID, final int x, final int y, final int z) {
+		final PackedBlockTable<V> table = this.worlds.get(worldUID);
+		if (table == null) {
+			return null;
+		}
+		final V previous = table.remove(MathUtil.longBlockHash(x, y, z));
+		if (previous != null) {
+			this.size--;
+			if (table.size() == 0) {
+				this.worlds.remove(worldUID);
+			}
+		}
+		return previous;
+	}
+
+	/**
+	 * Gets the coordinates of all Blocks in a world that have a value mapped to them
+	 *
+	 * @param world to get the coordinates in
+	 * @return new list of block coordinates
+	 */
+	public List<IntVector3> getCoordinates(World world) {
+		final PackedBlockTable<V> table = this.worlds.get(world.getUID());
+		if (table == null) {
+			return new ArrayList<IntVector3>(0);
+		}
+		final List<IntVector3> coordinates = new ArrayList<IntVector3>(table.size());
+		for (int slot = 0; slot < table.capacity(); slot++) {
+			if (table.getValueAt(slot) != null) {
+				final long key = table.getKeyAt(slot);
+				coordinates.add(new IntVector3(MathUtil.longBlockHashX(key), MathUtil.longBlockHashY(key), MathUtil.longBlockHashZ(key)));
+			}
+		}
+		return coordinates;
+	}
+
+	/**
+	 * Gets all values stored in this map
+	 *
+	 * @return new list of values
+	 */
+	public List<V> values() {
+		final List<V> values = new ArrayList<V>(this.size);
+		for (PackedBlockTable<V> table : this.worlds.values()) {
+			for (int slot = 0; slot < table.capacity(); slot++) {
+				final V value = table.getValueAt(slot);
+				if (value != null) {
+					values.add(value);
+				}
+			}
+		}
+		return values;
+	}
+}
@@ -0,0 +1,120 @@
+package com.bergerkiller.bukkit.common.collections;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import com.bergerkiller.bukkit.common.BlockLocation;
+import com.bergerkiller.bukkit.common.bases.IntVector3;
+
+/**
+ * A set for storing Blocks, offering the same methods as {@link BlockSet}.
+ * Blocks are stored per world (by UID) as packed primitive long keys, see {@link PackedBlockMap}.
+ * Look-ups do not allocate.
+ */
+public class PackedBlockSet {
+	private final PackedBlockMap<Boolean> map = new PackedBlockMap<Boolean>();
+
+	public int size() {
+		return map.size();
+	}
+
+	public boolean isEmpty() {
+		return map.isEmpty();
+	}
+
+	public void clear() {
+		map.clear();
+	}
+
+	/**
+	 * Removes all Blocks in a world from this set
+	 *
+	 * @param world to clear
+	 */
+	public void clear(World world) {
+		map.clear(world);
+	}
+
+	/**
+	 * Gets the UIDs of all worlds that have Blocks in this set
+	 *
+	 * @return world UIDs (unmodifiable)
+	 */
+	public Set<UUID> getWorlds() {
+		return map.getWorlds();
+	}
+
+	/**
+	 * Gets the coordinates of all Blocks in a world contained in this set
+	 *
+	 * @param world to get the coordinates in
+	 * @return new list of block coordinates
+	 */
+	public List<IntVector3> getCoordinates(World world) {
+		return map.getCoordinates(world);
+	}
+
+	public boolean contains(Block block) {
+		return map.containsKey(block);
+	}
+
+	public boolean contains(BlockLocation location) {
+		return map.containsKey(location);
+	}
+
+	public boolean contains(World world, final int x, final int y, final int z) {
+		return map.containsKey(world, x, y, z);
+	}
+
+	public boolean contains(World world, IntVector3 coord) {
+		return map.containsKey(world, coord);
+	}
+
+	public boolean contains(UUID worldUID, final int x, final int y, final int z) {
+		return map.get(worldUID, x, y, z) != null;
+	}
+
+	public boolean remove(Block block) {
+		return map.remove(block) != null;
+	}
+
+	public boolean remove(BlockLocation location) {
+		return map.remove(location) != null;
+	}
+
+	public boolean remove(World world, final int x, final int y, final int z) {
+		return map.remove(world, x, y, z) != null;
+	}
+
+	public boolean remove(World world, IntVector3 coord) {
+		return map.remove(world, coord) != null;
+	}
+
+	public boolean remove(UUID worldUID, final int x, final int y, final int z) {
+		return map.remove(worldUID, x, y, z) != null;
+	}
+
+	public boolean add(Block block) {
+		return map.put(block, Boolean.TRUE) == null;
+	}
+
+	public boolean add(BlockLocation location) {
+		return map.put(location, Boolean.TRUE) == null;
+	}
+
+	public boolean add(World world, final int x, final int y, final int z) {
+		return map.put(world, x, y, z, Boolean.TRUE) == null;
+	}
+
+	public boolean add(World world, IntVector3 coord) {
+		return map.put(world, coord, Boolean.TRUE) == null;
+	}
+
+	public boolean add(UUID worldUID, final int x, final int y, final int z) {
+		return map.put(worldUID, x, y, z, Boolean.TRUE) == null;
+	}
+}
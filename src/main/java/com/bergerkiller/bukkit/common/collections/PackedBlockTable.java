@@ -0,0 +1,151 @@
+package com.bergerkiller.bukkit.common.collections;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table mapping packed block coordinates to values.
+ * Keys are stored in a primitive long array, so look-ups do not allocate.
+ * Uses linear probing, and shifts entries back on removal instead of leaving tombstones.
+ * A slot is empty when its value is null, null values can not be stored.
+ *
+ * @param <V> - Value type
+ */
+final class PackedBlockTable<V> {
+	private static final int MIN_CAPACITY = 16;
+	private long[] keys;
+	private Object[] values;
+	private int size = 0;
+	private int mask;
+
+	public PackedBlockTable() {
+		this.keys = new long[MIN_CAPACITY];
+		this.values = new Object[MIN_CAPACITY];
+		this.mask = MIN_CAPACITY - 1;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public int capacity() {
+		return this.keys.length;
+	}
+
+	public long getKeyAt(int slot) {
+		return this.keys[slot];
+	}
+
+	@SuppressWarnings("unchecked")
+	public V getValueAt(int slot) {
+		return (V) this.values[slot];
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int slot = slot(key);
+		Object value;
+		while ((value = this.values[slot]) != null) {
+			if (this.keys[slot] == key) {
+				return (V) value;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Null values can not be stored");
+		}
+		int slot = slot(key);
+		Object current;
+		while ((current = this.values[slot]) != null) {
+			if (this.keys[slot] == key) {
+				this.values[slot] = value;
+				return (V) current;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+		this.keys[slot] = key;
+		this.values[slot] = value;
+		if (++this.size > (this.keys.length >> 1) + (this.keys.length >> 2)) {
+			resize(this.keys.length << 1);
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int slot = slot(key);
+		Object value;
+		while ((value = this.values[slot]) != null) {
+			if (this.keys[slot] == key) {
+				this.size--;
+				shiftBack(slot);
+				return (V) value;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+		return null;
+	}
+
+	public void clear() {
+		if (this.size > 0) {
+			Arrays.fill(this.values, null);
+			this.size = 0;
+		}
+	}
+
+	/**
+	 * Fills the slot that was freed with entries further along the probe sequence,
+	 * so that no look-up is interrupted by the empty slot
+	 */
+	private void shiftBack(int freeSlot) {
+		int slot = freeSlot;
+		while (true) {
+			slot = (slot + 1) & this.mask;
+			if (this.values[slot] == null) {
+				break;
+			}
+			final int home = slot(this.keys[slot]);
+			// Only move the entry if its home slot is not between the free slot and its current slot
+			final boolean canMove;
+			if (freeSlot <= slot) {
+				canMove = home <= freeSlot || home > slot;
+			} else {
+				canMove = home <= freeSlot && home > slot;
+			}
+			if (canMove) {
+				this.keys[freeSlot] = this.keys[slot];
+				this.values[freeSlot] = this.values[slot];
+				freeSlot = slot;
+			}
+		}
+		this.values[freeSlot] = null;
+	}
+
+	private void resize(int newCapacity) {
+		final long[] oldKeys = this.keys;
+		final Object[] oldValues = this.values;
+		this.keys = new long[newCapacity];
+		this.values = new Object[newCapacity];
+		this.mask = newCapacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != null) {
+				int slot = slot(oldKeys[i]);
+				while (this.values[slot] != null) {
+					slot = (slot + 1) & this.mask;
+				}
+				this.keys[slot] = oldKeys[i];
+				this.values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private int slot(long key) {
+		// Mix the bits so that neighbouring coordinates spread over the table
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32)) & this.mask;
+	}
+}
@@ -11,6 +11,7 @@ import java.util.Set;
 import org.bukkit.configuration.MemorySection;
 import org.bukkit.configuration.file.YamlConfiguration;
 
+import com.bergerkiller.bukkit.common.conversion.Conversion;
 import com.bergerkiller.bukkit.common.utils.LogicUtil;
 import com.bergerkiller.bukkit.common.utils.ParseUtil;
 import com.bergerkiller.bukkit.common.utils.StringUtil;
@@ -527,6 +528,141 @@ public class ConfigurationNode implements Cloneable {
 		return rval;
 	}
 
+	/**
+	 * Gets the byte value at the path specified without boxing the value<br>
+	 * The value is only written back when no number is stored at the path
+	 * 
+	 * @param path to get at
+	 * @param def value to return
+	 * @return the converted value, or the default value if not found or invalid
+	 */
+	public byte get(String path, byte def) {
+		final Object rawValue = this.get(path);
+		final byte rval = Conversion.toByteValue.convertByte(rawValue, def);
+		if (!(rawValue instanceof Number)) {
+			this.set(path, rval);
+		}
+		return rval;
+	}
+
+	/**
+	 * Gets the short value at the path specified without boxing the value<br>
+	 * The value is only written back when no number is stored at the path
+	 * 
+	 * @param path to get at
+	 * @param def value to return
+	 * @return the converted value, or the default value if not found or invalid
+	 */
+	public short get(String path, short def) {
+		final Object rawValue = this.get(path);
+		final short rval = Conversion.toShortValue.convertShort(rawValue, def);
+		if (!(rawValue instanceof Number)) {
+			this.set(path, rval);
+		}
+		return rval;
+	}
+
+	/**
+	 * Gets the int value at the path specified without boxing the value<br>
+	 * The value is only written back when no number is stored at the path
+	 * 
+	 * @param path to get at
+	 * @param def value to return
+	 * @return the converted value, or the default value if not found or invalid
+	 */
+	public int get(String path, int def) {
+		final Object rawValue = this.get(path);
+		final int rval = Conversion.toIntValue.convertInt(rawValue, def);
+		if (!(rawValue instanceof Number)) {
+			this.set(path, rval);
+		}
+		return rval;
+	}
+
+	/**
+	 * Gets the long value at the path specified without boxing the value<br>
+	 * The value is only written back when no number is stored at the path
+	 * 
+	 * @param path to get at
+	 * @param def value to return
+	 * @return the converted value, or the default value if not found or invalid
+	 */
+	public long get(String path, long def) {
+		final Object rawValue = this.get(path);
+		final long rval = Conversion.toLongValue.convertLong(rawValue, def);
+		if (!(rawValue instanceof Number)) {
+			this.set(path, rval);
+		}
+		return rval;
+	}
+
+	/**
+	 * Gets the float value at the path specified without boxing the value<br>
+	 * The value is only written back when no number is stored at the path
+	 * 
+	 * @param path to get at
+	 * @param def value to return
+	 * @return the converted value, or the default value if not found or invalid
+	 */
+	public float get(String path, float def) {
+		final Object rawValue = this.get(path);
+		final float rval = Conversion.toFloatValue.convertFloat(rawValue, def);
+		if (!(rawValue instanceof Number)) {
+			this.set(path, rval);
+		}
+		return rval;
+	}
+
+	/**
+	 * Gets the double value at the path specified without boxing the value<br>
+	 * The value is only written back when no number is stored at the path
+	 * 
+	 * @param path to get at
+	 * @param def value to return
+	 * @return the converted value, or the default value if not found or invalid
+	 */
+	public double get(String path, double def) {
+		final Object rawValue = this.get(path);
+		final double rval = Conversion.toDoubleValue.convertDouble(rawValue, def);
+		if (!(rawValue instanceof Number)) {
+			this.set(path, rval);
+		}
+		return rval;
+	}
+
+	/**
+	 * Gets the boolean value at the path specified without boxing the value<br>
+	 * The value is only written back when no boolean is stored at the path
+	 * 
+	 * @param path to get at
+	 * @param def value to return
+	 * @return the converted value, or the default value if not found or invalid
+	 */
+	public boolean get(String path, boolean def) {
+		final Object rawValue = this.get(path);
+		final boolean rval = Conversion.toBoolValue.convertBool(rawValue, def);
+		if (!(rawValue instanceof Boolean)) {
+			this.set(path, rval);
+		}
+		return rval;
+	}
+
+	/**
+	 * Gets the char value at the path specified
+	 * 
+	 * @param path to get at
+	 * @param def value to return
+	 * @return the converted value, or the default value if not found or invalid
+	 */
+	public char get(String path, char def) {
+		final Object rawValue = this.get(path);
+		final char rval = Conversion.toChar.convert(rawValue, def).charValue();
+		if (!(rawValue instanceof Character) || ((Character) rawValue).charValue() != rval) {
+			this.set(path, rval);
+		}
+		return rval;
+	}
+
 	/**
 	 * Shares a single value with a target collection:<br>
 	 * - Writes the value from this node to the target if possible<br>
@@ -17,6 +17,9 @@ import com.bergerkiller.bukkit.common.utils.LogicUtil;
  */
 public class Conversion extends ConversionTypes {
 	private static final Map<Class<?>, Converter<Object>> converters = new ConcurrentHashMap<Class<?>, Converter<Object>>();
+	private static final ConcurrentHashMap<Class<?>, Map<Class<?>, Object>> conversionPaths = new ConcurrentHashMap<Class<?>, Map<Class<?>, Object>>();
+	private static final Object PATH_IDENTITY = new Object();
+	private static final Object PATH_IMPOSSIBLE = new Object();
 	static {
 		try {
 			registerAll(ConversionTypes.class);
@@ -51,6 +54,7 @@ public class Conversion extends ConversionTypes {
 			return;
 		}
 		converters.put(converter.getOutputType(), (Converter<Object>) converter);
+		conversionPaths.clear();
 	}
 
 	/**
@@ -129,14 +133,60 @@ public class Conversion extends ConversionTypes {
 	 * @param def value to return on failure
 	 * @return the converted value
 	 */
+	@SuppressWarnings("unchecked")
 	public static <T> T convert(Object value, Class<T> type, T def) {
 		if (value == null) {
 			return def;
 		}
 		final Class<?> valueType = value.getClass();
-		if (type.isAssignableFrom(valueType)) {
-			return type.cast(value);
+		final Object path = getConversionPath(valueType, type);
+		if (path == PATH_IDENTITY) {
+			return (T) value;
+		} else if (path == PATH_IMPOSSIBLE) {
+			return def;
+		} else if (path instanceof BasicConverter) {
+			// Null and instance checks are already performed by the path look-up
+			return ((BasicConverter<T>) path).convertSpecial(value, valueType, def);
+		} else {
+			return ((Converter<T>) path).convert(value, def);
+		}
+	}
+
+	/**
+	 * Obtains the resolved conversion path from an input type to an output type.
+	 * This is either the identity marker (value can be returned as-is), the impossible marker
+	 * (def is always returned) or the Converter to use. Paths are cached per (input, output)
+	 * type pair and are reset when a new converter is registered.
+	 * 
+	 * @param inputType of the value to convert
+	 * @param outputType to convert to
+	 * @return conversion path
+	 */
+	private static Object getConversionPath(Class<?> inputType, Class<?> outputType) {
+		Map<Class<?>, Object> inputPaths = conversionPaths.get(outputType);
+		if (inputPaths == null) {
+			inputPaths = new ConcurrentHashMap<Class<?>, Object>();
+			Map<Class<?>, Object> existing = conversionPaths.putIfAbsent(outputType, inputPaths);
+			if (existing != null) {
+				inputPaths = existing;
+			}
+		}
+		Object path = inputPaths.get(inputType);
+		if (path == null) {
+			final Class<?> boxedOutputType = outputType.isPrimitive() ? LogicUtil.getBoxedType(outputType) : outputType;
+			if (boxedOutputType.isAssignableFrom(inputType)) {
+				path = PATH_IDENTITY;
+			} else {
+				final Converter<?> converter = getConverter(boxedOutputType);
+				if (converter.getClass() == EmptyConverter.class) {
+					// Only casting is supported, which already failed above
+					path = PATH_IMPOSSIBLE;
+				} else {
+					path = converter;
+				}
+			}
+			inputPaths.put(inputType, path);
 		}
-		return getConverter(type).convert(value, def);
+		return path;
 	}
 }
@@ -0,0 +1,43 @@
+package com.bergerkiller.bukkit.common.conversion.type;
+
+import com.bergerkiller.bukkit.common.utils.ParseUtil;
+
+/**
+ * Converts to the primitive boolean type. Apart from the boxed Boolean conversion
+ * offered by all Converters, this converter can convert to a boolean value without boxing.
+ * The instance is available as {@link PrimitiveConverter#toBool} and {@link ConversionTypes#toBoolValue}.
+ */
+public final class BooleanConverter extends PrimitiveConverter<Boolean> {
+
+	BooleanConverter() {
+		super(Boolean.class, false);
+	}
+
+	@Override
+	public Boolean convertSpecial(Object value, Class<?> valueType, Boolean def) {
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue() != 0.0;
+		} else {
+			return ParseUtil.parseBool(value.toString(), def);
+		}
+	}
+
+	/**
+	 * Converts the input value to a boolean without boxing the result
+	 * 
+	 * @param value to convert
+	 * @param def value to return when conversion fails
+	 * @return converted value, or def on failure
+	 */
+	public boolean convertBool(Object value, boolean def) {
+		if (value instanceof Boolean) {
+			return ((Boolean) value).booleanValue();
+		} else if (value instanceof Number) {
+			return ((Number) value).doubleValue() != 0.0;
+		} else if (value == null) {
+			return def;
+		} else {
+			return ParseUtil.parseBool(value.toString(), def ? Boolean.TRUE : Boolean.FALSE).booleanValue();
+		}
+	}
+}
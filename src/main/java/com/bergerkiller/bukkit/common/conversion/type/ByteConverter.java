@@ -0,0 +1,60 @@
+package com.bergerkiller.bukkit.common.conversion.type;
+
+import com.bergerkiller.bukkit.common.utils.ParseUtil;
+
+/**
+ * Converts to the primitive byte type. Apart from the boxed Byte conversion
+ * offered by all Converters, this converter can convert to a byte value without boxing.
+ * The instance is available as {@link PrimitiveConverter#toByte} and {@link ConversionTypes#toByteValue}.
+ */
+public final class ByteConverter extends NumberConverter<Byte> {
+
+	ByteConverter() {
+		super(Byte.class, (byte) 0);
+	}
+
+	@Override
+	public Byte convert(Number value) {
+		if (value instanceof Byte) {
+			return (Byte) value;
+		}
+		return Byte.valueOf(value.byteValue());
+	}
+
+	@Override
+	protected Byte parse(String text) throws NumberFormatException {
+		return Byte.valueOf(text);
+	}
+
+	/**
+	 * Converts the input value to a byte without boxing the result
+	 * 
+	 * @param value to convert
+	 * @param def value to return when conversion fails
+	 * @return converted value, or def on failure
+	 */
+	public byte convertByte(Object value, byte def) {
+		if (value instanceof Number) {
+			return ((Number) value).byteValue();
+		} else if (value == null) {
+			return def;
+		} else {
+			return convertByte(value.toString(), def);
+		}
+	}
+
+	/**
+	 * Parses the input text to a byte without boxing the result
+	 * 
+	 * @param text to parse
+	 * @param def value to return when parsing fails
+	 * @return parsed value, or def on failure
+	 */
+	public byte convertByte(String text, byte def) {
+		try {
+			return Byte.parseByte(ParseUtil.filterNumeric(text));
+		} catch (NumberFormatException ex) {
+			return def;
+		}
+	}
+}
@@ -47,6 +47,14 @@ public class ConversionTypes {
 	public static final PrimitiveConverter<Double> toDouble = PrimitiveConverter.toDouble;
 	public static final PrimitiveConverter<Boolean> toBool = PrimitiveConverter.toBool;
 	public static final PrimitiveConverter<Character> toChar = PrimitiveConverter.toChar;
+	// Primitives that do not box the converted value
+	public static final ByteConverter toByteValue = (ByteConverter) PrimitiveConverter.toByte;
+	public static final ShortConverter toShortValue = (ShortConverter) PrimitiveConverter.toShort;
+	public static final IntConverter toIntValue = (IntConverter) PrimitiveConverter.toInt;
+	public static final LongConverter toLongValue = (LongConverter) PrimitiveConverter.toLong;
+	public static final FloatConverter toFloatValue = (FloatConverter) PrimitiveConverter.toFloat;
+	public static final DoubleConverter toDoubleValue = (DoubleConverter) PrimitiveConverter.toDouble;
+	public static final BooleanConverter toBoolValue = (BooleanConverter) PrimitiveConverter.toBool;
 	// Arrays
 	public static final ObjectArrayConverter<ItemStack[]> toItemStackArr = ObjectArrayConverter.toItemStackArr;
 	public static final ObjectArrayConverter<Object[]> toItemStackHandleArr = ObjectArrayConverter.toItemStackHandleArr;
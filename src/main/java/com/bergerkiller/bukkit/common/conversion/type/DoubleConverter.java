@@ -0,0 +1,60 @@
+package com.bergerkiller.bukkit.common.conversion.type;
+
+import com.bergerkiller.bukkit.common.utils.ParseUtil;
+
+/**
+ * Converts to the primitive double type. Apart from the boxed Double conversion
+ * offered by all Converters, this converter can convert to a double value without boxing.
+ * The instance is available as {@link PrimitiveConverter#toDouble} and {@link ConversionTypes#toDoubleValue}.
+ */
+public final class DoubleConverter extends NumberConverter<Double> {
+
+	DoubleConverter() {
+		super(Double.class, 0.0);
+	}
+
+	@Override
+	public Double convert(Number value) {
+		if (value instanceof Double) {
+			return (Double) value;
+		}
+		return Double.valueOf(value.doubleValue());
+	}
+
+	@Override
+	protected Double parse(String text) throws NumberFormatException {
+		return Double.valueOf(text);
+	}
+
+	/**
+	 * Converts the input value to a double without boxing the result
+	 * 
+	 * @param value to convert
+	 * @param def value to return when conversion fails
+	 * @return converted value, or def on failure
+	 */
+	public double convertDouble(Object value, double def) {
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		} else if (value == null) {
+			return def;
+		} else {
+			return convertDouble(value.toString(), def);
+		}
+	}
+
+	/**
+	 * Parses the input text to a double without boxing the result
+	 * 
+	 * @param text to parse
+	 * @param def value to return when parsing fails
+	 * @return parsed value, or def on failure
+	 */
+	public double convertDouble(String text, double def) {
+		try {
+			return Double.parseDouble(ParseUtil.filterNumeric(text));
+		} catch (NumberFormatException ex) {
+			return def;
+		}
+	}
+}
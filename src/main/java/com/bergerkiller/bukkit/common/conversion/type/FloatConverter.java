@@ -0,0 +1,60 @@
+package com.bergerkiller.bukkit.common.conversion.type;
+
+import com.bergerkiller.bukkit.common.utils.ParseUtil;
+
+/**
+ * Converts to the primitive float type. Apart from the boxed Float conversion
+ * offered by all Converters, this converter can convert to a float value without boxing.
+ * The instance is available as {@link PrimitiveConverter#toFloat} and {@link ConversionTypes#toFloatValue}.
+ */
+public final class FloatConverter extends NumberConverter<Float> {
+
+	FloatConverter() {
+		super(Float.class, 0.0f);
+	}
+
+	@Override
+	public Float convert(Number value) {
+		if (value instanceof Float) {
+			return (Float) value;
+		}
+		return Float.valueOf(value.floatValue());
+	}
+
+	@Override
+	protected Float parse(String text) throws NumberFormatException {
+		return Float.valueOf(text);
+	}
+
+	/**
+	 * Converts the input value to a float without boxing the result
+	 * 
+	 * @param value to convert
+	 * @param def value to return when conversion fails
+	 * @return converted value, or def on failure
+	 */
+	public float convertFloat(Object value, float def) {
+		if (value instanceof Number) {
+			return ((Number) value).floatValue();
+		} else if (value == null) {
+			return def;
+		} else {
+			return convertFloat(value.toString(), def);
+		}
+	}
+
+	/**
+	 * Parses the input text to a float without boxing the result
+	 * 
+	 * @param text to parse
+	 * @param def value to return when parsing fails
+	 * @return parsed value, or def on failure
+	 */
+	public float convertFloat(String text, float def) {
+		try {
+			return Float.parseFloat(ParseUtil.filterNumeric(text));
+		} catch (NumberFormatException ex) {
+			return def;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.bergerkiller.bukkit.common.conversion.type;
+
+import com.bergerkiller.bukkit.common.utils.ParseUtil;
+
+/**
+ * Converts to the primitive int type. Apart from the boxed Integer conversion
+ * offered by all Converters, this converter can convert to an int value without boxing.
+ * The instance is available as {@link PrimitiveConverter#toInt} and {@link ConversionTypes#toIntValue}.
+ */
+public final class IntConverter extends NumberConverter<Integer> {
+
+	IntConverter() {
+		super(Integer.class, 0);
+	}
+
+	@Override
+	public Integer convert(Number value) {
+		if (value instanceof Integer) {
+			return (Integer) value;
+		}
+		return Integer.valueOf(value.intValue());
+	}
+
+	@Override
+	protected Integer parse(String text) throws NumberFormatException {
+		return Integer.valueOf(text);
+	}
+
+	/**
+	 * Converts the input value to an int without boxing the result
+	 * 
+	 * @param value to convert
+	 * @param def value to return when conversion fails
+	 * @return converted value, or def on failure
+	 */
+	public int convertInt(Object value, int def) {
+		if (value instanceof Number) {
+			return ((Number) value).intValue();
+		} else if (value == null) {
+			return def;
+		} else {
+			return convertInt(value.toString(), def);
+		}
+	}
+
+	/**
+	 * Parses the input text to an int without boxing the result
+	 * 
+	 * @param text to parse
+	 * @param def value to return when parsing fails
+	 * @return parsed value, or def on failure
+	 */
+	public int convertInt(String text, int def) {
+		try {
+			return Integer.parseInt(ParseUtil.filterNumeric(text));
+		} catch (NumberFormatException ex) {
+			return def;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.bergerkiller.bukkit.common.conversion.type;
+
+import com.bergerkiller.bukkit.common.utils.ParseUtil;
+
+/**
+ * Converts to the primitive long type. Apart from the boxed Long conversion
+ * offered by all Converters, this converter can convert to a long value without boxing.
+ * The instance is available as {@link PrimitiveConverter#toLong} and {@link ConversionTypes#toLongValue}.
+ */
+public final class LongConverter extends NumberConverter<Long> {
+
+	LongConverter() {
+		super(Long.class, 0L);
+	}
+
+	@Override
+	public Long convert(Number value) {
+		if (value instanceof Long) {
+			return (Long) value;
+		}
+		return Long.valueOf(value.longValue());
+	}
+
+	@Override
+	protected Long parse(String text) throws NumberFormatException {
+		return Long.valueOf(text);
+	}
+
+	/**
+	 * Converts the input value to a long without boxing the result
+	 * 
+	 * @param value to convert
+	 * @param def value to return when conversion fails
+	 * @return converted value, or def on failure
+	 */
+	public long convertLong(Object value, long def) {
+		if (value instanceof Number) {
+			return ((Number) value).longValue();
+		} else if (value == null) {
+			return def;
+		} else {
+			return convertLong(value.toString(), def);
+		}
+	}
+
+	/**
+	 * Parses the input text to a long without boxing the result
+	 * 
+	 * @param text to parse
+	 * @param def value to return when parsing fails
+	 * @return parsed value, or def on failure
+	 */
+	public long convertLong(String text, long def) {
+		try {
+			return Long.parseLong(ParseUtil.filterNumeric(text));
+		} catch (NumberFormatException ex) {
+			return def;
+		}
+	}
+}
@@ -7,7 +7,6 @@ import net.minecraft.server.WorldType;
 
 import com.bergerkiller.bukkit.common.conversion.BasicConverter;
 import com.bergerkiller.bukkit.common.utils.LogicUtil;
-import com.bergerkiller.bukkit.common.utils.ParseUtil;
 
 /**
  * Base class for a type converter that deals with primitives that can not be null
@@ -15,100 +14,13 @@ import com.bergerkiller.bukkit.common.utils.ParseUtil;
  * @param <T> - type of primitive (boxed type)
  */
 public abstract class PrimitiveConverter<T> extends BasicConverter<T> {
-	public static final NumberConverter<Byte> toByte = new NumberConverter<Byte>(Byte.class, (byte) 0) {
-		@Override
-		public Byte convert(Number value) {
-			if (value instanceof Byte) {
-				return (Byte) value;
-			}
-			return Byte.valueOf(value.byteValue());
-		}
-
-		@Override
-		protected Byte parse(String text) throws NumberFormatException {
-			return Byte.valueOf(text);
-		}
-	};
-	public static final NumberConverter<Short> toShort = new NumberConverter<Short>(Short.class, (short) 0) {
-		@Override
-		public Short convert(Number value) {
-			if (value instanceof Short) {
-				return (Short) value;
-			}
-			return Short.valueOf(value.shortValue());
-		}
-
-		@Override
-		protected Short parse(String text) throws NumberFormatException {
-			return Short.valueOf(text);
-		}
-	};
-	public static final NumberConverter<Integer> toInt = new NumberConverter<Integer>(Integer.class, 0) {
-		@Override
-		public Integer convert(Number value) {
-			if (value instanceof Integer) {
-				return (Integer) value;
-			}
-			return Integer.valueOf(value.intValue());
-		}
-
-		@Override
-		protected Integer parse(String text) throws NumberFormatException {
-			return Integer.valueOf(text);
-		}
-	};
-	public static final NumberConverter<Long> toLong = new NumberConverter<Long>(Long.class, (long) 0) {
-		@Override
-		public Long convert(Number value) {
-			if (value instanceof Long) {
-				return (Long) value;
-			}
-			return Long.valueOf(value.longValue());
-		}
-
-		@Override
-		protected Long parse(String text) throws NumberFormatException {
-			return Long.valueOf(text);
-		}
-	};
-	public static final NumberConverter<Float> toFloat = new NumberConverter<Float>(Float.class, 0.0f) {
-		@Override
-		public Float convert(Number value) {
-			if (value instanceof Float) {
-				return (Float) value;
-			}
-			return Float.valueOf(value.floatValue());
-		}
-
-		@Override
-		protected Float parse(String text) throws NumberFormatException {
-			return Float.valueOf(text);
-		}
-	};
-	public static final NumberConverter<Double> toDouble = new NumberConverter<Double>(Double.class, 0.0) {
-		@Override
-		public Double convert(Number value) {
-			if (value instanceof Double) {
-				return (Double) value;
-			}
-			return Double.valueOf(value.doubleValue());
-		}
-
-		@Override
-		protected Double parse(String text) throws NumberFormatException {
-			return Double.valueOf(text);
-		}
-	};
-	public static final PrimitiveConverter<Boolean> toBool = new PrimitiveConverter<Boolean>(Boolean.class, false) {
-		@Override
-		public Boolean convertSpecial(Object value, Class<?> valueType, Boolean def) {
-			if (value instanceof Number) {
-				return ((Number) value).doubleValue() != 0.0;
-			} else {
-				return ParseUtil.parseBool(value.toString(), def);
-			}
-		}
-	};
+	public static final NumberConverter<Byte> toByte = new ByteConverter();
+	public static final NumberConverter<Short> toShort = new ShortConverter();
+	public static final NumberConverter<Integer> toInt = new IntConverter();
+	public static final NumberConverter<Long> toLong = new LongConverter();
+	public static final NumberConverter<Float> toFloat = new FloatConverter();
+	public static final NumberConverter<Double> toDouble = new DoubleConverter();
+	public static final PrimitiveConverter<Boolean> toBool = new BooleanConverter();
 	public static final PrimitiveConverter<Character> toChar = new PrimitiveConverter<Character>(Character.class, '\0') {
 		@Override
 		public Character convertSpecial(Object value, Class<?> valueType, Character def) {
@@ -0,0 +1,60 @@
+package com.bergerkiller.bukkit.common.conversion.type;
+
+import com.bergerkiller.bukkit.common.utils.ParseUtil;
+
+/**
+ * Converts to the primitive short type. Apart from the boxed Short conversion
+ * offered by all Converters, this converter can convert to a short value without boxing.
+ * The instance is available as {@link PrimitiveConverter#toShort} and {@link ConversionTypes#toShortValue}.
+ */
+public final class ShortConverter extends NumberConverter<Short> {
+
+	ShortConverter() {
+		super(Short.class, (short) 0);
+	}
+
+	@Override
+	public Short convert(Number value) {
+		if (value instanceof Short) {
+			return (Short) value;
+		}
+		return Short.valueOf(value.shortValue());
+	}
+
+	@Override
+	protected Short parse(String text) throws NumberFormatException {
+		return Short.valueOf(text);
+	}
+
+	/**
+	 * Converts the input value to a short without boxing the result
+	 * 
+	 * @param value to convert
+	 * @param def value to return when conversion fails
+	 * @return converted value, or def on failure
+	 */
+	public short convertShort(Object value, short def) {
+		if (value instanceof Number) {
+			return ((Number) value).shortValue();
+		} else if (value == null) {
+			return def;
+		} else {
+			return convertShort(value.toString(), def);
+		}
+	}
+
+	/**
+	 * Parses the input text to a short without boxing the result
+	 * 
+	 * @param text to parse
+	 * @param def value to return when parsing fails
+	 * @return parsed value, or def on failure
+	 */
+	public short convertShort(String text, short def) {
+		try {
+			return Short.parseShort(ParseUtil.filterNumeric(text));
+		} catch (NumberFormatException ex) {
+			return def;
+		}
+	}
+}
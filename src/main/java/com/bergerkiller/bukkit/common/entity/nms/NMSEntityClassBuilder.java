@@ -44,7 +44,7 @@ public class NMSEntityClassBuilder extends ClassBuilder {
 	 * 
 	 * @return new Entiy instance
 	 */
-	public synchronized Object create(CommonEntity<?> entity, Object... args) {
+	public Object create(CommonEntity<?> entity, Object... args) {
 		// Prepare new Callback instances
 		List<Object> instances = new ArrayList<Object>(callbackConstructors.size());
 		for (Constructor<?> callbackConstructor : callbackConstructors) {
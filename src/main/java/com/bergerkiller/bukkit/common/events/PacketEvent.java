@@ -19,6 +19,29 @@ public abstract class PacketEvent implements Cancellable {
 		this.packet = packet;
 	}
 
+	/**
+	 * Changes the player and packet of this event and resets the cancelled state.
+	 * Used when re-using event instances while dispatching packet events.
+	 * 
+	 * @param player to set to
+	 * @param packet to set to
+	 */
+	protected void reset(Player player, CommonPacket packet) {
+		this.player = player;
+		this.packet = packet;
+		this.cancelled = false;
+	}
+
+	/**
+	 * Prevents this event and the packet it holds from being re-used after the listener returns.
+	 * Events passed to {@link com.bergerkiller.bukkit.common.protocol.PacketListener PacketListeners}
+	 * are re-used for the next packet handled on the same thread. If a reference to the event or
+	 * its packet is kept after the listener method returns, this method has to be called first.
+	 */
+	public void retain() {
+		this.packet.retain();
+	}
+
 	@Override
 	public boolean isCancelled() {
 		return this.cancelled;
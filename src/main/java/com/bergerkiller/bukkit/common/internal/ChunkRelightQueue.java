@@ -0,0 +1,103 @@
+package com.bergerkiller.bukkit.common.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.minecraft.server.Chunk;
+import net.minecraft.server.ChunkSection;
+import net.minecraft.server.World;
+
+import com.bergerkiller.bukkit.common.reflection.classes.ChunkRef;
+import com.bergerkiller.bukkit.common.reflection.classes.ChunkSectionRef;
+
+/**
+ * Relights the chunk sections changed by the bulk section methods of ChunkUtil.
+ * Sections are queued while they are changed, and every queued chunk is relit only once
+ * the next tick, no matter how many of its sections were changed.
+ * Should only be used from the main thread.
+ */
+public class ChunkRelightQueue {
+	private static final int FACE_MIN = 0;
+	private static final int FACE_MAX = 15;
+	/*
+	 * Maps chunk handles to a bit mask of the section indices that changed
+	 */
+	private static final Map<Object, Integer> queue = new LinkedHashMap<Object, Integer>();
+
+	/**
+	 * Queues a section of a chunk for relighting
+	 *
+	 * @param chunkHandle of the chunk
+	 * @param sectionY - index of the section (block y >> 4)
+	 */
+	public static void schedule(Object chunkHandle, int sectionY) {
+		final Integer mask = queue.get(chunkHandle);
+		queue.put(chunkHandle, (mask == null ? 0 : mask.intValue()) | (1 << sectionY));
+	}
+
+	/**
+	 * Relights all queued chunks and clears the queue.
+	 * For every chunk the height map and sky light are recalculated once, after which the block light
+	 * of the changed sections is updated.
+	 */
+	public static void relightAll() {
+		if (queue.isEmpty()) {
+			return;
+		}
+		final Object[] chunks = queue.keySet().toArray();
+		final Integer[] masks = queue.values().toArray(new Integer[0]);
+		queue.clear();
+		for (int i = 0; i < chunks.length; i++) {
+			final Chunk chunk = (Chunk) chunks[i];
+			if (!isLoaded(chunk)) {
+				continue;
+			}
+			ChunkRef.initLighting(chunk);
+			final ChunkSection[] sections = chunk.getSections();
+			final int mask = masks[i].intValue();
+			for (int sectionY = 0; sectionY < sections.length; sectionY++) {
+				if ((mask & (1 << sectionY)) != 0 && sections[sectionY] != null) {
+					relightBlockLight(chunk, sections[sectionY], sectionY);
+				}
+			}
+		}
+	}
+
+	private static boolean isLoaded(Chunk chunk) {
+		final World world = chunk.world;
+		return world.chunkProvider.isChunkLoaded(chunk.locX, chunk.locZ) && world.getChunkAt(chunk.locX, chunk.locZ) == chunk;
+	}
+
+	/**
+	 * Checks the block light of all blocks in a section that emit or hold light, and of the blocks
+	 * on the faces of the section, so light coming in from neighbouring sections spreads as well
+	 */
+	private static void relightBlockLight(Chunk chunk, ChunkSection section, int sectionY) {
+		final World world = chunk.world;
+		final byte[] blockLight = ChunkSectionRef.getBlockLightArray(section);
+		final int baseX = chunk.locX << 4;
+		final int baseY = sectionY << 4;
+		final int baseZ = chunk.locZ << 4;
+		for (int y = 0; y < 16; y++) {
+			for (int z = 0; z < 16; z++) {
+				for (int x = 0; x < 16; x++) {
+					if (ChunkSectionRef.getNibble(blockLight, ChunkSectionRef.getIndex(x, y, z)) != 0
+							|| section.getTypeId(x, y, z).m() != 0 || isOnFace(x, y, z)) {
+						world.z(baseX + x, baseY + y, baseZ + z);
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean isOnFace(int x, int y, int z) {
+		return x == FACE_MIN || x == FACE_MAX || y == FACE_MIN || y == FACE_MAX || z == FACE_MIN || z == FACE_MAX;
+	}
+
+	/**
+	 * Clears the queue without relighting
+	 */
+	public static void clear() {
+		queue.clear();
+	}
+}
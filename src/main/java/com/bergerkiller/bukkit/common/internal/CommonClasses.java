@@ -1,14 +1,36 @@
 package com.bergerkiller.bukkit.common.internal;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
 import com.bergerkiller.bukkit.common.Common;
+import com.bergerkiller.bukkit.common.utils.CommonUtil;
 
 class CommonClasses {
+	private static final List<String> preloadPaths = new ArrayList<String>();
+
 	/* 
 	 * In here we pre-load several classes to prevent unexpected ClassNotFound exceptions
 	 * This is required, as someone might be calling one of our classes from the main server thread
 	 * Then the main server thread class loader is used, which is unable to find (our) net.minecraft.server references
 	 */
 	public static void init() {
+		// Resolve the server classes used by the reflection classes in one parallel pass
+		preloadNMS("Block", "Chunk", "ChunkProviderServer", "ChunkRegionLoader", "ChunkSection", "DataWatcher", "Entity", "EntityHuman");
+		preloadNMS("EntityInsentient", "EntityItem", "EntityLiving", "EntityPlayer", "EntityTracker", "EntityTrackerEntry", "EntityTypes");
+		preloadNMS("EnumGamemode", "EnumProtocol", "IChunkProvider", "IntHashMap", "IRecipe", "ItemStack", "LongHashMap", "LongHashMapEntry");
+		preloadNMS("MobEffect", "MobSpawnerAbstract", "NBTBase", "NBTCompressedStreamTools", "NBTTagCompound", "NBTTagList", "NetworkManager");
+		preloadNMS("NibbleArray", "PlayerAbilities", "PlayerChunk", "PlayerChunkMap", "PlayerConnection", "RegionFile", "RegionFileCache");
+		preloadNMS("ShapedRecipes", "ShapelessRecipes", "TileEntity", "WatchableObject", "World", "WorldProvider", "WorldServer", "WorldType");
+		preloadCB("CraftServer", "block.CraftBlockState", "chunkio.ChunkIOExecutor", "entity.CraftEntity", "scheduler.CraftScheduler");
+		preloadCB("scheduler.CraftTask", "util.AsynchronousExecutor", "util.LongHashSet");
+		final long preloadTime = CommonUtil.preloadClasses(preloadPaths);
+		CommonPlugin.LOGGER_REFLECTION.log(Level.INFO, "Resolved " + preloadPaths.size() + " server classes in " + 
+				TimeUnit.NANOSECONDS.toMillis(preloadTime) + "ms");
+		preloadPaths.clear();
+
 		// Converter types
 		loadConverter("Collection", "CollectionType", "Empty", "Entry", "Enum", "Handle", "Number", "ObjectArray");
 		loadConverter("PrimitiveArray", "Primitive", "Property", "Wrapper", "WrapperHandle");
@@ -31,6 +53,18 @@ class CommonClasses {
 		loadCommon("protocol.PacketType");
 	}
 
+	private static void preloadNMS(String... classNames) {
+		for (String className : classNames) {
+			preloadPaths.add(Common.NMS_ROOT + "." + className);
+		}
+	}
+
+	private static void preloadCB(String... classNames) {
+		for (String className : classNames) {
+			preloadPaths.add(Common.CB_ROOT + "." + className);
+		}
+	}
+
 	private static void loadConverter(String... classNames) {
 		for (int i = 0; i < classNames.length; i++) {
 			classNames[i] = "conversion.type." + classNames[i] + "Converter";
@@ -20,9 +20,11 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.SignChangeEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerInteractEntityEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.event.server.PluginDisableEvent;
 import org.bukkit.event.server.PluginEnableEvent;
 import org.bukkit.event.vehicle.VehicleEnterEvent;
@@ -36,6 +38,8 @@ import com.bergerkiller.bukkit.common.Task;
 import com.bergerkiller.bukkit.common.collections.EntityMap;
 import com.bergerkiller.bukkit.common.conversion.Conversion;
 import com.bergerkiller.bukkit.common.entity.nms.NMSEntityHook;
+import com.bergerkiller.bukkit.common.internal.network.NetworkMetrics;
+import com.bergerkiller.bukkit.common.internal.network.PacketSendBuffer;
 import com.bergerkiller.bukkit.common.events.CreaturePreSpawnEvent;
 import com.bergerkiller.bukkit.common.reflection.MethodAccessor;
 import com.bergerkiller.bukkit.common.reflection.SafeMethod;
@@ -80,6 +84,7 @@ class CommonListener implements Listener {
 		if (listener != null) {
 			listener.disable();
 		}
+		CommonPlugin.getInstance().getPlayerChunkIndex().remove(event.getWorld());
 	}
 
 	@EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
@@ -100,12 +105,28 @@ class CommonListener implements Listener {
 	@EventHandler(priority = EventPriority.MONITOR)
 	private void onPlayerQuit(PlayerQuitEvent event) {
 		CommonScoreboard.removePlayer(event.getPlayer());
+		CommonPlugin.getInstance().getPlayerChunkIndex().remove(event.getPlayer());
+		PacketSendBuffer.unbind(event.getPlayer());
+		NetworkMetrics.remove(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	private void onPlayerTeleport(PlayerTeleportEvent event) {
+		// Register at the destination right away, instead of at the next tick
+		CommonPlugin.getInstance().getPlayerChunkIndex().update(event.getPlayer(), event.getTo());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	private void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+		CommonPlugin.getInstance().getPlayerChunkIndex().update(event.getPlayer(), event.getPlayer().getLocation());
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR)
 	private void onPlayerJoin(PlayerJoinEvent event) {
 		Player player = event.getPlayer();
 		CommonPlugin.getInstance().getPacketHandler().onPlayerJoin(player);
+		NetworkMetrics.add(player);
+		CommonPlugin.getInstance().getPlayerChunkIndex().update(player, player.getLocation());
 
 		// Scoreboard team init
 		CommonTeam team = CommonScoreboard.get(player).getTeam();
@@ -24,6 +24,7 @@ import org.bukkit.generator.BlockPopulator;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import com.bergerkiller.bukkit.common.ChunkLoadFuture;
 import com.bergerkiller.bukkit.common.Common;
 import com.bergerkiller.bukkit.common.MessageBuilder;
 import com.bergerkiller.bukkit.common.ModuleLogger;
@@ -35,6 +36,8 @@ import com.bergerkiller.bukkit.common.entity.CommonEntity;
 import com.bergerkiller.bukkit.common.events.CommonEventFactory;
 import com.bergerkiller.bukkit.common.events.EntityRemoveFromServerEvent;
 import com.bergerkiller.bukkit.common.internal.network.CommonPacketHandler;
+import com.bergerkiller.bukkit.common.internal.network.NetworkMetrics;
+import com.bergerkiller.bukkit.common.internal.network.PacketSendBuffer;
 import com.bergerkiller.bukkit.common.internal.network.ProtocolLibPacketHandler;
 import com.bergerkiller.bukkit.common.metrics.MyDependingPluginsGraph;
 import com.bergerkiller.bukkit.common.metrics.SoftDependenciesGraph;
@@ -75,6 +78,7 @@ public class CommonPlugin extends PluginBase {
 	private final HashSet<org.bukkit.entity.Entity> entitiesToRemove = new HashSet<org.bukkit.entity.Entity>();
 	private final HashMap<String, TypedValue> debugVariables = new HashMap<String, TypedValue>();
 	private CommonEventFactory eventFactory;
+	private final PlayerChunkIndex playerChunkIndex = new PlayerChunkIndex();
 	private boolean isServerStarted = false;
 	private PacketHandler packetHandler = null;
 	private PermissionHandler permissionHandler = null;
@@ -231,6 +235,15 @@ public class CommonPlugin extends PluginBase {
 		return eventFactory;
 	}
 
+	/**
+	 * Obtains the index of the players near every chunk, used when broadcasting packets
+	 * 
+	 * @return player chunk index
+	 */
+	public PlayerChunkIndex getPlayerChunkIndex() {
+		return playerChunkIndex;
+	}
+
 	/**
 	 * Obtains the Packet Handler used for packet listeners/monitors and packet sending
 	 * 
@@ -329,6 +342,12 @@ public class CommonPlugin extends PluginBase {
 			task.stop();
 		}
 		startedTasks.clear();
+		playerChunkIndex.clear();
+		PacketSendBuffer.stopFlushing();
+		PacketSendBuffer.unbindAll();
+		NetworkMetrics.reset();
+		ChunkLoadFuture.cancelAll();
+		ChunkRelightQueue.relightAll();
 
 		// Disable the packet handlers
 		try {
@@ -433,6 +452,10 @@ public class CommonPlugin extends PluginBase {
 		startedTasks.add(new MoveEventHandler(this).start(1, 1));
 		startedTasks.add(new EntityRemovalHandler(this).start(1, 1));
 		startedTasks.add(new TabUpdater(this).start(1, 1));
+		startedTasks.add(new ChunkLoadHandler(this).start(1, 1));
+		startedTasks.add(new ChunkRelightHandler(this).start(1, 1));
+		startedTasks.add(new NetworkMetricsSampler(this).start(NetworkMetrics.SAMPLE_INTERVAL, NetworkMetrics.SAMPLE_INTERVAL));
+		PacketSendBuffer.startFlushing();
 
 		// Operations to execute the next tick (when the server has started)
 		CommonUtil.nextTick(new Runnable() {
@@ -517,6 +540,41 @@ public class CommonPlugin extends PluginBase {
 		}
 	}
 
+	private static class ChunkLoadHandler extends Task {
+		public ChunkLoadHandler(JavaPlugin plugin) {
+			super(plugin);
+		}
+
+		@Override
+		public void run() {
+			ChunkLoadFuture.tickAll();
+		}
+	}
+
+	private static class ChunkRelightHandler extends Task {
+		public ChunkRelightHandler(JavaPlugin plugin) {
+			super(plugin);
+		}
+
+		@Override
+		public void run() {
+			ChunkRelightQueue.relightAll();
+		}
+	}
+
+	private static class NetworkMetricsSampler extends Task {
+		public NetworkMetricsSampler(JavaPlugin plugin) {
+			super(plugin);
+		}
+
+		@Override
+		public void run() {
+			if (NetworkMetrics.isEnabled()) {
+				NetworkMetrics.sample();
+			}
+		}
+	}
+
 	private static class EntityRemovalHandler extends Task {
 		public EntityRemovalHandler(JavaPlugin plugin) {
 			super(plugin);
@@ -601,6 +659,7 @@ public class CommonPlugin extends PluginBase {
 
 		@Override
 		public void run() {
+			CommonPlugin.getInstance().getPlayerChunkIndex().update();
 			CommonPlugin.getInstance().getEventFactory().handleEntityMove();
 		}
 	}
@@ -0,0 +1,198 @@
+package com.bergerkiller.bukkit.common.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import com.bergerkiller.bukkit.common.utils.CommonUtil;
+import com.bergerkiller.bukkit.common.utils.EntityUtil;
+import com.bergerkiller.bukkit.common.utils.LogicUtil;
+import com.bergerkiller.bukkit.common.utils.MathUtil;
+import com.bergerkiller.bukkit.common.utils.WorldUtil;
+
+/**
+ * Keeps track of the players that are near every chunk of every world.
+ * Every player is registered in all chunks within {@link #RADIUS} of the chunk the player is in,
+ * so looking up the players near a chunk is a single map look-up. Positions are refreshed
+ * every tick, and right away when a player joins, teleports or changes world.
+ * Registrations only change when a player moves to another chunk or world.<br><br>
+ *
+ * The index is only changed on the main thread. Chunks store immutable arrays of players in
+ * concurrent maps, so {@link #getNearbyPlayers(World, int, int)} can be called from any thread,
+ * and the returned players can be safely iterated while players move.
+ */
+public class PlayerChunkIndex {
+	/**
+	 * Chunk radius around a player in which it is registered. This covers both the chunk view distance
+	 * and the block view distance used when broadcasting packets.
+	 */
+	public static final int RADIUS = MathUtil.toChunk(CommonUtil.BLOCKVIEW) + 1;
+	private static final Player[] NO_PLAYERS = new Player[0];
+	private final Map<World, Map<Long, Player[]>> grids = new ConcurrentHashMap<World, Map<Long, Player[]>>();
+	private final Map<Player, Position> positions = new HashMap<Player, Position>();
+
+	/**
+	 * Gets all players that are registered near a chunk. This includes all players that
+	 * can see the chunk, and possibly players slightly further away.
+	 *
+	 * @param world the chunk is in
+	 * @param chunkX of the chunk
+	 * @param chunkZ of the chunk
+	 * @return players near the chunk (do not modify)
+	 */
+	public Player[] getNearbyPlayers(World world, int chunkX, int chunkZ) {
+		final Map<Long, Player[]> grid = grids.get(world);
+		if (grid == null) {
+			return NO_PLAYERS;
+		}
+		return LogicUtil.fixNull(grid.get(MathUtil.longHashToLong(chunkX, chunkZ)), NO_PLAYERS);
+	}
+
+	/**
+	 * Refreshes the positions of all players on the server
+	 */
+	public void update() {
+		for (World world : WorldUtil.getWorlds()) {
+			for (Player player : WorldUtil.getPlayers(world)) {
+				update(player, world, MathUtil.toChunk(EntityUtil.getLocX(player)), MathUtil.toChunk(EntityUtil.getLocZ(player)));
+			}
+		}
+	}
+
+	/**
+	 * Refreshes the position of a single player right away, for example when the player is teleported.
+	 * Players that are not registered yet are added.
+	 *
+	 * @param player to refresh
+	 * @param location the player is at, or is about to be moved to
+	 */
+	public void update(Player player, Location location) {
+		update(player, location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
+	}
+
+	private void update(Player player, World world, int chunkX, int chunkZ) {
+		Position position = positions.get(player);
+		if (position == null) {
+			positions.put(player, position = new Position());
+		} else if (position.world == world && position.chunkX == chunkX && position.chunkZ == chunkZ) {
+			return;
+		}
+		final Map<Long, Player[]> oldGrid = (position.world == null) ? null : grids.get(position.world);
+		Map<Long, Player[]> newGrid = grids.get(world);
+		if (newGrid == null) {
+			grids.put(world, newGrid = new ConcurrentHashMap<Long, Player[]>());
+		}
+		final boolean sameGrid = (oldGrid == newGrid);
+
+		// Unregister from the chunks that are no longer near
+		if (oldGrid != null) {
+			for (int cx = position.chunkX - RADIUS; cx <= position.chunkX + RADIUS; cx++) {
+				for (int cz = position.chunkZ - RADIUS; cz <= position.chunkZ + RADIUS; cz++) {
+					if (!sameGrid || !isNear(cx, cz, chunkX, chunkZ)) {
+						removeFromCell(oldGrid, cx, cz, player);
+					}
+				}
+			}
+		}
+
+		// Register in the chunks that are newly near
+		for (int cx = chunkX - RADIUS; cx <= chunkX + RADIUS; cx++) {
+			for (int cz = chunkZ - RADIUS; cz <= chunkZ + RADIUS; cz++) {
+				if (!sameGrid || !isNear(cx, cz, position.chunkX, position.chunkZ)) {
+					addToCell(newGrid, cx, cz, player);
+				}
+			}
+		}
+
+		position.world = world;
+		position.chunkX = chunkX;
+		position.chunkZ = chunkZ;
+	}
+
+	/**
+	 * Removes a player from this index
+	 *
+	 * @param player to remove
+	 */
+	public void remove(Player player) {
+		final Position position = positions.remove(player);
+		if (position == null) {
+			return;
+		}
+		final Map<Long, Player[]> grid = (position.world == null) ? null : grids.get(position.world);
+		if (grid == null) {
+			return;
+		}
+		for (int cx = position.chunkX - RADIUS; cx <= position.chunkX + RADIUS; cx++) {
+			for (int cz = position.chunkZ - RADIUS; cz <= position.chunkZ + RADIUS; cz++) {
+				removeFromCell(grid, cx, cz, player);
+			}
+		}
+	}
+
+	/**
+	 * Removes all players registered in a world from this index
+	 *
+	 * @param world to remove
+	 */
+	public void remove(World world) {
+		grids.remove(world);
+		for (Position position : positions.values()) {
+			if (position.world == world) {
+				position.world = null;
+			}
+		}
+	}
+
+	/**
+	 * Removes all players and worlds from this index
+	 */
+	public void clear() {
+		grids.clear();
+		positions.clear();
+	}
+
+	private static boolean isNear(int cx, int cz, int centerX, int centerZ) {
+		return Math.abs(cx - centerX) <= RADIUS && Math.abs(cz - centerZ) <= RADIUS;
+	}
+
+	private static void addToCell(Map<Long, Player[]> grid, int cx, int cz, Player player) {
+		final long key = MathUtil.longHashToLong(cx, cz);
+		final Player[] players = grid.get(key);
+		if (players == null) {
+			grid.put(key, new Player[] {player});
+		} else {
+			grid.put(key, LogicUtil.appendArray(players, player));
+		}
+	}
+
+	private static void removeFromCell(Map<Long, Player[]> grid, int cx, int cz, Player player) {
+		final long key = MathUtil.longHashToLong(cx, cz);
+		final Player[] players = grid.get(key);
+		if (players == null) {
+			return;
+		}
+		for (int i = 0; i < players.length; i++) {
+			if (players[i] == player) {
+				if (players.length == 1) {
+					grid.remove(key);
+				} else {
+					final Player[] newPlayers = new Player[players.length - 1];
+					System.arraycopy(players, 0, newPlayers, 0, i);
+					System.arraycopy(players, i + 1, newPlayers, i, newPlayers.length - i);
+					grid.put(key, newPlayers);
+				}
+				return;
+			}
+		}
+	}
+
+	private static class Position {
+		public World world;
+		public int chunkX, chunkZ;
+	}
+}
@@ -142,7 +142,11 @@ public class CommonPacketHandler extends PacketHandlerHooked {
 		private final Player player;
 		
 		public CommonChannelListener(Player player) {
-			this.handler = (PacketHandlerHooked) CommonPlugin.getInstance().getPacketHandler();
+			this((PacketHandlerHooked) CommonPlugin.getInstance().getPacketHandler(), player);
+		}
+
+		public CommonChannelListener(PacketHandlerHooked handler, Player player) {
+			this.handler = handler;
 			this.player = player;
 		}
 		
@@ -0,0 +1,325 @@
+package com.bergerkiller.bukkit.common.internal.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.entity.Player;
+
+import com.bergerkiller.bukkit.common.conversion.Conversion;
+import com.bergerkiller.bukkit.common.protocol.ConnectionStatistics;
+import com.bergerkiller.bukkit.common.protocol.PacketType;
+import com.bergerkiller.bukkit.common.protocol.PacketTypeStatistics;
+import com.bergerkiller.bukkit.common.reflection.classes.EntityPlayerRef;
+import com.bergerkiller.bukkit.common.reflection.classes.NetworkManagerRef;
+import com.bergerkiller.bukkit.common.reflection.classes.PlayerConnectionRef;
+import com.bergerkiller.bukkit.common.utils.CommonUtil;
+
+/**
+ * Keeps track of network statistics per packet type and per player connection.
+ * Metrics are disabled by default; while disabled, the packet handlers only perform a single
+ * volatile read per packet. While enabled, every packet updates a few atomic counters, and the
+ * queues of all connections are sampled once every {@link #SAMPLE_INTERVAL} ticks.<br><br>
+ *
+ * The metrics of a player connection are only added and removed on the main thread, when the player
+ * joins or quits and while sampling. The network threads only look them up, so packets handled for a
+ * player that already quit do not add the player again.
+ */
+public class NetworkMetrics {
+	/**
+	 * The interval in ticks at which the connection queues are sampled
+	 */
+	public static final int SAMPLE_INTERVAL = 20;
+	/**
+	 * The amount of recent samples covered by the connection histograms
+	 */
+	public static final int HISTOGRAM_WINDOW = 60;
+	private static final TypeCounters[] NO_COUNTERS = new TypeCounters[0];
+	private static final Map<Player, ConnectionCounters> connections = new ConcurrentHashMap<Player, ConnectionCounters>();
+	private static volatile TypeCounters[] typeCounters = NO_COUNTERS;
+	private static volatile boolean enabled = false;
+
+	/**
+	 * Gets whether network metrics are being recorded
+	 *
+	 * @return True if enabled, False if not
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Sets whether network metrics are being recorded
+	 *
+	 * @param enabled state to set to
+	 */
+	public static void setEnabled(boolean enabled) {
+		NetworkMetrics.enabled = enabled;
+	}
+
+	/**
+	 * Clears all metrics recorded so far
+	 */
+	public static synchronized void reset() {
+		typeCounters = NO_COUNTERS;
+		connections.clear();
+	}
+
+	/**
+	 * Starts recording the metrics of a player connection, if not already recorded.
+	 * Should only be called on the main thread, for players that are online.
+	 *
+	 * @param player to add
+	 */
+	public static void add(Player player) {
+		addConnection(player);
+	}
+
+	/**
+	 * Removes the metrics of a player connection
+	 *
+	 * @param player to remove
+	 */
+	public static void remove(Player player) {
+		connections.remove(player);
+	}
+
+	/**
+	 * Records a packet that is sent to a player
+	 *
+	 * @param player the packet is sent to
+	 * @param type of packet
+	 * @param packet handle
+	 */
+	public static void onPacketSent(Player player, PacketType type, Object packet) {
+		final int size = type.getPacketSize(packet);
+		final TypeCounters counters = getCounters(type);
+		counters.packetsSent.incrementAndGet();
+		counters.bytesSent.addAndGet(size);
+		final ConnectionCounters connection = connections.get(player);
+		if (connection != null) {
+			connection.packetsSent.incrementAndGet();
+			connection.bytesSent.addAndGet(size);
+		}
+	}
+
+	/**
+	 * Records a packet that is received from a player
+	 *
+	 * @param player the packet is received from
+	 * @param type of packet
+	 * @param packet handle
+	 */
+	public static void onPacketReceived(Player player, PacketType type, Object packet) {
+		final int size = type.getPacketSize(packet);
+		final TypeCounters counters = getCounters(type);
+		counters.packetsReceived.incrementAndGet();
+		counters.bytesReceived.addAndGet(size);
+		final ConnectionCounters connection = connections.get(player);
+		if (connection != null) {
+			connection.packetsReceived.incrementAndGet();
+			connection.bytesReceived.addAndGet(size);
+		}
+	}
+
+	/**
+	 * Records the time spent by packet listeners and monitors handling a packet
+	 *
+	 * @param type of packet
+	 * @param nanos spent handling the packet
+	 */
+	public static void onListenerTime(PacketType type, long nanos) {
+		getCounters(type).listenerTime.addAndGet(nanos);
+	}
+
+	/**
+	 * Samples the queue length and pending bytes of all player connections.
+	 * Must be called on the main thread, players online that have no metrics yet are added.
+	 */
+	public static void sample() {
+		for (Player player : CommonUtil.getOnlinePlayers()) {
+			final Object playerHandle = Conversion.toEntityHandle.convert(player);
+			if (!EntityPlayerRef.TEMPLATE.isInstance(playerHandle)) {
+				continue;
+			}
+			final Object playerConnection = EntityPlayerRef.playerConnection.get(playerHandle);
+			if (playerConnection == null) {
+				continue;
+			}
+			final Object nm = PlayerConnectionRef.networkManager.get(playerConnection);
+			if (!NetworkManagerRef.TEMPLATE.isInstance(nm)) {
+				continue;
+			}
+			final ConnectionCounters connection = addConnection(player);
+			int queueLength = 0;
+			long pendingBytes = 0;
+			for (Collection<Object> queue : Arrays.asList(NetworkManagerRef.lowPriorityQueue.get(nm), NetworkManagerRef.highPriorityQueue.get(nm))) {
+				if (queue != null) {
+					for (Object queued : queue) {
+						queueLength++;
+						pendingBytes += PacketHandlerHooked.getQueuedSize(queued);
+					}
+				}
+			}
+			connection.sample(queueLength, pendingBytes);
+		}
+	}
+
+	/**
+	 * Gets the statistics recorded for a single packet type
+	 *
+	 * @param type of packet
+	 * @return packet type statistics
+	 */
+	public static PacketTypeStatistics getTypeStatistics(PacketType type) {
+		final TypeCounters[] table = typeCounters;
+		final int ordinal = type.getOrdinal();
+		if (ordinal >= table.length || table[ordinal] == null) {
+			return new PacketTypeStatistics(type, 0, 0, 0, 0, 0);
+		}
+		return table[ordinal].snapshot();
+	}
+
+	/**
+	 * Gets the statistics of all packet types for which packets were recorded,
+	 * sorted by the amount of bytes sent and received, largest first
+	 *
+	 * @return packet type statistics
+	 */
+	public static List<PacketTypeStatistics> getTypeStatistics() {
+		List<PacketTypeStatistics> stats = new ArrayList<PacketTypeStatistics>();
+		for (TypeCounters counters : typeCounters) {
+			if (counters != null) {
+				stats.add(counters.snapshot());
+			}
+		}
+		Collections.sort(stats, PacketTypeStatistics.BY_BYTES);
+		return stats;
+	}
+
+	/**
+	 * Gets the statistics recorded for a single player connection
+	 *
+	 * @param player to get the statistics of
+	 * @return connection statistics, or null if none were recorded
+	 */
+	public static ConnectionStatistics getConnectionStatistics(Player player) {
+		final ConnectionCounters connection = connections.get(player);
+		return connection == null ? null : connection.snapshot();
+	}
+
+	private static TypeCounters getCounters(PacketType type) {
+		final int ordinal = type.getOrdinal();
+		final TypeCounters[] table = typeCounters;
+		if (ordinal < table.length && table[ordinal] != null) {
+			return table[ordinal];
+		}
+		return createCounters(type);
+	}
+
+	private static synchronized TypeCounters createCounters(PacketType type) {
+		final int ordinal = type.getOrdinal();
+		TypeCounters[] table = typeCounters;
+		if (ordinal >= table.length) {
+			table = Arrays.copyOf(table, ordinal + 1);
+		} else if (table[ordinal] != null) {
+			return table[ordinal];
+		} else {
+			table = table.clone();
+		}
+		final TypeCounters counters = new TypeCounters(type);
+		table[ordinal] = counters;
+		typeCounters = table;
+		return counters;
+	}
+
+	private static ConnectionCounters addConnection(Player player) {
+		ConnectionCounters connection = connections.get(player);
+		if (connection == null) {
+			connection = new ConnectionCounters();
+			connections.put(player, connection);
+		}
+		return connection;
+	}
+
+	private static class TypeCounters {
+		public final PacketType type;
+		public final AtomicLong packetsSent = new AtomicLong();
+		public final AtomicLong bytesSent = new AtomicLong();
+		public final AtomicLong packetsReceived = new AtomicLong();
+		public final AtomicLong bytesReceived = new AtomicLong();
+		public final AtomicLong listenerTime = new AtomicLong();
+
+		public TypeCounters(PacketType type) {
+			this.type = type;
+		}
+
+		public PacketTypeStatistics snapshot() {
+			return new PacketTypeStatistics(type, packetsSent.get(), bytesSent.get(),
+					packetsReceived.get(), bytesReceived.get(), listenerTime.get());
+		}
+	}
+
+	private static class ConnectionCounters {
+		public final AtomicLong packetsSent = new AtomicLong();
+		public final AtomicLong bytesSent = new AtomicLong();
+		public final AtomicLong packetsReceived = new AtomicLong();
+		public final AtomicLong bytesReceived = new AtomicLong();
+		private final RollingHistogram queueLengths = new RollingHistogram(HISTOGRAM_WINDOW);
+		private final RollingHistogram pendingBytes = new RollingHistogram(HISTOGRAM_WINDOW);
+		private int lastQueueLength = 0;
+		private long lastPendingBytes = 0;
+
+		public synchronized void sample(int queueLength, long pendingBytes) {
+			this.lastQueueLength = queueLength;
+			this.lastPendingBytes = pendingBytes;
+			this.queueLengths.add(queueLength);
+			this.pendingBytes.add(pendingBytes);
+		}
+
+		public synchronized ConnectionStatistics snapshot() {
+			return new ConnectionStatistics(packetsSent.get(), bytesSent.get(), packetsReceived.get(), bytesReceived.get(),
+					lastQueueLength, lastPendingBytes, queueLengths.getBuckets(), pendingBytes.getBuckets());
+		}
+	}
+
+	/**
+	 * Histogram of the most recent samples using power-of-two buckets.
+	 * Bucket counts are updated as samples are added and evicted, so no work is done when reading.
+	 */
+	private static class RollingHistogram {
+		private final int[] samples;
+		private final int[] buckets = new int[65];
+		private int count = 0;
+		private int head = 0;
+
+		public RollingHistogram(int window) {
+			this.samples = new int[window];
+		}
+
+		public void add(long value) {
+			if (count == samples.length) {
+				buckets[samples[head]]--;
+			} else {
+				count++;
+			}
+			final int bucket = (value <= 0) ? 0 : (64 - Long.numberOfLeadingZeros(value));
+			samples[head] = bucket;
+			buckets[bucket]++;
+			head = (head + 1) % samples.length;
+		}
+
+		public int[] getBuckets() {
+			int length = buckets.length;
+			while (length > 1 && buckets[length - 1] == 0) {
+				length--;
+			}
+			return Arrays.copyOf(buckets, length);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.bergerkiller.bukkit.common.internal.network;
+
+import org.bukkit.entity.Player;
+
+import com.bergerkiller.bukkit.common.internal.PacketHandler;
+
+/**
+ * Packet handler that is not hooked into any player connection.
+ * Packets only reach the listeners and monitors registered in this handler when passed to
+ * {@link #handlePacketSend(Player, Object, boolean)} and {@link #handlePacketReceive(Player, Object, boolean)},
+ * for example by a {@link CommonPacketHandler.CommonChannelListener} in an embedded channel.
+ * It does not require a running server, and is used to replay and benchmark packet dispatching.
+ */
+public class OfflinePacketHandler extends PacketHandlerHooked {
+
+	/**
+	 * Creates a new offline packet handler with the same listeners and monitors as another handler
+	 *
+	 * @param handler to copy the listeners and monitors of
+	 * @return new offline packet handler
+	 */
+	public static OfflinePacketHandler copyOf(PacketHandler handler) {
+		final OfflinePacketHandler result = new OfflinePacketHandler();
+		handler.transfer(result);
+		return result;
+	}
+
+	@Override
+	public String getName() {
+		return "an offline packet handler";
+	}
+
+	@Override
+	public boolean onEnable() {
+		return true;
+	}
+
+	@Override
+	public boolean onDisable() {
+		return true;
+	}
+
+	@Override
+	public void onPlayerJoin(Player player) {
+	}
+
+	@Override
+	public void sendPacket(Player player, Object packet, boolean throughListeners) {
+		throw new UnsupportedOperationException("Packets can not be sent using " + getName());
+	}
+
+	@Override
+	public void sendSilentPacket(Player player, Object packet) {
+		throw new UnsupportedOperationException("Packets can not be sent using " + getName());
+	}
+
+	@Override
+	public void receivePacket(Player player, Object packet) {
+		throw new UnsupportedOperationException("Packets can not be received using " + getName());
+	}
+
+	@Override
+	public long getPendingBytes(Player player) {
+		return 0L;
+	}
+}
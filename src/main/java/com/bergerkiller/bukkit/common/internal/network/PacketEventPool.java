@@ -0,0 +1,150 @@
+package com.bergerkiller.bukkit.common.internal.network;
+
+import org.bukkit.entity.Player;
+
+import com.bergerkiller.bukkit.common.events.PacketReceiveEvent;
+import com.bergerkiller.bukkit.common.events.PacketSendEvent;
+import com.bergerkiller.bukkit.common.protocol.CommonPacket;
+import com.bergerkiller.bukkit.common.protocol.PacketType;
+
+/**
+ * Keeps re-usable packet events and packets for a single thread.
+ * An instance is taken out of the pool while it is in use, so packets handled while
+ * another packet is being handled on the same thread get a new instance.
+ * Instances that are retained by a listener are not put back into the pool.
+ * Events share the retained state with the packet they hold.
+ */
+final class PacketEventPool {
+	private static final ThreadLocal<PacketEventPool> pools = new ThreadLocal<PacketEventPool>() {
+		@Override
+		protected PacketEventPool initialValue() {
+			return new PacketEventPool();
+		}
+	};
+	private PooledSendEvent sendEvent = new PooledSendEvent();
+	private PooledReceiveEvent receiveEvent = new PooledReceiveEvent();
+	private PooledPacket packet = new PooledPacket();
+
+	private PacketEventPool() {
+	}
+
+	/**
+	 * Gets the pool of the current thread
+	 *
+	 * @return thread pool
+	 */
+	public static PacketEventPool get() {
+		return pools.get();
+	}
+
+	public PacketSendEvent obtainSendEvent(Player player, Object packetHandle, PacketType packetType) {
+		PooledSendEvent event = this.sendEvent;
+		if (event == null) {
+			event = new PooledSendEvent();
+		} else {
+			this.sendEvent = null;
+		}
+		event.reset(player, packetHandle, packetType);
+		return event;
+	}
+
+	public void release(PacketSendEvent event) {
+		PooledSendEvent pooled = (PooledSendEvent) event;
+		if (!pooled.packet.retained) {
+			pooled.reset(null, null, null);
+			this.sendEvent = pooled;
+		}
+	}
+
+	public PacketReceiveEvent obtainReceiveEvent(Player player, Object packetHandle, PacketType packetType) {
+		PooledReceiveEvent event = this.receiveEvent;
+		if (event == null) {
+			event = new PooledReceiveEvent();
+		} else {
+			this.receiveEvent = null;
+		}
+		event.reset(player, packetHandle, packetType);
+		return event;
+	}
+
+	public void release(PacketReceiveEvent event) {
+		PooledReceiveEvent pooled = (PooledReceiveEvent) event;
+		if (!pooled.packet.retained) {
+			pooled.reset(null, null, null);
+			this.receiveEvent = pooled;
+		}
+	}
+
+	public CommonPacket obtainPacket(Object packetHandle, PacketType packetType) {
+		PooledPacket packet = this.packet;
+		if (packet == null) {
+			packet = new PooledPacket();
+		} else {
+			this.packet = null;
+		}
+		packet.reset(packetHandle, packetType);
+		return packet;
+	}
+
+	public void release(CommonPacket packet) {
+		PooledPacket pooled = (PooledPacket) packet;
+		if (!pooled.retained) {
+			pooled.reset(null, null);
+			this.packet = pooled;
+		}
+	}
+
+	private static final class PooledPacket extends CommonPacket {
+		private boolean retained;
+
+		public PooledPacket() {
+			super(null, null);
+		}
+
+		public void reset(Object packetHandle, PacketType packetType) {
+			this.setHandle(packetHandle, packetType);
+			this.retained = false;
+		}
+
+		@Override
+		public void retain() {
+			this.retained = true;
+		}
+	}
+
+	private static final class PooledSendEvent extends PacketSendEvent {
+		private final PooledPacket packet;
+
+		public PooledSendEvent() {
+			this(new PooledPacket());
+		}
+
+		private PooledSendEvent(PooledPacket packet) {
+			super(null, packet);
+			this.packet = packet;
+		}
+
+		public void reset(Player player, Object packetHandle, PacketType packetType) {
+			this.packet.reset(packetHandle, packetType);
+			this.reset(player, this.packet);
+		}
+	}
+
+	private static final class PooledReceiveEvent extends PacketReceiveEvent {
+		private final PooledPacket packet;
+
+		public PooledReceiveEvent() {
+			this(new PooledPacket());
+		}
+
+		private PooledReceiveEvent(PooledPacket packet) {
+			super(null, packet);
+			this.packet = packet;
+		}
+
+		public void reset(Player player, Object packetHandle, PacketType packetType) {
+			this.packet.reset(packetHandle, packetType);
+			this.reset(player, this.packet);
+		}
+	}
+}
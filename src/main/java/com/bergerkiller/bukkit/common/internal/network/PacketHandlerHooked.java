@@ -3,9 +3,11 @@ package com.bergerkiller.bukkit.common.internal.network;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -28,7 +30,7 @@ import com.bergerkiller.bukkit.common.reflection.SafeMethod;
 import com.bergerkiller.bukkit.common.reflection.classes.EntityPlayerRef;
 import com.bergerkiller.bukkit.common.reflection.classes.NetworkManagerRef;
 import com.bergerkiller.bukkit.common.reflection.classes.PlayerConnectionRef;
-import com.bergerkiller.bukkit.common.utils.CommonUtil;
+import com.bergerkiller.bukkit.common.utils.LogicUtil;
 import com.bergerkiller.bukkit.common.utils.PlayerUtil;
 
 /**
@@ -38,8 +40,17 @@ import com.bergerkiller.bukkit.common.utils.PlayerUtil;
  * by an additional listener hook.
  */
 public abstract class PacketHandlerHooked implements PacketHandler {	
+	private static final PacketListener[][] NO_LISTENERS = new PacketListener[0][];
+	private static final PacketMonitor[][] NO_MONITORS = new PacketMonitor[0][];
+	/*
+	 * The maps below are only modified and read while synchronized on this handler.
+	 * After every change, an immutable snapshot indexed by packet type ordinal is published,
+	 * which is read by the network threads without locking.
+	 */
 	private final Map<PacketType, List<PacketListener>> listeners = new HashMap<PacketType, List<PacketListener>>();
 	private final Map<PacketType, List<PacketMonitor>> monitors = new HashMap<PacketType, List<PacketMonitor>>();
+	private volatile PacketListener[][] listenerTable = NO_LISTENERS;
+	private volatile PacketMonitor[][] monitorTable = NO_MONITORS;
 	private final Map<Plugin, List<PacketListener>> listenerPlugins = new HashMap<Plugin, List<PacketListener>>();
 	private final Map<Plugin, List<PacketMonitor>> monitorPlugins = new HashMap<Plugin, List<PacketMonitor>>();
 	private final ClassMap<SafeMethod<?>> receiverMethods = new ClassMap<SafeMethod<?>>();
@@ -63,7 +74,7 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 	}
 
 	@Override
-	public void removePacketListeners(Plugin plugin) {
+	public synchronized void removePacketListeners(Plugin plugin) {
 		// Listeners
 		List<PacketListener> listeners = listenerPlugins.get(plugin);
 		if (listeners != null) {
@@ -78,10 +89,12 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 				removePacketMonitor(monitor, false);
 			}
 		}
+		listenerPlugins.remove(plugin);
+		monitorPlugins.remove(plugin);
 	}
 
 	@Override
-	public void removePacketMonitor(PacketMonitor monitor) {
+	public synchronized void removePacketMonitor(PacketMonitor monitor) {
 		removePacketMonitor(monitor, true);
 	}
 
@@ -89,9 +102,14 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 		if (monitor == null) {
 			return;
 		}
-		for (List<PacketMonitor> monitorList : monitors.values()) {
-			monitorList.remove(monitor);
+		Iterator<List<PacketMonitor>> iter = monitors.values().iterator();
+		while (iter.hasNext()) {
+			List<PacketMonitor> monitorList = iter.next();
+			if (monitorList.remove(monitor) && monitorList.isEmpty()) {
+				iter.remove();
+			}
 		}
+		monitorTable = createTable(monitors, NO_MONITORS);
 		if (fromPlugins) {
 			// Remove from plugin list
 			for (Plugin plugin : monitorPlugins.keySet().toArray(new Plugin[0])) {
@@ -105,7 +123,7 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 	}
 
 	@Override
-	public void removePacketListener(PacketListener listener) {
+	public synchronized void removePacketListener(PacketListener listener) {
 		removePacketListener(listener, true);
 	}
 
@@ -113,9 +131,14 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 		if (listener == null) {
 			return;
 		}
-		for (List<PacketListener> listenerList : listeners.values()) {
-			listenerList.remove(listener);
+		Iterator<List<PacketListener>> iter = listeners.values().iterator();
+		while (iter.hasNext()) {
+			List<PacketListener> listenerList = iter.next();
+			if (listenerList.remove(listener) && listenerList.isEmpty()) {
+				iter.remove();
+			}
 		}
+		listenerTable = createTable(listeners, NO_LISTENERS);
 		if (fromPlugins) {
 			// Remove from plugin list
 			for (Plugin plugin : listenerPlugins.keySet().toArray(new Plugin[0])) {
@@ -129,7 +152,7 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 	}
 
 	@Override
-	public void addPacketMonitor(Plugin plugin, PacketMonitor monitor, PacketType[] types) {
+	public synchronized void addPacketMonitor(Plugin plugin, PacketMonitor monitor, PacketType[] types) {
 		if (monitor == null) {
 			throw new IllegalArgumentException("Monitor is not allowed to be null");
 		} else if (plugin == null) {
@@ -144,18 +167,21 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 				monitors.put(type, monitorList);
 			}
 			monitorList.add(monitor);
-			// Map to plugin list
-			List<PacketMonitor> list = monitorPlugins.get(plugin);
-			if (list == null) {
-				list = new ArrayList<PacketMonitor>(2);
-				monitorPlugins.put(plugin, list);
-			}
+		}
+		// Map to plugin list
+		List<PacketMonitor> list = monitorPlugins.get(plugin);
+		if (list == null) {
+			list = new ArrayList<PacketMonitor>(2);
+			monitorPlugins.put(plugin, list);
+		}
+		if (!list.contains(monitor)) {
 			list.add(monitor);
 		}
+		monitorTable = createTable(monitors, NO_MONITORS);
 	}
 
 	@Override
-	public void addPacketListener(Plugin plugin, PacketListener listener, PacketType[] types) {
+	public synchronized void addPacketListener(Plugin plugin, PacketListener listener, PacketType[] types) {
 		if (listener == null) {
 			throw new IllegalArgumentException("Listener is not allowed to be null");
 		} else if (plugin == null) {
@@ -170,14 +196,55 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 				listeners.put(type, listenerList);
 			}
 			listenerList.add(listener);
-			// Map to plugin list
-			List<PacketListener> list = listenerPlugins.get(plugin);
-			if (list == null) {
-				list = new ArrayList<PacketListener>(2);
-				listenerPlugins.put(plugin, list);
-			}
+		}
+		// Map to plugin list
+		List<PacketListener> list = listenerPlugins.get(plugin);
+		if (list == null) {
+			list = new ArrayList<PacketListener>(2);
+			listenerPlugins.put(plugin, list);
+		}
+		if (!list.contains(listener)) {
 			list.add(listener);
 		}
+		listenerTable = createTable(listeners, NO_LISTENERS);
+	}
+
+	/**
+	 * Creates a new immutable look-up table from a mapping of packet types to registered listeners.
+	 * The table is indexed by packet type ordinal, types without listeners have a null entry.
+	 * 
+	 * @param mapping to convert
+	 * @param empty table to return when no listeners are registered
+	 * @return new look-up table
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T[][] createTable(Map<PacketType, List<T>> mapping, T[][] empty) {
+		int length = 0;
+		for (PacketType type : mapping.keySet()) {
+			length = Math.max(length, type.getOrdinal() + 1);
+		}
+		if (length == 0) {
+			return empty;
+		}
+		final T[][] table = Arrays.copyOf(empty, length);
+		final Class<?> componentType = empty.getClass().getComponentType().getComponentType();
+		for (Entry<PacketType, List<T>> entry : mapping.entrySet()) {
+			final List<T> values = entry.getValue();
+			table[entry.getKey().getOrdinal()] = values.toArray(LogicUtil.createArray((Class<T>) componentType, values.size()));
+		}
+		return table;
+	}
+
+	/**
+	 * Gets the listeners registered for a packet type in a look-up table
+	 * 
+	 * @param table to read from
+	 * @param type of packet
+	 * @return listeners, or null if there are none
+	 */
+	private static <T> T[] getEntry(T[][] table, PacketType type) {
+		final int ordinal = type.getOrdinal();
+		return ordinal < table.length ? table[ordinal] : null;
 	}
 
 	@Override
@@ -195,7 +262,7 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 	@Override
 	public void sendPacket(Player player, Object packet, boolean throughListeners) {
 		Object handle = Conversion.toEntityHandle.convert(player);
-		if (!handle.getClass().equals(CommonUtil.getNMSClass("EntityPlayer"))) {
+		if (!EntityPlayerRef.TEMPLATE.isType(handle)) {
 			return;
 		}
 		if (!PacketType.DEFAULT.isInstance(packet) || PlayerUtil.isDisconnected(player)) {
@@ -211,7 +278,7 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 	}
 
 	@Override
-	public Collection<Plugin> getListening(PacketType type) {
+	public synchronized Collection<Plugin> getListening(PacketType type) {
 		List<PacketListener> listenerList = listeners.get(type);
 		if (listenerList == null) {
 			return Collections.emptySet();
@@ -229,7 +296,7 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 	}
 
 	@Override
-	public void transfer(PacketHandler to) {
+	public synchronized void transfer(PacketHandler to) {
 		for (Entry<Plugin, List<PacketListener>> entry : listenerPlugins.entrySet()) {
 			for (PacketListener listener : entry.getValue()) {
 				to.addPacketListener(entry.getKey(), listener, getListenerTypes(listener));
@@ -280,29 +347,49 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 		}
 		// Handle listeners
 		PacketType type = PacketType.getType(packet);
-		List<PacketListener> listenerList = listeners.get(type);
+		final boolean metrics = NetworkMetrics.isEnabled();
+		final long startTime = metrics ? System.nanoTime() : 0L;
+		PacketListener[] listenerList = getEntry(listenerTable, type);
 		if (listenerList != null) {
-			CommonPacket cp = new CommonPacket(packet, type);
-			PacketSendEvent ev = new PacketSendEvent(player, cp);
-			ev.setCancelled(wasCancelled);
-			for (PacketListener listener : listenerList) {
-				listener.onPacketSend(ev);
+			final PacketEventPool pool = PacketEventPool.get();
+			final PacketSendEvent ev = pool.obtainSendEvent(player, packet, type);
+			final boolean cancelled;
+			try {
+				ev.setCancelled(wasCancelled);
+				for (PacketListener listener : listenerList) {
+					listener.onPacketSend(ev);
+				}
+				cancelled = ev.isCancelled();
+			} finally {
+				pool.release(ev);
 			}
-			if (ev.isCancelled()) {
+			if (cancelled) {
+				if (metrics) {
+					NetworkMetrics.onListenerTime(type, System.nanoTime() - startTime);
+				}
 				return false;
 			}
 		}
 		// Handle monitors
 		handlePacketSendMonitor(player, type, packet);
+		if (metrics) {
+			NetworkMetrics.onListenerTime(type, System.nanoTime() - startTime);
+			NetworkMetrics.onPacketSent(player, type, packet);
+		}
 		return true;
 	}
 
 	private void handlePacketSendMonitor(Player player, PacketType packetType, Object packet) {
-		List<PacketMonitor> monitorList = monitors.get(packetType);
+		PacketMonitor[] monitorList = getEntry(monitorTable, packetType);
 		if (monitorList != null) {
-			CommonPacket cp = new CommonPacket(packet, packetType);
-			for (PacketMonitor monitor : monitorList) {
-				monitor.onMonitorPacketSend(cp, player);
+			final PacketEventPool pool = PacketEventPool.get();
+			final CommonPacket cp = pool.obtainPacket(packet, packetType);
+			try {
+				for (PacketMonitor monitor : monitorList) {
+					monitor.onMonitorPacketSend(cp, player);
+				}
+			} finally {
+				pool.release(cp);
 			}
 		}
 	}
@@ -321,26 +408,46 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 		}
 		// Handle listeners
 		PacketType type = PacketType.getType(packet);
-		List<PacketListener> listenerList = listeners.get(type);
+		final boolean metrics = NetworkMetrics.isEnabled();
+		final long startTime = metrics ? System.nanoTime() : 0L;
+		PacketListener[] listenerList = getEntry(listenerTable, type);
 		if (listenerList != null) {
-			CommonPacket cp = new CommonPacket(packet, type);
-			PacketReceiveEvent ev = new PacketReceiveEvent(player, cp);
-			ev.setCancelled(wasCancelled);
-			for (PacketListener listener : listenerList) {
-				listener.onPacketReceive(ev);
+			final PacketEventPool pool = PacketEventPool.get();
+			final PacketReceiveEvent ev = pool.obtainReceiveEvent(player, packet, type);
+			final boolean cancelled;
+			try {
+				ev.setCancelled(wasCancelled);
+				for (PacketListener listener : listenerList) {
+					listener.onPacketReceive(ev);
+				}
+				cancelled = ev.isCancelled();
+			} finally {
+				pool.release(ev);
 			}
-			if (ev.isCancelled()) {
+			if (cancelled) {
+				if (metrics) {
+					NetworkMetrics.onListenerTime(type, System.nanoTime() - startTime);
+				}
 				return false;
 			}
 		}
 		// Handle monitors
-		List<PacketMonitor> monitorList = monitors.get(type);
+		PacketMonitor[] monitorList = getEntry(monitorTable, type);
 		if (monitorList != null) {
-			CommonPacket cp = new CommonPacket(packet, type);
-			for (PacketMonitor monitor : monitorList) {
-				monitor.onMonitorPacketReceive(cp, player);
+			final PacketEventPool pool = PacketEventPool.get();
+			final CommonPacket cp = pool.obtainPacket(packet, type);
+			try {
+				for (PacketMonitor monitor : monitorList) {
+					monitor.onMonitorPacketReceive(cp, player);
+				}
+			} finally {
+				pool.release(cp);
 			}
 		}
+		if (metrics) {
+			NetworkMetrics.onListenerTime(type, System.nanoTime() - startTime);
+			NetworkMetrics.onPacketReceived(player, type, packet);
+		}
 		return true;
 	}
 
@@ -359,11 +466,23 @@ public abstract class PacketHandlerHooked implements PacketHandler {
 		}
 		long queuedsize = 0;
 		for (Object p : low) {
-			queuedsize += PacketType.getType(p).getPacketSize(p) + 1;
+			queuedsize += getQueuedSize(p);
 		}
 		for (Object p : high) {
-			queuedsize += PacketType.getType(p).getPacketSize(p) + 1;
+			queuedsize += getQueuedSize(p);
 		}
 		return queuedsize;
 	}
+
+	static int getQueuedSize(Object queued) {
+		// The queues of the network manager contain packets wrapped in a QueuedPacket
+		if (NetworkManagerRef.QUEUED_PACKET.isInstance(queued)) {
+			queued = NetworkManagerRef.queuedPacket.get(queued);
+		}
+		if (PacketType.DEFAULT.isInstance(queued)) {
+			return PacketType.getType(queued).getPacketSize(queued);
+		} else {
+			return 1;
+		}
+	}
 }
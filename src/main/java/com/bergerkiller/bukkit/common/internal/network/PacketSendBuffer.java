@@ -0,0 +1,256 @@
+package com.bergerkiller.bukkit.common.internal.network;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.minecraft.server.IUpdatePlayerListBox;
+import net.minecraft.util.io.netty.channel.Channel;
+import net.minecraft.util.io.netty.channel.ChannelHandlerContext;
+import net.minecraft.util.io.netty.channel.ChannelOutboundHandlerAdapter;
+import net.minecraft.util.io.netty.channel.ChannelPromise;
+
+import org.bukkit.entity.Player;
+
+import com.bergerkiller.bukkit.common.conversion.Conversion;
+import com.bergerkiller.bukkit.common.internal.CommonNMS;
+import com.bergerkiller.bukkit.common.protocol.PacketSendStatistics;
+import com.bergerkiller.bukkit.common.reflection.classes.EntityPlayerRef;
+import com.bergerkiller.bukkit.common.reflection.classes.MinecraftServerRef;
+import com.bergerkiller.bukkit.common.reflection.classes.NetworkManagerRef;
+import com.bergerkiller.bukkit.common.reflection.classes.PlayerConnectionRef;
+
+/**
+ * Coalesces the flushes of packets sent to a single player.
+ * The network manager flushes the channel after every packet written, which results in a
+ * socket write for every single packet. While bound, this handler lets all packet writes pass through
+ * in their original order, but holds back the flushes until {@link #flushAll()} is called at the end of the tick.
+ * All packets written during a tick are then written to the socket using a single flush.<br><br>
+ *
+ * The flush is performed from a tickable registered in the server using {@link #startFlushing()}, which is
+ * updated after all worlds, entities and player connections have ticked. Packets sent from the scheduler at the
+ * start of the tick are held back for the entire tick, packets sent by the entity trackers only briefly.<br><br>
+ *
+ * Packets are still flushed right away when too many are pending, or when the channel is closed.
+ * Since only flushes are held back, this works regardless of the packet handler in use.
+ */
+public class PacketSendBuffer extends ChannelOutboundHandlerAdapter {
+	/**
+	 * Name of this handler in the channel pipeline
+	 */
+	public static final String NAME = "bkcommonlib_sendbuffer";
+	/**
+	 * The amount of packets after which pending packets are flushed without waiting for the tick to end
+	 */
+	public static final int MAX_PENDING_PACKETS = 512;
+	private static final Map<Player, PacketSendBuffer> buffers = new ConcurrentHashMap<Player, PacketSendBuffer>();
+	private static final AtomicLong packetsWritten = new AtomicLong();
+	private static final AtomicLong flushesRequested = new AtomicLong();
+	private static final AtomicLong flushesPerformed = new AtomicLong();
+	private static PacketSendStatistics totalStats = PacketSendStatistics.NONE;
+	private static PacketSendStatistics tickStats = PacketSendStatistics.NONE;
+	private static final IUpdatePlayerListBox flusher = new IUpdatePlayerListBox() {
+		@Override
+		public void a() {
+			flushAll();
+		}
+	};
+	private final Channel channel;
+	private final Runnable flushTask;
+	private ChannelHandlerContext context;
+	private volatile boolean flushPending = false;
+	private int pendingPackets = 0;
+
+	private PacketSendBuffer(Channel channel) {
+		this.channel = channel;
+		this.flushTask = new Runnable() {
+			@Override
+			public void run() {
+				flushPending();
+			}
+		};
+	}
+
+	/**
+	 * Starts buffering the packets sent to a player.
+	 * Does nothing if the player is already buffered.
+	 *
+	 * @param player to buffer
+	 */
+	public static void bind(Player player) {
+		if (!buffers.containsKey(player)) {
+			bind(player, getChannel(player));
+		}
+	}
+
+	/**
+	 * Starts buffering the packets written to a channel on behalf of a player.
+	 * The buffer is added in front of the packet handler of the channel.
+	 *
+	 * @param player the channel belongs to
+	 * @param channel to buffer, null to do nothing
+	 */
+	static synchronized void bind(Player player, Channel channel) {
+		if (buffers.containsKey(player) || channel == null || !channel.isOpen()) {
+			return;
+		}
+		final PacketSendBuffer buffer = new PacketSendBuffer(channel);
+		channel.pipeline().addBefore("packet_handler", NAME, buffer);
+		buffers.put(player, buffer);
+	}
+
+	/**
+	 * Stops buffering the packets sent to a player.
+	 * Packets still pending are flushed before the buffer is removed.
+	 *
+	 * @param player to stop buffering
+	 */
+	public static synchronized void unbind(Player player) {
+		final PacketSendBuffer buffer = buffers.remove(player);
+		if (buffer == null) {
+			return;
+		}
+		buffer.channel.eventLoop().execute(new Runnable() {
+			@Override
+			public void run() {
+				buffer.flushPending();
+				if (buffer.channel.pipeline().get(NAME) == buffer) {
+					buffer.channel.pipeline().remove(buffer);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Stops buffering the packets of all players
+	 */
+	public static synchronized void unbindAll() {
+		for (Player player : buffers.keySet().toArray(new Player[0])) {
+			unbind(player);
+		}
+	}
+
+	/**
+	 * Gets whether the packets sent to a player are buffered
+	 *
+	 * @param player to check
+	 * @return True if buffered, False if not
+	 */
+	public static boolean isBound(Player player) {
+		return buffers.containsKey(player);
+	}
+
+	/**
+	 * Registers the tickable that calls {@link #flushAll()} at the end of every server tick
+	 */
+	public static void startFlushing() {
+		stopFlushing();
+		CommonNMS.getMCServer().a(flusher);
+	}
+
+	/**
+	 * Removes the tickable registered using {@link #startFlushing()}
+	 */
+	public static void stopFlushing() {
+		final List<Object> tickables = MinecraftServerRef.tickables.get(CommonNMS.getMCServer());
+		if (tickables != null) {
+			tickables.remove(flusher);
+		}
+	}
+
+	/**
+	 * Flushes the packets buffered for all players. Should be called at the end of every tick.
+	 * This also updates the statistics of the last tick.
+	 */
+	public static void flushAll() {
+		for (PacketSendBuffer buffer : buffers.values()) {
+			if (buffer.flushPending) {
+				buffer.channel.eventLoop().execute(buffer.flushTask);
+			}
+		}
+		final PacketSendStatistics newTotal = new PacketSendStatistics(buffers.size(),
+				packetsWritten.get(), flushesRequested.get(), flushesPerformed.get());
+		tickStats = newTotal.subtract(totalStats);
+		totalStats = newTotal;
+	}
+
+	/**
+	 * Gets the statistics of all buffered players since the library was enabled
+	 *
+	 * @return total statistics
+	 */
+	public static PacketSendStatistics getTotalStatistics() {
+		return totalStats;
+	}
+
+	/**
+	 * Gets the statistics of all buffered players during the last tick
+	 *
+	 * @return last tick statistics
+	 */
+	public static PacketSendStatistics getTickStatistics() {
+		return tickStats;
+	}
+
+	private static Channel getChannel(Player player) {
+		final Object playerHandle = Conversion.toEntityHandle.convert(player);
+		if (!EntityPlayerRef.TEMPLATE.isInstance(playerHandle)) {
+			return null;
+		}
+		final Object playerConnection = EntityPlayerRef.playerConnection.get(playerHandle);
+		if (playerConnection == null) {
+			return null;
+		}
+		final Object networkManager = PlayerConnectionRef.networkManager.get(playerConnection);
+		if (!NetworkManagerRef.TEMPLATE.isInstance(networkManager)) {
+			return null;
+		}
+		return NetworkManagerRef.channel.get(networkManager);
+	}
+
+	/**
+	 * Flushes the pending packets, if any. Must be called on the event loop of the channel.
+	 */
+	private void flushPending() {
+		if (this.flushPending && this.context != null) {
+			this.flushPending = false;
+			this.pendingPackets = 0;
+			flushesPerformed.incrementAndGet();
+			this.context.flush();
+		}
+	}
+
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+		this.context = ctx;
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+		packetsWritten.incrementAndGet();
+		this.pendingPackets++;
+		super.write(ctx, msg, promise);
+	}
+
+	@Override
+	public void flush(ChannelHandlerContext ctx) throws Exception {
+		flushesRequested.incrementAndGet();
+		this.flushPending = true;
+		if (this.pendingPackets >= MAX_PENDING_PACKETS) {
+			flushPending();
+		}
+	}
+
+	@Override
+	public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+		flushPending();
+		super.close(ctx, promise);
+	}
+
+	@Override
+	public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+		flushPending();
+		super.disconnect(ctx, promise);
+	}
+}
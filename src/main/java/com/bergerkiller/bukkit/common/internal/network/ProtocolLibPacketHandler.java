@@ -196,6 +196,10 @@ public class ProtocolLibPacketHandler implements PacketHandler {
 		return PacketRegistry.getPacketType(packetClass);
 	}
 
+	private static void onListenerTime(CommonPacket packet, long startTime) {
+		NetworkMetrics.onListenerTime(packet.getType(), System.nanoTime() - startTime);
+	}
+
 	private static class CommonPacketMonitor extends CommonPacketAdapter {
 		public final PacketMonitor monitor;
 
@@ -206,12 +210,24 @@ public class ProtocolLibPacketHandler implements PacketHandler {
 
 		@Override
 		public void onPacketReceiving(PacketEvent event) {
-			monitor.onMonitorPacketReceive(new CommonPacket(event.getPacket().getHandle()), event.getPlayer());
+			final boolean metrics = NetworkMetrics.isEnabled();
+			final long startTime = metrics ? System.nanoTime() : 0L;
+			final CommonPacket packet = new CommonPacket(event.getPacket().getHandle());
+			monitor.onMonitorPacketReceive(packet, event.getPlayer());
+			if (metrics) {
+				onListenerTime(packet, startTime);
+			}
 		}
 
 		@Override
 		public void onPacketSending(PacketEvent event) {
-			monitor.onMonitorPacketSend(new CommonPacket(event.getPacket().getHandle()), event.getPlayer());
+			final boolean metrics = NetworkMetrics.isEnabled();
+			final long startTime = metrics ? System.nanoTime() : 0L;
+			final CommonPacket packet = new CommonPacket(event.getPacket().getHandle());
+			monitor.onMonitorPacketSend(packet, event.getPlayer());
+			if (metrics) {
+				onListenerTime(packet, startTime);
+			}
 		}
 	}
 
@@ -225,20 +241,30 @@ public class ProtocolLibPacketHandler implements PacketHandler {
 
 		@Override
 		public void onPacketReceiving(PacketEvent event) {
+			final boolean metrics = NetworkMetrics.isEnabled();
+			final long startTime = metrics ? System.nanoTime() : 0L;
 			CommonPacket packet = new CommonPacket(event.getPacket().getHandle());
 			PacketReceiveEvent receiveEvent = new PacketReceiveEvent(event.getPlayer(), packet);
 			receiveEvent.setCancelled(event.isCancelled());
 			listener.onPacketReceive(receiveEvent);
 			event.setCancelled(receiveEvent.isCancelled());
+			if (metrics) {
+				onListenerTime(packet, startTime);
+			}
 		}
 
 		@Override
 		public void onPacketSending(PacketEvent event) {
+			final boolean metrics = NetworkMetrics.isEnabled();
+			final long startTime = metrics ? System.nanoTime() : 0L;
 			CommonPacket packet = new CommonPacket(event.getPacket().getHandle());
 			PacketSendEvent sendEvent = new PacketSendEvent(event.getPlayer(), packet);
 			sendEvent.setCancelled(event.isCancelled());
 			listener.onPacketSend(sendEvent);
 			event.setCancelled(sendEvent.isCancelled());
+			if (metrics) {
+				onListenerTime(packet, startTime);
+			}
 		}
 	}
 
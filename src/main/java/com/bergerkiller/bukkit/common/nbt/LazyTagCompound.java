@@ -0,0 +1,335 @@
+package com.bergerkiller.bukkit.common.nbt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import com.bergerkiller.bukkit.common.conversion.Conversion;
+import com.bergerkiller.bukkit.common.reflection.classes.NBTRef;
+
+/**
+ * A read-only view on the raw data of an NBT compound, that only decodes a tag when it is first accessed.
+ * Reading the compound only locates the tags it contains, skipping over their data.
+ * This makes it a lot faster than a {@link CommonTagCompound} when only a few values are needed,
+ * for example, the position of a player from the player data file.<br><br>
+ *
+ * Values are returned as the data of the tag, with compounds returned as a LazyTagCompound:<br>
+ * <u>List&lt;Object&gt;, LazyTagCompound, byte, short, int, long, float, double, byte[], int[], String</u><br>
+ * Lists are returned unmodifiable, and arrays are returned as a copy.
+ */
+public class LazyTagCompound {
+	private final byte[] data;
+	private final int offset;
+	private final int length;
+	private Map<String, Entry> entries = null;
+
+	private LazyTagCompound(byte[] data, int offset, int length) {
+		this.data = data;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * Gets the names of all tags in this compound
+	 *
+	 * @return tag names (unmodifiable)
+	 * @throws IllegalStateException if the compound data is invalid
+	 */
+	public Set<String> keySet() {
+		return Collections.unmodifiableSet(getEntries().keySet());
+	}
+
+	public int size() {
+		return getEntries().size();
+	}
+
+	public boolean isEmpty() {
+		return getEntries().isEmpty();
+	}
+
+	public boolean containsKey(String key) {
+		return getEntries().containsKey(key);
+	}
+
+	/**
+	 * Gets the type of the tag at a key
+	 *
+	 * @param key of the tag
+	 * @return tag type (see {@link NBTStreamReader}), or {@link NBTStreamReader#TYPE_END} if not contained
+	 */
+	public byte getType(String key) {
+		final Entry entry = getEntries().get(key);
+		return entry == null ? NBTStreamReader.TYPE_END : entry.type;
+	}
+
+	/**
+	 * Gets the value of the tag at a key, decoding it if needed
+	 *
+	 * @param key of the tag
+	 * @return value of the tag, or null if not contained. Lists are unmodifiable, arrays are copies.
+	 * @throws IllegalStateException if the tag data is invalid
+	 */
+	public Object getValue(String key) {
+		final Entry entry = getEntries().get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.value == null) {
+			try {
+				entry.value = decode(entry.type, entry.start, entry.end);
+			} catch (IOException ex) {
+				throw new IllegalStateException("Failed to read tag '" + key + "'", ex);
+			}
+		}
+		return copyValue(entry.value);
+	}
+
+	/**
+	 * Gets the value of the tag at a key, converted to the type of the default value.
+	 * Returns the default value if no tag is contained, or if conversion failed.
+	 *
+	 * @param key of the tag
+	 * @param def value to return if not contained (can not be null)
+	 * @return value of the tag
+	 */
+	public <T> T getValue(String key, T def) {
+		return Conversion.convert(getValue(key), def);
+	}
+
+	/**
+	 * Gets the compound at a key
+	 *
+	 * @param key of the compound
+	 * @return the compound, or null if not contained or not a compound
+	 */
+	public LazyTagCompound getCompound(String key) {
+		final Object value = getValue(key);
+		return (value instanceof LazyTagCompound) ? (LazyTagCompound) value : null;
+	}
+
+	/**
+	 * Gets an UUID value from two keys, in the same way as {@link CommonTagCompound#getUUID(String)}
+	 *
+	 * @param key to read
+	 * @return value at the key, or null if either of the two values are missing
+	 */
+	public UUID getUUID(String key) {
+		Object most = getValue(key + "UUIDMost");
+		Object least = getValue(key + "UUIDLeast");
+		if (most instanceof Long && least instanceof Long) {
+			return new UUID((Long) most, (Long) least);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a new tag from the data of the tag at a key
+	 *
+	 * @param key of the tag
+	 * @return new tag, or null if not contained
+	 */
+	public CommonTag get(String key) {
+		final Entry entry = getEntries().get(key);
+		return entry == null ? null : createTag(entry.type, entry.start, entry.end);
+	}
+
+	/**
+	 * Creates a new tag compound from all the data of this compound
+	 *
+	 * @return new compound
+	 */
+	public CommonTagCompound toCompound() {
+		return (CommonTagCompound) createTag(NBTStreamReader.TYPE_COMPOUND, this.offset, this.offset + this.length);
+	}
+
+	/**
+	 * Locates all tags in this compound, without reading their data
+	 */
+	private Map<String, Entry> getEntries() {
+		if (this.entries == null) {
+			final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+			final PositionInputStream input = new PositionInputStream(this.data, this.offset, this.length);
+			final NBTStreamReader reader = new NBTStreamReader(input);
+			try {
+				byte type;
+				while ((type = reader.readType()) != NBTStreamReader.TYPE_END) {
+					final String name = reader.readName();
+					final int start = input.getPosition();
+					reader.skipPayload(type);
+					entries.put(name, new Entry(type, start, input.getPosition()));
+				}
+			} catch (IOException ex) {
+				throw new IllegalStateException("Invalid compound data", ex);
+			}
+			this.entries = entries;
+		}
+		return this.entries;
+	}
+
+	private Object decode(byte type, int start, int end) throws IOException {
+		if (type == NBTStreamReader.TYPE_COMPOUND) {
+			return new LazyTagCompound(this.data, start, end - start);
+		}
+		final PositionInputStream input = new PositionInputStream(this.data, start, end - start);
+		final NBTStreamReader reader = new NBTStreamReader(input);
+		if (type != NBTStreamReader.TYPE_LIST) {
+			return reader.readPayload(type);
+		}
+		// Lists of compounds contain lazy compounds
+		final DataInputStream stream = new DataInputStream(input);
+		final byte elementType = stream.readByte();
+		final int count = stream.readInt();
+		if (elementType != NBTStreamReader.TYPE_COMPOUND) {
+			input.reset();
+			return reader.readPayload(type);
+		}
+		final List<Object> list = new ArrayList<Object>(Math.max(0, count));
+		for (int i = 0; i < count; i++) {
+			final int elementStart = input.getPosition();
+			reader.skipPayload(elementType);
+			list.add(new LazyTagCompound(this.data, elementStart, input.getPosition() - elementStart));
+		}
+		return list;
+	}
+
+	private CommonTag createTag(byte type, int start, int end) {
+		// Prepend a tag header with an empty name to the payload, and read it as a named tag
+		final byte[] tagData = new byte[3 + end - start];
+		tagData[0] = type;
+		System.arraycopy(this.data, start, tagData, 3, end - start);
+		return CommonTag.create(NBTRef.readTag(new DataInputStream(new ByteArrayInputStream(tagData)), 0));
+	}
+
+	/**
+	 * Reads a compound from the InputStream specified.
+	 * This method expects an Input Stream containing GZIP-compressed data.
+	 *
+	 * @param stream to read from
+	 * @return read compound
+	 * @throws IOException on failure
+	 */
+	public static LazyTagCompound readFrom(InputStream stream) throws IOException {
+		return readFromUncompressed(new GZIPInputStream(stream));
+	}
+
+	/**
+	 * Reads a compound from the file specified.
+	 * This method expects a file containing GZIP-compressed data.
+	 *
+	 * @param file to read from
+	 * @return read compound
+	 * @throws IOException on failure
+	 */
+	public static LazyTagCompound readFrom(File file) throws IOException {
+		FileInputStream stream = new FileInputStream(file);
+		try {
+			return readFrom(stream);
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Reads a compound from the InputStream specified.
+	 * This method expects an Input Stream containing raw, uncompressed data.
+	 * All remaining data of the stream is read.
+	 *
+	 * @param stream to read from
+	 * @return read compound
+	 * @throws IOException on failure
+	 */
+	public static LazyTagCompound readFromUncompressed(InputStream stream) throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream(8192);
+		final byte[] buffer = new byte[8192];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			output.write(buffer, 0, read);
+		}
+		final byte[] data = output.toByteArray();
+		// Skip the type and name of the root compound
+		if (data.length < 3 || data[0] != NBTStreamReader.TYPE_COMPOUND) {
+			throw new IOException("Data does not contain a compound");
+		}
+		final int payloadStart = 3 + (((data[1] & 0xFF) << 8) | (data[2] & 0xFF));
+		if (payloadStart > data.length) {
+			throw new IOException("Unexpected end of data");
+		}
+		return new LazyTagCompound(data, payloadStart, data.length - payloadStart);
+	}
+
+	/**
+	 * Prevents changes to a decoded value from changing the value stored in the compound
+	 */
+	private static Object copyValue(Object value) {
+		if (value instanceof byte[]) {
+			return ((byte[]) value).clone();
+		} else if (value instanceof int[]) {
+			return ((int[]) value).clone();
+		} else if (value instanceof List) {
+			return new ValueList((List<?>) value);
+		} else {
+			return value;
+		}
+	}
+
+	/**
+	 * Unmodifiable view on a list of decoded values, copying the elements that are accessed
+	 */
+	private static class ValueList extends AbstractList<Object> {
+		private final List<?> values;
+
+		public ValueList(List<?> values) {
+			this.values = values;
+		}
+
+		@Override
+		public Object get(int index) {
+			return copyValue(this.values.get(index));
+		}
+
+		@Override
+		public int size() {
+			return this.values.size();
+		}
+	}
+
+	private static class Entry {
+		public final byte type;
+		public final int start, end;
+		public Object value;
+
+		public Entry(byte type, int start, int end) {
+			this.type = type;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * Reads a part of a byte array, keeping track of the position in the array
+	 */
+	private static class PositionInputStream extends ByteArrayInputStream {
+
+		public PositionInputStream(byte[] buf, int offset, int length) {
+			super(buf, offset, length);
+		}
+
+		public int getPosition() {
+			return this.pos;
+		}
+	}
+}
@@ -0,0 +1,326 @@
+package com.bergerkiller.bukkit.common.nbt;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads NBT data tag by tag from a stream, without creating NBT tags for the data that is skipped.
+ * Use {@link #find(String...)} to read a single value from a compound, or use the read and skip
+ * methods to walk through the data manually.<br><br>
+ *
+ * Values are read as the data of the tag:<br>
+ * <u>List&lt;Object&gt;, Map&lt;String, Object&gt;, byte, short, int, long, float, double, byte[], int[], String</u>
+ */
+public class NBTStreamReader implements Closeable {
+	public static final byte TYPE_END = 0;
+	public static final byte TYPE_BYTE = 1;
+	public static final byte TYPE_SHORT = 2;
+	public static final byte TYPE_INT = 3;
+	public static final byte TYPE_LONG = 4;
+	public static final byte TYPE_FLOAT = 5;
+	public static final byte TYPE_DOUBLE = 6;
+	public static final byte TYPE_BYTE_ARRAY = 7;
+	public static final byte TYPE_STRING = 8;
+	public static final byte TYPE_LIST = 9;
+	public static final byte TYPE_COMPOUND = 10;
+	public static final byte TYPE_INT_ARRAY = 11;
+	private static final int MAX_DEPTH = 512;
+	private final DataInputStream stream;
+
+	/**
+	 * Creates a new reader reading raw, uncompressed NBT data
+	 *
+	 * @param stream to read from
+	 */
+	public NBTStreamReader(InputStream stream) {
+		this.stream = (stream instanceof DataInputStream) ? (DataInputStream) stream : new DataInputStream(stream);
+	}
+
+	/**
+	 * Creates a new reader reading GZIP-compressed NBT data
+	 *
+	 * @param stream to read from
+	 * @return new reader
+	 * @throws IOException if the stream does not contain GZIP-compressed data
+	 */
+	public static NBTStreamReader openCompressed(InputStream stream) throws IOException {
+		return new NBTStreamReader(new BufferedInputStream(new GZIPInputStream(stream)));
+	}
+
+	/**
+	 * Reads a single value from a file containing a GZIP-compressed compound, such as a player data file.
+	 * See {@link #find(String...)}.
+	 *
+	 * @param file to read from
+	 * @param path of keys to the value
+	 * @return the value, or null if not found
+	 * @throws IOException if reading failed
+	 */
+	public static Object find(File file, String... path) throws IOException {
+		final NBTStreamReader reader = openCompressed(new FileInputStream(file));
+		try {
+			return reader.find(path);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Reads a single value from the root compound of the stream.
+	 * The path contains the keys of the compounds to go into, the last key is the value read.
+	 * All other tags are skipped without reading them. For example, to read the
+	 * dimension of a player, use <i>find("Dimension")</i>, and to read the x-coordinate of a
+	 * player spawn point, use <i>find("SpawnX")</i>.
+	 * The stream is read up to the value found.
+	 *
+	 * @param path of keys to the value, empty to read the whole root compound
+	 * @return the value, or null if not found
+	 * @throws IOException if reading failed
+	 */
+	public Object find(String... path) throws IOException {
+		byte type = readType();
+		if (type != TYPE_COMPOUND) {
+			return null;
+		}
+		readName();
+		for (int i = 0; i < path.length; i++) {
+			if (type != TYPE_COMPOUND) {
+				return null;
+			}
+			while (true) {
+				type = readType();
+				if (type == TYPE_END) {
+					return null;
+				}
+				if (readName().equals(path[i])) {
+					break;
+				}
+				skipPayload(type);
+			}
+		}
+		return readPayload(type);
+	}
+
+	/**
+	 * Reads the type of the next tag
+	 *
+	 * @return tag type
+	 * @throws IOException if reading failed
+	 */
+	public byte readType() throws IOException {
+		return this.stream.readByte();
+	}
+
+	/**
+	 * Reads the name of a tag, following the tag type
+	 *
+	 * @return tag name
+	 * @throws IOException if reading failed
+	 */
+	public String readName() throws IOException {
+		return this.stream.readUTF();
+	}
+
+	/**
+	 * Skips the name of a tag, following the tag type
+	 *
+	 * @throws IOException if reading failed
+	 */
+	public void skipName() throws IOException {
+		skipFully(this.stream.readUnsignedShort());
+	}
+
+	/**
+	 * Reads the payload of a tag, following the tag name
+	 *
+	 * @param type of the tag
+	 * @return tag data
+	 * @throws IOException if reading failed
+	 */
+	public Object readPayload(byte type) throws IOException {
+		return readPayload(type, 0);
+	}
+
+	private Object readPayload(byte type, int depth) throws IOException {
+		switch (type) {
+			case TYPE_BYTE :
+				return this.stream.readByte();
+			case TYPE_SHORT :
+				return this.stream.readShort();
+			case TYPE_INT :
+				return this.stream.readInt();
+			case TYPE_LONG :
+				return this.stream.readLong();
+			case TYPE_FLOAT :
+				return this.stream.readFloat();
+			case TYPE_DOUBLE :
+				return this.stream.readDouble();
+			case TYPE_BYTE_ARRAY : {
+				final byte[] data = new byte[readLength()];
+				this.stream.readFully(data);
+				return data;
+			}
+			case TYPE_STRING :
+				return this.stream.readUTF();
+			case TYPE_LIST : {
+				checkDepth(depth);
+				final byte elementType = this.stream.readByte();
+				final int count = readLength();
+				final List<Object> list = new ArrayList<Object>(count);
+				for (int i = 0; i < count; i++) {
+					list.add(readPayload(elementType, depth + 1));
+				}
+				return list;
+			}
+			case TYPE_COMPOUND : {
+				checkDepth(depth);
+				final Map<String, Object> compound = new LinkedHashMap<String, Object>();
+				byte elementType;
+				while ((elementType = this.stream.readByte()) != TYPE_END) {
+					final String name = readName();
+					compound.put(name, readPayload(elementType, depth + 1));
+				}
+				return compound;
+			}
+			case TYPE_INT_ARRAY : {
+				final int[] data = new int[readLength()];
+				for (int i = 0; i < data.length; i++) {
+					data[i] = this.stream.readInt();
+				}
+				return data;
+			}
+			default :
+				throw new IOException("Unknown tag type: " + type);
+		}
+	}
+
+	/**
+	 * Skips the payload of a tag, following the tag name, without reading it
+	 *
+	 * @param type of the tag
+	 * @throws IOException if reading failed
+	 */
+	public void skipPayload(byte type) throws IOException {
+		skipPayload(type, 0);
+	}
+
+	private void skipPayload(byte type, int depth) throws IOException {
+		switch (type) {
+			case TYPE_BYTE :
+				skipFully(1);
+				break;
+			case TYPE_SHORT :
+				skipFully(2);
+				break;
+			case TYPE_INT :
+			case TYPE_FLOAT :
+				skipFully(4);
+				break;
+			case TYPE_LONG :
+			case TYPE_DOUBLE :
+				skipFully(8);
+				break;
+			case TYPE_BYTE_ARRAY :
+				skipFully(readLength());
+				break;
+			case TYPE_STRING :
+				skipFully(this.stream.readUnsignedShort());
+				break;
+			case TYPE_LIST : {
+				checkDepth(depth);
+				final byte elementType = this.stream.readByte();
+				final int count = readLength();
+				final int elementSize = getPayloadSize(elementType);
+				if (elementSize >= 0) {
+					skipFully((long) elementSize * count);
+				} else {
+					for (int i = 0; i < count; i++) {
+						skipPayload(elementType, depth + 1);
+					}
+				}
+				break;
+			}
+			case TYPE_COMPOUND : {
+				checkDepth(depth);
+				byte elementType;
+				while ((elementType = this.stream.readByte()) != TYPE_END) {
+					skipName();
+					skipPayload(elementType, depth + 1);
+				}
+				break;
+			}
+			case TYPE_INT_ARRAY :
+				skipFully((long) readLength() * 4);
+				break;
+			default :
+				throw new IOException("Unknown tag type: " + type);
+		}
+	}
+
+	/**
+	 * Gets the size of the payload of a tag of fixed size
+	 *
+	 * @param type of the tag
+	 * @return payload size in bytes, or -1 if the size is variable
+	 */
+	private static int getPayloadSize(byte type) {
+		switch (type) {
+			case TYPE_END :
+				return 0;
+			case TYPE_BYTE :
+				return 1;
+			case TYPE_SHORT :
+				return 2;
+			case TYPE_INT :
+			case TYPE_FLOAT :
+				return 4;
+			case TYPE_LONG :
+			case TYPE_DOUBLE :
+				return 8;
+			default :
+				return -1;
+		}
+	}
+
+	private int readLength() throws IOException {
+		final int length = this.stream.readInt();
+		if (length < 0) {
+			throw new IOException("Invalid length: " + length);
+		}
+		return length;
+	}
+
+	private void skipFully(long n) throws IOException {
+		while (n > 0) {
+			final int skipped = this.stream.skipBytes((int) Math.min(n, Integer.MAX_VALUE));
+			if (skipped <= 0) {
+				// Make sure the end of the stream was reached, skipBytes does not tell
+				this.stream.readByte();
+				n--;
+			} else {
+				n -= skipped;
+			}
+		}
+	}
+
+	private static void checkDepth(int depth) throws IOException {
+		if (depth >= MAX_DEPTH) {
+			throw new IOException("Tags are nested too deeply");
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.stream.close();
+	}
+}
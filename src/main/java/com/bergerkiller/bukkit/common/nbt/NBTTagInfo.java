@@ -1,5 +1,6 @@
 package com.bergerkiller.bukkit.common.nbt;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
@@ -11,6 +12,10 @@ import java.util.Map.Entry;
 
 import com.bergerkiller.bukkit.common.Common;
 import com.bergerkiller.bukkit.common.reflection.classes.NBTRef;
+import com.bergerkiller.bukkit.common.reflection.gen.FastConstructor;
+import com.bergerkiller.bukkit.common.reflection.gen.FastConstructorGenerator;
+import com.bergerkiller.bukkit.common.reflection.gen.FastField;
+import com.bergerkiller.bukkit.common.reflection.gen.FastFieldGenerator;
 import com.bergerkiller.bukkit.common.utils.CommonUtil;
 import com.bergerkiller.bukkit.common.utils.LogicUtil;
 import com.bergerkiller.bukkit.common.utils.NBTUtil;
@@ -22,6 +27,7 @@ import com.bergerkiller.bukkit.common.utils.StringUtil;
 public class NBTTagInfo {
 	private static final Map<Class<?>, NBTTagInfo> dataTags = new HashMap<Class<?>, NBTTagInfo>();
 	private static final Map<Class<?>, NBTTagInfo> nbtTags = new HashMap<Class<?>, NBTTagInfo>();
+	private static final NBTTagInfo[] typeTags = new NBTTagInfo[12];
 
 	private static void registerNBTTag(String name) {
 		try {
@@ -37,6 +43,9 @@ public class NBTTagInfo {
 			}
 			dataTags.put(dataTag.dataType, dataTag);
 			nbtTags.put(dataTag.nbtType, dataTag);
+			if (dataTag.typeId >= 0 && dataTag.typeId < typeTags.length) {
+				typeTags[dataTag.typeId] = dataTag;
+			}
 		} catch (Throwable e) {
 			e.printStackTrace();
 		}
@@ -56,6 +65,32 @@ public class NBTTagInfo {
 		registerNBTTag("NBTTagCompound");
 	}
 
+	/**
+	 * Finds the tag information of the tag type id specified
+	 * 
+	 * @param typeId of the tag
+	 * @return tag information
+	 * @throws RuntimeException if the type id is not of a supported tag
+	 */
+	public static NBTTagInfo findInfo(byte typeId) {
+		final NBTTagInfo info = (typeId >= 0 && typeId < typeTags.length) ? typeTags[typeId] : null;
+		if (info == null) {
+			throw new RuntimeException("Unsupported tag type id: " + typeId);
+		}
+		return info;
+	}
+
+	/**
+	 * Gets the type id of an NBT Tag handle, without calling the handle reflectively for supported tags
+	 * 
+	 * @param handle to get the type id of
+	 * @return tag type id
+	 */
+	public static byte getTypeId(Object handle) {
+		final NBTTagInfo info = nbtTags.get(handle.getClass());
+		return info == null ? NBTRef.getTypeId.invoke(handle).byteValue() : info.typeId;
+	}
+
 	public static NBTTagInfo findInfo(Object data) {
 		if (data == null) {
 			throw new RuntimeException("Can not find tag information of null data");
@@ -91,6 +126,9 @@ public class NBTTagInfo {
 	public final Field dataField;
 	public final Class<?> dataType;
 	public final String dataName;
+	public final byte typeId;
+	private final FastConstructor fastConstructor;
+	private final FastField fastDataField;
 
 	public NBTTagInfo(Class<?> nbtClass) throws Throwable {
 		this.nbtType = nbtClass;
@@ -118,6 +156,29 @@ public class NBTTagInfo {
 			this.dataName = this.dataField.getType().getSimpleName();
 		}
 		this.dataField.setAccessible(true);
+		// Generated once per tag type, so creating tags and accessing their data does not use reflection
+		this.fastConstructor = FastConstructorGenerator.create(this.constructor);
+		this.fastDataField = FastFieldGenerator.create(this.dataField);
+		// Look up the type id once using an empty tag, so it does not have to be obtained from every handle
+		this.typeId = NBTRef.getTypeId.invoke(createEmptyHandle()).byteValue();
+	}
+
+	private Object createEmptyHandle() throws Throwable {
+		if (NBTRef.NBTTagList.isType(nbtType) || NBTRef.NBTTagCompound.isType(nbtType)) {
+			return fastConstructor.newInstance();
+		}
+		final Class<?> type = dataField.getType();
+		final Object data;
+		if (type.isPrimitive()) {
+			data = Array.get(Array.newInstance(type, 1), 0);
+		} else if (type.isArray()) {
+			data = Array.newInstance(type.getComponentType(), 0);
+		} else if (type == String.class) {
+			data = "";
+		} else {
+			data = null;
+		}
+		return fastConstructor.newInstance(data);
 	}
 
 	public void setData(Object handle, Object data) {
@@ -128,7 +189,7 @@ public class NBTTagInfo {
 			throw new IllegalArgumentException("NBTInfo not suitable for specified data");
 		}
 		try {
-			dataField.set(handle, data);
+			fastDataField.set(handle, data);
 		} catch (Throwable t) {
 			throw new RuntimeException("Unable to write data to handle", t);
 		}
@@ -166,7 +227,7 @@ public class NBTTagInfo {
 	public Object getData(Object handle) {
 		validateHandle(handle);
 		try {
-			return dataField.get(handle);
+			return fastDataField.get(handle);
 		} catch (Throwable t) {
 			throw new RuntimeException("Unable to read data from handle", t);
 		}
@@ -208,13 +269,13 @@ public class NBTTagInfo {
 					} else {
 						base = NBTUtil.createHandle(element);
 					}
-					type = NBTUtil.getTypeId(base);
+					type = getTypeId(base);
 					newData.add(base);
 				}
 				// Assign this data to a new valid NBT Tag List
-				handle = constructor.newInstance();
+				handle = fastConstructor.newInstance();
 				NBTRef.nbtListType.set(handle, type);
-				dataField.set(handle, newData);
+				fastDataField.set(handle, newData);
 			} else if (NBTRef.NBTTagCompound.isType(nbtType)) {
 				// Fix up the map data
 				Map<Object, Object> oldData = (Map<Object, Object>) data;
@@ -232,10 +293,10 @@ public class NBTTagInfo {
 					newData.put(key, base);
 				}
 				// Assign this data to a new valid NBT Tag Compound
-				handle = constructor.newInstance();
-				dataField.set(handle, newData);
+				handle = fastConstructor.newInstance();
+				fastDataField.set(handle, newData);
 			} else {
-				handle = constructor.newInstance(data);
+				handle = fastConstructor.newInstance(data);
 			}
 			return handle;
 		} catch (Throwable t) {
@@ -47,6 +47,28 @@ public class CommonPacket {
 		return this.packet;
 	}
 
+	/**
+	 * Changes the packet handle and type this CommonPacket represents.
+	 * Used when re-using packet instances while dispatching packet events.
+	 * 
+	 * @param packetHandle to set to
+	 * @param packetType of the packet handle
+	 */
+	protected void setHandle(Object packetHandle, PacketType packetType) {
+		this.packet = packetHandle;
+		this.type = packetType;
+	}
+
+	/**
+	 * Prevents this CommonPacket from being re-used after a listener or monitor returns.
+	 * Packets passed to {@link PacketListener listeners} and {@link PacketMonitor monitors}
+	 * are re-used for the next packet handled on the same thread. If a reference to the packet
+	 * is kept after the listener method returns, this method has to be called first.
+	 * Packets created by plugins are never re-used, for them this method does nothing.
+	 */
+	public void retain() {
+	}
+
 	/**
 	 * Write data on a cusotm field in the packet
 	 * 
@@ -148,7 +170,12 @@ public class CommonPacket {
 	 * @throws IllegalArgumentException Field index not found
 	 */
 	public int readInt(int index) throws IllegalArgumentException {
-		return (Integer) read(index);
+		final SafeField<?> field = this.type.getFieldAt(index);
+		if (field.getType() == int.class) {
+			return field.getInteger(this.packet);
+		} else {
+			return Conversion.toIntValue.convertInt(field.get(this.packet), 0);
+		}
 	}
 	
 	/**
@@ -159,7 +186,12 @@ public class CommonPacket {
 	 * @throws IllegalArgumentException Field index not found
 	 */
 	public boolean readBoolean(int index) throws IllegalArgumentException {
-		return (Boolean) read(index);
+		final SafeField<?> field = this.type.getFieldAt(index);
+		if (field.getType() == boolean.class) {
+			return field.getBoolean(this.packet);
+		} else {
+			return Conversion.toBoolValue.convertBool(field.get(this.packet), false);
+		}
 	}
 	
 	/**
@@ -170,7 +202,12 @@ public class CommonPacket {
 	 * @throws IllegalArgumentException Field index not found
 	 */
 	public byte readByte(int index) throws IllegalArgumentException {
-		return (Byte) read(index);
+		final SafeField<?> field = this.type.getFieldAt(index);
+		if (field.getType() == byte.class) {
+			return field.getByte(this.packet);
+		} else {
+			return Conversion.toByteValue.convertByte(field.get(this.packet), (byte) 0);
+		}
 	}
 	
 	/**
@@ -192,7 +229,12 @@ public class CommonPacket {
 	 * @throws IllegalArgumentException Field index not found
 	 */
 	public double readDouble(int index) throws IllegalArgumentException {
-		return (Double) read(index);
+		final SafeField<?> field = this.type.getFieldAt(index);
+		if (field.getType() == double.class) {
+			return field.getDouble(this.packet);
+		} else {
+			return Conversion.toDoubleValue.convertDouble(field.get(this.packet), 0.0);
+		}
 	}
 
 	@Override
@@ -0,0 +1,100 @@
+package com.bergerkiller.bukkit.common.protocol;
+
+/**
+ * Immutable snapshot of the network statistics of a single player connection.
+ * The queue length and pending bytes of the connection are sampled periodically,
+ * the histograms cover the most recent samples.<br><br>
+ *
+ * Histograms use power-of-two buckets: bucket 0 counts samples of value 0,
+ * and bucket i (i > 0) counts samples in the range [2^(i-1), 2^i).
+ */
+public class ConnectionStatistics {
+	private final long packetsSent;
+	private final long bytesSent;
+	private final long packetsReceived;
+	private final long bytesReceived;
+	private final int queueLength;
+	private final long pendingBytes;
+	private final int[] queueLengthHistogram;
+	private final int[] pendingBytesHistogram;
+
+	public ConnectionStatistics(long packetsSent, long bytesSent, long packetsReceived, long bytesReceived,
+			int queueLength, long pendingBytes, int[] queueLengthHistogram, int[] pendingBytesHistogram) {
+		this.packetsSent = packetsSent;
+		this.bytesSent = bytesSent;
+		this.packetsReceived = packetsReceived;
+		this.bytesReceived = bytesReceived;
+		this.queueLength = queueLength;
+		this.pendingBytes = pendingBytes;
+		this.queueLengthHistogram = queueLengthHistogram;
+		this.pendingBytesHistogram = pendingBytesHistogram;
+	}
+
+	public long getPacketsSent() {
+		return packetsSent;
+	}
+
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	public long getPacketsReceived() {
+		return packetsReceived;
+	}
+
+	public long getBytesReceived() {
+		return bytesReceived;
+	}
+
+	/**
+	 * Gets the amount of packets queued in the network manager at the last sample
+	 *
+	 * @return queue length
+	 */
+	public int getQueueLength() {
+		return queueLength;
+	}
+
+	/**
+	 * Gets the estimated amount of bytes queued in the network manager at the last sample
+	 *
+	 * @return pending bytes
+	 */
+	public long getPendingBytes() {
+		return pendingBytes;
+	}
+
+	/**
+	 * Gets the histogram of the queue length over the recent samples
+	 *
+	 * @return queue length histogram (do not modify)
+	 */
+	public int[] getQueueLengthHistogram() {
+		return queueLengthHistogram;
+	}
+
+	/**
+	 * Gets the histogram of the estimated pending bytes over the recent samples
+	 *
+	 * @return pending bytes histogram (do not modify)
+	 */
+	public int[] getPendingBytesHistogram() {
+		return pendingBytesHistogram;
+	}
+
+	/**
+	 * Gets the lowest value that is counted by a histogram bucket
+	 *
+	 * @param bucket index
+	 * @return lowest value of the bucket
+	 */
+	public static long getBucketMinimum(int bucket) {
+		return bucket == 0 ? 0L : (1L << (bucket - 1));
+	}
+
+	@Override
+	public String toString() {
+		return "{sent=" + packetsSent + " (" + bytesSent + " bytes), received=" + packetsReceived +
+				" (" + bytesReceived + " bytes), queued=" + queueLength + " (" + pendingBytes + " bytes)}";
+	}
+}
@@ -4,7 +4,9 @@ import com.bergerkiller.bukkit.common.events.PacketReceiveEvent;
 import com.bergerkiller.bukkit.common.events.PacketSendEvent;
 
 /**
- * Allows a plugin to listen to packet send and receive events, and alter the outcome
+ * Allows a plugin to listen to packet send and receive events, and alter the outcome.
+ * The event passed in is re-used after the method returns, call
+ * {@link com.bergerkiller.bukkit.common.events.PacketEvent#retain() retain()} to keep a reference to it.
  */
 public interface PacketListener {
 
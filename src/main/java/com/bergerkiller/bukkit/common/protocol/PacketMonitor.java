@@ -3,7 +3,9 @@ package com.bergerkiller.bukkit.common.protocol;
 import org.bukkit.entity.Player;
 
 /**
- * Allows a plugin to monitor the packets being received and sent, but not alter the outcome
+ * Allows a plugin to monitor the packets being received and sent, but not alter the outcome.
+ * The CommonPacket passed in is re-used after the method returns, call {@link CommonPacket#retain()}
+ * to keep a reference to it.
  */
 public interface PacketMonitor {
 	/**
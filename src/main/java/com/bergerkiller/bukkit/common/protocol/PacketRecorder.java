@@ -0,0 +1,183 @@
+package com.bergerkiller.bukkit.common.protocol;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.zip.GZIPOutputStream;
+
+import org.bukkit.entity.Player;
+
+import com.bergerkiller.bukkit.common.internal.CommonPlugin;
+import com.bergerkiller.bukkit.common.reflection.SafeField;
+
+/**
+ * Records the packets it monitors to a file, to be replayed later using a {@link PacketReplay}.
+ * Register the recorder as a packet monitor for the packet types to record, and close it when done.<br><br>
+ *
+ * Packets are stored as snapshots of their field values, in the order of
+ * {@link PacketType#getFields()}. Primitives, Strings and byte and int arrays are stored.
+ * Other field values, such as item stacks and chat components, can not be stored. They are
+ * marked as unsupported, and packets containing them are skipped when the recording is loaded.
+ */
+public class PacketRecorder implements PacketMonitor, Closeable {
+	public static final int MAGIC = 0x424B5043; // BKPC
+	public static final int VERSION = 2;
+	static final int TAG_NULL = 0;
+	static final int TAG_BOOLEAN = 1;
+	static final int TAG_BYTE = 2;
+	static final int TAG_SHORT = 3;
+	static final int TAG_CHAR = 4;
+	static final int TAG_INT = 5;
+	static final int TAG_LONG = 6;
+	static final int TAG_FLOAT = 7;
+	static final int TAG_DOUBLE = 8;
+	static final int TAG_STRING = 9;
+	static final int TAG_BYTE_ARRAY = 10;
+	static final int TAG_INT_ARRAY = 11;
+	static final int TAG_UNSUPPORTED = 12;
+	private final Map<PacketType, Integer> typeIndices = new HashMap<PacketType, Integer>();
+	private DataOutputStream stream;
+	private int recorded = 0;
+
+	/**
+	 * Creates a new recorder writing to a file. Existing file contents are overwritten.
+	 *
+	 * @param file to write to
+	 * @throws IOException if the file could not be opened
+	 */
+	public PacketRecorder(File file) throws IOException {
+		this.stream = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))));
+		this.stream.writeInt(MAGIC);
+		this.stream.writeInt(VERSION);
+	}
+
+	/**
+	 * Gets the amount of packets recorded so far
+	 *
+	 * @return recorded packet count
+	 */
+	public synchronized int getRecordedCount() {
+		return this.recorded;
+	}
+
+	/**
+	 * Gets whether this recorder is still recording
+	 *
+	 * @return True if recording, False if closed
+	 */
+	public synchronized boolean isRecording() {
+		return this.stream != null;
+	}
+
+	@Override
+	public void onMonitorPacketSend(CommonPacket packet, Player player) {
+		record(packet);
+	}
+
+	@Override
+	public void onMonitorPacketReceive(CommonPacket packet, Player player) {
+		record(packet);
+	}
+
+	/**
+	 * Records a single packet
+	 *
+	 * @param packet to record
+	 */
+	public synchronized void record(CommonPacket packet) {
+		if (this.stream == null) {
+			return;
+		}
+		try {
+			final PacketType type = packet.getType();
+			final Object handle = packet.getHandle();
+			Integer index = typeIndices.get(type);
+			if (index == null) {
+				index = typeIndices.size();
+				typeIndices.put(type, index);
+				this.stream.writeInt(-1);
+				this.stream.writeUTF(type.getType().getName());
+			} else {
+				this.stream.writeInt(index.intValue());
+			}
+			final List<SafeField<?>> fields = type.getFields();
+			this.stream.writeShort(fields.size());
+			for (SafeField<?> field : fields) {
+				writeValue(this.stream, field.get(handle));
+			}
+			this.recorded++;
+		} catch (IOException ex) {
+			CommonPlugin.LOGGER_NETWORK.log(Level.SEVERE, "Failed to record packet, recording stopped", ex);
+			close();
+		}
+	}
+
+	private static void writeValue(DataOutputStream stream, Object value) throws IOException {
+		if (value instanceof Boolean) {
+			stream.writeByte(TAG_BOOLEAN);
+			stream.writeBoolean(((Boolean) value).booleanValue());
+		} else if (value instanceof Byte) {
+			stream.writeByte(TAG_BYTE);
+			stream.writeByte(((Byte) value).byteValue());
+		} else if (value instanceof Short) {
+			stream.writeByte(TAG_SHORT);
+			stream.writeShort(((Short) value).shortValue());
+		} else if (value instanceof Character) {
+			stream.writeByte(TAG_CHAR);
+			stream.writeChar(((Character) value).charValue());
+		} else if (value instanceof Integer) {
+			stream.writeByte(TAG_INT);
+			stream.writeInt(((Integer) value).intValue());
+		} else if (value instanceof Long) {
+			stream.writeByte(TAG_LONG);
+			stream.writeLong(((Long) value).longValue());
+		} else if (value instanceof Float) {
+			stream.writeByte(TAG_FLOAT);
+			stream.writeFloat(((Float) value).floatValue());
+		} else if (value instanceof Double) {
+			stream.writeByte(TAG_DOUBLE);
+			stream.writeDouble(((Double) value).doubleValue());
+		} else if (value instanceof String) {
+			stream.writeByte(TAG_STRING);
+			stream.writeUTF((String) value);
+		} else if (value instanceof byte[]) {
+			final byte[] data = (byte[]) value;
+			stream.writeByte(TAG_BYTE_ARRAY);
+			stream.writeInt(data.length);
+			stream.write(data);
+		} else if (value instanceof int[]) {
+			final int[] data = (int[]) value;
+			stream.writeByte(TAG_INT_ARRAY);
+			stream.writeInt(data.length);
+			for (int i : data) {
+				stream.writeInt(i);
+			}
+		} else if (value == null) {
+			stream.writeByte(TAG_NULL);
+		} else {
+			stream.writeByte(TAG_UNSUPPORTED);
+		}
+	}
+
+	/**
+	 * Stops recording and closes the file
+	 */
+	@Override
+	public synchronized void close() {
+		if (this.stream != null) {
+			try {
+				this.stream.close();
+			} catch (IOException ex) {
+				CommonPlugin.LOGGER_NETWORK.log(Level.WARNING, "Failed to close packet recording", ex);
+			}
+			this.stream = null;
+		}
+	}
+}
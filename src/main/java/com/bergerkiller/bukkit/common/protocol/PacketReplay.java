@@ -0,0 +1,283 @@
+package com.bergerkiller.bukkit.common.protocol;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import net.minecraft.util.io.netty.channel.embedded.EmbeddedChannel;
+
+import org.bukkit.entity.Player;
+
+import com.bergerkiller.bukkit.common.internal.CommonPlugin;
+import com.bergerkiller.bukkit.common.internal.network.CommonPacketHandler.CommonChannelListener;
+import com.bergerkiller.bukkit.common.internal.network.OfflinePacketHandler;
+import com.bergerkiller.bukkit.common.internal.network.PacketHandlerHooked;
+import com.bergerkiller.bukkit.common.reflection.SafeField;
+import com.bergerkiller.bukkit.common.utils.CommonUtil;
+
+/**
+ * A sequence of packets recorded by a {@link PacketRecorder}, which can be replayed
+ * through the packet listeners and monitors to measure the time spent dispatching them.
+ * Replaying always dispatches the same packets in the same order, through the channel handler
+ * of BKCommonLib in an embedded Netty channel. Nothing is sent over the network, and no
+ * running server is needed to replay packets through an {@link OfflinePacketHandler}.<br><br>
+ *
+ * Recorded packets with field values that could not be recorded are skipped when loading,
+ * as replaying them with those fields left empty would not measure the same work.
+ * The amount of packets skipped is available using {@link #getSkippedCount()}.
+ */
+public class PacketReplay {
+	/**
+	 * Returned by readValue for values that could not be recorded
+	 */
+	private static final Object UNSUPPORTED = new Object();
+	private final List<Object> packets;
+	private final List<PacketType> types;
+	private final int skipped;
+
+	private PacketReplay(List<Object> packets, List<PacketType> types, int skipped) {
+		this.packets = packets;
+		this.types = types;
+		this.skipped = skipped;
+	}
+
+	/**
+	 * Creates a replay of existing packets, in the order specified
+	 *
+	 * @param packets to replay
+	 * @return new replay
+	 */
+	public static PacketReplay create(List<?> packets) {
+		final List<Object> handles = new ArrayList<Object>(packets.size());
+		final List<PacketType> types = new ArrayList<PacketType>(packets.size());
+		for (Object packet : packets) {
+			handles.add(packet);
+			types.add(PacketType.getType(packet));
+		}
+		return new PacketReplay(Collections.unmodifiableList(handles), Collections.unmodifiableList(types), 0);
+	}
+
+	/**
+	 * Loads a recording from a file. The packets are restored right away.
+	 * Packets of which not all fields were recorded are skipped.
+	 *
+	 * @param file to load
+	 * @return the loaded replay
+	 * @throws IOException if the file could not be read, or is not a packet recording
+	 */
+	@SuppressWarnings("unchecked")
+	public static PacketReplay load(File file) throws IOException {
+		final DataInputStream stream = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+		try {
+			if (stream.readInt() != PacketRecorder.MAGIC) {
+				throw new IOException("File is not a packet recording: " + file);
+			}
+			final int version = stream.readInt();
+			if (version != PacketRecorder.VERSION) {
+				throw new IOException("Unsupported packet recording version: " + version);
+			}
+			final List<PacketType> typeTable = new ArrayList<PacketType>();
+			final List<Object> packets = new ArrayList<Object>();
+			final List<PacketType> types = new ArrayList<PacketType>();
+			int skipped = 0;
+			int index;
+			while ((index = readIndex(stream)) != Integer.MIN_VALUE) {
+				if (index == -1) {
+					final String className = stream.readUTF();
+					final Class<?> packetClass = CommonUtil.getClass(className);
+					if (packetClass == null) {
+						throw new IOException("Recorded packet class does not exist: " + className);
+					}
+					index = typeTable.size();
+					typeTable.add(PacketType.getType(packetClass));
+				} else if (index < 0 || index >= typeTable.size()) {
+					throw new IOException("Corrupt packet recording: invalid type index " + index);
+				}
+				final PacketType type = typeTable.get(index);
+				final List<SafeField<?>> fields = type.getFields();
+				final int fieldCount = stream.readUnsignedShort();
+				if (fieldCount != fields.size()) {
+					throw new IOException("Recorded packet " + type + " has " + fieldCount + " fields, expected " + fields.size());
+				}
+				final Object handle = type.newInstanceNull();
+				boolean complete = true;
+				for (SafeField<?> field : fields) {
+					final Object value = readValue(stream);
+					if (value == UNSUPPORTED) {
+						complete = false;
+					} else if (value != null) {
+						((SafeField<Object>) field).set(handle, value);
+					}
+				}
+				if (complete) {
+					packets.add(handle);
+					types.add(type);
+				} else {
+					skipped++;
+				}
+			}
+			return new PacketReplay(Collections.unmodifiableList(packets), Collections.unmodifiableList(types), skipped);
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Gets the amount of packets in this replay
+	 *
+	 * @return packet count
+	 */
+	public int size() {
+		return this.packets.size();
+	}
+
+	/**
+	 * Gets the amount of recorded packets that were skipped when loading,
+	 * because they contained field values that could not be recorded
+	 *
+	 * @return skipped packet count
+	 */
+	public int getSkippedCount() {
+		return this.skipped;
+	}
+
+	/**
+	 * Gets the restored packet handles in this replay, in the order they were recorded
+	 *
+	 * @return packet handles
+	 */
+	public List<Object> getPackets() {
+		return this.packets;
+	}
+
+	/**
+	 * Dispatches all packets in this replay to the packet listeners and monitors a number of times.
+	 * The listeners and monitors currently registered in BKCommonLib are copied into an
+	 * {@link OfflinePacketHandler}, so this works regardless of the packet handler in use.
+	 * Nothing is sent to or received from the player.
+	 *
+	 * @param player to dispatch the packets for
+	 * @param iterations amount of times to dispatch all packets
+	 * @return total time spent dispatching, in nanoseconds
+	 */
+	public long replay(Player player, int iterations) {
+		return replay(OfflinePacketHandler.copyOf(CommonPlugin.getInstance().getPacketHandler()), player, iterations);
+	}
+
+	/**
+	 * Dispatches all packets in this replay through a packet handler a number of times.
+	 * This does not require a running server: the player can be any Player implementation.
+	 *
+	 * @param handler to dispatch the packets to
+	 * @param player to dispatch the packets for
+	 * @param iterations amount of times to dispatch all packets
+	 * @return total time spent dispatching, in nanoseconds
+	 */
+	public long replay(PacketHandlerHooked handler, Player player, int iterations) {
+		return replay(createChannel(handler, player), iterations);
+	}
+
+	/**
+	 * Dispatches all packets in this replay through the handlers of an embedded channel a number of times.
+	 * Outgoing packets are written to the channel, incoming packets are read from it, in the recorded order.
+	 * The packets that pass all handlers are discarded after every iteration.
+	 *
+	 * @param channel to dispatch the packets in, see {@link #createChannel(PacketHandlerHooked, Player)}
+	 * @param iterations amount of times to dispatch all packets
+	 * @return total time spent dispatching, in nanoseconds
+	 */
+	public long replay(EmbeddedChannel channel, int iterations) {
+		final int count = this.packets.size();
+		final long startTime = System.nanoTime();
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			for (int i = 0; i < count; i++) {
+				if (this.types.get(i).isOutGoing()) {
+					channel.write(this.packets.get(i));
+				} else {
+					channel.pipeline().fireChannelRead(this.packets.get(i));
+				}
+			}
+			channel.flush();
+			while (channel.readOutbound() != null) {
+			}
+			while (channel.readInbound() != null) {
+			}
+			channel.checkException();
+		}
+		return System.nanoTime() - startTime;
+	}
+
+	/**
+	 * Creates an embedded channel with the same handler BKCommonLib adds to the channel of a player.
+	 * Packets written to or read from the channel are passed to the listeners and monitors of the handler.
+	 *
+	 * @param handler to dispatch the packets to
+	 * @param player to dispatch the packets for
+	 * @return new embedded channel
+	 */
+	public static EmbeddedChannel createChannel(PacketHandlerHooked handler, Player player) {
+		return new EmbeddedChannel(new CommonChannelListener(handler, player));
+	}
+
+	/**
+	 * Reads the next type index, or returns Integer.MIN_VALUE at the end of the stream
+	 */
+	private static int readIndex(DataInputStream stream) throws IOException {
+		final int b1 = stream.read();
+		if (b1 == -1) {
+			return Integer.MIN_VALUE;
+		}
+		final int b2 = stream.readUnsignedByte();
+		final int b3 = stream.readUnsignedByte();
+		final int b4 = stream.readUnsignedByte();
+		return (b1 << 24) | (b2 << 16) | (b3 << 8) | b4;
+	}
+
+	private static Object readValue(DataInputStream stream) throws IOException {
+		final int tag = stream.readUnsignedByte();
+		switch (tag) {
+		case PacketRecorder.TAG_NULL:
+			return null;
+		case PacketRecorder.TAG_BOOLEAN:
+			return stream.readBoolean();
+		case PacketRecorder.TAG_BYTE:
+			return stream.readByte();
+		case PacketRecorder.TAG_SHORT:
+			return stream.readShort();
+		case PacketRecorder.TAG_CHAR:
+			return stream.readChar();
+		case PacketRecorder.TAG_INT:
+			return stream.readInt();
+		case PacketRecorder.TAG_LONG:
+			return stream.readLong();
+		case PacketRecorder.TAG_FLOAT:
+			return stream.readFloat();
+		case PacketRecorder.TAG_DOUBLE:
+			return stream.readDouble();
+		case PacketRecorder.TAG_STRING:
+			return stream.readUTF();
+		case PacketRecorder.TAG_BYTE_ARRAY: {
+			final byte[] data = new byte[stream.readInt()];
+			stream.readFully(data);
+			return data;
+		}
+		case PacketRecorder.TAG_INT_ARRAY: {
+			final int[] data = new int[stream.readInt()];
+			for (int i = 0; i < data.length; i++) {
+				data[i] = stream.readInt();
+			}
+			return data;
+		}
+		case PacketRecorder.TAG_UNSUPPORTED:
+			return UNSUPPORTED;
+		default:
+			throw new IOException("Corrupt packet recording: unknown value tag " + tag);
+		}
+	}
+}
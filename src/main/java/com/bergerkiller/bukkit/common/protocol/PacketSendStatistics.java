@@ -0,0 +1,83 @@
+package com.bergerkiller.bukkit.common.protocol;
+
+/**
+ * Immutable snapshot of the statistics of buffered packet sending.
+ * Every flush results in a socket write, so the amount of flushes saved
+ * is the amount of socket writes that were avoided by buffering.
+ */
+public class PacketSendStatistics {
+	public static final PacketSendStatistics NONE = new PacketSendStatistics(0, 0, 0, 0);
+	private final int bufferedPlayers;
+	private final long packetsWritten;
+	private final long flushesRequested;
+	private final long flushesPerformed;
+
+	public PacketSendStatistics(int bufferedPlayers, long packetsWritten, long flushesRequested, long flushesPerformed) {
+		this.bufferedPlayers = bufferedPlayers;
+		this.packetsWritten = packetsWritten;
+		this.flushesRequested = flushesRequested;
+		this.flushesPerformed = flushesPerformed;
+	}
+
+	/**
+	 * Gets the amount of players of which the sent packets are buffered
+	 *
+	 * @return buffered player count
+	 */
+	public int getBufferedPlayers() {
+		return bufferedPlayers;
+	}
+
+	/**
+	 * Gets the amount of packets written to buffered players
+	 *
+	 * @return packets written
+	 */
+	public long getPacketsWritten() {
+		return packetsWritten;
+	}
+
+	/**
+	 * Gets the amount of flushes requested by the server, which would each have resulted in a socket write
+	 *
+	 * @return flushes requested
+	 */
+	public long getFlushesRequested() {
+		return flushesRequested;
+	}
+
+	/**
+	 * Gets the amount of flushes that were actually performed
+	 *
+	 * @return flushes performed
+	 */
+	public long getFlushesPerformed() {
+		return flushesPerformed;
+	}
+
+	/**
+	 * Gets the amount of flushes (and thus socket writes) that were saved by buffering
+	 *
+	 * @return flushes saved
+	 */
+	public long getFlushesSaved() {
+		return Math.max(0L, flushesRequested - flushesPerformed);
+	}
+
+	/**
+	 * Gets the statistics that occurred between another (earlier) snapshot and this snapshot
+	 *
+	 * @param earlier snapshot to subtract
+	 * @return difference statistics
+	 */
+	public PacketSendStatistics subtract(PacketSendStatistics earlier) {
+		return new PacketSendStatistics(this.bufferedPlayers, this.packetsWritten - earlier.packetsWritten,
+				this.flushesRequested - earlier.flushesRequested, this.flushesPerformed - earlier.flushesPerformed);
+	}
+
+	@Override
+	public String toString() {
+		return "{players=" + bufferedPlayers + ", packets=" + packetsWritten + ", flushes=" + flushesPerformed +
+				", flushesSaved=" + getFlushesSaved() + "}";
+	}
+}
@@ -1,5 +1,12 @@
 package com.bergerkiller.bukkit.common.protocol;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import com.bergerkiller.bukkit.common.reflection.ClassTemplate;
@@ -8,6 +15,7 @@ import com.bergerkiller.bukkit.common.reflection.SafeField;
 import com.bergerkiller.bukkit.common.reflection.classes.DataWatcherRef;
 import com.bergerkiller.bukkit.common.reflection.classes.EnumProtocolRef;
 import com.bergerkiller.bukkit.common.utils.CommonUtil;
+import com.bergerkiller.bukkit.common.utils.LogicUtil;
 import com.bergerkiller.bukkit.common.wrappers.DataWatcher;
 import com.bergerkiller.bukkit.common.collections.ClassMap;
 import com.bergerkiller.bukkit.common.conversion.ConversionPairs;
@@ -16,6 +24,8 @@ import com.bergerkiller.bukkit.common.protocol.PacketTypeClasses.*;
 
 public class PacketType extends ClassTemplate<Object> {
 	private static final ClassMap<PacketType> typesByPacketClass = new ClassMap<PacketType>();
+	private static final Map<Class<?>, PacketType> typesByExactClass = new ConcurrentHashMap<Class<?>, PacketType>();
+	private static final AtomicInteger ordinalCounter = new AtomicInteger();
 
 	/* 
 	 * ========================
@@ -124,8 +134,11 @@ public class PacketType extends ClassTemplate<Object> {
 	public static final NMSPacketPlayInWindowClick IN_WINDOW_CLICK = new NMSPacketPlayInWindowClick();
 
 	private final int id;
+	private final int ordinal;
 	private final boolean outgoing;
 	private final FieldAccessor<DataWatcher> dataWatcherField;
+	private final int fixedSize;
+	private final SafeField<?>[] variableSizeFields;
 
 	static {
 		//TODO: Check that all NMS packets are actually registered here
@@ -145,6 +158,8 @@ public class PacketType extends ClassTemplate<Object> {
 			packetClass = CommonUtil.getNMSClass(getClass().getSimpleName().substring(3));
 		}
 		typesByPacketClass.put(packetClass, this);
+		typesByExactClass.clear();
+		this.ordinal = ordinalCounter.getAndIncrement();
 
 		// Apply the packet class
 		this.setClass((Class<Object>) packetClass);
@@ -174,6 +189,20 @@ public class PacketType extends ClassTemplate<Object> {
 			}
 		}
 		this.dataWatcherField = dataWatcherField;
+
+		// Compute the size of all fixed-size fields, remember the fields for which the size varies
+		int fixedSize = 1; // Packet ID
+		List<SafeField<?>> variableSizeFields = new ArrayList<SafeField<?>>();
+		for (SafeField<?> field : this.getFields()) {
+			final Class<?> fieldType = field.getType();
+			if (fieldType.isPrimitive()) {
+				fixedSize += getPrimitiveSize(fieldType);
+			} else {
+				variableSizeFields.add(field);
+			}
+		}
+		this.fixedSize = fixedSize;
+		this.variableSizeFields = variableSizeFields.toArray(new SafeField<?>[0]);
 	}
 
 	public boolean isOutGoing() {
@@ -184,6 +213,16 @@ public class PacketType extends ClassTemplate<Object> {
 		return this.id;
 	}
 
+	/**
+	 * Gets the unique ordinal of this Packet Type. Ordinals are assigned in the order
+	 * packet types are created, starting at 0, and can be used to index arrays.
+	 * 
+	 * @return packet type ordinal
+	 */
+	public int getOrdinal() {
+		return this.ordinal;
+	}
+
 	protected Object createPacketHandle() {
 		return super.newInstance();
 	}
@@ -200,14 +239,90 @@ public class PacketType extends ClassTemplate<Object> {
 		return dataWatcherField;
 	}
 
+	/**
+	 * Estimates the amount of bytes a packet of this type takes up when sent over the network.
+	 * By default this is the size of all primitive fields, plus the estimated size of the arrays,
+	 * Strings and collections contained. Packet types with large data buffers compute this
+	 * from the lengths of those buffers instead.
+	 * 
+	 * @param packetHandle to get the size of
+	 * @return estimated packet size in bytes
+	 */
 	public int getPacketSize(Object packetHandle) {
-		return 1;
+		int size = this.fixedSize;
+		for (SafeField<?> field : this.variableSizeFields) {
+			size += getValueSize(field.get(packetHandle));
+		}
+		return size;
+	}
+
+	/**
+	 * Estimates the amount of bytes a value stored in a packet takes up when serialized
+	 * 
+	 * @param value to get the size of
+	 * @return estimated size in bytes
+	 */
+	protected static int getValueSize(Object value) {
+		if (value == null) {
+			return 0;
+		} else if (value instanceof byte[]) {
+			return ((byte[]) value).length + 2;
+		} else if (value instanceof String) {
+			return ((String) value).length() + 1;
+		} else if (value instanceof Number) {
+			return getPrimitiveSize(LogicUtil.getUnboxedType(value.getClass()));
+		} else if (value instanceof Collection) {
+			int size = 1;
+			for (Object element : (Collection<?>) value) {
+				size += getValueSize(element);
+			}
+			return size;
+		} else if (value.getClass().isArray()) {
+			final Class<?> componentType = value.getClass().getComponentType();
+			final int length = Array.getLength(value);
+			if (componentType.isPrimitive()) {
+				return length * getPrimitiveSize(componentType) + 2;
+			}
+			int size = 2;
+			for (int i = 0; i < length; i++) {
+				size += getValueSize(Array.get(value, i));
+			}
+			return size;
+		} else {
+			// Enums, item stacks and other small structures
+			return 4;
+		}
+	}
+
+	private static int getPrimitiveSize(Class<?> primitiveType) {
+		if (primitiveType == long.class || primitiveType == double.class) {
+			return 8;
+		} else if (primitiveType == int.class || primitiveType == float.class) {
+			return 4;
+		} else if (primitiveType == short.class || primitiveType == char.class) {
+			return 2;
+		} else {
+			return 1;
+		}
 	}
 
 	protected static PacketType getType(Class<?> packetHandleClass) {
 		if (packetHandleClass == null) {
 			throw new IllegalArgumentException("Null packets can not be used");
 		}
+		PacketType type = typesByExactClass.get(packetHandleClass);
+		if (type == null) {
+			type = resolveType(packetHandleClass);
+			typesByExactClass.put(packetHandleClass, type);
+		}
+		return type;
+	}
+
+	/**
+	 * Finds or creates the Packet Type for a packet Class. The result is stored for the exact
+	 * Class by the caller, which means unregistered packet classes are only resolved once.
+	 */
+	private static synchronized PacketType resolveType(Class<?> packetHandleClass) {
 		PacketType type = typesByPacketClass.get(packetHandleClass);
 		if (type == null) {
 			type = new PacketType(packetHandleClass);
@@ -219,11 +334,7 @@ public class PacketType extends ClassTemplate<Object> {
 		if (packetHandle == null) {
 			throw new IllegalArgumentException("Null packets can not be used");
 		}
-		PacketType type = typesByPacketClass.get(packetHandle);
-		if (type == null) {
-			type = new PacketType(packetHandle.getClass());
-		}
-		return type;
+		return getType(packetHandle.getClass());
 	}
 
 	public static PacketType getType(int packetId, boolean outGoing) {
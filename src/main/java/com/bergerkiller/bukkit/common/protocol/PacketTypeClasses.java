@@ -34,6 +34,7 @@ import com.bergerkiller.bukkit.common.reflection.classes.EntityHumanRef;
 import com.bergerkiller.bukkit.common.reflection.classes.EntityRef;
 import com.bergerkiller.bukkit.common.reflection.classes.ItemStackRef;
 import com.bergerkiller.bukkit.common.reflection.classes.PlayerAbilitiesRef;
+import com.bergerkiller.bukkit.common.reflection.classes.WatchableObjectRef;
 import com.bergerkiller.bukkit.common.utils.CommonUtil;
 import com.bergerkiller.bukkit.common.wrappers.DataWatcher;
 import com.bergerkiller.bukkit.common.wrappers.PlayerAbilities;
@@ -211,6 +212,19 @@ public class PacketTypeClasses {
 		public CommonPacket newInstance(int entityId, DataWatcher dataWatcher, boolean sendUnchangedData) {
 			return constructor1.newInstance(entityId, dataWatcher.getHandle(), sendUnchangedData);
 		}
+
+		@Override
+		public int getPacketSize(Object packetHandle) {
+			// ID, entity ID and the end marker, then a header byte and the value of each watched object
+			int size = 6;
+			List<?> watched = watchedObjects.get(packetHandle);
+			if (watched != null) {
+				for (Object watchable : watched) {
+					size += 1 + getValueSize(WatchableObjectRef.getHandle.invoke(watchable));
+				}
+			}
+			return size;
+		}
 	}
 
 	public static class NMSPacketPlayOutEntityStatus extends NMSPacketPlayOutEntity {
@@ -341,6 +355,13 @@ public class PacketTypeClasses {
 		public CommonPacket newInstance(Object chunk, boolean hasBiomeData, int sectionsMask) {
 			return constructor1.newInstance(chunk, hasBiomeData, sectionsMask);
 		}
+
+		@Override
+		public int getPacketSize(Object packetHandle) {
+			// ID, coordinates, biome flag, bit masks and compressed data length, then the compressed data
+			Integer dataSize = size.get(packetHandle);
+			return 18 + (dataSize == null ? 0 : dataSize.intValue());
+		}
 	}
 
 	public static class NMSPacketPlayOutMapChunkBulk extends NMSPacket {
@@ -358,12 +379,37 @@ public class PacketTypeClasses {
 		public CommonPacket newInstance(List<Chunk> chunks) {
 			return constructor1.newInstance(new ConvertingList<Object>(chunks, ConversionPairs.chunk.reverse()));
 		}
+
+		@Override
+		public int getPacketSize(Object packetHandle) {
+			// ID, chunk count, data length and sky light flag, then the compressed data and 12 bytes of meta per chunk
+			int[] chunkX = bulk_x.get(packetHandle);
+			Integer dataSize = deflatedSize.get(packetHandle);
+			int size = (dataSize == null) ? 0 : dataSize.intValue();
+			if (size == 0) {
+				// Spigot only compresses the data once the packet is written, use the uncompressed size until then
+				byte[][] buffers = inflatedBuffers.get(packetHandle);
+				if (buffers != null) {
+					for (byte[] buffer : buffers) {
+						size += (buffer == null) ? 0 : buffer.length;
+					}
+				}
+			}
+			return 8 + size + (chunkX == null ? 0 : (12 * chunkX.length));
+		}
 	}
 
 	public static class NMSPacketPlayOutMultiBlockChange extends NMSPacket {
 		public final FieldAccessor<IntVector2> chunk = getField("b").translate(ConversionPairs.chunkIntPair);
 		public final FieldAccessor<byte[]> blockData = getField("c");
 		public final FieldAccessor<Integer> blockCount = getField("d");
+
+		@Override
+		public int getPacketSize(Object packetHandle) {
+			// ID, chunk coordinates, block count and data length, then the block data
+			byte[] data = blockData.get(packetHandle);
+			return 15 + (data == null ? 0 : data.length);
+		}
 	}
 
 	public static class NMSPacketPlayOutNamedEntitySpawn extends NMSPacketPlayOutEntity {
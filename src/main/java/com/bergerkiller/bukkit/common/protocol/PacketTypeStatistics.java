@@ -0,0 +1,85 @@
+package com.bergerkiller.bukkit.common.protocol;
+
+import java.util.Comparator;
+
+/**
+ * Immutable snapshot of the network statistics of a single packet type.
+ * Byte counts are estimates, computed using {@link PacketType#getPacketSize(Object)}.
+ */
+public class PacketTypeStatistics {
+	/**
+	 * Sorts statistics by the total amount of bytes sent and received, largest first
+	 */
+	public static final Comparator<PacketTypeStatistics> BY_BYTES = new Comparator<PacketTypeStatistics>() {
+		@Override
+		public int compare(PacketTypeStatistics o1, PacketTypeStatistics o2) {
+			final long b1 = o1.getTotalBytes();
+			final long b2 = o2.getTotalBytes();
+			return b1 > b2 ? -1 : (b1 < b2 ? 1 : 0);
+		}
+	};
+	private final PacketType type;
+	private final long packetsSent;
+	private final long bytesSent;
+	private final long packetsReceived;
+	private final long bytesReceived;
+	private final long listenerTime;
+
+	public PacketTypeStatistics(PacketType type, long packetsSent, long bytesSent, long packetsReceived, long bytesReceived, long listenerTime) {
+		this.type = type;
+		this.packetsSent = packetsSent;
+		this.bytesSent = bytesSent;
+		this.packetsReceived = packetsReceived;
+		this.bytesReceived = bytesReceived;
+		this.listenerTime = listenerTime;
+	}
+
+	/**
+	 * Gets the packet type these statistics are of
+	 *
+	 * @return packet type
+	 */
+	public PacketType getType() {
+		return type;
+	}
+
+	public long getPacketsSent() {
+		return packetsSent;
+	}
+
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	public long getPacketsReceived() {
+		return packetsReceived;
+	}
+
+	public long getBytesReceived() {
+		return bytesReceived;
+	}
+
+	/**
+	 * Gets the total amount of bytes sent and received of this type
+	 *
+	 * @return total bytes
+	 */
+	public long getTotalBytes() {
+		return bytesSent + bytesReceived;
+	}
+
+	/**
+	 * Gets the total time spent in packet listeners and monitors handling this type
+	 *
+	 * @return listener time in nanoseconds
+	 */
+	public long getListenerTime() {
+		return listenerTime;
+	}
+
+	@Override
+	public String toString() {
+		return type + "{sent=" + packetsSent + " (" + bytesSent + " bytes), received=" + packetsReceived +
+				" (" + bytesReceived + " bytes), listenerTime=" + (listenerTime / 1000000.0) + "ms}";
+	}
+}
@@ -1,5 +1,7 @@
 package com.bergerkiller.bukkit.common.reflection;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -14,6 +16,7 @@ import net.sf.cglib.core.Signature;
 import net.sf.cglib.proxy.Callback;
 import net.sf.cglib.proxy.CallbackFilter;
 import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Factory;
 import net.sf.cglib.proxy.MethodInterceptor;
 import net.sf.cglib.proxy.MethodProxy;
 import net.sf.cglib.proxy.NoOp;
@@ -39,11 +42,20 @@ import com.bergerkiller.bukkit.common.utils.LogicUtil;
  */
 public class ClassBuilder {
 	private static final String SUPER_PREFIX = "super_";
+	/** Callback index of the NoOp callback for methods that are not redirected */
+	private static final int NOOP_INDEX = 0;
+	/** Callback index of the per-instance callback state */
+	private static final int STATE_INDEX = 1;
+	/** Callback index of the first method slot interceptor */
+	private static final int FIRST_SLOT_INDEX = 2;
 	private final Class<?> superClass;
 	private final Enhancer enhancer = new Enhancer();
-	private final Map<Class<?>, Object> callbackInstancesBuffer = new HashMap<Class<?>, Object>();
 	private final Map<Signature, CallbackSignature> callbackSignatures = new HashMap<Signature, CallbackSignature>();
+	private final Map<Signature, Integer> callbackSlots = new HashMap<Signature, Integer>();
+	private final CallbackSignature[] slotSignatures;
+	private final Callback[] callbackTemplate;
 	private final List<Class<?>> callbackClasses;
+	private Class<?> generatedClass;
 
 	@SuppressWarnings("rawtypes")
 	public ClassBuilder(Class<?> superclass, Class... callbackClasses) {
@@ -58,31 +70,14 @@ public class ClassBuilder {
 		try {
 			this.superClass = superclass;
 
-			// Obtain all available interfaces and callbacks from the callback classes
+			// Obtain all available interfaces from the callback classes
 			Collection<Class<?>> interfaceClasses = new ArrayList<Class<?>>(callbackClasses.size());
 			for (Class<?> callbackClass : callbackClasses) {
 				for (Class<?> interfaceClass : callbackClass.getInterfaces()) {
 					interfaceClasses.add(interfaceClass);
-
-					// Set the initial Callbacks - this is important during the CallbackFilter accept phase
-					for (Method method : interfaceClass.getDeclaredMethods()) {
-						addCallback(method, null);
-					}
 				}
 			}
 
-			// Initialize the base Class
-			enhancer.setSuperclass(superclass);
-			enhancer.setInterfaces(interfaceClasses.toArray(new Class<?>[0]));
-			enhancer.setClassLoader(getClass().getClassLoader());
-			enhancer.setCallbackTypes(new Class<?>[] {NoOp.class, CallbackMethodInterceptor.class});
-			enhancer.setCallbackFilter(new CallbackFilter() {
-				@Override
-				public int accept(Method method) {
-					return callbackSignatures.containsKey(getSig(method)) ? 1 : 0;
-				}
-			});
-
 			// Generate callback instances
 			CallbackSignature callback;
 			for (Class<?> interfaceClass : interfaceClasses) {
@@ -119,6 +114,42 @@ public class ClassBuilder {
 					addCallback(method, callback);
 				}
 			}
+
+			// Assign every distinct callback an integer slot, resolved once when the class is generated
+			List<CallbackSignature> slots = new ArrayList<CallbackSignature>();
+			for (Map.Entry<Signature, CallbackSignature> entry : callbackSignatures.entrySet()) {
+				int slot = slots.indexOf(entry.getValue());
+				if (slot == -1) {
+					slot = slots.size();
+					slots.add(entry.getValue());
+				}
+				callbackSlots.put(entry.getKey(), Integer.valueOf(slot));
+			}
+			this.slotSignatures = slots.toArray(new CallbackSignature[0]);
+
+			// Callback types and the callbacks shared by all instances
+			Class<?>[] callbackTypes = new Class<?>[FIRST_SLOT_INDEX + slotSignatures.length];
+			this.callbackTemplate = new Callback[callbackTypes.length];
+			callbackTypes[NOOP_INDEX] = NoOp.class;
+			callbackTypes[STATE_INDEX] = CallbackState.class;
+			callbackTemplate[NOOP_INDEX] = NoOp.INSTANCE;
+			for (int slot = 0; slot < slotSignatures.length; slot++) {
+				callbackTypes[FIRST_SLOT_INDEX + slot] = SlotInterceptor.class;
+				callbackTemplate[FIRST_SLOT_INDEX + slot] = new SlotInterceptor(slot);
+			}
+
+			// Initialize the base Class
+			enhancer.setSuperclass(superclass);
+			enhancer.setInterfaces(interfaceClasses.toArray(new Class<?>[0]));
+			enhancer.setClassLoader(getClass().getClassLoader());
+			enhancer.setCallbackTypes(callbackTypes);
+			enhancer.setCallbackFilter(new CallbackFilter() {
+				@Override
+				public int accept(Method method) {
+					Integer slot = callbackSlots.get(getSig(method));
+					return (slot == null) ? NOOP_INDEX : (FIRST_SLOT_INDEX + slot.intValue());
+				}
+			});
 		} catch (Throwable t) {
 			throw new RuntimeException("Could not initialize Entity Class Builder for '" + superclass.getSimpleName() + "':", t);
 		}
@@ -133,25 +164,35 @@ public class ClassBuilder {
 	 * @param callbacks to use for the newly created instance
 	 * @return a new instance created by this ClassBuilder
 	 */
-	public synchronized Object create(Class<?>[] argumentTypes, Object[] arguments, Collection<Object> callbacks) {
-		try {
-			// Prepare the instances buffer: add all callback instances
-			for (Object callbackInstance : callbacks) {
-				callbackInstancesBuffer.put(callbackInstance.getClass(), callbackInstance);
-			}
-
-			// Create a method interceptor, assign it and then create a new instance
-			final CallbackMethodInterceptor interceptor = new CallbackMethodInterceptor();
-			enhancer.setCallbacks(new Callback[] {NoOp.INSTANCE, interceptor});
-			final Object instance = enhancer.create(argumentTypes, arguments);
-
-			// Prepare for clearing the callback instances buffer
-			interceptor.createAllCallbacks(instance);
+	public Object create(Class<?>[] argumentTypes, Object[] arguments, Collection<Object> callbacks) {
+		// Prepare the callback instances for this instance
+		final Map<Class<?>, Object> callbackInstances = new HashMap<Class<?>, Object>(callbacks.size());
+		for (Object callbackInstance : callbacks) {
+			callbackInstances.put(callbackInstance.getClass(), callbackInstance);
+		}
+		final CallbackState state = new CallbackState(callbackInstances);
+		final Callback[] instanceCallbacks = callbackTemplate.clone();
+		instanceCallbacks[STATE_INDEX] = state;
 
-			return instance;
+		// Create a new instance, the callbacks are bound to the current thread while constructing
+		final Class<?> type = getGeneratedClass();
+		final Object instance;
+		Enhancer.registerCallbacks(type, instanceCallbacks);
+		try {
+			Constructor<?> constructor = type.getDeclaredConstructor(argumentTypes);
+			constructor.setAccessible(true);
+			instance = constructor.newInstance(arguments);
+		} catch (InvocationTargetException ex) {
+			throw new RuntimeException("Failed to construct a new instance of '" + superClass.getSimpleName() + "':", ex.getCause());
+		} catch (Throwable t) {
+			throw new RuntimeException("Failed to construct a new instance of '" + superClass.getSimpleName() + "':", t);
 		} finally {
-			callbackInstancesBuffer.clear();
+			Enhancer.registerCallbacks(type, null);
 		}
+
+		// Create all remaining callbacks, after which the callback instances are no longer needed
+		state.createAllCallbacks(instance);
+		return instance;
 	}
 
 	/**
@@ -172,6 +213,13 @@ public class ClassBuilder {
 		return this.superClass;
 	}
 
+	private synchronized Class<?> getGeneratedClass() {
+		if (this.generatedClass == null) {
+			this.generatedClass = enhancer.createClass();
+		}
+		return this.generatedClass;
+	}
+
 	private void addCallback(Method superMethod, CallbackSignature callback) {
 		Signature sig = getSig(superMethod);
 		this.callbackSignatures.put(sig, callback);
@@ -194,47 +242,64 @@ public class ClassBuilder {
 		return new Signature(name, Type.getReturnType(method), Type.getArgumentTypes(method));
 	}
 
-	private final class CallbackMethodInterceptor implements MethodInterceptor {
-		private final Map<Signature, Object> callbackMethods;
+	/**
+	 * Stores the Callback Methods of a single instance, indexed by slot.
+	 * This is stored as a NoOp callback of the instance, it never intercepts anything itself.
+	 */
+	private final class CallbackState implements NoOp {
+		private final CallbackMethod[] callbackMethods;
+		private Map<Class<?>, Object> callbackInstances;
 
-		public CallbackMethodInterceptor() {
-			this.callbackMethods = new HashMap<Signature, Object>(callbackSignatures);
+		public CallbackState(Map<Class<?>, Object> callbackInstances) {
+			this.callbackMethods = new CallbackMethod[slotSignatures.length];
+			this.callbackInstances = callbackInstances;
 		}
 
 		/**
-		 * Converts all (any remaining) Callback Signatures to Callback Methods.
-		 * After this method is called, the callback instances buffer can be cleared and re-used.
+		 * Creates all (any remaining) Callback Methods.
+		 * After this method is called, the callback instances are no longer referenced.
 		 * 
 		 * @param instance that was created
 		 */
 		public void createAllCallbacks(Object instance) {
-			for (Map.Entry<Signature, Object> callbackEntry : this.callbackMethods.entrySet()) {
-				Object callback = callbackEntry.getValue();
-				if (callback instanceof CallbackSignature) {
-					callbackEntry.setValue(createCallback(callback, instance));
-				}
+			for (int slot = 0; slot < callbackMethods.length; slot++) {
+				getCallback(instance, slot);
 			}
+			this.callbackInstances = null;
+		}
+
+		public CallbackMethod getCallback(Object instance, int slot) {
+			CallbackMethod callback = callbackMethods[slot];
+			if (callback == null) {
+				// Initialize this callback method (also occurs in the Class constructor)
+				callback = slotSignatures[slot].createCallback(instance, callbackInstances);
+				callbackMethods[slot] = callback;
+			}
+			return callback;
+		}
+	}
+
+	/**
+	 * Intercepts the methods assigned to a single slot.
+	 * Instances are shared by all instances created by this Class Builder.
+	 */
+	private final class SlotInterceptor implements MethodInterceptor {
+		private final int slot;
+
+		public SlotInterceptor(int slot) {
+			this.slot = slot;
 		}
 
 		@Override
 		public Object intercept(Object instance, Method method, Object[] args, MethodProxy proxy) throws Throwable {
-			Object callback = this.callbackMethods.get(proxy.getSignature());
-			if (callback instanceof CallbackSignature) {
-				// Initialize this callback method (occurred in the Class constructor)
-				callback = createCallback(callback, instance);
-				this.callbackMethods.put(proxy.getSignature(), callback);
-			}
-			if (callback instanceof CallbackMethod) {
+			final Object state = ((Factory) instance).getCallback(STATE_INDEX);
+			if (state instanceof CallbackState) {
 				// Execute the method
-				return ((CallbackMethod) callback).invoke(instance, args);
+				return ((CallbackState) state).getCallback(instance, slot).invoke(instance, args);
 			} else {
-				// This should never occur because we have a filter, but it's here for safety purposes
+				// This should never occur because instances are always created with a state, but it's here for safety purposes
 				return proxy.invokeSuper(instance, args);
 			}
 		}
-
-		private CallbackMethod createCallback(Object callbackSignature, Object instance) {
-			return ((CallbackSignature) callbackSignature).createCallback(instance, callbackInstancesBuffer);
-		}
 	}
 }
@@ -9,17 +9,24 @@ import org.bukkit.Bukkit;
 import com.bergerkiller.bukkit.common.Common;
 import com.bergerkiller.bukkit.common.conversion.ConverterPair;
 import com.bergerkiller.bukkit.common.internal.CommonPlugin;
+import com.bergerkiller.bukkit.common.reflection.gen.FastField;
+import com.bergerkiller.bukkit.common.reflection.gen.FastFieldGenerator;
 import com.bergerkiller.bukkit.common.utils.LogicUtil;
 import com.bergerkiller.bukkit.common.utils.StringUtil;
 
 /**
  * Wraps around the java.lang.reflect.Field class to provide an error-free alternative<br>
- * Exceptions are logged, isValid can be used to check if the Field is actually working
+ * Exceptions are logged, isValid can be used to check if the Field is actually working<br><br>
+ * 
+ * On first use a {@link FastField} is generated for the Field, which accesses it using
+ * direct field instructions, or the field offset for non-public fields.
+ * The primitive get and set methods do not box.
  * 
  * @param <T> type of the Field
  */
 public class SafeField<T> implements FieldAccessor<T> {
 	private Field field;
+	private FastField access;
 
 	public SafeField(Field field) {
 		if (!field.isAccessible()) {
@@ -109,13 +116,9 @@ public class SafeField<T> implements FieldAccessor<T> {
 			return null;
 		}
 		try {
-			return (T) this.field.get(object);
+			return (T) getAccess().get(object);
 		} catch (Throwable t) {
-			if (!this.isStatic() && object == null) {
-				throw new IllegalArgumentException("Non-static field requires a non-null instance");
-			}
-			t.printStackTrace();
-			this.field = null;
+			handleError(object, t);
 			return null;
 		}
 	}
@@ -124,19 +127,320 @@ public class SafeField<T> implements FieldAccessor<T> {
 	public boolean set(Object object, T value) {
 		if (this.field != null) {
 			try {
-				this.field.set(object, value);
+				getAccess().set(object, value);
+				return true;
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the int value of this field from an instance without boxing it
+	 * 
+	 * @param object to get from
+	 * @return int value of the field in the instance, or 0 on failure
+	 */
+	public int getInteger(Object object) {
+		if (this.field != null) {
+			try {
+				return getAccess().getInteger(object);
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Sets the int value of this field of an instance without boxing it
+	 * 
+	 * @param object to set the field in
+	 * @param value to set to
+	 * @return True if setting was successful, False if not
+	 */
+	public boolean setInteger(Object object, int value) {
+		if (this.field != null) {
+			try {
+				getAccess().setInteger(object, value);
+				return true;
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the long value of this field from an instance without boxing it
+	 * 
+	 * @param object to get from
+	 * @return long value of the field in the instance, or 0L on failure
+	 */
+	public long getLong(Object object) {
+		if (this.field != null) {
+			try {
+				return getAccess().getLong(object);
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return 0L;
+	}
+
+	/**
+	 * Sets the long value of this field of an instance without boxing it
+	 * 
+	 * @param object to set the field in
+	 * @param value to set to
+	 * @return True if setting was successful, False if not
+	 */
+	public boolean setLong(Object object, long value) {
+		if (this.field != null) {
+			try {
+				getAccess().setLong(object, value);
+				return true;
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the double value of this field from an instance without boxing it
+	 * 
+	 * @param object to get from
+	 * @return double value of the field in the instance, or 0.0 on failure
+	 */
+	public double getDouble(Object object) {
+		if (this.field != null) {
+			try {
+				return getAccess().getDouble(object);
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return 0.0;
+	}
+
+	/**
+	 * Sets the double value of this field of an instance without boxing it
+	 * 
+	 * @param object to set the field in
+	 * @param value to set to
+	 * @return True if setting was successful, False if not
+	 */
+	public boolean setDouble(Object object, double value) {
+		if (this.field != null) {
+			try {
+				getAccess().setDouble(object, value);
+				return true;
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the float value of this field from an instance without boxing it
+	 * 
+	 * @param object to get from
+	 * @return float value of the field in the instance, or 0.0f on failure
+	 */
+	public float getFloat(Object object) {
+		if (this.field != null) {
+			try {
+				return getAccess().getFloat(object);
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return 0.0f;
+	}
+
+	/**
+	 * Sets the float value of this field of an instance without boxing it
+	 * 
+	 * @param object to set the field in
+	 * @param value to set to
+	 * @return True if setting was successful, False if not
+	 */
+	public boolean setFloat(Object object, float value) {
+		if (this.field != null) {
+			try {
+				getAccess().setFloat(object, value);
+				return true;
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the boolean value of this field from an instance without boxing it
+	 * 
+	 * @param object to get from
+	 * @return boolean value of the field in the instance, or false on failure
+	 */
+	public boolean getBoolean(Object object) {
+		if (this.field != null) {
+			try {
+				return getAccess().getBoolean(object);
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sets the boolean value of this field of an instance without boxing it
+	 * 
+	 * @param object to set the field in
+	 * @param value to set to
+	 * @return True if setting was successful, False if not
+	 */
+	public boolean setBoolean(Object object, boolean value) {
+		if (this.field != null) {
+			try {
+				getAccess().setBoolean(object, value);
 				return true;
 			} catch (Throwable t) {
-				if (!this.isStatic() && object == null) {
-					throw new IllegalArgumentException("Non-static field requires a non-null instance");
-				}
-				t.printStackTrace();
-				this.field = null;
+				handleError(object, t);
 			}
 		}
 		return false;
 	}
 
+	/**
+	 * Gets the byte value of this field from an instance without boxing it
+	 * 
+	 * @param object to get from
+	 * @return byte value of the field in the instance, or (byte) 0 on failure
+	 */
+	public byte getByte(Object object) {
+		if (this.field != null) {
+			try {
+				return getAccess().getByte(object);
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return (byte) 0;
+	}
+
+	/**
+	 * Sets the byte value of this field of an instance without boxing it
+	 * 
+	 * @param object to set the field in
+	 * @param value to set to
+	 * @return True if setting was successful, False if not
+	 */
+	public boolean setByte(Object object, byte value) {
+		if (this.field != null) {
+			try {
+				getAccess().setByte(object, value);
+				return true;
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the short value of this field from an instance without boxing it
+	 * 
+	 * @param object to get from
+	 * @return short value of the field in the instance, or (short) 0 on failure
+	 */
+	public short getShort(Object object) {
+		if (this.field != null) {
+			try {
+				return getAccess().getShort(object);
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return (short) 0;
+	}
+
+	/**
+	 * Sets the short value of this field of an instance without boxing it
+	 * 
+	 * @param object to set the field in
+	 * @param value to set to
+	 * @return True if setting was successful, False if not
+	 */
+	public boolean setShort(Object object, short value) {
+		if (this.field != null) {
+			try {
+				getAccess().setShort(object, value);
+				return true;
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the char value of this field from an instance without boxing it
+	 * 
+	 * @param object to get from
+	 * @return char value of the field in the instance, or '\0' on failure
+	 */
+	public char getCharacter(Object object) {
+		if (this.field != null) {
+			try {
+				return getAccess().getCharacter(object);
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return '\0';
+	}
+
+	/**
+	 * Sets the char value of this field of an instance without boxing it
+	 * 
+	 * @param object to set the field in
+	 * @param value to set to
+	 * @return True if setting was successful, False if not
+	 */
+	public boolean setCharacter(Object object, char value) {
+		if (this.field != null) {
+			try {
+				getAccess().setCharacter(object, value);
+				return true;
+			} catch (Throwable t) {
+				handleError(object, t);
+			}
+		}
+		return false;
+	}
+
+	private FastField getAccess() {
+		FastField access = this.access;
+		if (access == null) {
+			access = this.access = FastFieldGenerator.create(this.field);
+		}
+		return access;
+	}
+
+	private void handleError(Object object, Throwable t) {
+		if (!this.isStatic() && object == null) {
+			throw new IllegalArgumentException("Non-static field requires a non-null instance");
+		}
+		t.printStackTrace();
+		this.field = null;
+		this.access = null;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder text = new StringBuilder(20);
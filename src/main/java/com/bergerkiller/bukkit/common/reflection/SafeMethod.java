@@ -9,17 +9,25 @@ import org.bukkit.Bukkit;
 
 import com.bergerkiller.bukkit.common.Common;
 import com.bergerkiller.bukkit.common.internal.CommonPlugin;
+import com.bergerkiller.bukkit.common.reflection.gen.FastMethod;
+import com.bergerkiller.bukkit.common.reflection.gen.FastMethodGenerator;
+import com.bergerkiller.bukkit.common.reflection.gen.Unboxing;
 import com.bergerkiller.bukkit.common.utils.LogicUtil;
 import com.bergerkiller.bukkit.common.utils.StringUtil;
 
 /**
  * Wraps around the java.lang.reflect.Method class to provide an error-free alternative<br>
- * Exceptions are logged, isValid can be used to check if the Method is actually working
+ * Exceptions are logged, isValid can be used to check if the Method is actually working<br><br>
+ * 
+ * On first use a {@link FastMethod} is generated for the Method, which calls it using
+ * a direct invoke instruction where possible. Next to the varargs invoke method, fixed-arity
+ * invoke methods are available for up to four arguments, which avoid creating an argument array.
  */
 public class SafeMethod<T> implements MethodAccessor<T> {
 	private Method method;
 	private Class<?>[] parameterTypes;
 	private boolean isStatic = false;
+	private FastMethod access;
 
 	public SafeMethod(Method method) {
 		if (method == null) {
@@ -120,37 +128,169 @@ public class SafeMethod<T> implements MethodAccessor<T> {
 	@SuppressWarnings("unchecked")
 	public T invoke(Object instance, Object... args) {
 		if (this.method != null) {
-			if (!this.isStatic && instance == null) {
-				throw new IllegalArgumentException("Non-static methods require a valid instance passed in - the instance was null");
+			checkInvoke(instance, args.length);
+			try {
+				return (T) getAccess().invoke(instance, args);
+			} catch (Throwable t) {
+				handleError(t, args);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Executes a method that has no parameters
+	 * 
+	 * @param instance of the class the method is in, use null if it is a static method
+	 * @return A possible returned value from the method, is always null if the method is a void
+	 */
+	@SuppressWarnings("unchecked")
+	public T invoke(Object instance) {
+		if (this.method != null) {
+			checkInvoke(instance, 0);
+			try {
+				return (T) getAccess().invoke(instance);
+			} catch (Throwable t) {
+				handleError(t, new Object[0]);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Executes a method that has one parameter
+	 * 
+	 * @param instance of the class the method is in, use null if it is a static method
+	 * @param arg0 first argument
+	 * @return A possible returned value from the method, is always null if the method is a void
+	 */
+	@SuppressWarnings("unchecked")
+	public T invoke(Object instance, Object arg0) {
+		if (this.method != null) {
+			if (arg0 instanceof Object[] && this.parameterTypes.length != 1) {
+				// Called using an arguments array, compiled against the varargs method
+				return invoke(instance, (Object[]) arg0);
 			}
-			if (args.length != parameterTypes.length) {
-				throw new IllegalArgumentException("Illegal amount of arguments - check method signature");
+			checkInvoke(instance, 1);
+			try {
+				return (T) getAccess().invoke(instance, arg0);
+			} catch (Throwable t) {
+				handleError(t, new Object[] {arg0});
 			}
+		}
+		return null;
+	}
+
+	/**
+	 * Executes a method that has two parameters
+	 * 
+	 * @param instance of the class the method is in, use null if it is a static method
+	 * @param arg0 first argument
+	 * @param arg1 second argument
+	 * @return A possible returned value from the method, is always null if the method is a void
+	 */
+	@SuppressWarnings("unchecked")
+	public T invoke(Object instance, Object arg0, Object arg1) {
+		if (this.method != null) {
+			checkInvoke(instance, 2);
 			try {
-				return (T) this.method.invoke(instance, args);
-			} catch (IllegalAccessException e) {
-				e.printStackTrace();
-			} catch (InvocationTargetException e) {
-				throw new RuntimeException(e);
-			} catch (IllegalArgumentException e) {
-				// First find a more understandable message for this
-				if (args.length == parameterTypes.length) {
-					for (int i = 0; i < parameterTypes.length; i++) {
-						Object arg = args[i];
-						if (parameterTypes[i].isPrimitive() && arg == null) {
-							throw new IllegalArgumentException("Passed in null for primitive type parameter #" + i);
-						} else if (arg != null && !parameterTypes[i].isAssignableFrom(arg.getClass())) {
-							throw new IllegalArgumentException("Passed in wrong type for parameter #" + i + " (" + parameterTypes[i].getName() + " expected)");
-						}
-					}
-				}
-				// Nothing detected yet...resort to the obtained exception
-				throw e;
+				return (T) getAccess().invoke(instance, arg0, arg1);
+			} catch (Throwable t) {
+				handleError(t, new Object[] {arg0, arg1});
 			}
 		}
 		return null;
 	}
 
+	/**
+	 * Executes a method that has three parameters
+	 * 
+	 * @param instance of the class the method is in, use null if it is a static method
+	 * @param arg0 first argument
+	 * @param arg1 second argument
+	 * @param arg2 third argument
+	 * @return A possible returned value from the method, is always null if the method is a void
+	 */
+	@SuppressWarnings("unchecked")
+	public T invoke(Object instance, Object arg0, Object arg1, Object arg2) {
+		if (this.method != null) {
+			checkInvoke(instance, 3);
+			try {
+				return (T) getAccess().invoke(instance, arg0, arg1, arg2);
+			} catch (Throwable t) {
+				handleError(t, new Object[] {arg0, arg1, arg2});
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Executes a method that has four parameters
+	 * 
+	 * @param instance of the class the method is in, use null if it is a static method
+	 * @param arg0 first argument
+	 * @param arg1 second argument
+	 * @param arg2 third argument
+	 * @param arg3 fourth argument
+	 * @return A possible returned value from the method, is always null if the method is a void
+	 */
+	@SuppressWarnings("unchecked")
+	public T invoke(Object instance, Object arg0, Object arg1, Object arg2, Object arg3) {
+		if (this.method != null) {
+			checkInvoke(instance, 4);
+			try {
+				return (T) getAccess().invoke(instance, arg0, arg1, arg2, arg3);
+			} catch (Throwable t) {
+				handleError(t, new Object[] {arg0, arg1, arg2, arg3});
+			}
+		}
+		return null;
+	}
+
+	private FastMethod getAccess() {
+		FastMethod access = this.access;
+		if (access == null) {
+			access = this.access = FastMethodGenerator.create(this.method);
+		}
+		return access;
+	}
+
+	private void checkInvoke(Object instance, int argCount) {
+		if (!this.isStatic && instance == null) {
+			throw new IllegalArgumentException("Non-static methods require a valid instance passed in - the instance was null");
+		}
+		if (argCount != parameterTypes.length) {
+			throw new IllegalArgumentException("Illegal amount of arguments - check method signature");
+		}
+	}
+
+	private void handleError(Throwable t, Object[] args) {
+		if (t instanceof IllegalAccessException) {
+			t.printStackTrace();
+			return;
+		}
+		// First find a more understandable message for wrongly passed arguments
+		if (t instanceof IllegalArgumentException) {
+			for (int i = 0; i < parameterTypes.length; i++) {
+				Object arg = args[i];
+				Class<?> type = parameterTypes[i];
+				if (type.isPrimitive() && arg == null) {
+					throw new IllegalArgumentException("Passed in null for primitive type parameter #" + i);
+				} else if (!Unboxing.isAssignable(type, arg)) {
+					throw new IllegalArgumentException("Passed in wrong type for parameter #" + i + " (" + type.getName() + " expected)");
+				}
+			}
+		}
+		if (t instanceof InvocationTargetException) {
+			throw new RuntimeException(t);
+		} else if (t instanceof RuntimeException) {
+			// Nothing detected yet...resort to the obtained exception
+			throw (RuntimeException) t;
+		} else {
+			throw new RuntimeException(t);
+		}
+	}
+
 	/**
 	 * Checks whether a certain method is available in a Class
 	 * 
@@ -7,9 +7,9 @@ import org.bukkit.craftbukkit.util.CraftMagicNumbers;
 
 import com.bergerkiller.bukkit.common.reflection.ClassTemplate;
 import com.bergerkiller.bukkit.common.reflection.FieldAccessor;
-import com.bergerkiller.bukkit.common.reflection.MethodAccessor;
 import com.bergerkiller.bukkit.common.reflection.NMSClassTemplate;
 import com.bergerkiller.bukkit.common.reflection.SafeField;
+import com.bergerkiller.bukkit.common.reflection.SafeMethod;
 import com.bergerkiller.bukkit.common.utils.CommonUtil;
 
 import net.minecraft.server.Block;
@@ -23,12 +23,14 @@ public class ChunkRef {
 	public static final ClassTemplate<Object> TEMPLATE = new NMSClassTemplate("Chunk");
 	public static final FieldAccessor<Integer> x = TEMPLATE.getField("locX");
 	public static final FieldAccessor<Integer> z = TEMPLATE.getField("locZ");
-	public static final MethodAccessor<byte[]> biomeData = TEMPLATE.getMethod("m");
-	public static final MethodAccessor<Object[]> sections = TEMPLATE.getMethod("getSections");
+	public static final SafeMethod<byte[]> biomeData = TEMPLATE.getMethod("m");
+	public static final SafeMethod<Object[]> sections = TEMPLATE.getMethod("getSections");
 	public static final FieldAccessor<Boolean> seenByPlayer = TEMPLATE.getField("q");
-	private static final MethodAccessor<Void> addEntities = TEMPLATE.getMethod("addEntities");
-	private static final MethodAccessor<Void> loadNeighbours = TEMPLATE.getMethod("loadNearby", icp, icp, int.class, int.class);
-	private static final MethodAccessor<Boolean> needsSaving = TEMPLATE.getMethod("a", boolean.class);
+	private static final SafeMethod<Void> addEntities = TEMPLATE.getMethod("addEntities");
+	private static final SafeMethod<Void> loadNeighbours = TEMPLATE.getMethod("loadNearby", icp, icp, int.class, int.class);
+	private static final SafeMethod<Boolean> needsSaving = TEMPLATE.getMethod("a", boolean.class);
+	private static final SafeMethod<Void> initLighting = TEMPLATE.getMethod("initLighting");
+	public static final FieldAccessor<Boolean> modified = TEMPLATE.getField("n");
 	public static final FieldAccessor<Object> world = TEMPLATE.getField("world");
 	public static final FieldAccessor<Map<?, ?>> tileEntities = TEMPLATE.getField("tileEntities");
 	public static final FieldAccessor<List<Object>[]> entitySlices = TEMPLATE.getField("entitySlices");
@@ -53,6 +55,15 @@ public class ChunkRef {
 		return needsSaving.invoke(chunkHandle, false);
 	}
 
+	/**
+	 * Recalculates the height map and sky light of a chunk
+	 * 
+	 * @param chunkHandle to relight
+	 */
+	public static void initLighting(Object chunkHandle) {
+		initLighting.invoke(chunkHandle);
+	}
+
 	/**
 	 * Gets all chunk sections contained in a chunk
 	 */
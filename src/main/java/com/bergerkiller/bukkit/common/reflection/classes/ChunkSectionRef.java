@@ -1,30 +1,148 @@
 package com.bergerkiller.bukkit.common.reflection.classes;
 
+import com.bergerkiller.bukkit.common.bases.NibbleArrayBase;
 import com.bergerkiller.bukkit.common.internal.CommonNMS;
 import com.bergerkiller.bukkit.common.reflection.ClassTemplate;
 import com.bergerkiller.bukkit.common.reflection.FieldAccessor;
-import com.bergerkiller.bukkit.common.reflection.MethodAccessor;
 import com.bergerkiller.bukkit.common.reflection.NMSClassTemplate;
+import com.bergerkiller.bukkit.common.reflection.SafeMethod;
 
 public class ChunkSectionRef {
 	public static final ClassTemplate<Object> TEMPLATE = new NMSClassTemplate("ChunkSection");
 	public static final FieldAccessor<Object> skyLight = TEMPLATE.getField("skyLight");
 	public static final FieldAccessor<Object> blockLight = TEMPLATE.getField("emittedLight");
-	public static final MethodAccessor<Boolean> isEmpty = TEMPLATE.getMethod("isEmpty");
-	public static final MethodAccessor<byte[]> getBlockIds = TEMPLATE.getMethod("getIdArray");
-	public static final MethodAccessor<Object> getExtBlockIds = TEMPLATE.getMethod("getExtendedIdArray");
-	public static final MethodAccessor<Object> getBlockData = TEMPLATE.getMethod("getDataArray");
-	public static final MethodAccessor<Object> getBlockLightNibble = TEMPLATE.getMethod("getEmittedLightArray");
-	public static final MethodAccessor<Object> getSkyLightNibble = TEMPLATE.getMethod("getSkyLightArray");
-	private static final MethodAccessor<Integer> blocks = TEMPLATE.getMethod("getTypeId", int.class, int.class, int.class);
-	private static final MethodAccessor<Void> setTypeBlock = TEMPLATE.getMethod("setTypeId", int.class, int.class, int.class, BlockRef.TEMPLATE.getType());
-	private static final MethodAccessor<Integer> getData = TEMPLATE.getMethod("getData", int.class, int.class, int.class);
-	private static final MethodAccessor<Void> setData = TEMPLATE.getMethod("setData", int.class, int.class, int.class, int.class);
-	private static final MethodAccessor<Integer> getSkyLight = TEMPLATE.getMethod("getSkyLight", int.class, int.class, int.class);
-	private static final MethodAccessor<Void> setSkyLight = TEMPLATE.getMethod("setSkyLight", int.class, int.class, int.class, int.class);
-	private static final MethodAccessor<Integer> getBlockLight = TEMPLATE.getMethod("getEmittedLight", int.class, int.class, int.class);
-	private static final MethodAccessor<Void> setBlockLight = TEMPLATE.getMethod("setEmittedLight", int.class, int.class, int.class, int.class);
+	public static final SafeMethod<Boolean> isEmpty = TEMPLATE.getMethod("isEmpty");
+	public static final SafeMethod<byte[]> getBlockIds = TEMPLATE.getMethod("getIdArray");
+	public static final SafeMethod<Object> getExtBlockIds = TEMPLATE.getMethod("getExtendedIdArray");
+	public static final SafeMethod<Object> getBlockData = TEMPLATE.getMethod("getDataArray");
+	public static final SafeMethod<Object> getBlockLightNibble = TEMPLATE.getMethod("getEmittedLightArray");
+	public static final SafeMethod<Object> getSkyLightNibble = TEMPLATE.getMethod("getSkyLightArray");
+	private static final SafeMethod<Integer> blocks = TEMPLATE.getMethod("getTypeId", int.class, int.class, int.class);
+	private static final SafeMethod<Void> setTypeBlock = TEMPLATE.getMethod("setTypeId", int.class, int.class, int.class, BlockRef.TEMPLATE.getType());
+	private static final SafeMethod<Integer> getData = TEMPLATE.getMethod("getData", int.class, int.class, int.class);
+	private static final SafeMethod<Void> setData = TEMPLATE.getMethod("setData", int.class, int.class, int.class, int.class);
+	private static final SafeMethod<Integer> getSkyLight = TEMPLATE.getMethod("getSkyLight", int.class, int.class, int.class);
+	private static final SafeMethod<Void> setSkyLight = TEMPLATE.getMethod("setSkyLight", int.class, int.class, int.class, int.class);
+	private static final SafeMethod<Integer> getBlockLight = TEMPLATE.getMethod("getEmittedLight", int.class, int.class, int.class);
+	private static final SafeMethod<Void> setBlockLight = TEMPLATE.getMethod("setEmittedLight", int.class, int.class, int.class, int.class);
+	private static final SafeMethod<Void> setExtBlockIds = TEMPLATE.getMethod("setExtendedIdArray", NibbleArrayRef.TEMPLATE.getType());
+	private static final SafeMethod<Void> recalcBlockCounts = TEMPLATE.getMethod("recalcBlockCounts");
+	/**
+	 * The amount of blocks stored in a single chunk section
+	 */
+	public static final int VOLUME = 4096;
 		
+	/**
+	 * Gets the index of a block in the raw arrays of a chunk section
+	 * 
+	 * @param x - coordinate of the block
+	 * @param y - coordinate of the block
+	 * @param z - coordinate of the block
+	 * @return raw array index (y << 8 | z << 4 | x)
+	 */
+	public static int getIndex(int x, int y, int z) {
+		return ((y & 0xf) << 8) | ((z & 0xf) << 4) | (x & 0xf);
+	}
+
+	/**
+	 * Gets the live array of the lower 8 bits of the block type ids in a chunk section.
+	 * There is one element for every block, see {@link #getIndex(int, int, int)}.
+	 * 
+	 * @param section to get the array of
+	 * @return block id array
+	 */
+	public static byte[] getBlockIdArray(Object section) {
+		return getBlockIds.invoke(section);
+	}
+
+	/**
+	 * Gets the live nibble array of the upper 4 bits of the block type ids in a chunk section.
+	 * 
+	 * @param section to get the array of
+	 * @param create - whether to create the array if the section has none yet
+	 * @return extended block id nibble array, or null if there is none and create is False
+	 */
+	public static byte[] getExtBlockIdArray(Object section, boolean create) {
+		Object nibble = getExtBlockIds.invoke(section);
+		if (nibble == null) {
+			if (!create) {
+				return null;
+			}
+			nibble = new NibbleArrayBase(VOLUME, 4);
+			setExtBlockIds.invoke(section, nibble);
+		}
+		return NibbleArrayRef.getValueArray(nibble);
+	}
+
+	/**
+	 * Gets the live nibble array of the block data values in a chunk section
+	 * 
+	 * @param section to get the array of
+	 * @return data nibble array
+	 */
+	public static byte[] getDataArray(Object section) {
+		return NibbleArrayRef.getValueArray(getBlockData.invoke(section));
+	}
+
+	/**
+	 * Gets the live nibble array of the block light levels in a chunk section
+	 * 
+	 * @param section to get the array of
+	 * @return block light nibble array
+	 */
+	public static byte[] getBlockLightArray(Object section) {
+		return NibbleArrayRef.getValueArray(getBlockLightNibble.invoke(section));
+	}
+
+	/**
+	 * Gets the live nibble array of the sky light levels in a chunk section
+	 * 
+	 * @param section to get the array of
+	 * @return sky light nibble array, or null if the world has no sky light
+	 */
+	public static byte[] getSkyLightArray(Object section) {
+		final Object nibble = getSkyLightNibble.invoke(section);
+		return nibble == null ? null : NibbleArrayRef.getValueArray(nibble);
+	}
+
+	/**
+	 * Recalculates the amount of non-air and ticking blocks of a chunk section.
+	 * Has to be called after changing the raw block id arrays.
+	 * 
+	 * @param section to recalculate
+	 */
+	public static void recalcBlockCounts(Object section) {
+		recalcBlockCounts.invoke(section);
+	}
+
+	/**
+	 * Gets a value from a raw nibble array
+	 * 
+	 * @param nibbles array
+	 * @param index of the value
+	 * @return nibble value
+	 */
+	public static int getNibble(byte[] nibbles, int index) {
+		final int b = nibbles[index >> 1];
+		return ((index & 1) == 0) ? (b & 0xf) : ((b >> 4) & 0xf);
+	}
+
+	/**
+	 * Sets a value in a raw nibble array
+	 * 
+	 * @param nibbles array
+	 * @param index of the value
+	 * @param value to set to
+	 */
+	public static void setNibble(byte[] nibbles, int index, int value) {
+		final int i = index >> 1;
+		if ((index & 1) == 0) {
+			nibbles[i] = (byte) ((nibbles[i] & 0xf0) | (value & 0xf));
+		} else {
+			nibbles[i] = (byte) ((nibbles[i] & 0x0f) | ((value & 0xf) << 4));
+		}
+	}
+
 	public static int getTypeId(Object section, int x, int y, int z) {
 		return blocks.invoke(section, x & 0xf, y  & 0xf, z & 0xf);
 	}
@@ -34,7 +152,7 @@ public class ChunkSectionRef {
 	}
 
 	public static int getData(Object section, int x, int y, int z) {
-		return getData.invoke(section, z & 0xf, y & 0xf, z & 0xf);
+		return getData.invoke(section, x & 0xf, y & 0xf, z & 0xf);
 	}
 	
 	public static void setData(Object section, int x, int y, int z, int data) {
@@ -0,0 +1,15 @@
+package com.bergerkiller.bukkit.common.reflection.classes;
+
+import java.util.List;
+
+import com.bergerkiller.bukkit.common.reflection.ClassTemplate;
+import com.bergerkiller.bukkit.common.reflection.FieldAccessor;
+import com.bergerkiller.bukkit.common.reflection.NMSClassTemplate;
+
+public class MinecraftServerRef {
+	public static final ClassTemplate<?> TEMPLATE = NMSClassTemplate.create("MinecraftServer");
+	/**
+	 * Type: List of IUpdatePlayerListBox, updated at the very end of every server tick
+	 */
+	public static final FieldAccessor<List<Object>> tickables = TEMPLATE.getField("n");
+}
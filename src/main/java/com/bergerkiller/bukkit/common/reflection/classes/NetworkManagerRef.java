@@ -15,4 +15,6 @@ public class NetworkManagerRef {
 	public static final FieldAccessor<Queue<Object>> highPriorityQueue = TEMPLATE.getField("l");
 	public static final FieldAccessor<Channel> channel = TEMPLATE.getField("m");
 	public static final MethodAccessor<Boolean> getIsOpen = TEMPLATE.getMethod("isConnected");
+	public static final ClassTemplate<?> QUEUED_PACKET = NMSClassTemplate.create("QueuedPacket");
+	public static final FieldAccessor<Object> queuedPacket = QUEUED_PACKET.getField("a");
 }
@@ -6,9 +6,10 @@ import java.util.Queue;
 import com.bergerkiller.bukkit.common.conversion.ConversionPairs;
 import com.bergerkiller.bukkit.common.reflection.ClassTemplate;
 import com.bergerkiller.bukkit.common.reflection.FieldAccessor;
-import com.bergerkiller.bukkit.common.reflection.MethodAccessor;
 import com.bergerkiller.bukkit.common.reflection.NMSClassTemplate;
+import com.bergerkiller.bukkit.common.reflection.SafeMethod;
 import com.bergerkiller.bukkit.common.reflection.TranslatorFieldAccessor;
+import com.bergerkiller.bukkit.common.utils.MathUtil;
 import com.bergerkiller.bukkit.common.wrappers.LongHashMap;
 
 public class PlayerChunkMapRef {
@@ -17,15 +18,15 @@ public class PlayerChunkMapRef {
 	public static final FieldAccessor<Integer> radius = TEMPLATE.getField("g");
 	public static final TranslatorFieldAccessor<LongHashMap<Object>> playerInstances = TEMPLATE.getField("d").translate(ConversionPairs.longHashMap);
 	public static final FieldAccessor<Queue<?>> dirtyBlockChunks = TEMPLATE.getField("f");
-	public static final MethodAccessor<Boolean> shouldUnload = TEMPLATE.getMethod("a", int.class, int.class, int.class, int.class, int.class);
-	public static final MethodAccessor<Object> getChunk = TEMPLATE.getMethod("a", int.class, int.class, boolean.class);
-	private static final MethodAccessor<Void> flagDirty = TEMPLATE.getMethod("flagDirty", int.class, int.class, int.class);
+	public static final SafeMethod<Boolean> shouldUnload = TEMPLATE.getMethod("a", int.class, int.class, int.class, int.class, int.class);
+	public static final SafeMethod<Object> getChunk = TEMPLATE.getMethod("a", int.class, int.class, boolean.class);
+	private static final SafeMethod<Void> flagDirty = TEMPLATE.getMethod("flagDirty", int.class, int.class, int.class);
 
 	public static void flagBlockDirty(Object playerChunkMap, int x, int y, int z) {
 		flagDirty.invoke(playerChunkMap, x, y, z);
 	}
 
 	public static Object getPlayerChunk(Object playerChunkMap, int x, int z) {
-		return LongHashMapRef.get.invoke(playerInstances.getInternal(playerChunkMap), x, z);
+		return LongHashMapRef.get.invoke(playerInstances.getInternal(playerChunkMap), MathUtil.longHashToLong(x, z));
 	}
 }
@@ -0,0 +1,64 @@
+package com.bergerkiller.bukkit.common.reflection.gen;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Constructs new instances using a single Constructor. This base implementation uses reflection,
+ * generated extensions of this Class override the methods with a direct constructor call.<br><br>
+ *
+ * The fixed-arity newInstance methods avoid creating an argument array. Exceptions are thrown
+ * the same way as {@link Constructor#newInstance(Object...)} does: exceptions thrown by the
+ * constructor are wrapped in an {@link InvocationTargetException}.
+ * Instances are obtained using {@link FastConstructorGenerator#create(Constructor)}.
+ */
+public class FastConstructor {
+	private static final Object[] NO_ARGS = new Object[0];
+	protected final Constructor<?> constructor;
+
+	public FastConstructor(Constructor<?> constructor) {
+		this.constructor = constructor;
+	}
+
+	/**
+	 * Gets the Constructor this invoker calls
+	 *
+	 * @return the Constructor
+	 */
+	public Constructor<?> getConstructor() {
+		return this.constructor;
+	}
+
+	/**
+	 * Gets whether this invoker uses a generated constructor call, or falls back to reflection
+	 *
+	 * @return True if generated, False if reflection is used
+	 */
+	public boolean isGenerated() {
+		return false;
+	}
+
+	public Object newInstance(Object[] args) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+		return constructor.newInstance(args);
+	}
+
+	public Object newInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException {
+		return newInstance(NO_ARGS);
+	}
+
+	public Object newInstance(Object arg0) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+		return newInstance(new Object[] {arg0});
+	}
+
+	public Object newInstance(Object arg0, Object arg1) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+		return newInstance(new Object[] {arg0, arg1});
+	}
+
+	public Object newInstance(Object arg0, Object arg1, Object arg2) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+		return newInstance(new Object[] {arg0, arg1, arg2});
+	}
+
+	public Object newInstance(Object arg0, Object arg1, Object arg2, Object arg3) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+		return newInstance(new Object[] {arg0, arg1, arg2, arg3});
+	}
+}
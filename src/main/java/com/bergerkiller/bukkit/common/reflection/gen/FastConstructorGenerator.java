@@ -0,0 +1,174 @@
+package com.bergerkiller.bukkit.common.reflection.gen;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import net.sf.cglib.asm.ClassWriter;
+import net.sf.cglib.asm.Label;
+import net.sf.cglib.asm.MethodVisitor;
+import net.sf.cglib.asm.Opcodes;
+import net.sf.cglib.asm.Type;
+
+import com.bergerkiller.bukkit.common.internal.CommonPlugin;
+
+/**
+ * Generates {@link FastConstructor} implementations that construct instances using direct NEW and
+ * INVOKESPECIAL instructions. Only public constructors of public, non-abstract classes, using
+ * public parameter types, can be generated. For all other constructors the reflection-based
+ * FastConstructor is used.
+ */
+public class FastConstructorGenerator implements Opcodes {
+	/**
+	 * The highest amount of arguments for which a fixed-arity newInstance method exists
+	 */
+	public static final int MAX_FIXED_ARGS = 4;
+	private static final String SUPER_NAME = Type.getInternalName(FastConstructor.class);
+	private static final String CONSTRUCTOR_DESC = "(Ljava/lang/reflect/Constructor;)V";
+	private static final String NEW_INSTANCE_ARRAY_DESC = "([Ljava/lang/Object;)Ljava/lang/Object;";
+	private static final String INVOCATION_EXCEPTION = "java/lang/reflect/InvocationTargetException";
+	private static final String ILLEGAL_ARGUMENT_EXCEPTION = "java/lang/IllegalArgumentException";
+	private static final Map<Constructor<?>, FastConstructor> cache = new ConcurrentHashMap<Constructor<?>, FastConstructor>();
+
+	/**
+	 * Obtains the fastest available invoker for a Constructor.
+	 * Invokers are cached, calling this method again for the same Constructor returns the same invoker.
+	 *
+	 * @param constructor to invoke
+	 * @return fast constructor invoker
+	 */
+	public static FastConstructor create(Constructor<?> constructor) {
+		FastConstructor result = cache.get(constructor);
+		if (result == null) {
+			result = generate(constructor);
+			cache.put(constructor, result);
+		}
+		return result;
+	}
+
+	private static FastConstructor generate(Constructor<?> constructor) {
+		if (!constructor.isAccessible()) {
+			constructor.setAccessible(true);
+		}
+		if (canGenerate(constructor)) {
+			try {
+				String className = GeneratorUtil.nextClassName("FastConstructor", constructor.getDeclaringClass().getSimpleName());
+				Class<?> type = GeneratorUtil.defineClass(className, generateBytecode(className, constructor));
+				return (FastConstructor) type.getConstructor(Constructor.class).newInstance(constructor);
+			} catch (Throwable t) {
+				CommonPlugin.LOGGER.log(Level.WARNING, "Failed to generate invoker for constructor " + constructor + ", using reflection", t);
+			}
+		}
+		return new FastConstructor(constructor);
+	}
+
+	private static boolean canGenerate(Constructor<?> constructor) {
+		if (!GeneratorUtil.isAccessible(constructor) || Modifier.isAbstract(constructor.getDeclaringClass().getModifiers())) {
+			return false;
+		}
+		for (Class<?> paramType : constructor.getParameterTypes()) {
+			if (!GeneratorUtil.isAccessible(paramType)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] generateBytecode(String className, Constructor<?> constructor) {
+		final Class<?>[] paramTypes = constructor.getParameterTypes();
+		final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		MethodVisitor mv;
+
+		cw.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, SUPER_NAME, null);
+
+		// Constructor
+		mv = cw.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESC, null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKESPECIAL, SUPER_NAME, "<init>", CONSTRUCTOR_DESC);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// isGenerated()
+		mv = cw.visitMethod(ACC_PUBLIC, "isGenerated", "()Z", null, null);
+		mv.visitCode();
+		mv.visitInsn(ICONST_1);
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// Object newInstance(Object[] args)
+		mv = cw.visitMethod(ACC_PUBLIC, "newInstance", NEW_INSTANCE_ARRAY_DESC, null, null);
+		visitNewInstanceBody(mv, constructor, true);
+
+		// Object newInstance(Object arg0, ...) for the amount of parameters of the constructor
+		if (paramTypes.length <= MAX_FIXED_ARGS) {
+			StringBuilder desc = new StringBuilder("(");
+			for (int i = 0; i < paramTypes.length; i++) {
+				desc.append("Ljava/lang/Object;");
+			}
+			desc.append(")Ljava/lang/Object;");
+			mv = cw.visitMethod(ACC_PUBLIC, "newInstance", desc.toString(), null, null);
+			visitNewInstanceBody(mv, constructor, false);
+		}
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Emits the body of a newInstance method. The arguments are either passed in as an array
+	 * at argument 1, or as separate arguments starting at 1.
+	 * Arguments of the wrong type cause an IllegalArgumentException, exceptions thrown by the
+	 * constructor itself are wrapped in an InvocationTargetException.
+	 */
+	private static void visitNewInstanceBody(MethodVisitor mv, Constructor<?> constructor, boolean arrayArgs) {
+		final Class<?>[] paramTypes = constructor.getParameterTypes();
+		final String ownerName = Type.getInternalName(constructor.getDeclaringClass());
+		final Label argsStart = new Label();
+		final Label argsEnd = new Label();
+		final Label argsHandler = new Label();
+		final Label invokeEnd = new Label();
+		final Label invokeHandler = new Label();
+
+		mv.visitCode();
+		// An empty try region is not allowed, so there is no handler for constructors without arguments
+		if (paramTypes.length > 0) {
+			GeneratorUtil.visitArgumentsTryCatch(mv, argsStart, argsEnd, argsHandler);
+		}
+		mv.visitTryCatchBlock(argsEnd, invokeEnd, invokeHandler, "java/lang/Throwable");
+		mv.visitTypeInsn(NEW, ownerName);
+		mv.visitInsn(DUP);
+
+		// Arguments
+		mv.visitLabel(argsStart);
+		GeneratorUtil.visitLoadArguments(mv, paramTypes, 1, arrayArgs);
+		mv.visitLabel(argsEnd);
+
+		// Call
+		final StringBuilder desc = new StringBuilder("(");
+		for (Class<?> paramType : paramTypes) {
+			desc.append(Type.getDescriptor(paramType));
+		}
+		desc.append(")V");
+		mv.visitMethodInsn(INVOKESPECIAL, ownerName, "<init>", desc.toString());
+		mv.visitLabel(invokeEnd);
+		mv.visitInsn(ARETURN);
+
+		// catch (ClassCastException | ArrayIndexOutOfBoundsException t) { throw new IllegalArgumentException(t); }
+		if (paramTypes.length > 0) {
+			mv.visitLabel(argsHandler);
+			GeneratorUtil.visitRethrowWrapped(mv, ILLEGAL_ARGUMENT_EXCEPTION);
+		}
+
+		// catch (Throwable t) { throw new InvocationTargetException(t); }
+		mv.visitLabel(invokeHandler);
+		GeneratorUtil.visitRethrowWrapped(mv, INVOCATION_EXCEPTION);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+}
@@ -0,0 +1,182 @@
+package com.bergerkiller.bukkit.common.reflection.gen;
+
+import java.lang.reflect.Field;
+
+/**
+ * Provides direct get and set access to a single Field.
+ * This base implementation uses reflection, generated extensions of this Class
+ * override the methods with direct field instructions. Fields that can not be accessed
+ * by generated code are accessed by their field offset instead.<br><br>
+ *
+ * The primitive get and set methods never box their values. Instances are
+ * obtained using {@link FastFieldGenerator#create(Field)}.
+ */
+public class FastField {
+	protected final Field field;
+
+	public FastField(Field field) {
+		this.field = field;
+	}
+
+	/**
+	 * Gets the Field this accessor reads and writes
+	 *
+	 * @return the Field
+	 */
+	public Field getField() {
+		return this.field;
+	}
+
+	/**
+	 * Gets whether this accessor uses generated field instructions, or falls back to reflection
+	 *
+	 * @return True if generated, False if reflection is used
+	 */
+	public boolean isGenerated() {
+		return false;
+	}
+
+	public Object get(Object instance) {
+		try {
+			return field.get(instance);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public void set(Object instance, Object value) {
+		try {
+			field.set(instance, value);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public int getInteger(Object instance) {
+		try {
+			return field.getInt(instance);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public void setInteger(Object instance, int value) {
+		try {
+			field.setInt(instance, value);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public long getLong(Object instance) {
+		try {
+			return field.getLong(instance);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public void setLong(Object instance, long value) {
+		try {
+			field.setLong(instance, value);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public double getDouble(Object instance) {
+		try {
+			return field.getDouble(instance);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public void setDouble(Object instance, double value) {
+		try {
+			field.setDouble(instance, value);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public float getFloat(Object instance) {
+		try {
+			return field.getFloat(instance);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public void setFloat(Object instance, float value) {
+		try {
+			field.setFloat(instance, value);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public boolean getBoolean(Object instance) {
+		try {
+			return field.getBoolean(instance);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public void setBoolean(Object instance, boolean value) {
+		try {
+			field.setBoolean(instance, value);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public byte getByte(Object instance) {
+		try {
+			return field.getByte(instance);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public void setByte(Object instance, byte value) {
+		try {
+			field.setByte(instance, value);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public short getShort(Object instance) {
+		try {
+			return field.getShort(instance);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public void setShort(Object instance, short value) {
+		try {
+			field.setShort(instance, value);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public char getCharacter(Object instance) {
+		try {
+			return field.getChar(instance);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public void setCharacter(Object instance, char value) {
+		try {
+			field.setChar(instance, value);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.bergerkiller.bukkit.common.reflection.gen;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import net.sf.cglib.asm.ClassWriter;
+import net.sf.cglib.asm.MethodVisitor;
+import net.sf.cglib.asm.Opcodes;
+import net.sf.cglib.asm.Type;
+
+import com.bergerkiller.bukkit.common.internal.CommonPlugin;
+
+/**
+ * Generates {@link FastField} implementations that use direct GETFIELD/PUTFIELD instructions.
+ * Only fields that can be accessed from outside their package (public fields in public classes)
+ * can be generated. All other fields, such as the private fields of server classes, are accessed
+ * using their field offset through sun.misc.Unsafe. Only if that is not possible (volatile fields,
+ * or Unsafe not being available) the reflection-based FastField is used.
+ * Final fields are only read directly, writing them keeps using reflection.
+ */
+public class FastFieldGenerator implements Opcodes {
+	private static final String SUPER_NAME = Type.getInternalName(FastField.class);
+	private static final String CONSTRUCTOR_DESC = "(Ljava/lang/reflect/Field;)V";
+	private static final Map<Field, FastField> cache = new ConcurrentHashMap<Field, FastField>();
+
+	/**
+	 * Obtains the fastest available accessor for a Field.
+	 * Accessors are cached, calling this method again for the same Field returns the same accessor.
+	 *
+	 * @param field to access
+	 * @return fast field accessor
+	 */
+	public static FastField create(Field field) {
+		FastField result = cache.get(field);
+		if (result == null) {
+			result = generate(field);
+			cache.put(field, result);
+		}
+		return result;
+	}
+
+	private static FastField generate(Field field) {
+		if (!field.isAccessible()) {
+			field.setAccessible(true);
+		}
+		if (GeneratorUtil.isAccessible(field) && GeneratorUtil.isAccessible(field.getType())) {
+			try {
+				String className = GeneratorUtil.nextClassName("FastField", field.getName());
+				Class<?> type = GeneratorUtil.defineClass(className, generateBytecode(className, field));
+				return (FastField) type.getConstructor(Field.class).newInstance(field);
+			} catch (Throwable t) {
+				CommonPlugin.LOGGER.log(Level.WARNING, "Failed to generate accessor for field " + field + ", using reflection", t);
+				return new FastField(field);
+			}
+		}
+		if (UnsafeField.canAccess(field)) {
+			try {
+				return new UnsafeField(field);
+			} catch (Throwable t) {
+				CommonPlugin.LOGGER.log(Level.WARNING, "Failed to access field " + field + " by offset, using reflection", t);
+			}
+		}
+		return new FastField(field);
+	}
+
+	private static byte[] generateBytecode(String className, Field field) {
+		final Class<?> type = field.getType();
+		final String owner = Type.getInternalName(field.getDeclaringClass());
+		final String desc = Type.getDescriptor(type);
+		final String primitiveSuffix = GeneratorUtil.getPrimitiveSuffix(type);
+		final boolean isStatic = Modifier.isStatic(field.getModifiers());
+		final boolean isFinal = Modifier.isFinal(field.getModifiers());
+		final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		MethodVisitor mv;
+
+		cw.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, SUPER_NAME, null);
+
+		// Constructor
+		mv = cw.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESC, null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKESPECIAL, SUPER_NAME, "<init>", CONSTRUCTOR_DESC);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// isGenerated()
+		mv = cw.visitMethod(ACC_PUBLIC, "isGenerated", "()Z", null, null);
+		mv.visitCode();
+		mv.visitInsn(ICONST_1);
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// Object get(Object instance)
+		mv = cw.visitMethod(ACC_PUBLIC, "get", "(Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		visitGetField(mv, owner, field.getName(), desc, isStatic);
+		GeneratorUtil.visitBox(mv, type);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// Primitive getter, only the one matching the field type
+		if (primitiveSuffix != null) {
+			mv = cw.visitMethod(ACC_PUBLIC, "get" + primitiveSuffix, "(Ljava/lang/Object;)" + desc, null, null);
+			mv.visitCode();
+			visitGetField(mv, owner, field.getName(), desc, isStatic);
+			mv.visitInsn(Type.getType(type).getOpcode(IRETURN));
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+
+		// Final fields can not be written to by other classes
+		if (!isFinal) {
+			// void set(Object instance, Object value)
+			mv = cw.visitMethod(ACC_PUBLIC, "set", "(Ljava/lang/Object;Ljava/lang/Object;)V", null, null);
+			mv.visitCode();
+			if (!isStatic) {
+				mv.visitVarInsn(ALOAD, 1);
+				mv.visitTypeInsn(CHECKCAST, owner);
+			}
+			mv.visitVarInsn(ALOAD, 2);
+			GeneratorUtil.visitUnbox(mv, type);
+			mv.visitFieldInsn(isStatic ? PUTSTATIC : PUTFIELD, owner, field.getName(), desc);
+			mv.visitInsn(RETURN);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+
+			// Primitive setter, only the one matching the field type
+			if (primitiveSuffix != null) {
+				mv = cw.visitMethod(ACC_PUBLIC, "set" + primitiveSuffix, "(Ljava/lang/Object;" + desc + ")V", null, null);
+				mv.visitCode();
+				if (!isStatic) {
+					mv.visitVarInsn(ALOAD, 1);
+					mv.visitTypeInsn(CHECKCAST, owner);
+				}
+				mv.visitVarInsn(Type.getType(type).getOpcode(ILOAD), 2);
+				mv.visitFieldInsn(isStatic ? PUTSTATIC : PUTFIELD, owner, field.getName(), desc);
+				mv.visitInsn(RETURN);
+				mv.visitMaxs(0, 0);
+				mv.visitEnd();
+			}
+		}
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void visitGetField(MethodVisitor mv, String owner, String name, String desc, boolean isStatic) {
+		if (isStatic) {
+			mv.visitFieldInsn(GETSTATIC, owner, name, desc);
+		} else {
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, owner);
+			mv.visitFieldInsn(GETFIELD, owner, name, desc);
+		}
+	}
+}
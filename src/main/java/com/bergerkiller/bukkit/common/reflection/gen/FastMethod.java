@@ -0,0 +1,64 @@
+package com.bergerkiller.bukkit.common.reflection.gen;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Invokes a single Method. This base implementation uses reflection,
+ * generated extensions of this Class override the methods with direct invoke instructions.<br><br>
+ *
+ * The fixed-arity invoke methods avoid creating an argument array. Exceptions are thrown
+ * the same way as {@link Method#invoke(Object, Object...)} does: exceptions thrown by the
+ * method are wrapped in an {@link InvocationTargetException}.
+ * Instances are obtained using {@link FastMethodGenerator#create(Method)}.
+ */
+public class FastMethod {
+	private static final Object[] NO_ARGS = new Object[0];
+	protected final Method method;
+
+	public FastMethod(Method method) {
+		this.method = method;
+	}
+
+	/**
+	 * Gets the Method this invoker calls
+	 *
+	 * @return the Method
+	 */
+	public Method getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * Gets whether this invoker uses generated invoke instructions, or falls back to reflection
+	 *
+	 * @return True if generated, False if reflection is used
+	 */
+	public boolean isGenerated() {
+		return false;
+	}
+
+	public Object invoke(Object instance, Object[] args) throws IllegalAccessException, InvocationTargetException {
+		return method.invoke(instance, args);
+	}
+
+	public Object invoke(Object instance) throws IllegalAccessException, InvocationTargetException {
+		return invoke(instance, NO_ARGS);
+	}
+
+	public Object invoke(Object instance, Object arg0) throws IllegalAccessException, InvocationTargetException {
+		return invoke(instance, new Object[] {arg0});
+	}
+
+	public Object invoke(Object instance, Object arg0, Object arg1) throws IllegalAccessException, InvocationTargetException {
+		return invoke(instance, new Object[] {arg0, arg1});
+	}
+
+	public Object invoke(Object instance, Object arg0, Object arg1, Object arg2) throws IllegalAccessException, InvocationTargetException {
+		return invoke(instance, new Object[] {arg0, arg1, arg2});
+	}
+
+	public Object invoke(Object instance, Object arg0, Object arg1, Object arg2, Object arg3) throws IllegalAccessException, InvocationTargetException {
+		return invoke(instance, new Object[] {arg0, arg1, arg2, arg3});
+	}
+}
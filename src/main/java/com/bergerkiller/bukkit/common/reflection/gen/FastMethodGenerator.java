@@ -0,0 +1,194 @@
+package com.bergerkiller.bukkit.common.reflection.gen;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import net.sf.cglib.asm.ClassWriter;
+import net.sf.cglib.asm.Label;
+import net.sf.cglib.asm.MethodVisitor;
+import net.sf.cglib.asm.Opcodes;
+import net.sf.cglib.asm.Type;
+
+import com.bergerkiller.bukkit.common.internal.CommonPlugin;
+
+/**
+ * Generates {@link FastMethod} implementations that call the method using a direct invoke instruction.
+ * Only methods that can be accessed from outside their package (public methods in public classes,
+ * using public parameter and return types) can be generated. For all other methods the
+ * reflection-based FastMethod is used.
+ */
+public class FastMethodGenerator implements Opcodes {
+	/**
+	 * The highest amount of arguments for which a fixed-arity invoke method exists
+	 */
+	public static final int MAX_FIXED_ARGS = 4;
+	private static final String SUPER_NAME = Type.getInternalName(FastMethod.class);
+	private static final String CONSTRUCTOR_DESC = "(Ljava/lang/reflect/Method;)V";
+	private static final String INVOKE_ARRAY_DESC = "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+	private static final String INVOCATION_EXCEPTION = "java/lang/reflect/InvocationTargetException";
+	private static final String ILLEGAL_ARGUMENT_EXCEPTION = "java/lang/IllegalArgumentException";
+	private static final Map<Method, FastMethod> cache = new ConcurrentHashMap<Method, FastMethod>();
+
+	/**
+	 * Obtains the fastest available invoker for a Method.
+	 * Invokers are cached, calling this method again for the same Method returns the same invoker.
+	 *
+	 * @param method to invoke
+	 * @return fast method invoker
+	 */
+	public static FastMethod create(Method method) {
+		FastMethod result = cache.get(method);
+		if (result == null) {
+			result = generate(method);
+			cache.put(method, result);
+		}
+		return result;
+	}
+
+	private static FastMethod generate(Method method) {
+		if (!method.isAccessible()) {
+			method.setAccessible(true);
+		}
+		if (canGenerate(method)) {
+			try {
+				String className = GeneratorUtil.nextClassName("FastMethod", method.getName());
+				Class<?> type = GeneratorUtil.defineClass(className, generateBytecode(className, method));
+				return (FastMethod) type.getConstructor(Method.class).newInstance(method);
+			} catch (Throwable t) {
+				CommonPlugin.LOGGER.log(Level.WARNING, "Failed to generate invoker for method " + method + ", using reflection", t);
+			}
+		}
+		return new FastMethod(method);
+	}
+
+	private static boolean canGenerate(Method method) {
+		if (!GeneratorUtil.isAccessible(method) || !GeneratorUtil.isAccessible(method.getReturnType())) {
+			return false;
+		}
+		for (Class<?> paramType : method.getParameterTypes()) {
+			if (!GeneratorUtil.isAccessible(paramType)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] generateBytecode(String className, Method method) {
+		final Class<?>[] paramTypes = method.getParameterTypes();
+		final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		MethodVisitor mv;
+
+		cw.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, SUPER_NAME, null);
+
+		// Constructor
+		mv = cw.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESC, null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKESPECIAL, SUPER_NAME, "<init>", CONSTRUCTOR_DESC);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// isGenerated()
+		mv = cw.visitMethod(ACC_PUBLIC, "isGenerated", "()Z", null, null);
+		mv.visitCode();
+		mv.visitInsn(ICONST_1);
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// Object invoke(Object instance, Object[] args)
+		mv = cw.visitMethod(ACC_PUBLIC, "invoke", INVOKE_ARRAY_DESC, null, null);
+		visitInvokeBody(mv, method, true);
+
+		// Object invoke(Object instance, Object arg0, ...) for the amount of parameters of the method
+		if (paramTypes.length <= MAX_FIXED_ARGS) {
+			StringBuilder desc = new StringBuilder("(Ljava/lang/Object;");
+			for (int i = 0; i < paramTypes.length; i++) {
+				desc.append("Ljava/lang/Object;");
+			}
+			desc.append(")Ljava/lang/Object;");
+			mv = cw.visitMethod(ACC_PUBLIC, "invoke", desc.toString(), null, null);
+			visitInvokeBody(mv, method, false);
+		}
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Emits the body of an invoke method. Argument 1 is the instance, and the arguments
+	 * are either passed in as an array at argument 2, or as separate arguments starting at 2.
+	 * Arguments of the wrong type cause an IllegalArgumentException, exceptions thrown by the
+	 * method itself are wrapped in an InvocationTargetException.
+	 */
+	private static void visitInvokeBody(MethodVisitor mv, Method method, boolean arrayArgs) {
+		final Class<?>[] paramTypes = method.getParameterTypes();
+		final Class<?> returnType = method.getReturnType();
+		final Class<?> owner = method.getDeclaringClass();
+		final String ownerName = Type.getInternalName(owner);
+		final boolean isStatic = Modifier.isStatic(method.getModifiers());
+		final Label argsStart = new Label();
+		final Label argsEnd = new Label();
+		final Label argsHandler = new Label();
+		final Label invokeEnd = new Label();
+		final Label invokeHandler = new Label();
+
+		// An empty try region is not allowed, so there is no handler for static methods without arguments
+		final boolean hasArgs = !isStatic || paramTypes.length > 0;
+
+		mv.visitCode();
+		if (hasArgs) {
+			GeneratorUtil.visitArgumentsTryCatch(mv, argsStart, argsEnd, argsHandler);
+		}
+		mv.visitTryCatchBlock(argsEnd, invokeEnd, invokeHandler, "java/lang/Throwable");
+		mv.visitLabel(argsStart);
+
+		// Instance, a null instance throws a NullPointerException like reflection does
+		if (!isStatic) {
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitMethodInsn(INVOKESTATIC, "java/util/Objects", "requireNonNull", "(Ljava/lang/Object;)Ljava/lang/Object;");
+			mv.visitTypeInsn(CHECKCAST, ownerName);
+		}
+
+		// Arguments
+		GeneratorUtil.visitLoadArguments(mv, paramTypes, 2, arrayArgs);
+		mv.visitLabel(argsEnd);
+
+		// Call
+		final int opcode;
+		if (isStatic) {
+			opcode = INVOKESTATIC;
+		} else if (owner.isInterface()) {
+			opcode = INVOKEINTERFACE;
+		} else {
+			opcode = INVOKEVIRTUAL;
+		}
+		mv.visitMethodInsn(opcode, ownerName, method.getName(), Type.getMethodDescriptor(method));
+		mv.visitLabel(invokeEnd);
+
+		// Return value
+		if (returnType == void.class) {
+			mv.visitInsn(ACONST_NULL);
+		} else {
+			GeneratorUtil.visitBox(mv, returnType);
+		}
+		mv.visitInsn(ARETURN);
+
+		// catch (ClassCastException | ArrayIndexOutOfBoundsException t) { throw new IllegalArgumentException(t); }
+		if (hasArgs) {
+			mv.visitLabel(argsHandler);
+			GeneratorUtil.visitRethrowWrapped(mv, ILLEGAL_ARGUMENT_EXCEPTION);
+		}
+
+		// catch (Throwable t) { throw new InvocationTargetException(t); }
+		mv.visitLabel(invokeHandler);
+		GeneratorUtil.visitRethrowWrapped(mv, INVOCATION_EXCEPTION);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+}
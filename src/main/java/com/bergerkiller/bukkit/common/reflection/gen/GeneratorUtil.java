@@ -0,0 +1,189 @@
+package com.bergerkiller.bukkit.common.reflection.gen;
+
+import java.lang.reflect.Member;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.cglib.asm.Label;
+import net.sf.cglib.asm.MethodVisitor;
+import net.sf.cglib.asm.Opcodes;
+import net.sf.cglib.asm.Type;
+import net.sf.cglib.core.ReflectUtils;
+
+import com.bergerkiller.bukkit.common.utils.LogicUtil;
+
+/**
+ * Shared bytecode helper methods used by the accessor generators
+ */
+class GeneratorUtil implements Opcodes {
+	private static final String PACKAGE_PATH = GeneratorUtil.class.getPackage().getName().replace('.', '/') + "/";
+	private static final String UNBOXING_NAME = Type.getInternalName(Unboxing.class);
+	private static final AtomicInteger classCounter = new AtomicInteger();
+
+	/**
+	 * Generates a new unique internal class name for a generated class
+	 *
+	 * @param prefix of the class name
+	 * @param memberName to include in the name for debugging purposes
+	 * @return unique internal class name
+	 */
+	public static String nextClassName(String prefix, String memberName) {
+		return PACKAGE_PATH + prefix + "$" + memberName + "$" + classCounter.incrementAndGet();
+	}
+
+	/**
+	 * Defines a generated class in the class loader of this library
+	 *
+	 * @param internalName of the class
+	 * @param bytecode of the class
+	 * @return the defined Class
+	 * @throws Exception if defining failed
+	 */
+	public static Class<?> defineClass(String internalName, byte[] bytecode) throws Exception {
+		return ReflectUtils.defineClass(internalName.replace('/', '.'), bytecode, GeneratorUtil.class.getClassLoader());
+	}
+
+	/**
+	 * Checks whether generated code outside the package of a member can access it directly.
+	 * This requires the member, the declaring class and all enclosing classes to be public.
+	 *
+	 * @param member to check
+	 * @return True if the member can be accessed from generated code, False if not
+	 */
+	public static boolean isAccessible(Member member) {
+		if (!Modifier.isPublic(member.getModifiers())) {
+			return false;
+		}
+		return isAccessible(member.getDeclaringClass());
+	}
+
+	/**
+	 * Checks whether generated code can reference a Class directly
+	 *
+	 * @param type to check
+	 * @return True if the type is public and visible, False if not
+	 */
+	public static boolean isAccessible(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		if (type.isPrimitive()) {
+			return true;
+		}
+		for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+			if (!Modifier.isPublic(c.getModifiers())) {
+				return false;
+			}
+		}
+		return type.getClassLoader() == null || isVisible(type);
+	}
+
+	private static boolean isVisible(Class<?> type) {
+		try {
+			return Class.forName(type.getName(), false, GeneratorUtil.class.getClassLoader()) == type;
+		} catch (Throwable t) {
+			return false;
+		}
+	}
+
+	/**
+	 * Emits a checked cast of the Object on the stack to the type specified.
+	 * Primitive types are unboxed using {@link Unboxing}, which only allows widening
+	 * conversions and throws an IllegalArgumentException for all others, like reflection does.
+	 *
+	 * @param mv to emit to
+	 * @param type to cast or unbox to
+	 */
+	public static void visitUnbox(MethodVisitor mv, Class<?> type) {
+		if (type == Object.class) {
+			return;
+		}
+		if (type.isPrimitive()) {
+			mv.visitMethodInsn(INVOKESTATIC, UNBOXING_NAME, "to" + getPrimitiveSuffix(type), "(Ljava/lang/Object;)" + Type.getDescriptor(type));
+		} else {
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+		}
+	}
+
+	/**
+	 * Emits the loading of the arguments of a generated invoke or newInstance method.
+	 * The arguments are either passed in as an array at the local variable index,
+	 * or as separate arguments starting at the index. Every argument is cast or unboxed
+	 * to the parameter type it is passed to.
+	 *
+	 * @param mv to emit to
+	 * @param paramTypes of the method or constructor invoked
+	 * @param index of the first argument, or the argument array
+	 * @param arrayArgs whether the arguments are passed in as an array
+	 */
+	public static void visitLoadArguments(MethodVisitor mv, Class<?>[] paramTypes, int index, boolean arrayArgs) {
+		for (int i = 0; i < paramTypes.length; i++) {
+			if (arrayArgs) {
+				mv.visitVarInsn(ALOAD, index);
+				mv.visitLdcInsn(Integer.valueOf(i));
+				mv.visitInsn(AALOAD);
+			} else {
+				mv.visitVarInsn(ALOAD, index + i);
+			}
+			visitUnbox(mv, paramTypes[i]);
+		}
+	}
+
+	/**
+	 * Registers the handler that turns failures to convert the arguments of a generated method
+	 * into an IllegalArgumentException, the same way reflection reports wrong arguments.
+	 * Call {@link #visitRethrowWrapped(MethodVisitor, String)} at the handler label to emit the handler.
+	 *
+	 * @param mv to emit to
+	 * @param start label of the argument loading instructions
+	 * @param end label after the argument loading instructions
+	 * @param handler label of the handler
+	 */
+	public static void visitArgumentsTryCatch(MethodVisitor mv, Label start, Label end, Label handler) {
+		mv.visitTryCatchBlock(start, end, handler, "java/lang/ClassCastException");
+		mv.visitTryCatchBlock(start, end, handler, "java/lang/ArrayIndexOutOfBoundsException");
+	}
+
+	/**
+	 * Emits a handler for the exception on the stack that throws it again, wrapped in a new exception.
+	 * The exception type must have a constructor accepting a Throwable cause.
+	 *
+	 * @param mv to emit to
+	 * @param exceptionName internal name of the exception type to wrap in
+	 */
+	public static void visitRethrowWrapped(MethodVisitor mv, String exceptionName) {
+		mv.visitTypeInsn(NEW, exceptionName);
+		mv.visitInsn(DUP_X1);
+		mv.visitInsn(SWAP);
+		mv.visitMethodInsn(INVOKESPECIAL, exceptionName, "<init>", "(Ljava/lang/Throwable;)V");
+		mv.visitInsn(ATHROW);
+	}
+
+	/**
+	 * Emits the boxing of a primitive value on the stack.
+	 * Does nothing if the type is not primitive.
+	 *
+	 * @param mv to emit to
+	 * @param type of the value on the stack
+	 */
+	public static void visitBox(MethodVisitor mv, Class<?> type) {
+		if (!type.isPrimitive() || type == void.class) {
+			return;
+		}
+		final String boxedName = Type.getInternalName(LogicUtil.getBoxedType(type));
+		mv.visitMethodInsn(INVOKESTATIC, boxedName, "valueOf", "(" + Type.getDescriptor(type) + ")L" + boxedName + ";");
+	}
+
+	/**
+	 * Gets the name suffix of the primitive get/set methods for a type, such as 'Integer' for int
+	 *
+	 * @param type to get the suffix of
+	 * @return primitive method suffix, or null if the type is not primitive
+	 */
+	public static String getPrimitiveSuffix(Class<?> type) {
+		if (!type.isPrimitive() || type == void.class) {
+			return null;
+		}
+		return LogicUtil.getBoxedType(type).getSimpleName();
+	}
+}
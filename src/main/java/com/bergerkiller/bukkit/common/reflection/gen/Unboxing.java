@@ -0,0 +1,162 @@
+package com.bergerkiller.bukkit.common.reflection.gen;
+
+/**
+ * Unboxes values passed to generated accessors, following the same rules as reflection:
+ * a boxed value is only accepted if it can be widened to the requested primitive type.
+ * Values that would have to be narrowed, such as a Double passed to an int,
+ * cause an IllegalArgumentException to be thrown.
+ */
+public final class Unboxing {
+
+	private Unboxing() {
+	}
+
+	/**
+	 * Checks whether a value can be passed to a parameter or field of a certain type,
+	 * in the same way reflection would accept it
+	 *
+	 * @param type of the parameter or field
+	 * @param value to check
+	 * @return True if the value can be assigned, False if not
+	 */
+	public static boolean isAssignable(Class<?> type, Object value) {
+		if (!type.isPrimitive()) {
+			return value == null || type.isInstance(value);
+		}
+		return value != null && isWidening(getPrimitiveType(value.getClass()), type);
+	}
+
+	/**
+	 * Checks whether a primitive type can be converted to another primitive type
+	 * without narrowing the value (identity or widening primitive conversion)
+	 *
+	 * @param from primitive type
+	 * @param to primitive type
+	 * @return True if the conversion is allowed, False if not
+	 */
+	public static boolean isWidening(Class<?> from, Class<?> to) {
+		if (from == null || from == void.class) {
+			return false;
+		}
+		if (from == to) {
+			return true;
+		}
+		if (from == boolean.class || to == boolean.class || to == char.class) {
+			return false;
+		}
+		if (from == char.class) {
+			return to == int.class || to == long.class || to == float.class || to == double.class;
+		}
+		return getRank(from) < getRank(to);
+	}
+
+	private static int getRank(Class<?> type) {
+		if (type == byte.class) {
+			return 0;
+		} else if (type == short.class) {
+			return 1;
+		} else if (type == int.class) {
+			return 2;
+		} else if (type == long.class) {
+			return 3;
+		} else if (type == float.class) {
+			return 4;
+		} else {
+			return 5;
+		}
+	}
+
+	private static Class<?> getPrimitiveType(Class<?> boxedType) {
+		if (boxedType == Integer.class) {
+			return int.class;
+		} else if (boxedType == Double.class) {
+			return double.class;
+		} else if (boxedType == Float.class) {
+			return float.class;
+		} else if (boxedType == Long.class) {
+			return long.class;
+		} else if (boxedType == Boolean.class) {
+			return boolean.class;
+		} else if (boxedType == Byte.class) {
+			return byte.class;
+		} else if (boxedType == Short.class) {
+			return short.class;
+		} else if (boxedType == Character.class) {
+			return char.class;
+		} else {
+			return null;
+		}
+	}
+
+	private static IllegalArgumentException mismatch(Object value, Class<?> type) {
+		if (value == null) {
+			return new IllegalArgumentException("Can not convert null to " + type.getName());
+		} else {
+			return new IllegalArgumentException("Can not convert " + value.getClass().getName() + " to " + type.getName());
+		}
+	}
+
+	public static boolean toBoolean(Object value) {
+		if (value instanceof Boolean) {
+			return ((Boolean) value).booleanValue();
+		}
+		throw mismatch(value, boolean.class);
+	}
+
+	public static char toCharacter(Object value) {
+		if (value instanceof Character) {
+			return ((Character) value).charValue();
+		}
+		throw mismatch(value, char.class);
+	}
+
+	public static byte toByte(Object value) {
+		if (value instanceof Byte) {
+			return ((Byte) value).byteValue();
+		}
+		throw mismatch(value, byte.class);
+	}
+
+	public static short toShort(Object value) {
+		if (value instanceof Short || value instanceof Byte) {
+			return ((Number) value).shortValue();
+		}
+		throw mismatch(value, short.class);
+	}
+
+	public static int toInteger(Object value) {
+		if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return ((Number) value).intValue();
+		} else if (value instanceof Character) {
+			return ((Character) value).charValue();
+		}
+		throw mismatch(value, int.class);
+	}
+
+	public static long toLong(Object value) {
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return ((Number) value).longValue();
+		} else if (value instanceof Character) {
+			return ((Character) value).charValue();
+		}
+		throw mismatch(value, long.class);
+	}
+
+	public static float toFloat(Object value) {
+		if (value instanceof Float || value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return ((Number) value).floatValue();
+		} else if (value instanceof Character) {
+			return ((Character) value).charValue();
+		}
+		throw mismatch(value, float.class);
+	}
+
+	public static double toDouble(Object value) {
+		if (value instanceof Double || value instanceof Float || value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return ((Number) value).doubleValue();
+		} else if (value instanceof Character) {
+			return ((Character) value).charValue();
+		}
+		throw mismatch(value, double.class);
+	}
+}
@@ -0,0 +1,403 @@
+package com.bergerkiller.bukkit.common.reflection.gen;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Accesses a Field that generated code can not access directly, such as a private field,
+ * using the field offset obtained from sun.misc.Unsafe. The instance and the value are
+ * type-checked before every access, throwing an IllegalArgumentException like reflection does.<br><br>
+ *
+ * Writing final fields and reading or writing a primitive field as a different primitive type
+ * keep using reflection, so the conversion rules remain the same.<br><br>
+ *
+ * Unsafe is not referenced at compile time, as it is not part of the public API and may be missing.
+ * Its methods are looked up as method handles bound to the Unsafe instance. Since the handles are
+ * constants, the JIT compiler inlines them as if Unsafe was called directly.
+ */
+final class UnsafeField extends FastField {
+	private static final String[] TYPE_NAMES = {"Object", "Int", "Double", "Float", "Long", "Boolean", "Byte", "Short", "Char"};
+	private static final Class<?>[] TYPES = {Object.class, int.class, double.class, float.class, long.class,
+		boolean.class, byte.class, short.class, char.class};
+	private static final boolean AVAILABLE;
+	private static final MethodHandle OBJECT_FIELD_OFFSET, STATIC_FIELD_OFFSET, STATIC_FIELD_BASE, ENSURE_CLASS_INITIALIZED;
+	private static final MethodHandle GET_OBJECT, GET_INT, GET_DOUBLE, GET_FLOAT, GET_LONG, GET_BOOLEAN, GET_BYTE, GET_SHORT, GET_CHAR;
+	private static final MethodHandle PUT_OBJECT, PUT_INT, PUT_DOUBLE, PUT_FLOAT, PUT_LONG, PUT_BOOLEAN, PUT_BYTE, PUT_SHORT, PUT_CHAR;
+	static {
+		final MethodHandle[] handles = new MethodHandle[4];
+		final MethodHandle[] getters = new MethodHandle[TYPES.length];
+		final MethodHandle[] putters = new MethodHandle[TYPES.length];
+		boolean available = false;
+		try {
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			final Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+			unsafeField.setAccessible(true);
+			final Object unsafe = unsafeField.get(null);
+			final MethodHandles.Lookup lookup = MethodHandles.lookup();
+			handles[0] = lookup.findVirtual(unsafeClass, "objectFieldOffset", MethodType.methodType(long.class, Field.class)).bindTo(unsafe);
+			handles[1] = lookup.findVirtual(unsafeClass, "staticFieldOffset", MethodType.methodType(long.class, Field.class)).bindTo(unsafe);
+			handles[2] = lookup.findVirtual(unsafeClass, "staticFieldBase", MethodType.methodType(Object.class, Field.class)).bindTo(unsafe);
+			handles[3] = lookup.findVirtual(unsafeClass, "ensureClassInitialized", MethodType.methodType(void.class, Class.class)).bindTo(unsafe);
+			for (int i = 0; i < TYPES.length; i++) {
+				getters[i] = lookup.findVirtual(unsafeClass, "get" + TYPE_NAMES[i],
+						MethodType.methodType(TYPES[i], Object.class, long.class)).bindTo(unsafe);
+				putters[i] = lookup.findVirtual(unsafeClass, "put" + TYPE_NAMES[i],
+						MethodType.methodType(void.class, Object.class, long.class, TYPES[i])).bindTo(unsafe);
+			}
+			available = true;
+		} catch (Throwable t) {
+			available = false;
+		}
+		AVAILABLE = available;
+		OBJECT_FIELD_OFFSET = handles[0];
+		STATIC_FIELD_OFFSET = handles[1];
+		STATIC_FIELD_BASE = handles[2];
+		ENSURE_CLASS_INITIALIZED = handles[3];
+		GET_OBJECT = getters[0];
+		GET_INT = getters[1];
+		GET_DOUBLE = getters[2];
+		GET_FLOAT = getters[3];
+		GET_LONG = getters[4];
+		GET_BOOLEAN = getters[5];
+		GET_BYTE = getters[6];
+		GET_SHORT = getters[7];
+		GET_CHAR = getters[8];
+		PUT_OBJECT = putters[0];
+		PUT_INT = putters[1];
+		PUT_DOUBLE = putters[2];
+		PUT_FLOAT = putters[3];
+		PUT_LONG = putters[4];
+		PUT_BOOLEAN = putters[5];
+		PUT_BYTE = putters[6];
+		PUT_SHORT = putters[7];
+		PUT_CHAR = putters[8];
+	}
+	private final Class<?> type;
+	private final Class<?> declaringClass;
+	private final boolean isStatic;
+	private final boolean isFinal;
+	private final Object staticBase;
+	private final long offset;
+
+	public UnsafeField(Field field) throws Throwable {
+		super(field);
+		this.type = field.getType();
+		this.declaringClass = field.getDeclaringClass();
+		this.isStatic = Modifier.isStatic(field.getModifiers());
+		this.isFinal = Modifier.isFinal(field.getModifiers());
+		if (this.isStatic) {
+			// Reflection initializes the class before accessing static fields, do the same
+			ENSURE_CLASS_INITIALIZED.invokeExact(this.declaringClass);
+			this.staticBase = (Object) STATIC_FIELD_BASE.invokeExact(field);
+			this.offset = (long) STATIC_FIELD_OFFSET.invokeExact(field);
+		} else {
+			this.staticBase = null;
+			this.offset = (long) OBJECT_FIELD_OFFSET.invokeExact(field);
+		}
+	}
+
+	/**
+	 * Checks whether a Field can be accessed using an UnsafeField.
+	 * Volatile fields are excluded, as are all fields when sun.misc.Unsafe is not available.
+	 *
+	 * @param field to check
+	 * @return True if an UnsafeField can be created for the field, False if not
+	 */
+	public static boolean canAccess(Field field) {
+		return AVAILABLE && !Modifier.isVolatile(field.getModifiers());
+	}
+
+	/**
+	 * Rethrows an exception thrown by a method handle. Unsafe does not declare checked exceptions.
+	 */
+	private static RuntimeException rethrow(Throwable t) {
+		if (t instanceof RuntimeException) {
+			return (RuntimeException) t;
+		} else if (t instanceof Error) {
+			throw (Error) t;
+		} else {
+			return new RuntimeException(t);
+		}
+	}
+
+	private Object getBase(Object instance) {
+		if (this.isStatic) {
+			return this.staticBase;
+		}
+		if (!this.declaringClass.isInstance(instance)) {
+			if (instance == null) {
+				throw new NullPointerException("Non-static field requires a non-null instance");
+			}
+			throw new IllegalArgumentException("Can not access field " + this.field.getName() + " of " +
+					this.declaringClass.getName() + " in " + instance.getClass().getName());
+		}
+		return instance;
+	}
+
+	@Override
+	public Object get(Object instance) {
+		final Object base = getBase(instance);
+		try {
+			if (!this.type.isPrimitive()) {
+				return (Object) GET_OBJECT.invokeExact(base, this.offset);
+			} else if (this.type == int.class) {
+				return (int) GET_INT.invokeExact(base, this.offset);
+			} else if (this.type == double.class) {
+				return (double) GET_DOUBLE.invokeExact(base, this.offset);
+			} else if (this.type == float.class) {
+				return (float) GET_FLOAT.invokeExact(base, this.offset);
+			} else if (this.type == long.class) {
+				return (long) GET_LONG.invokeExact(base, this.offset);
+			} else if (this.type == boolean.class) {
+				return (boolean) GET_BOOLEAN.invokeExact(base, this.offset);
+			} else if (this.type == byte.class) {
+				return (byte) GET_BYTE.invokeExact(base, this.offset);
+			} else if (this.type == short.class) {
+				return (short) GET_SHORT.invokeExact(base, this.offset);
+			} else {
+				return (char) GET_CHAR.invokeExact(base, this.offset);
+			}
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void set(Object instance, Object value) {
+		if (this.isFinal) {
+			super.set(instance, value);
+			return;
+		}
+		final Object base = getBase(instance);
+		if (!this.type.isPrimitive() && value != null && !this.type.isInstance(value)) {
+			throw new IllegalArgumentException("Can not set field " + this.field.getName() + " of type " +
+					this.type.getName() + " to " + value.getClass().getName());
+		}
+		try {
+			if (!this.type.isPrimitive()) {
+				PUT_OBJECT.invokeExact(base, this.offset, value);
+			} else if (this.type == int.class) {
+				PUT_INT.invokeExact(base, this.offset, Unboxing.toInteger(value));
+			} else if (this.type == double.class) {
+				PUT_DOUBLE.invokeExact(base, this.offset, Unboxing.toDouble(value));
+			} else if (this.type == float.class) {
+				PUT_FLOAT.invokeExact(base, this.offset, Unboxing.toFloat(value));
+			} else if (this.type == long.class) {
+				PUT_LONG.invokeExact(base, this.offset, Unboxing.toLong(value));
+			} else if (this.type == boolean.class) {
+				PUT_BOOLEAN.invokeExact(base, this.offset, Unboxing.toBoolean(value));
+			} else if (this.type == byte.class) {
+				PUT_BYTE.invokeExact(base, this.offset, Unboxing.toByte(value));
+			} else if (this.type == short.class) {
+				PUT_SHORT.invokeExact(base, this.offset, Unboxing.toShort(value));
+			} else {
+				PUT_CHAR.invokeExact(base, this.offset, Unboxing.toCharacter(value));
+			}
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public int getInteger(Object instance) {
+		if (this.type != int.class) {
+			return super.getInteger(instance);
+		}
+		try {
+			return (int) GET_INT.invokeExact(getBase(instance), this.offset);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setInteger(Object instance, int value) {
+		if (this.type != int.class || this.isFinal) {
+			super.setInteger(instance, value);
+		} else {
+			try {
+				PUT_INT.invokeExact(getBase(instance), this.offset, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	@Override
+	public long getLong(Object instance) {
+		if (this.type != long.class) {
+			return super.getLong(instance);
+		}
+		try {
+			return (long) GET_LONG.invokeExact(getBase(instance), this.offset);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setLong(Object instance, long value) {
+		if (this.type != long.class || this.isFinal) {
+			super.setLong(instance, value);
+		} else {
+			try {
+				PUT_LONG.invokeExact(getBase(instance), this.offset, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	@Override
+	public double getDouble(Object instance) {
+		if (this.type != double.class) {
+			return super.getDouble(instance);
+		}
+		try {
+			return (double) GET_DOUBLE.invokeExact(getBase(instance), this.offset);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setDouble(Object instance, double value) {
+		if (this.type != double.class || this.isFinal) {
+			super.setDouble(instance, value);
+		} else {
+			try {
+				PUT_DOUBLE.invokeExact(getBase(instance), this.offset, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	@Override
+	public float getFloat(Object instance) {
+		if (this.type != float.class) {
+			return super.getFloat(instance);
+		}
+		try {
+			return (float) GET_FLOAT.invokeExact(getBase(instance), this.offset);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setFloat(Object instance, float value) {
+		if (this.type != float.class || this.isFinal) {
+			super.setFloat(instance, value);
+		} else {
+			try {
+				PUT_FLOAT.invokeExact(getBase(instance), this.offset, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	@Override
+	public boolean getBoolean(Object instance) {
+		if (this.type != boolean.class) {
+			return super.getBoolean(instance);
+		}
+		try {
+			return (boolean) GET_BOOLEAN.invokeExact(getBase(instance), this.offset);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setBoolean(Object instance, boolean value) {
+		if (this.type != boolean.class || this.isFinal) {
+			super.setBoolean(instance, value);
+		} else {
+			try {
+				PUT_BOOLEAN.invokeExact(getBase(instance), this.offset, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	@Override
+	public byte getByte(Object instance) {
+		if (this.type != byte.class) {
+			return super.getByte(instance);
+		}
+		try {
+			return (byte) GET_BYTE.invokeExact(getBase(instance), this.offset);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setByte(Object instance, byte value) {
+		if (this.type != byte.class || this.isFinal) {
+			super.setByte(instance, value);
+		} else {
+			try {
+				PUT_BYTE.invokeExact(getBase(instance), this.offset, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	@Override
+	public short getShort(Object instance) {
+		if (this.type != short.class) {
+			return super.getShort(instance);
+		}
+		try {
+			return (short) GET_SHORT.invokeExact(getBase(instance), this.offset);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setShort(Object instance, short value) {
+		if (this.type != short.class || this.isFinal) {
+			super.setShort(instance, value);
+		} else {
+			try {
+				PUT_SHORT.invokeExact(getBase(instance), this.offset, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	@Override
+	public char getCharacter(Object instance) {
+		if (this.type != char.class) {
+			return super.getCharacter(instance);
+		}
+		try {
+			return (char) GET_CHAR.invokeExact(getBase(instance), this.offset);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setCharacter(Object instance, char value) {
+		if (this.type != char.class || this.isFinal) {
+			super.setCharacter(instance, value);
+		} else {
+			try {
+				PUT_CHAR.invokeExact(getBase(instance), this.offset, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+}
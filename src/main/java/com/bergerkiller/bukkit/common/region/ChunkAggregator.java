@@ -0,0 +1,42 @@
+package com.bergerkiller.bukkit.common.region;
+
+import java.io.IOException;
+
+/**
+ * Combines information of the chunks visited by a {@link RegionScanner} into a single result.
+ * Regions are scanned in parallel: every region is scanned into its own result,
+ * after which the results of all regions are merged together.
+ * Implementations should not share mutable state between results.
+ *
+ * @param <T> - Result type
+ */
+public interface ChunkAggregator<T> {
+
+	/**
+	 * Creates a new, empty result, used when scanning a region
+	 *
+	 * @return new result
+	 */
+	public T createResult();
+
+	/**
+	 * Adds the information of a chunk to a result.
+	 * The data of the chunk can only be read during this call, the region file is closed
+	 * once all its chunks are visited. Reading it afterwards fails with an exception.
+	 *
+	 * @param result to add to
+	 * @param chunk to add
+	 * @return the result with the chunk added, which can be the same instance
+	 * @throws IOException if the chunk data could not be read
+	 */
+	public T addChunk(T result, ScannedChunk chunk) throws IOException;
+
+	/**
+	 * Merges two results together
+	 *
+	 * @param first result
+	 * @param second result
+	 * @return merged result, which can be one of the two instances
+	 */
+	public T merge(T first, T second);
+}
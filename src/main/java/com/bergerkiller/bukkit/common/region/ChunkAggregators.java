@@ -0,0 +1,203 @@
+package com.bergerkiller.bukkit.common.region;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bergerkiller.bukkit.common.bases.IntVector2;
+import com.bergerkiller.bukkit.common.nbt.LazyTagCompound;
+
+/**
+ * Commonly used chunk aggregators for use with a {@link RegionScanner}.
+ * The aggregators reading chunk data use a {@link LazyTagCompound}, and do not require the server to be running.
+ */
+public class ChunkAggregators {
+
+	/**
+	 * Counts the amount of stored chunks
+	 */
+	public static final ChunkAggregator<Integer> CHUNK_COUNT = new ChunkAggregator<Integer>() {
+		@Override
+		public Integer createResult() {
+			return 0;
+		}
+
+		@Override
+		public Integer addChunk(Integer result, ScannedChunk chunk) {
+			return result + 1;
+		}
+
+		@Override
+		public Integer merge(Integer first, Integer second) {
+			return first + second;
+		}
+	};
+
+	/**
+	 * Sums the compressed sizes in bytes of all stored chunks
+	 */
+	public static final ChunkAggregator<Long> COMPRESSED_SIZE = new ChunkAggregator<Long>() {
+		@Override
+		public Long createResult() {
+			return 0L;
+		}
+
+		@Override
+		public Long addChunk(Long result, ScannedChunk chunk) {
+			return result + chunk.getCompressedSize();
+		}
+
+		@Override
+		public Long merge(Long first, Long second) {
+			return first + second;
+		}
+	};
+
+	/**
+	 * Maps the coordinates of all stored chunks to their compressed size in bytes
+	 */
+	public static final ChunkAggregator<Map<IntVector2, Integer>> CHUNK_SIZES = new CoordinateAggregator() {
+		@Override
+		protected int getValue(ScannedChunk chunk) {
+			return chunk.getCompressedSize();
+		}
+	};
+
+	/**
+	 * Maps the coordinates of all stored chunks to the time they were last saved, in seconds since the epoch
+	 */
+	public static final ChunkAggregator<Map<IntVector2, Integer>> CHUNK_TIMESTAMPS = new CoordinateAggregator() {
+		@Override
+		protected int getValue(ScannedChunk chunk) {
+			return chunk.getTimestamp();
+		}
+	};
+
+	/**
+	 * Counts the amount of blocks of every type in all stored chunks.
+	 * The result is indexed by block type id.
+	 */
+	public static final ChunkAggregator<long[]> BLOCK_COUNTS = new ChunkAggregator<long[]>() {
+		@Override
+		public long[] createResult() {
+			return new long[4096];
+		}
+
+		@Override
+		public long[] addChunk(long[] result, ScannedChunk chunk) throws IOException {
+			final LazyTagCompound level = chunk.getLazyLevel();
+			final Object sections = (level == null) ? null : level.getValue("Sections");
+			if (!(sections instanceof List)) {
+				return result;
+			}
+			for (Object section : (List<?>) sections) {
+				if (!(section instanceof LazyTagCompound)) {
+					continue;
+				}
+				final Object blocks = ((LazyTagCompound) section).getValue("Blocks");
+				if (!(blocks instanceof byte[])) {
+					continue;
+				}
+				final byte[] blockIds = (byte[]) blocks;
+				final Object add = ((LazyTagCompound) section).getValue("Add");
+				if (add instanceof byte[]) {
+					final byte[] extIds = (byte[]) add;
+					for (int i = 0; i < blockIds.length; i++) {
+						final int ext = (extIds[i >> 1] >> ((i & 1) << 2)) & 0xF;
+						result[(ext << 8) | (blockIds[i] & 0xFF)]++;
+					}
+				} else {
+					for (int i = 0; i < blockIds.length; i++) {
+						result[blockIds[i] & 0xFF]++;
+					}
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public long[] merge(long[] first, long[] second) {
+			for (int i = 0; i < first.length; i++) {
+				first[i] += second[i];
+			}
+			return first;
+		}
+	};
+
+	/**
+	 * Counts the amount of entities of every type stored in all chunks.
+	 * The result maps entity type ids to counts.
+	 */
+	public static final ChunkAggregator<Map<String, Integer>> ENTITY_COUNTS = new TypeCountAggregator("Entities");
+
+	/**
+	 * Counts the amount of tile entities of every type stored in all chunks.
+	 * The result maps tile entity type ids to counts.
+	 */
+	public static final ChunkAggregator<Map<String, Integer>> TILE_ENTITY_COUNTS = new TypeCountAggregator("TileEntities");
+
+	private static abstract class CoordinateAggregator implements ChunkAggregator<Map<IntVector2, Integer>> {
+		@Override
+		public Map<IntVector2, Integer> createResult() {
+			return new HashMap<IntVector2, Integer>();
+		}
+
+		@Override
+		public Map<IntVector2, Integer> addChunk(Map<IntVector2, Integer> result, ScannedChunk chunk) {
+			result.put(new IntVector2(chunk.getX(), chunk.getZ()), getValue(chunk));
+			return result;
+		}
+
+		@Override
+		public Map<IntVector2, Integer> merge(Map<IntVector2, Integer> first, Map<IntVector2, Integer> second) {
+			first.putAll(second);
+			return first;
+		}
+
+		protected abstract int getValue(ScannedChunk chunk);
+	}
+
+	private static class TypeCountAggregator implements ChunkAggregator<Map<String, Integer>> {
+		private final String listKey;
+
+		public TypeCountAggregator(String listKey) {
+			this.listKey = listKey;
+		}
+
+		@Override
+		public Map<String, Integer> createResult() {
+			return new HashMap<String, Integer>();
+		}
+
+		@Override
+		public Map<String, Integer> addChunk(Map<String, Integer> result, ScannedChunk chunk) throws IOException {
+			final LazyTagCompound level = chunk.getLazyLevel();
+			final Object list = (level == null) ? null : level.getValue(this.listKey);
+			if (list instanceof List) {
+				for (Object element : (List<?>) list) {
+					if (element instanceof LazyTagCompound) {
+						final Object id = ((LazyTagCompound) element).getValue("id");
+						if (id instanceof String) {
+							add(result, (String) id, 1);
+						}
+					}
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public Map<String, Integer> merge(Map<String, Integer> first, Map<String, Integer> second) {
+			for (Map.Entry<String, Integer> entry : second.entrySet()) {
+				add(first, entry.getKey(), entry.getValue().intValue());
+			}
+			return first;
+		}
+
+		private static void add(Map<String, Integer> counts, String type, int amount) {
+			final Integer current = counts.get(type);
+			counts.put(type, current == null ? amount : (current.intValue() + amount));
+		}
+	}
+}
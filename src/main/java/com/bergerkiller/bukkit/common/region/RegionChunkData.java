@@ -0,0 +1,221 @@
+package com.bergerkiller.bukkit.common.region;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.bergerkiller.bukkit.common.nbt.CommonTagCompound;
+import com.bergerkiller.bukkit.common.nbt.LazyTagCompound;
+
+/**
+ * The compressed data of a single chunk stored in a region file, as obtained from a {@link RegionFileReader}.
+ * The data is not copied out of the region file, and is only inflated when it is read.
+ * Reading it fails with an exception once the reader is closed.
+ */
+public class RegionChunkData {
+	/** Compression type of chunk data compressed using GZIP */
+	public static final byte COMPRESSION_GZIP = 1;
+	/** Compression type of chunk data compressed using Zlib (deflate), used by the server */
+	public static final byte COMPRESSION_ZLIB = 2;
+	private final RegionFileReader reader;
+	private final int x, z;
+	private final int timestamp;
+	private final byte compression;
+	private final ByteBuffer data;
+
+	RegionChunkData(RegionFileReader reader, int x, int z, int timestamp, byte compression, ByteBuffer data) {
+		this.reader = reader;
+		this.x = x;
+		this.z = z;
+		this.timestamp = timestamp;
+		this.compression = compression;
+		this.data = data;
+	}
+
+	/**
+	 * Gets the x-coordinate of this chunk, relative to the region (0 - 31)
+	 *
+	 * @return chunk x-coordinate in the region
+	 */
+	public int getX() {
+		return this.x;
+	}
+
+	/**
+	 * Gets the z-coordinate of this chunk, relative to the region (0 - 31)
+	 *
+	 * @return chunk z-coordinate in the region
+	 */
+	public int getZ() {
+		return this.z;
+	}
+
+	/**
+	 * Gets the time at which this chunk was last saved
+	 *
+	 * @return timestamp in seconds since the epoch
+	 */
+	public int getTimestamp() {
+		return this.timestamp;
+	}
+
+	/**
+	 * Gets the type of compression used for the data of this chunk
+	 *
+	 * @return compression type, {@link #COMPRESSION_GZIP} or {@link #COMPRESSION_ZLIB}
+	 */
+	public byte getCompressionType() {
+		return this.compression;
+	}
+
+	/**
+	 * Gets the size of the compressed data of this chunk
+	 *
+	 * @return compressed size in bytes
+	 */
+	public int getCompressedSize() {
+		return this.data.capacity();
+	}
+
+	/**
+	 * Gets a copy of the compressed data of this chunk.
+	 * The copy can still be used after the reader it was obtained from is closed.
+	 *
+	 * @return buffer containing a copy of the compressed data
+	 * @throws IllegalStateException if the reader is closed
+	 */
+	public ByteBuffer getCompressedData() {
+		final byte[] copy = new byte[this.data.capacity()];
+		this.reader.lockBuffer();
+		try {
+			this.data.duplicate().get(copy);
+		} finally {
+			this.reader.unlockBuffer();
+		}
+		return ByteBuffer.wrap(copy);
+	}
+
+	/**
+	 * Opens a stream reading the uncompressed data of this chunk.
+	 * The data is inflated while it is read from the stream.
+	 *
+	 * @return uncompressed data stream
+	 * @throws IOException if the compression type is unknown
+	 * @throws IllegalStateException if the reader is closed
+	 */
+	public InputStream openStream() throws IOException {
+		checkOpen();
+		final InputStream compressed = new ByteBufferInputStream(this.reader, this.data.duplicate());
+		if (this.compression == COMPRESSION_ZLIB) {
+			return new InflaterInputStream(compressed);
+		} else if (this.compression == COMPRESSION_GZIP) {
+			return new GZIPInputStream(compressed);
+		} else {
+			throw new IOException("Chunk [" + this.x + ", " + this.z + "] uses an unknown compression type (" + this.compression + ")");
+		}
+	}
+
+	/**
+	 * Inflates and reads the NBT data of this chunk.
+	 * This requires the server to be running.
+	 *
+	 * @return chunk data compound
+	 * @throws IOException if the data could not be read
+	 */
+	public CommonTagCompound readCompound() throws IOException {
+		final DataInputStream stream = new DataInputStream(openStream());
+		try {
+			return CommonTagCompound.readFromUncompressed(stream);
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Inflates the NBT data of this chunk into a read-only compound, that only decodes the tags that are accessed.
+	 * Unlike {@link #readCompound()}, this does not require the server to be running.
+	 *
+	 * @return lazily decoded chunk data compound
+	 * @throws IOException if the data could not be read
+	 */
+	public LazyTagCompound readLazyCompound() throws IOException {
+		final InputStream stream = openStream();
+		try {
+			return LazyTagCompound.readFromUncompressed(stream);
+		} finally {
+			stream.close();
+		}
+	}
+
+	private void checkOpen() {
+		if (!this.reader.isOpen()) {
+			throw new IllegalStateException("Region file reader is closed");
+		}
+	}
+
+	/**
+	 * Reads the remaining bytes of a buffer, without changing the buffer it was created from.
+	 * The buffer is only accessed while holding the read lock of the reader, so reading
+	 * fails once the reader the buffer was obtained from is closed.
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+		private final RegionFileReader reader;
+		private final ByteBuffer buffer;
+
+		public ByteBufferInputStream(RegionFileReader reader, ByteBuffer buffer) {
+			this.reader = reader;
+			this.buffer = buffer;
+		}
+
+		private void lock() throws IOException {
+			try {
+				this.reader.lockBuffer();
+			} catch (IllegalStateException ex) {
+				throw new IOException(ex.getMessage());
+			}
+		}
+
+		@Override
+		public int read() throws IOException {
+			lock();
+			try {
+				return this.buffer.hasRemaining() ? (this.buffer.get() & 0xFF) : -1;
+			} finally {
+				this.reader.unlockBuffer();
+			}
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			lock();
+			try {
+				if (!this.buffer.hasRemaining()) {
+					return -1;
+				}
+				len = Math.min(len, this.buffer.remaining());
+				this.buffer.get(b, off, len);
+				return len;
+			} finally {
+				this.reader.unlockBuffer();
+			}
+		}
+
+		@Override
+		public long skip(long n) {
+			final int skipped = (int) Math.max(0L, Math.min(n, this.buffer.remaining()));
+			this.buffer.position(this.buffer.position() + skipped);
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return this.buffer.remaining();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.bergerkiller.bukkit.common.region;
+
+import java.io.File;
+
+/**
+ * The outcome of compacting a single region file using the {@link RegionCompactor}
+ */
+public class RegionCompactionResult {
+	private final File file;
+	private final long originalSize;
+	private final long compactedSize;
+	private final int chunkCount;
+
+	public RegionCompactionResult(File file, long originalSize, long compactedSize, int chunkCount) {
+		this.file = file;
+		this.originalSize = originalSize;
+		this.compactedSize = compactedSize;
+		this.chunkCount = chunkCount;
+	}
+
+	/**
+	 * Gets the region file that was compacted
+	 *
+	 * @return region file
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Gets the size of the region file before compacting
+	 *
+	 * @return original size in bytes
+	 */
+	public long getOriginalSize() {
+		return this.originalSize;
+	}
+
+	/**
+	 * Gets the size of the region file after compacting
+	 *
+	 * @return compacted size in bytes
+	 */
+	public long getCompactedSize() {
+		return this.compactedSize;
+	}
+
+	/**
+	 * Gets the amount of bytes freed by compacting the region file
+	 *
+	 * @return reclaimed bytes
+	 */
+	public long getBytesReclaimed() {
+		return this.originalSize - this.compactedSize;
+	}
+
+	/**
+	 * Gets the amount of chunks stored in the region file
+	 *
+	 * @return chunk count
+	 */
+	public int getChunkCount() {
+		return this.chunkCount;
+	}
+
+	@Override
+	public String toString() {
+		return "{file=" + this.file.getName() + ", chunks=" + this.chunkCount + ", size=" + this.originalSize +
+				" -> " + this.compactedSize + ", reclaimed=" + getBytesReclaimed() + "}";
+	}
+}
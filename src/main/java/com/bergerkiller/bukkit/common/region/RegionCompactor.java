@@ -0,0 +1,202 @@
+package com.bergerkiller.bukkit.common.region;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import com.bergerkiller.bukkit.common.config.TempFileOutputStream;
+import com.bergerkiller.bukkit.common.internal.CommonPlugin;
+import com.bergerkiller.bukkit.common.reflection.classes.RegionFileCacheRef;
+
+/**
+ * Rewrites region files so that all chunks are stored back-to-back, ordered by their coordinates.
+ * This removes the unused sectors left behind when the server rewrites chunks that grew in size,
+ * reducing the file size and making chunks next to each other sequential on disk.<br><br>
+ *
+ * The compacted file is written to a temporary file first, which replaces the region file
+ * only after all chunks were copied successfully. Region files the server has opened are not compacted.
+ */
+public class RegionCompactor {
+	private static final int HEADER_SIZE = RegionFileReader.HEADER_SECTORS * RegionFileReader.SECTOR_SIZE;
+	/*
+	 * The server synchronizes on the region file cache class while opening and closing region files.
+	 * If that class is not available, there is no server to synchronize with.
+	 */
+	private static final Object CACHE_LOCK = (RegionFileCacheRef.TEMPLATE.getType() == null) ? new Object() : RegionFileCacheRef.TEMPLATE.getType();
+
+	/**
+	 * Checks whether a region file is currently opened by the server
+	 *
+	 * @param regionFile to check
+	 * @return True if opened, False if not
+	 */
+	public static boolean isOpened(File regionFile) {
+		final File canonicalFile = getCanonicalFile(regionFile);
+		synchronized (CACHE_LOCK) {
+			for (File file : RegionFileCacheRef.FILES.keySet()) {
+				if (getCanonicalFile(file).equals(canonicalFile)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static File getCanonicalFile(File file) {
+		try {
+			return file.getCanonicalFile();
+		} catch (IOException ex) {
+			return file.getAbsoluteFile();
+		}
+	}
+
+	/**
+	 * Compacts all region files in a folder that are not opened by the server.
+	 * Region files that could not be compacted are logged and skipped.
+	 *
+	 * @param regionFolder containing the region files
+	 * @return results of the region files that were compacted
+	 */
+	public static List<RegionCompactionResult> compactFolder(File regionFolder) {
+		final List<File> files = new RegionScanner(regionFolder).getRegionFiles();
+		final List<RegionCompactionResult> results = new ArrayList<RegionCompactionResult>(files.size());
+		for (File file : files) {
+			if (isOpened(file)) {
+				continue;
+			}
+			try {
+				results.add(compact(file));
+			} catch (Throwable t) {
+				CommonPlugin.LOGGER.log(Level.WARNING, "Failed to compact region file " + file.getName(), t);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Compacts a single region file
+	 *
+	 * @param regionFile to compact
+	 * @return compaction result
+	 * @throws IOException if the region file could not be read or written, in which case it is left unchanged
+	 * @throws IllegalStateException if the region file is opened by the server, or was changed while compacting
+	 */
+	public static RegionCompactionResult compact(File regionFile) throws IOException {
+		return compact(regionFile, null);
+	}
+
+	/**
+	 * Compacts a single region file, running a task after all chunks were copied and before the region file is replaced.
+	 * Used to test changes to the region file made while compacting.
+	 *
+	 * @param regionFile to compact
+	 * @param beforeReplace task to run before replacing the region file, null to run nothing
+	 * @return compaction result
+	 * @throws IOException if the region file could not be read or written, in which case it is left unchanged
+	 * @throws IllegalStateException if the region file is opened by the server, or was changed while compacting
+	 */
+	static RegionCompactionResult compact(File regionFile, Runnable beforeReplace) throws IOException {
+		if (isOpened(regionFile)) {
+			throw new IllegalStateException("Region file " + regionFile.getName() + " is opened by the server");
+		}
+		final long originalModified = regionFile.lastModified();
+		final long originalSize = regionFile.length();
+		final File tempFile = new File(regionFile.getPath() + ".tmp");
+		final RandomAccessFile source = new RandomAccessFile(regionFile, "r");
+		TempFileOutputStream output = null;
+		boolean success = false;
+		try {
+			// Read the header, and the length of every chunk, to lay out the new file
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			if (source.length() >= HEADER_SIZE) {
+				source.readFully(header.array());
+			}
+			final int[] starts = new int[RegionFileReader.CHUNK_COUNT];
+			final int[] lengths = new int[RegionFileReader.CHUNK_COUNT];
+			final ByteBuffer newHeader = ByteBuffer.allocate(HEADER_SIZE);
+			int sector = RegionFileReader.HEADER_SECTORS;
+			int chunkCount = 0;
+			for (int index = 0; index < RegionFileReader.CHUNK_COUNT; index++) {
+				final int location = header.getInt(index << 2);
+				if (location == 0) {
+					continue;
+				}
+				final long start = (long) (location >>> 8) * RegionFileReader.SECTOR_SIZE;
+				final int reserved = (location & 0xFF) * RegionFileReader.SECTOR_SIZE;
+				if (start < HEADER_SIZE || start + 4 > source.length()) {
+					throw new IOException("Chunk " + index + " is stored outside of the file");
+				}
+				source.seek(start);
+				final int length = source.readInt();
+				if (length <= 0 || length + 4 > reserved || start + 4 + length > source.length()) {
+					throw new IOException("Chunk " + index + " has an invalid length (" + length + ")");
+				}
+				final int sectorCount = (length + 4 + RegionFileReader.SECTOR_SIZE - 1) / RegionFileReader.SECTOR_SIZE;
+				starts[index] = (int) start;
+				lengths[index] = length;
+				newHeader.putInt(index << 2, (sector << 8) | sectorCount);
+				newHeader.putInt(RegionFileReader.SECTOR_SIZE + (index << 2), header.getInt(RegionFileReader.SECTOR_SIZE + (index << 2)));
+				sector += sectorCount;
+				chunkCount++;
+			}
+
+			// Write the header and all chunks in order, padding every chunk to whole sectors
+			output = new TempFileOutputStream(regionFile, tempFile);
+			final DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(output, 65536));
+			stream.write(newHeader.array());
+			byte[] buffer = new byte[RegionFileReader.SECTOR_SIZE];
+			for (int index = 0; index < RegionFileReader.CHUNK_COUNT; index++) {
+				final int length = lengths[index];
+				if (length == 0) {
+					continue;
+				}
+				final int paddedLength = ((length + 4 + RegionFileReader.SECTOR_SIZE - 1) / RegionFileReader.SECTOR_SIZE) * RegionFileReader.SECTOR_SIZE;
+				if (buffer.length < paddedLength) {
+					buffer = new byte[paddedLength];
+				}
+				source.seek(starts[index] + 4);
+				source.readFully(buffer, 0, length);
+				for (int i = length; i < paddedLength - 4; i++) {
+					buffer[i] = 0;
+				}
+				stream.writeInt(length);
+				stream.write(buffer, 0, paddedLength - 4);
+			}
+			stream.flush();
+			source.close();
+			if (beforeReplace != null) {
+				beforeReplace.run();
+			}
+
+			// Only replace the file if the server did not open or change it in the meantime
+			synchronized (CACHE_LOCK) {
+				if (isOpened(regionFile)) {
+					throw new IllegalStateException("Region file " + regionFile.getName() + " was opened by the server while compacting");
+				}
+				if (regionFile.lastModified() != originalModified || regionFile.length() != originalSize) {
+					throw new IllegalStateException("Region file " + regionFile.getName() + " was changed while compacting");
+				}
+				output.close(true);
+				success = true;
+			}
+			return new RegionCompactionResult(regionFile, originalSize, (long) sector * RegionFileReader.SECTOR_SIZE, chunkCount);
+		} finally {
+			source.close();
+			if (!success) {
+				if (output != null) {
+					output.close(false);
+				}
+				// Keep the temporary file if the region file was already removed while replacing it
+				if (regionFile.exists()) {
+					tempFile.delete();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,324 @@
+package com.bergerkiller.bukkit.common.region;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.bergerkiller.bukkit.common.bases.IntVector2;
+
+/**
+ * Reads the chunks stored in a region (.mca) file without going through the server.
+ * The file is memory-mapped read-only, the offset and timestamp header is read in place
+ * and chunk data is handed out as slices of the mapping, without copying.<br><br>
+ *
+ * A reader can be used from multiple threads at once, and can be used on files the server has open.
+ * Chunks the server writes after the reader was opened may not be visible, or may be read
+ * as they are being written, in which case reading them fails with an IOException.
+ * Open a new reader to see the latest contents of the file.
+ * While a reader is open, the mapping keeps the file locked on Windows: the file can not be
+ * deleted or replaced until the reader is closed. Close readers as soon as they are no longer used.<br><br>
+ *
+ * Closing a reader releases the mapping right away. Chunk data obtained from the reader can no
+ * longer be read afterwards, reading it fails with an exception. Every access to the mapping holds
+ * a read lock, and closing waits until the reads in progress on other threads have completed.
+ */
+public class RegionFileReader implements Closeable {
+	/** The size in bytes of a single sector in a region file */
+	public static final int SECTOR_SIZE = 4096;
+	/** The amount of sectors used by the header of a region file */
+	public static final int HEADER_SECTORS = 2;
+	/** The amount of chunks along each axis of a region */
+	public static final int REGION_SIZE = 32;
+	/** The amount of chunks in a region */
+	public static final int CHUNK_COUNT = REGION_SIZE * REGION_SIZE;
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			// Since Java 9 mappings are released through Unsafe, before that through the cleaner of the buffer
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			final Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+			unsafeField.setAccessible(true);
+			unsafe = unsafeField.get(null);
+		} catch (Throwable t) {
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+	private final File file;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile ByteBuffer buffer;
+
+	/**
+	 * Opens a region file for reading
+	 *
+	 * @param file of the region to read
+	 * @throws IOException if the file does not exist or could not be mapped
+	 */
+	public RegionFileReader(File file) throws IOException {
+		this.file = file;
+		if (!file.isFile()) {
+			throw new FileNotFoundException("Region file " + file.getPath() + " does not exist");
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			final long size = channel.size();
+			if (size < HEADER_SECTORS * SECTOR_SIZE) {
+				// Empty region or file being created: no chunks
+				this.buffer = EMPTY;
+			} else {
+				this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+			}
+		} finally {
+			// The mapping stays valid after the file is closed
+			raf.close();
+		}
+	}
+
+	/**
+	 * Gets the region file read by this reader
+	 *
+	 * @return region file
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Gets the amount of bytes of the region file that are mapped
+	 *
+	 * @return mapped size in bytes
+	 */
+	public int getSize() {
+		final ByteBuffer buffer = lockBuffer();
+		try {
+			return buffer.capacity();
+		} finally {
+			unlockBuffer();
+		}
+	}
+
+	/**
+	 * Gets whether a chunk is stored in this region.
+	 * Chunk coordinates can be absolute or relative to the region, only the lower 5 bits are used.
+	 *
+	 * @param x - coordinate of the chunk
+	 * @param z - coordinate of the chunk
+	 * @return True if the chunk is stored, False if not
+	 */
+	public boolean exists(int x, int z) {
+		return getLocation(x, z) != 0;
+	}
+
+	/**
+	 * Gets the sector at which the data of a chunk starts
+	 *
+	 * @param x - coordinate of the chunk
+	 * @param z - coordinate of the chunk
+	 * @return sector offset, or 0 if the chunk is not stored
+	 */
+	public int getSectorOffset(int x, int z) {
+		return getLocation(x, z) >>> 8;
+	}
+
+	/**
+	 * Gets the amount of sectors reserved for the data of a chunk
+	 *
+	 * @param x - coordinate of the chunk
+	 * @param z - coordinate of the chunk
+	 * @return sector count, or 0 if the chunk is not stored
+	 */
+	public int getSectorCount(int x, int z) {
+		return getLocation(x, z) & 0xFF;
+	}
+
+	/**
+	 * Gets the time at which a chunk was last saved
+	 *
+	 * @param x - coordinate of the chunk
+	 * @param z - coordinate of the chunk
+	 * @return timestamp in seconds since the epoch, or 0 if the chunk is not stored
+	 */
+	public int getTimestamp(int x, int z) {
+		final ByteBuffer buffer = lockBuffer();
+		try {
+			return getTimestamp(buffer, x, z);
+		} finally {
+			unlockBuffer();
+		}
+	}
+
+	/**
+	 * Gets the data of a chunk stored in this region.
+	 * The returned chunk data refers to the mapped file, no data is copied or inflated yet.
+	 *
+	 * @param x - coordinate of the chunk
+	 * @param z - coordinate of the chunk
+	 * @return chunk data, or null if the chunk is not stored
+	 * @throws IOException if the stored chunk data is invalid
+	 */
+	public RegionChunkData getChunkData(int x, int z) throws IOException {
+		final ByteBuffer buffer = lockBuffer();
+		try {
+			return getChunkData(buffer, x, z);
+		} finally {
+			unlockBuffer();
+		}
+	}
+
+	private RegionChunkData getChunkData(ByteBuffer buffer, int x, int z) throws IOException {
+		final int location = getLocation(buffer, x, z);
+		if (location == 0) {
+			return null;
+		}
+		final long start = (long) (location >>> 8) * SECTOR_SIZE;
+		final long reserved = (long) (location & 0xFF) * SECTOR_SIZE;
+		if (start < HEADER_SECTORS * SECTOR_SIZE || start + 5 > buffer.capacity()) {
+			throw new IOException("Chunk [" + (x & 31) + ", " + (z & 31) + "] in " + this.file.getName() + " is stored outside of the file");
+		}
+		final int length = buffer.getInt((int) start);
+		if (length <= 0 || length + 4 > reserved || start + 4 + length > buffer.capacity()) {
+			throw new IOException("Chunk [" + (x & 31) + ", " + (z & 31) + "] in " + this.file.getName() + " has an invalid length (" + length + ")");
+		}
+		final byte compression = buffer.get((int) start + 4);
+		final ByteBuffer data = buffer.duplicate();
+		data.limit((int) start + 4 + length).position((int) start + 5);
+		return new RegionChunkData(this, x & 31, z & 31, getTimestamp(buffer, x, z), compression, data.slice());
+	}
+
+	/**
+	 * Gets whether this reader is still open
+	 *
+	 * @return True if open, False if closed
+	 */
+	public boolean isOpen() {
+		this.lock.readLock().lock();
+		try {
+			return this.buffer != null;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Closes this reader and releases the mapping of the file.
+	 * Waits for reads in progress on other threads to complete first.
+	 * Chunk data obtained from this reader can no longer be read afterwards.
+	 * Does nothing if the reader is already closed.
+	 */
+	@Override
+	public void close() {
+		final ByteBuffer buffer;
+		this.lock.writeLock().lock();
+		try {
+			buffer = this.buffer;
+			this.buffer = null;
+			if (buffer != null && buffer != EMPTY) {
+				unmap(buffer);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Acquires the read lock of the mapping, preventing it from being released until
+	 * {@link #unlockBuffer()} is called. Every access to the mapping, including the chunk data
+	 * sliced from it, must be done while holding this lock.
+	 *
+	 * @return the mapping
+	 * @throws IllegalStateException if the reader is closed, in which case no lock is held
+	 */
+	ByteBuffer lockBuffer() {
+		this.lock.readLock().lock();
+		final ByteBuffer buffer = this.buffer;
+		if (buffer == null) {
+			this.lock.readLock().unlock();
+			throw new IllegalStateException("Region file reader is closed");
+		}
+		return buffer;
+	}
+
+	/**
+	 * Releases the read lock acquired using {@link #lockBuffer()}
+	 */
+	void unlockBuffer() {
+		this.lock.readLock().unlock();
+	}
+
+	/**
+	 * Releases a mapping right away instead of waiting for it to be garbage collected.
+	 * If this is not supported by the JVM, the mapping is released by the garbage collector.
+	 */
+	private static void unmap(ByteBuffer buffer) {
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} else {
+				final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				final Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					final Method cleanMethod = cleaner.getClass().getMethod("clean");
+					cleanMethod.setAccessible(true);
+					cleanMethod.invoke(cleaner);
+				}
+			}
+		} catch (Throwable t) {
+			// Not supported, released once garbage collected
+		}
+	}
+
+	private int getLocation(int x, int z) {
+		final ByteBuffer buffer = lockBuffer();
+		try {
+			return getLocation(buffer, x, z);
+		} finally {
+			unlockBuffer();
+		}
+	}
+
+	private static int getTimestamp(ByteBuffer buffer, int x, int z) {
+		return buffer.capacity() == 0 ? 0 : buffer.getInt(SECTOR_SIZE + getHeaderIndex(x, z));
+	}
+
+	private static int getLocation(ByteBuffer buffer, int x, int z) {
+		return buffer.capacity() == 0 ? 0 : buffer.getInt(getHeaderIndex(x, z));
+	}
+
+	private static int getHeaderIndex(int x, int z) {
+		return ((x & 31) + ((z & 31) << 5)) << 2;
+	}
+
+	/**
+	 * Gets the region coordinates from the name of a region file, in the format r.[x].[z].mca
+	 *
+	 * @param file of the region
+	 * @return region coordinates, or null if the file is not named as a region file
+	 */
+	public static IntVector2 getRegionCoordinates(File file) {
+		final String[] parts = file.getName().split("\\.");
+		if (parts.length != 4 || !parts[0].equals("r") || !parts[3].equals("mca")) {
+			return null;
+		}
+		try {
+			return new IntVector2(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+		} catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,233 @@
+package com.bergerkiller.bukkit.common.region;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+
+import com.bergerkiller.bukkit.common.Common;
+import com.bergerkiller.bukkit.common.bases.IntVector2;
+import com.bergerkiller.bukkit.common.filtering.Filter;
+import com.bergerkiller.bukkit.common.internal.CommonPlugin;
+import com.bergerkiller.bukkit.common.utils.StreamUtil;
+
+/**
+ * Scans all chunks stored in the region files of a world, without loading them on the server.
+ * The region files are scanned in parallel using a fork-join pool, and read using a {@link RegionFileReader}.
+ * Information of the chunks is combined using a {@link ChunkAggregator}, see {@link ChunkAggregators}
+ * for commonly used aggregators.<br><br>
+ *
+ * Scanning blocks the calling thread until all regions are scanned,
+ * and should therefore not be done on the main thread.
+ * Chunks that can not be read are skipped and logged.
+ */
+public class RegionScanner {
+	private final File regionFolder;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Creates a new scanner for the region files in a folder
+	 *
+	 * @param regionFolder containing the region (.mca) files
+	 */
+	public RegionScanner(File regionFolder) {
+		this.regionFolder = regionFolder;
+	}
+
+	/**
+	 * Creates a new scanner for the region files of a world.
+	 * The world does not have to be loaded.
+	 *
+	 * @param worldName of the world to scan
+	 * @return new region scanner
+	 * @throws IllegalArgumentException if the world has no region folder
+	 */
+	public static RegionScanner forWorld(String worldName) {
+		final File regionFolder = Common.SERVER.getWorldRegionFolder(worldName);
+		if (regionFolder == null) {
+			throw new IllegalArgumentException("World '" + worldName + "' has no region folder");
+		}
+		return new RegionScanner(regionFolder);
+	}
+
+	/**
+	 * Gets the folder containing the region files scanned
+	 *
+	 * @return region folder
+	 */
+	public File getRegionFolder() {
+		return this.regionFolder;
+	}
+
+	/**
+	 * Gets the maximum amount of threads used to scan regions
+	 *
+	 * @return parallelism
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Sets the maximum amount of threads used to scan regions.
+	 * By default, one thread per available processor is used.
+	 *
+	 * @param parallelism to set to
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Gets all region files in the region folder
+	 *
+	 * @return region files
+	 */
+	public List<File> getRegionFiles() {
+		if (!this.regionFolder.isDirectory()) {
+			return Collections.emptyList();
+		}
+		List<File> files = new ArrayList<File>();
+		for (File file : StreamUtil.listFiles(this.regionFolder)) {
+			if (file.isFile() && RegionFileReader.getRegionCoordinates(file) != null) {
+				files.add(file);
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Scans all chunks of all regions
+	 *
+	 * @param aggregator to combine the chunk information with
+	 * @return combined result of all chunks
+	 */
+	public <T> T scan(ChunkAggregator<T> aggregator) {
+		final List<File> files = getRegionFiles();
+		if (files.isEmpty()) {
+			return aggregator.createResult();
+		}
+		final ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+		try {
+			return pool.invoke(new RegionTask<T>(aggregator, files, 0, files.size()));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Finds the coordinates of all chunks that are not filtered out by a filter
+	 *
+	 * @param filter to match chunks against, which must be thread-safe
+	 * @return coordinates of the chunks for which the filter returned false
+	 */
+	public List<IntVector2> findChunks(final Filter<ScannedChunk> filter) {
+		return scan(new ChunkAggregator<List<IntVector2>>() {
+			@Override
+			public List<IntVector2> createResult() {
+				return new ArrayList<IntVector2>();
+			}
+
+			@Override
+			public List<IntVector2> addChunk(List<IntVector2> result, ScannedChunk chunk) {
+				if (!filter.isFiltered(chunk)) {
+					result.add(new IntVector2(chunk.getX(), chunk.getZ()));
+				}
+				return result;
+			}
+
+			@Override
+			public List<IntVector2> merge(List<IntVector2> first, List<IntVector2> second) {
+				first.addAll(second);
+				return first;
+			}
+		});
+	}
+
+	/**
+	 * Scans a single region file
+	 *
+	 * @param aggregator to combine the chunk information with
+	 * @param file of the region to scan
+	 * @return combined result of all chunks in the region
+	 */
+	public static <T> T scanRegion(ChunkAggregator<T> aggregator, File file) {
+		T result = aggregator.createResult();
+		final IntVector2 region = RegionFileReader.getRegionCoordinates(file);
+		if (region == null) {
+			return result;
+		}
+		final RegionFileReader reader;
+		try {
+			reader = new RegionFileReader(file);
+		} catch (IOException ex) {
+			CommonPlugin.LOGGER.log(Level.WARNING, "Failed to open region file " + file.getName(), ex);
+			return result;
+		}
+		try {
+			// Visit the chunks in the order they are stored in the file, for sequential reads
+			final long[] order = new long[RegionFileReader.CHUNK_COUNT];
+			int count = 0;
+			for (int index = 0; index < RegionFileReader.CHUNK_COUNT; index++) {
+				final int offset = reader.getSectorOffset(index & 31, index >> 5);
+				if (offset != 0) {
+					order[count++] = ((long) offset << 10) | index;
+				}
+			}
+			Arrays.sort(order, 0, count);
+			for (int i = 0; i < count; i++) {
+				final int index = (int) (order[i] & 1023);
+				final int x = index & 31;
+				final int z = index >> 5;
+				try {
+					final RegionChunkData data = reader.getChunkData(x, z);
+					if (data != null) {
+						result = aggregator.addChunk(result, new ScannedChunk((region.x << 5) + x, (region.z << 5) + z, data));
+					}
+				} catch (IOException ex) {
+					CommonPlugin.LOGGER.log(Level.WARNING, "Failed to read chunk [" + x + ", " + z + "] of region file " + file.getName() + ": " + ex.getMessage());
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return result;
+	}
+
+	/**
+	 * Scans a range of region files, splitting the range in two until a single region remains
+	 */
+	private static class RegionTask<T> extends RecursiveTask<T> {
+		private static final long serialVersionUID = 1L;
+		private final ChunkAggregator<T> aggregator;
+		private final List<File> files;
+		private final int from, to;
+
+		public RegionTask(ChunkAggregator<T> aggregator, List<File> files, int from, int to) {
+			this.aggregator = aggregator;
+			this.files = files;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected T compute() {
+			if (this.to - this.from == 1) {
+				return scanRegion(this.aggregator, this.files.get(this.from));
+			}
+			final int mid = (this.from + this.to) >>> 1;
+			final RegionTask<T> second = new RegionTask<T>(this.aggregator, this.files, mid, this.to);
+			second.fork();
+			final T first = new RegionTask<T>(this.aggregator, this.files, this.from, mid).compute();
+			return this.aggregator.merge(first, second.join());
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.bergerkiller.bukkit.common.region;
+
+import java.io.IOException;
+
+import com.bergerkiller.bukkit.common.nbt.CommonTag;
+import com.bergerkiller.bukkit.common.nbt.CommonTagCompound;
+import com.bergerkiller.bukkit.common.nbt.LazyTagCompound;
+
+/**
+ * A chunk visited by a {@link RegionScanner}.
+ * The NBT data of the chunk is only inflated and read when it is first requested.
+ */
+public class ScannedChunk {
+	private final int x, z;
+	private final RegionChunkData data;
+	private CommonTagCompound compound;
+	private LazyTagCompound lazyCompound;
+
+	public ScannedChunk(int x, int z, RegionChunkData data) {
+		this.x = x;
+		this.z = z;
+		this.data = data;
+	}
+
+	/**
+	 * Gets the x-coordinate of this chunk in the world
+	 *
+	 * @return chunk x-coordinate
+	 */
+	public int getX() {
+		return this.x;
+	}
+
+	/**
+	 * Gets the z-coordinate of this chunk in the world
+	 *
+	 * @return chunk z-coordinate
+	 */
+	public int getZ() {
+		return this.z;
+	}
+
+	/**
+	 * Gets the time at which this chunk was last saved
+	 *
+	 * @return timestamp in seconds since the epoch
+	 */
+	public int getTimestamp() {
+		return this.data.getTimestamp();
+	}
+
+	/**
+	 * Gets the size of the compressed data of this chunk in the region file
+	 *
+	 * @return compressed size in bytes
+	 */
+	public int getCompressedSize() {
+		return this.data.getCompressedSize();
+	}
+
+	/**
+	 * Gets the raw, compressed data of this chunk
+	 *
+	 * @return chunk data
+	 */
+	public RegionChunkData getData() {
+		return this.data;
+	}
+
+	/**
+	 * Gets the full NBT data of this chunk, reading it if needed.
+	 * This requires the server to be running, use {@link #getLazyCompound()} otherwise.
+	 *
+	 * @return chunk compound
+	 * @throws IOException if the data could not be read
+	 */
+	public CommonTagCompound getCompound() throws IOException {
+		if (this.compound == null) {
+			this.compound = this.data.readCompound();
+		}
+		return this.compound;
+	}
+
+	/**
+	 * Gets the 'Level' compound of this chunk, containing the blocks, entities and tile entities.
+	 * This requires the server to be running, use {@link #getLazyLevel()} otherwise.
+	 *
+	 * @return level compound, or an empty compound if not stored
+	 * @throws IOException if the data could not be read
+	 */
+	public CommonTagCompound getLevel() throws IOException {
+		final CommonTag level = getCompound().get("Level");
+		return (level instanceof CommonTagCompound) ? (CommonTagCompound) level : new CommonTagCompound();
+	}
+
+	/**
+	 * Gets the full NBT data of this chunk as a lazily decoded, read-only compound, reading it if needed.
+	 * This does not require the server to be running.
+	 *
+	 * @return chunk compound
+	 * @throws IOException if the data could not be read
+	 */
+	public LazyTagCompound getLazyCompound() throws IOException {
+		if (this.lazyCompound == null) {
+			this.lazyCompound = this.data.readLazyCompound();
+		}
+		return this.lazyCompound;
+	}
+
+	/**
+	 * Gets the 'Level' compound of this chunk as a lazily decoded, read-only compound.
+	 * This does not require the server to be running.
+	 *
+	 * @return level compound, or null if not stored
+	 * @throws IOException if the data could not be read
+	 */
+	public LazyTagCompound getLazyLevel() throws IOException {
+		return getLazyCompound().getCompound("Level");
+	}
+}
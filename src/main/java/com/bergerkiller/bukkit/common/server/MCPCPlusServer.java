@@ -3,13 +3,21 @@ package com.bergerkiller.bukkit.common.server;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
 
+import com.bergerkiller.bukkit.common.internal.CommonPlugin;
 import com.bergerkiller.bukkit.common.reflection.ClassTemplate;
 import com.bergerkiller.bukkit.common.reflection.MethodAccessor;
 import com.bergerkiller.bukkit.common.reflection.SafeField;
+import com.bergerkiller.bukkit.common.utils.LogicUtil;
 import com.bergerkiller.bukkit.common.utils.StreamUtil;
 
 public class MCPCPlusServer extends SpigotServer {
@@ -19,6 +27,14 @@ public class MCPCPlusServer extends SpigotServer {
 	private Map<String, String> classesMap;
 	private Map<String, String> methodsMap;
 	private boolean isRelocatedSpigotUtils;
+	/** Remapped class name -> original class name */
+	private final Map<String, String> originalOwnerIndex = new HashMap<String, String>();
+	/** Original owner + '/' + method name -> remapped method names */
+	private final Map<String, List<String>> methodIndex = new HashMap<String, List<String>>();
+	private final Map<Class<?>, String> originalOwnerCache = new ConcurrentHashMap<Class<?>, String>();
+	private final Map<String, String> fieldNameCache = new ConcurrentHashMap<String, String>();
+	private final Map<String, String> methodNameCache = new ConcurrentHashMap<String, String>();
+	private long indexBuildTime;
 
 	@Override
 	public boolean init() {
@@ -37,6 +53,7 @@ public class MCPCPlusServer extends SpigotServer {
 		Object jarMapping = SafeField.get(classRemapper, "jarMapping");
 		this.classesMap = SafeField.get(jarMapping, "classes");
 		this.methodsMap = SafeField.get(jarMapping, "methods");
+		this.buildIndex();
 		// Check whether the Spigot utilities are relocated
 		try {
 			Class.forName("org.spigotmc.FlatMap");
@@ -60,40 +77,101 @@ public class MCPCPlusServer extends SpigotServer {
 		return mapType.invoke(classRemapper, super.getClassName(path).replace('.', '/')).replace('/', '.');
 	}
 
-	private String getOriginalOwner(Class<?> type) {
-		String typeName = type.getName().replace('.', '/');
-		// Find the original type of the current version (PACKAGE_VERSION)
-		String result = typeName;
+	/**
+	 * Gets the time it took to build the class and method remapping index, in nanoseconds
+	 * 
+	 * @return index build time
+	 */
+	public long getIndexBuildTime() {
+		return indexBuildTime;
+	}
+
+	/**
+	 * Builds the hash-indexed look-up tables from the class and method mappings of the remapper.
+	 * This replaces linear scans of the mappings for every name look-up.
+	 */
+	private void buildIndex() {
+		final long startTime = System.nanoTime();
+		// Find the original type of every remapped type, preferring the one of the current version (PACKAGE_VERSION)
 		for (Map.Entry<String, String> entry : classesMap.entrySet()) {
-			if (entry.getValue().equals(typeName)) {
-				result = entry.getKey();
-				// If the perfect one is found, just use it
-				if (result.contains(PACKAGE_VERSION)) {
-					return result;
+			String current = originalOwnerIndex.get(entry.getValue());
+			if (current == null || !current.contains(PACKAGE_VERSION)) {
+				originalOwnerIndex.put(entry.getValue(), entry.getKey());
+			}
+		}
+		// Map the methods by owner and name, without the descriptor
+		for (Map.Entry<String, String> entry : methodsMap.entrySet()) {
+			final String key = entry.getKey();
+			final int descIndex = key.indexOf(' ');
+			final String ownerAndName = (descIndex == -1) ? key : key.substring(0, descIndex);
+			List<String> names = methodIndex.get(ownerAndName);
+			if (names == null) {
+				names = Collections.singletonList(entry.getValue());
+			} else {
+				if (names.size() == 1) {
+					names = new ArrayList<String>(names);
 				}
+				names.add(entry.getValue());
 			}
+			methodIndex.put(ownerAndName, names);
+		}
+		indexBuildTime = System.nanoTime() - startTime;
+		CommonPlugin.LOGGER_REFLECTION.log(Level.INFO, "Indexed " + classesMap.size() + " class and " + methodsMap.size() + 
+				" method mappings in " + TimeUnit.NANOSECONDS.toMillis(indexBuildTime) + "ms");
+	}
+
+	private String getOriginalOwner(Class<?> type) {
+		String result = originalOwnerCache.get(type);
+		if (result == null) {
+			final String typeName = type.getName().replace('.', '/');
+			result = originalOwnerIndex.get(typeName);
+			if (result == null) {
+				// Failure, we can only hope for success
+				result = typeName;
+			}
+			originalOwnerCache.put(type, result);
 		}
-		// Failure or perhaps we found something similar...we can only hope for success
 		return result;
 	}
 
 	@Override
 	public String getFieldName(Class<?> type, String fieldName) {
-		return mapField.invoke(classRemapper, getOriginalOwner(type), fieldName, "");
+		final String owner = getOriginalOwner(type);
+		final String key = owner + "/" + fieldName;
+		String result = fieldNameCache.get(key);
+		if (result == null) {
+			result = LogicUtil.fixNull(mapField.invoke(classRemapper, owner, fieldName, ""), fieldName);
+			fieldNameCache.put(key, result);
+		}
+		return result;
 	}
 
 	@Override
 	public String getMethodName(Class<?> type, String methodName, Class<?>... params) {
-		final String methodPath = getOriginalOwner(type) + "/" + methodName + " ";
-		for (Map.Entry<String, String> entry : methodsMap.entrySet()) {
-			// Try to find the (obfuscated) method, if it exists with the parameters, we found our method
-			// We can not use the JarRemapper to do this, because the methods map includes a return type
-			// We do not know the return type here, which makes that impossible to use
-			if (entry.getKey().startsWith(methodPath)) {
+		final StringBuilder keyBuilder = new StringBuilder(type.getName()).append('/').append(methodName).append('(');
+		for (Class<?> param : params) {
+			keyBuilder.append(param.getName()).append(';');
+		}
+		final String key = keyBuilder.toString();
+		String result = methodNameCache.get(key);
+		if (result == null) {
+			result = findMethodName(type, methodName, params);
+			methodNameCache.put(key, result);
+		}
+		return result;
+	}
+
+	private String findMethodName(Class<?> type, String methodName, Class<?>... params) {
+		// Try to find the (obfuscated) method, if it exists with the parameters, we found our method
+		// We can not use the JarRemapper to do this, because the methods map includes a return type
+		// We do not know the return type here, which makes that impossible to use
+		List<String> names = methodIndex.get(getOriginalOwner(type) + "/" + methodName);
+		if (names != null) {
+			for (String name : names) {
 				try {
-					type.getDeclaredMethod(entry.getValue(), params);
+					type.getDeclaredMethod(name, params);
 					// Found our method, return the official method name
-					return entry.getValue();
+					return name;
 				} catch (Throwable t) {
 					// Method not found, go on...
 				}
@@ -2,6 +2,7 @@ package com.bergerkiller.bukkit.common.utils;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
 
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -25,6 +26,7 @@ import com.bergerkiller.bukkit.common.internal.CommonNMS;
 import com.bergerkiller.bukkit.common.protocol.CommonPacket;
 import com.bergerkiller.bukkit.common.reflection.SafeField;
 import com.bergerkiller.bukkit.common.reflection.classes.BlockStateRef;
+import com.bergerkiller.bukkit.common.reflection.classes.ChunkRef;
 import com.bergerkiller.bukkit.common.reflection.classes.TileEntityRef;
 import com.bergerkiller.bukkit.common.reflection.classes.WorldRef;
 
@@ -446,43 +448,89 @@ public class BlockUtil extends MaterialUtil {
 		return getBlockStates(middle.getWorld(), middle.getX(), middle.getY(), middle.getZ(), radiusX, radiusY, radiusZ);
 	}
 
-	private static final ArrayList<BlockState> blockStateBuff = new ArrayList<BlockState>();
-
 	public static Collection<BlockState> getBlockStates(org.bukkit.World world, int x, int y, int z, int radiusX, int radiusY, int radiusZ) {
-		try {
-			if (radiusX == 0 && radiusY == 0 && radiusZ == 0) {
-				// simplified coding instead
-				offerTile(world, x, y, z);
-			} else {
-				// loop through tile entity list
-				int xMin = x - radiusX;
-				int yMin = y - radiusY;
-				int zMin = z - radiusZ;
-				int xMax = x + radiusX;
-				int yMax = y + radiusY;
-				int zMax = z + radiusZ;
-				int tx, ty, tz;
-				for (Object tile : WorldRef.tileEntityList.get(Conversion.toWorldHandle.convert(world))) {
-					tx = TileEntityRef.x.get(tile);
-					ty = TileEntityRef.y.get(tile);
-					tz = TileEntityRef.z.get(tile);
-					if (tx < xMin || ty < yMin || tz < zMin || tx > xMax || ty > yMax || tz > zMax) {
-						continue;
+		return getBlockStates(world, x, y, z, radiusX, radiusY, radiusZ, new ArrayList<BlockState>());
+	}
+
+	/**
+	 * Adds the Block States of all tile entities within a radius around a block to a collection
+	 * 
+	 * @param world to look in
+	 * @param x - coordinate of the middle block
+	 * @param y - coordinate of the middle block
+	 * @param z - coordinate of the middle block
+	 * @param radiusX - radius along the x-axis
+	 * @param radiusY - radius along the y-axis
+	 * @param radiusZ - radius along the z-axis
+	 * @param result collection to add the Block States to
+	 * @return the result collection
+	 */
+	public static <T extends Collection<BlockState>> T getBlockStates(org.bukkit.World world, int x, int y, int z, int radiusX, int radiusY, int radiusZ, T result) {
+		if (radiusX == 0 && radiusY == 0 && radiusZ == 0) {
+			// simplified coding instead
+			offerTile(world, x, y, z, result);
+			return result;
+		}
+		return getBlockStatesInBox(world, x - radiusX, y - radiusY, z - radiusZ, x + radiusX, y + radiusY, z + radiusZ, result);
+	}
+
+	/**
+	 * Adds the Block States of all tile entities within a box of blocks to a collection.
+	 * Only the tile entities of the loaded chunks the box overlaps are checked.
+	 * 
+	 * @param world to look in
+	 * @param min block of the box (inclusive)
+	 * @param max block of the box (inclusive)
+	 * @param result collection to add the Block States to
+	 * @return the result collection
+	 */
+	public static <T extends Collection<BlockState>> T getBlockStates(org.bukkit.World world, IntVector3 min, IntVector3 max, T result) {
+		return getBlockStatesInBox(world, min.x, min.y, min.z, max.x, max.y, max.z, result);
+	}
+
+	private static <T extends Collection<BlockState>> T getBlockStatesInBox(org.bukkit.World world, int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, T result) {
+		final int cxMin = MathUtil.toChunk(xMin);
+		final int czMin = MathUtil.toChunk(zMin);
+		final int cxMax = MathUtil.toChunk(xMax);
+		final int czMax = MathUtil.toChunk(zMax);
+		final long chunkCount = (long) (cxMax - cxMin + 1) * (long) (czMax - czMin + 1);
+		final Collection<?> worldTiles = WorldRef.tileEntityList.get(Conversion.toWorldHandle.convert(world));
+		if (chunkCount > worldTiles.size()) {
+			// Box covers more chunks than there are tile entities, checking them all is faster
+			offerTiles(world, worldTiles, xMin, yMin, zMin, xMax, yMax, zMax, result);
+		} else {
+			// Only check the tile entities in the chunks the box overlaps
+			for (int cx = cxMin; cx <= cxMax; cx++) {
+				for (int cz = czMin; cz <= czMax; cz++) {
+					org.bukkit.Chunk chunk = ChunkUtil.getChunk(world, cx, cz);
+					if (chunk != null) {
+						Map<?, ?> chunkTiles = ChunkRef.tileEntities.get(Conversion.toChunkHandle.convert(chunk));
+						offerTiles(world, chunkTiles.values(), xMin, yMin, zMin, xMax, yMax, zMax, result);
 					}
-					// Get again - security against ghost tiles
-					offerTile(world, tx, ty, tz);
 				}
 			}
-			return new ArrayList<BlockState>(blockStateBuff);
-		} finally {
-			blockStateBuff.clear();
+		}
+		return result;
+	}
+
+	private static void offerTiles(World world, Collection<?> tiles, int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, Collection<BlockState> result) {
+		int tx, ty, tz;
+		for (Object tile : tiles) {
+			tx = TileEntityRef.x.get(tile);
+			ty = TileEntityRef.y.get(tile);
+			tz = TileEntityRef.z.get(tile);
+			if (tx < xMin || ty < yMin || tz < zMin || tx > xMax || ty > yMax || tz > zMax) {
+				continue;
+			}
+			// Get again - security against ghost tiles
+			offerTile(world, tx, ty, tz, result);
 		}
 	}
 
-	private static void offerTile(World world, int x, int y, int z) {
+	private static void offerTile(World world, int x, int y, int z, Collection<BlockState> result) {
 		BlockState state = Conversion.toBlockState.convert(TileEntityRef.getFromWorld(world, x, y, z));
 		if (state != null) {
-			blockStateBuff.add(state);
+			result.add(state);
 		}
 	}
 }
@@ -20,11 +20,14 @@ import org.bukkit.craftbukkit.util.LongHashSet;
 import org.bukkit.craftbukkit.util.LongObjectHashMap;
 import org.bukkit.entity.Player;
 
+import com.bergerkiller.bukkit.common.ChunkLoadFuture;
+import com.bergerkiller.bukkit.common.bases.IntVector2;
 import com.bergerkiller.bukkit.common.collections.FilteredCollection;
 import com.bergerkiller.bukkit.common.collections.List2D;
 import com.bergerkiller.bukkit.common.conversion.Conversion;
 import com.bergerkiller.bukkit.common.conversion.ConversionPairs;
 import com.bergerkiller.bukkit.common.conversion.util.ConvertingList;
+import com.bergerkiller.bukkit.common.internal.ChunkRelightQueue;
 import com.bergerkiller.bukkit.common.internal.CommonNMS;
 import com.bergerkiller.bukkit.common.internal.CommonPlugin;
 import com.bergerkiller.bukkit.common.reflection.FieldAccessor;
@@ -146,14 +149,179 @@ public class ChunkUtil {
 		if (y < 0 || y >= chunk.getWorld().getMaxHeight()) {
 			return;
 		}
+		Object section = getSection(chunk, y >> 4, true);
+		ChunkSectionRef.setTypeId(section, x, y, z, typeId);
+		ChunkSectionRef.setData(section, x, y, z, data);
+	}
+
+	/**
+	 * Gets the chunk section handle at a section index of a chunk
+	 * 
+	 * @param chunk to get the section of
+	 * @param sectionY - index of the section (block y >> 4)
+	 * @param create - whether to create the section if it does not exist yet
+	 * @return chunk section handle, or null if it does not exist and create is False
+	 * @throws IllegalArgumentException if the section index is out of range
+	 */
+	public static Object getSection(org.bukkit.Chunk chunk, int sectionY, boolean create) {
 		Object[] sections = ChunkRef.getSections(CommonNMS.getNative(chunk));
-		final int secIndex = y >> 4;
-		Object section = sections[secIndex];
+		if (sectionY < 0 || sectionY >= sections.length) {
+			throw new IllegalArgumentException("Section index " + sectionY + " is out of range");
+		}
+		Object section = sections[sectionY];
+		if (section == null && create) {
+			section = sections[sectionY] = new ChunkSection(sectionY << 4, !CommonNMS.getNative(chunk.getWorld()).worldProvider.g);
+		}
+		return section;
+	}
+
+	/**
+	 * Reads the type ids of all blocks in a chunk section.
+	 * Blocks are indexed as (y << 8 | z << 4 | x), with coordinates relative to the section.
+	 * 
+	 * @param chunk to read from
+	 * @param sectionY - index of the section (block y >> 4)
+	 * @param typeIds array to fill, at least 4096 in length
+	 */
+	public static void getSectionTypeIds(org.bukkit.Chunk chunk, int sectionY, int[] typeIds) {
+		checkSectionArray(typeIds.length);
+		final Object section = getSection(chunk, sectionY, false);
 		if (section == null) {
-			section = sections[secIndex] = new ChunkSection(y >> 4 << 4, !CommonNMS.getNative(chunk.getWorld()).worldProvider.g);
+			Arrays.fill(typeIds, 0, ChunkSectionRef.VOLUME, 0);
+			return;
+		}
+		final byte[] ids = ChunkSectionRef.getBlockIdArray(section);
+		final byte[] ext = ChunkSectionRef.getExtBlockIdArray(section, false);
+		for (int i = 0; i < ChunkSectionRef.VOLUME; i++) {
+			typeIds[i] = ids[i] & 0xff;
+		}
+		if (ext != null) {
+			for (int i = 0; i < ChunkSectionRef.VOLUME; i++) {
+				typeIds[i] |= ChunkSectionRef.getNibble(ext, i) << 8;
+			}
+		}
+	}
+
+	/**
+	 * Reads the data values of all blocks in a chunk section.
+	 * Blocks are indexed as (y << 8 | z << 4 | x), with coordinates relative to the section.
+	 * 
+	 * @param chunk to read from
+	 * @param sectionY - index of the section (block y >> 4)
+	 * @param data array to fill with one value per block, at least 4096 in length
+	 */
+	public static void getSectionData(org.bukkit.Chunk chunk, int sectionY, byte[] data) {
+		checkSectionArray(data.length);
+		final Object section = getSection(chunk, sectionY, false);
+		if (section == null) {
+			Arrays.fill(data, 0, ChunkSectionRef.VOLUME, (byte) 0);
+			return;
+		}
+		final byte[] nibbles = ChunkSectionRef.getDataArray(section);
+		for (int i = 0; i < ChunkSectionRef.VOLUME; i++) {
+			data[i] = (byte) ChunkSectionRef.getNibble(nibbles, i);
+		}
+	}
+
+	/**
+	 * Sets the type ids and data values of all blocks in a chunk section, without causing physics.
+	 * Blocks are indexed as (y << 8 | z << 4 | x), with coordinates relative to the section.
+	 * Afterwards the chunk is marked as changed, and its lighting is updated once at the next tick.
+	 * 
+	 * @param chunk to write to
+	 * @param sectionY - index of the section (block y >> 4)
+	 * @param typeIds of the blocks, at least 4096 in length
+	 * @param data values of the blocks, at least 4096 in length
+	 */
+	public static void setSectionBlocks(org.bukkit.Chunk chunk, int sectionY, int[] typeIds, byte[] data) {
+		checkSectionArray(typeIds.length);
+		checkSectionArray(data.length);
+		final Object section = getSection(chunk, sectionY, true);
+		final byte[] ids = ChunkSectionRef.getBlockIdArray(section);
+		final byte[] nibbles = ChunkSectionRef.getDataArray(section);
+		byte[] ext = ChunkSectionRef.getExtBlockIdArray(section, false);
+		int typeId;
+		for (int i = 0; i < ChunkSectionRef.VOLUME; i++) {
+			typeId = typeIds[i];
+			ids[i] = (byte) typeId;
+			if (ext == null && (typeId >> 8) != 0) {
+				ext = ChunkSectionRef.getExtBlockIdArray(section, true);
+			}
+			if (ext != null) {
+				ChunkSectionRef.setNibble(ext, i, typeId >> 8);
+			}
+			ChunkSectionRef.setNibble(nibbles, i, data[i]);
+		}
+		onSectionChanged(chunk, sectionY, section);
+	}
+
+	/**
+	 * Sets all blocks in a chunk section to the same type id and data value, without causing physics.
+	 * Afterwards the chunk is marked as changed, and its lighting is updated once at the next tick.
+	 * 
+	 * @param chunk to write to
+	 * @param sectionY - index of the section (block y >> 4)
+	 * @param typeId to set to
+	 * @param data to set to
+	 */
+	public static void fillSection(org.bukkit.Chunk chunk, int sectionY, int typeId, int data) {
+		final Object section = getSection(chunk, sectionY, true);
+		Arrays.fill(ChunkSectionRef.getBlockIdArray(section), (byte) typeId);
+		final byte[] ext = ChunkSectionRef.getExtBlockIdArray(section, (typeId >> 8) != 0);
+		if (ext != null) {
+			Arrays.fill(ext, repeatNibble(typeId >> 8));
+		}
+		Arrays.fill(ChunkSectionRef.getDataArray(section), repeatNibble(data));
+		onSectionChanged(chunk, sectionY, section);
+	}
+
+	/**
+	 * Copies the type ids and data values of all blocks in a chunk section to another chunk section,
+	 * without causing physics. Afterwards the target chunk is marked as changed, and its lighting is updated once at the next tick.
+	 * 
+	 * @param from chunk to copy from
+	 * @param fromSectionY - index of the section to copy from (block y >> 4)
+	 * @param to chunk to copy to
+	 * @param toSectionY - index of the section to copy to (block y >> 4)
+	 */
+	public static void copySection(org.bukkit.Chunk from, int fromSectionY, org.bukkit.Chunk to, int toSectionY) {
+		final Object source = getSection(from, fromSectionY, false);
+		if (source == null) {
+			fillSection(to, toSectionY, 0, 0);
+			return;
+		}
+		final Object target = getSection(to, toSectionY, true);
+		if (source == target) {
+			return;
+		}
+		final byte[] sourceExt = ChunkSectionRef.getExtBlockIdArray(source, false);
+		final byte[] targetExt = ChunkSectionRef.getExtBlockIdArray(target, sourceExt != null);
+		System.arraycopy(ChunkSectionRef.getBlockIdArray(source), 0, ChunkSectionRef.getBlockIdArray(target), 0, ChunkSectionRef.VOLUME);
+		if (sourceExt != null) {
+			System.arraycopy(sourceExt, 0, targetExt, 0, sourceExt.length);
+		} else if (targetExt != null) {
+			Arrays.fill(targetExt, (byte) 0);
+		}
+		final byte[] sourceData = ChunkSectionRef.getDataArray(source);
+		System.arraycopy(sourceData, 0, ChunkSectionRef.getDataArray(target), 0, sourceData.length);
+		onSectionChanged(to, toSectionY, target);
+	}
+
+	private static void onSectionChanged(org.bukkit.Chunk chunk, int sectionY, Object section) {
+		final Object chunkHandle = CommonNMS.getNative(chunk);
+		ChunkSectionRef.recalcBlockCounts(section);
+		ChunkRef.modified.set(chunkHandle, true);
+		ChunkRelightQueue.schedule(chunkHandle, sectionY);
+	}
+
+	private static byte repeatNibble(int value) {
+		return (byte) (((value & 0xf) << 4) | (value & 0xf));
+	}
+
+	private static void checkSectionArray(int length) {
+		if (length < ChunkSectionRef.VOLUME) {
+			throw new IllegalArgumentException("Array is too small to store a chunk section: " + length + " < " + ChunkSectionRef.VOLUME);
 		}
-		ChunkSectionRef.setTypeId(section, x, y, z, typeId);
-		ChunkSectionRef.setData(section, x, y, z, data);
 	}
 
 	/**
@@ -334,6 +502,22 @@ public class ChunkUtil {
 		CommonNMS.getNative(world).chunkProviderServer.getChunkAt(x, z, runnable);
 	}
 
+	/**
+	 * Loads or generates a batch of chunks without loading them on the main thread.
+	 * Every tick, at most the specified amount of chunks is requested from the server,
+	 * spreading the generation of new chunks over multiple ticks.
+	 * Chunks that are already loaded, or are already being loaded, do not count towards this limit.
+	 * Must be called on the main thread.
+	 * 
+	 * @param world to load the chunks in
+	 * @param coordinates of the chunks to load
+	 * @param chunksPerTick - maximum amount of chunks to request every tick
+	 * @return future tracking the progress, done once all chunks are loaded
+	 */
+	public static ChunkLoadFuture loadChunksAsync(World world, Collection<IntVector2> coordinates, int chunksPerTick) {
+		return new ChunkLoadFuture(world, coordinates, chunksPerTick).start();
+	}
+
 	/**
 	 * Sets a given chunk coordinate to contain the chunk specified
 	 * 
@@ -13,8 +13,14 @@ import java.util.EnumMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarFile;
 import java.util.logging.Level;
 import java.util.zip.ZipEntry;
@@ -55,6 +61,8 @@ public class CommonUtil {
 	public static final int CHUNKAREA = VIEWWIDTH * VIEWWIDTH;
 	public static final int BLOCKVIEW = 32 + (VIEW << 4);
 	public static final Thread MAIN_THREAD = Thread.currentThread();
+	private static final Map<String, Object> classCache = new ConcurrentHashMap<String, Object>();
+	private static final Object MISSING_CLASS = new Object();
 	private static final FieldAccessor<Collection<Plugin>> pluginsField = new SafeField<Collection<Plugin>>(SimplePluginManager.class, "plugins");
 
 	/**
@@ -666,17 +674,78 @@ public class CommonUtil {
 	/**
 	 * Tries to get the class at the path specified and
 	 * applies translations based on the server currently running.
+	 * Results, including classes that could not be found, are cached by path.
 	 * 
 	 * @param path to the class
 	 * @return the class, or null if not found
 	 */
 	public static Class<?> getClass(String path) {
+		if (Common.SERVER == null) {
+			// Server is still being detected, path translation is not available yet
+			return loadClass(path, true);
+		}
+		Object cached = classCache.get(path);
+		if (cached == null) {
+			Class<?> type = loadClass(Common.SERVER.getClassName(path), true);
+			cached = (type == null) ? MISSING_CLASS : type;
+			classCache.put(path, cached);
+		}
+		return (cached == MISSING_CLASS) ? null : (Class<?>) cached;
+	}
+
+	/**
+	 * Resolves all the classes at the paths specified in parallel, storing them for later use by
+	 * {@link #getClass(String)}. The classes are loaded, but not initialized.
+	 * Paths that were resolved before are skipped.<br><br>
+	 * 
+	 * Class loaders that are not parallel capable, such as the plugin class loader, load one class
+	 * at a time. The threads then mostly wait on the class loader, and little time is won.
+	 * 
+	 * @param paths to the classes to resolve
+	 * @return time it took to resolve the classes in nanoseconds
+	 */
+	public static long preloadClasses(Collection<String> paths) {
+		if (Common.SERVER == null) {
+			return 0L;
+		}
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(paths.size());
+		for (final String path : new LinkedHashSet<String>(paths)) {
+			if (classCache.containsKey(path)) {
+				continue;
+			}
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					try {
+						final Class<?> type = loadClass(Common.SERVER.getClassName(path), false);
+						classCache.put(path, (type == null) ? MISSING_CLASS : type);
+					} catch (LinkageError error) {
+						// Leave it to getClass to report this
+					}
+					return null;
+				}
+			});
+		}
+		if (tasks.isEmpty()) {
+			return 0L;
+		}
+		final int threadCount = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+		final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		final long startTime = System.nanoTime();
 		try {
-			if (Common.SERVER == null) {
-				return Class.forName(path);
-			} else {
-				return Class.forName(Common.SERVER.getClassName(path));
+			for (Future<Void> result : executor.invokeAll(tasks)) {
+				result.get();
 			}
+		} catch (Throwable t) {
+			CommonPlugin.LOGGER_REFLECTION.log(Level.WARNING, "Failed to preload classes:", t);
+		} finally {
+			executor.shutdown();
+		}
+		return System.nanoTime() - startTime;
+	}
+
+	private static Class<?> loadClass(String name, boolean initialize) {
+		try {
+			return Class.forName(name, initialize, CommonUtil.class.getClassLoader());
 		} catch (ClassNotFoundException e) {
 			return null;
 		}
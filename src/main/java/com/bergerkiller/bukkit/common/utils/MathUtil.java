@@ -557,6 +557,32 @@ public class MathUtil {
 		return LongHash.lsw(key);
 	}
 
+	/**
+	 * Packs block coordinates into a single long value.
+	 * The x and z coordinates are stored using 26 bits, the y coordinate using 12 bits.
+	 * Coordinates outside of these ranges wrap around.
+	 * 
+	 * @param x - coordinate of the block
+	 * @param y - coordinate of the block
+	 * @param z - coordinate of the block
+	 * @return packed coordinates
+	 */
+	public static long longBlockHash(int x, int y, int z) {
+		return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (long) (y & 0xFFF);
+	}
+
+	public static int longBlockHashX(long key) {
+		return (int) (key >> 38);
+	}
+
+	public static int longBlockHashY(long key) {
+		return (int) (key << 52 >> 52);
+	}
+
+	public static int longBlockHashZ(long key) {
+		return (int) (key << 26 >> 38);
+	}
+
 	public static void setVectorLength(Vector vector, double length) {
 		setVectorLengthSquared(vector, Math.signum(length) * length * length);
 	}
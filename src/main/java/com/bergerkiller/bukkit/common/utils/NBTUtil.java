@@ -2,6 +2,7 @@ package com.bergerkiller.bukkit.common.utils;
 
 import java.io.DataInputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -76,7 +77,7 @@ public class NBTUtil {
 		if (nbtTagHandle == null) {
 			return (byte) 0;
 		}
-		return NBTRef.getTypeId.invoke(nbtTagHandle).byteValue();
+		return NBTTagInfo.getTypeId(nbtTagHandle);
 	}
 
 	/**
@@ -100,7 +101,11 @@ public class NBTUtil {
 	 * @throws IOException
 	 */
 	public static Object readCompoundUncompressed(InputStream stream) throws IOException {
-		return NBTCompressedStreamTools.a(stream);
+		if (stream instanceof DataInputStream) {
+			return NBTCompressedStreamTools.a((DataInputStream) stream);
+		} else {
+			return NBTCompressedStreamTools.a(new DataInputStream(stream));
+		}
 	}
 
 	/**
@@ -124,7 +129,9 @@ public class NBTUtil {
 	 * @throws IOException
 	 */
 	public static void writeCompoundUncompressed(Object compound, OutputStream stream) throws IOException {
-		NBTCompressedStreamTools.a((NBTTagCompound) compound, stream);
+		DataOutputStream dataStream = new DataOutputStream(stream);
+		NBTCompressedStreamTools.a((NBTTagCompound) compound, (DataOutput) dataStream);
+		dataStream.flush();
 	}
 
 	/**
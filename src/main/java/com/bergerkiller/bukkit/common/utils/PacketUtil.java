@@ -2,6 +2,7 @@ package com.bergerkiller.bukkit.common.utils;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import net.minecraft.server.Packet;
 
@@ -13,9 +14,14 @@ import org.bukkit.plugin.Plugin;
 import com.bergerkiller.bukkit.common.conversion.Conversion;
 import com.bergerkiller.bukkit.common.internal.CommonNMS;
 import com.bergerkiller.bukkit.common.internal.CommonPlugin;
+import com.bergerkiller.bukkit.common.internal.network.NetworkMetrics;
+import com.bergerkiller.bukkit.common.internal.network.PacketSendBuffer;
 import com.bergerkiller.bukkit.common.protocol.CommonPacket;
+import com.bergerkiller.bukkit.common.protocol.ConnectionStatistics;
 import com.bergerkiller.bukkit.common.protocol.PacketMonitor;
+import com.bergerkiller.bukkit.common.protocol.PacketSendStatistics;
 import com.bergerkiller.bukkit.common.protocol.PacketType;
+import com.bergerkiller.bukkit.common.protocol.PacketTypeStatistics;
 import com.bergerkiller.bukkit.common.protocol.PacketListener;
 import com.bergerkiller.bukkit.common.reflection.classes.ChunkRef;
 
@@ -122,13 +128,36 @@ public class PacketUtil {
 		if (world == null || packet == null) {
 			return;
 		}
-		for (Player player : WorldUtil.getPlayers(world)) {
+		for (Player player : getNearbyPlayers(world, MathUtil.toChunk(x), MathUtil.toChunk(z))) {
 			if (EntityUtil.isNearBlock(player, x, z, CommonUtil.BLOCKVIEW)) {
 				sendPacket(player, packet, throughListeners);
 			}
 		}
 	}
 
+	/**
+	 * Sends multiple packets to all players that can see a block.
+	 * The nearby players are only looked up once for all packets.
+	 * 
+	 * @param world the block is in
+	 * @param x - coordinate of the block
+	 * @param z - coordinate of the block
+	 * @param packets to send (CommonPacket or packet handles)
+	 * @param throughListeners - whether the packets are handled by packet listeners
+	 */
+	public static void broadcastBlockPackets(org.bukkit.World world, final int x, final int z, Collection<?> packets, boolean throughListeners) {
+		if (world == null || LogicUtil.nullOrEmpty(packets)) {
+			return;
+		}
+		for (Player player : getNearbyPlayers(world, MathUtil.toChunk(x), MathUtil.toChunk(z))) {
+			if (EntityUtil.isNearBlock(player, x, z, CommonUtil.BLOCKVIEW)) {
+				for (Object packet : packets) {
+					sendPacket(player, packet, throughListeners);
+				}
+			}
+		}
+	}
+
 	public static void broadcastChunkPacket(org.bukkit.Chunk chunk, Object packet, boolean throughListeners) {
 		if (packet instanceof CommonPacket) {
 			packet = ((CommonPacket) packet).getHandle();
@@ -137,13 +166,38 @@ public class PacketUtil {
 			return;
 		}
 
-		for (Player player : WorldUtil.getPlayers(chunk.getWorld())) {
+		for (Player player : getNearbyPlayers(chunk.getWorld(), chunk.getX(), chunk.getZ())) {
 			if (EntityUtil.isNearChunk(player, chunk.getX(), chunk.getZ(), CommonUtil.VIEW)) {
 				sendPacket(player, packet, throughListeners);
 			}
 		}
 	}
 
+	/**
+	 * Sends multiple packets to all players that can see a chunk.
+	 * The nearby players are only looked up once for all packets.
+	 * 
+	 * @param chunk to send the packets for
+	 * @param packets to send (CommonPacket or packet handles)
+	 * @param throughListeners - whether the packets are handled by packet listeners
+	 */
+	public static void broadcastChunkPackets(org.bukkit.Chunk chunk, Collection<?> packets, boolean throughListeners) {
+		if (chunk == null || LogicUtil.nullOrEmpty(packets)) {
+			return;
+		}
+		for (Player player : getNearbyPlayers(chunk.getWorld(), chunk.getX(), chunk.getZ())) {
+			if (EntityUtil.isNearChunk(player, chunk.getX(), chunk.getZ(), CommonUtil.VIEW)) {
+				for (Object packet : packets) {
+					sendPacket(player, packet, throughListeners);
+				}
+			}
+		}
+	}
+
+	private static Player[] getNearbyPlayers(org.bukkit.World world, int chunkX, int chunkZ) {
+		return CommonPlugin.getInstance().getPlayerChunkIndex().getNearbyPlayers(world, chunkX, chunkZ);
+	}
+
 	public static void broadcastPacket(Object packet, boolean throughListeners) {
 		if (packet instanceof CommonPacket) {
 			packet = ((CommonPacket) packet).getHandle();
@@ -239,4 +293,109 @@ public class PacketUtil {
 	public static long getPendingBytes(Player player) {
 		return CommonPlugin.getInstance().getPacketHandler().getPendingBytes(player);
 	}
+
+	/**
+	 * Sets whether the packets sent to a player are buffered.
+	 * Buffered packets are written in the order they are sent, but the socket is only
+	 * written to once at the end of every tick, instead of once for every packet.
+	 * This reduces the amount of socket writes for players that receive many packets,
+	 * at the cost of holding back packets until the end of the tick they are sent in.
+	 * Packets sent from scheduler tasks, which run at the start of the tick, are therefore
+	 * delayed by up to one tick.
+	 * 
+	 * @param player to set buffering for
+	 * @param buffered - True to buffer the packets, False to send them right away
+	 */
+	public static void setSendBuffered(Player player, boolean buffered) {
+		if (buffered) {
+			PacketSendBuffer.bind(player);
+		} else {
+			PacketSendBuffer.unbind(player);
+		}
+	}
+
+	/**
+	 * Gets whether the packets sent to a player are buffered
+	 * 
+	 * @param player to check
+	 * @return True if buffered, False if not
+	 */
+	public static boolean isSendBuffered(Player player) {
+		return PacketSendBuffer.isBound(player);
+	}
+
+	/**
+	 * Gets the statistics of buffered packet sending during the last tick
+	 * 
+	 * @return last tick statistics
+	 */
+	public static PacketSendStatistics getSendBufferTickStatistics() {
+		return PacketSendBuffer.getTickStatistics();
+	}
+
+	/**
+	 * Gets the statistics of buffered packet sending since the server started
+	 * 
+	 * @return total statistics
+	 */
+	public static PacketSendStatistics getSendBufferTotalStatistics() {
+		return PacketSendBuffer.getTotalStatistics();
+	}
+
+	/**
+	 * Sets whether network metrics are recorded. While enabled, the packets sent and received
+	 * are counted per packet type and per player, the time spent in packet listeners is measured,
+	 * and the packet queues of all players are sampled every second.
+	 * 
+	 * @param enabled state to set to
+	 */
+	public static void setNetworkMetricsEnabled(boolean enabled) {
+		NetworkMetrics.setEnabled(enabled);
+	}
+
+	/**
+	 * Gets whether network metrics are recorded
+	 * 
+	 * @return True if enabled, False if not
+	 */
+	public static boolean isNetworkMetricsEnabled() {
+		return NetworkMetrics.isEnabled();
+	}
+
+	/**
+	 * Clears all recorded network metrics
+	 */
+	public static void resetNetworkMetrics() {
+		NetworkMetrics.reset();
+	}
+
+	/**
+	 * Gets the network statistics recorded for a packet type
+	 * 
+	 * @param type of packet
+	 * @return packet type statistics
+	 */
+	public static PacketTypeStatistics getPacketTypeStatistics(PacketType type) {
+		return NetworkMetrics.getTypeStatistics(type);
+	}
+
+	/**
+	 * Gets the network statistics of all packet types for which packets were recorded,
+	 * sorted by the amount of bytes sent and received, largest first
+	 * 
+	 * @return packet type statistics
+	 */
+	public static List<PacketTypeStatistics> getPacketTypeStatistics() {
+		return NetworkMetrics.getTypeStatistics();
+	}
+
+	/**
+	 * Gets the network statistics recorded for the connection of a player
+	 * 
+	 * @param player to get the statistics of
+	 * @return connection statistics, or null if none were recorded
+	 */
+	public static ConnectionStatistics getConnectionStatistics(Player player) {
+		return NetworkMetrics.getConnectionStatistics(player);
+	}
 }
@@ -158,7 +158,7 @@ public class ParseUtil {
 	 * @return Parsed or default value
 	 */
 	public static float parseFloat(String text, float def) {
-		return parseFloat(text, Float.valueOf(def)).floatValue();
+		return Conversion.toFloatValue.convertFloat(text, def);
 	}
 
 	/**
@@ -180,7 +180,7 @@ public class ParseUtil {
 	 * @return Parsed or default value
 	 */
 	public static double parseDouble(String text, double def) {
-		return parseDouble(text, Double.valueOf(def)).doubleValue();
+		return Conversion.toDoubleValue.convertDouble(text, def);
 	}
 
 	/**
@@ -202,7 +202,7 @@ public class ParseUtil {
 	 * @return Parsed or default value
 	 */
 	public static long parseLong(String text, long def) {
-		return parseLong(text, Long.valueOf(def)).longValue();
+		return Conversion.toLongValue.convertLong(text, def);
 	}
 
 	/**
@@ -224,7 +224,7 @@ public class ParseUtil {
 	 * @return Parsed or default value
 	 */
 	public static int parseInt(String text, int def) {
-		return parseInt(text, Integer.valueOf(def)).intValue();
+		return Conversion.toIntValue.convertInt(text, def);
 	}
 
 	/**
@@ -246,7 +246,7 @@ public class ParseUtil {
 	 * @return Parsed or default value
 	 */
 	public static float parseShort(String text, short def) {
-		return parseShort(text, Short.valueOf(def)).shortValue();
+		return Conversion.toShortValue.convertShort(text, def);
 	}
 
 	/**
@@ -268,7 +268,7 @@ public class ParseUtil {
 	 * @return Parsed or default value
 	 */
 	public static float parseByte(String text, byte def) {
-		return parseByte(text, Byte.valueOf(def)).byteValue();
+		return Conversion.toByteValue.convertByte(text, def);
 	}
 
 	/**
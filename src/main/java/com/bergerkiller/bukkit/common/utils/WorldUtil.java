@@ -1,6 +1,7 @@
 package com.bergerkiller.bukkit.common.utils;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -13,7 +14,9 @@ import org.bukkit.craftbukkit.CraftTravelAgent;
 import org.bukkit.entity.Player;
 import org.bukkit.util.Vector;
 
+import com.bergerkiller.bukkit.common.ChunkLoadFuture;
 import com.bergerkiller.bukkit.common.Common;
+import com.bergerkiller.bukkit.common.bases.IntVector2;
 import com.bergerkiller.bukkit.common.bases.IntVector3;
 import com.bergerkiller.bukkit.common.conversion.Conversion;
 import com.bergerkiller.bukkit.common.conversion.ConversionPairs;
@@ -416,6 +419,28 @@ public class WorldUtil extends ChunkUtil {
 		}
 	}
 
+	/**
+	 * Loads or generates all chunks in a square area without loading them on the main thread.
+	 * See {@link ChunkUtil#loadChunksAsync(org.bukkit.World, Collection, int)} for details.
+	 * 
+	 * @param world to load the chunks in
+	 * @param xmid - chunk x-coordinate of the center of the area
+	 * @param zmid - chunk z-coordinate of the center of the area
+	 * @param radius of the area in chunks
+	 * @param chunksPerTick - maximum amount of chunks to request every tick
+	 * @return future tracking the progress, done once all chunks are loaded
+	 */
+	public static ChunkLoadFuture loadChunksAsync(org.bukkit.World world, final int xmid, final int zmid, final int radius, int chunksPerTick) {
+		final int diameter = 2 * radius + 1;
+		final List<IntVector2> coordinates = new ArrayList<IntVector2>(diameter * diameter);
+		for (int cx = xmid - radius; cx <= xmid + radius; cx++) {
+			for (int cz = zmid - radius; cz <= zmid + radius; cz++) {
+				coordinates.add(new IntVector2(cx, cz));
+			}
+		}
+		return ChunkUtil.loadChunksAsync(world, coordinates, chunksPerTick);
+	}
+
 	public static boolean isLoaded(Location location) {
 		return isLoaded(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
 	}
@@ -0,0 +1,160 @@
+package com.bergerkiller.bukkit.common.collections;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.bergerkiller.bukkit.common.utils.MathUtil;
+
+public class PackedBlockTableTest {
+
+	@Test
+	public void testPutGetRemove() {
+		final Random random = new Random(1234);
+		final PackedBlockTable<Integer> table = new PackedBlockTable<Integer>();
+		final Map<Long, Integer> expected = new HashMap<Long, Integer>();
+		for (int i = 0; i < 200000; i++) {
+			// Small coordinate ranges, so keys are both added and removed often
+			final long key = MathUtil.longBlockHash(random.nextInt(40) - 20, random.nextInt(16), random.nextInt(40) - 20);
+			if (random.nextInt(3) == 0) {
+				Assert.assertEquals(expected.remove(key), table.remove(key));
+			} else {
+				final Integer value = Integer.valueOf(i);
+				Assert.assertEquals(expected.put(key, value), table.put(key, value));
+			}
+			Assert.assertEquals(expected.size(), table.size());
+		}
+		assertContents(expected, table);
+	}
+
+	@Test
+	public void testRemoveWrapAround() {
+		final PackedBlockTable<String> table = new PackedBlockTable<String>();
+		final int lastSlot = table.capacity() - 1;
+		final List<Long> lastKeys = findKeys(lastSlot, 3);
+		final long firstKey = findKeys(0, 1).get(0);
+
+		// Three entries probing from the last slot wrap around to slots 0 and 1, the entry for slot 0 ends up in slot 2
+		for (long key : lastKeys) {
+			table.put(key, "last" + key);
+		}
+		table.put(firstKey, "first");
+		Assert.assertEquals(lastKeys.get(0).longValue(), table.getKeyAt(lastSlot));
+		Assert.assertEquals(lastKeys.get(1).longValue(), table.getKeyAt(0));
+		Assert.assertEquals(lastKeys.get(2).longValue(), table.getKeyAt(1));
+		Assert.assertEquals(firstKey, table.getKeyAt(2));
+
+		// Removing the entry in the last slot shifts all entries back by one slot, across the end of the table
+		Assert.assertEquals("last" + lastKeys.get(0), table.remove(lastKeys.get(0)));
+		Assert.assertEquals(3, table.size());
+		Assert.assertEquals(lastKeys.get(1).longValue(), table.getKeyAt(lastSlot));
+		Assert.assertEquals(lastKeys.get(2).longValue(), table.getKeyAt(0));
+		Assert.assertEquals(firstKey, table.getKeyAt(1));
+		Assert.assertNull(table.getValueAt(2));
+		Assert.assertEquals("last" + lastKeys.get(1), table.get(lastKeys.get(1)));
+		Assert.assertEquals("last" + lastKeys.get(2), table.get(lastKeys.get(2)));
+		Assert.assertEquals("first", table.get(firstKey));
+		Assert.assertNull(table.get(lastKeys.get(0)));
+
+		// Removing the entry in slot 0 moves the entry for slot 0 back into its home slot
+		Assert.assertEquals("last" + lastKeys.get(2), table.remove(lastKeys.get(2)));
+		Assert.assertEquals(firstKey, table.getKeyAt(0));
+		Assert.assertEquals("first", table.get(firstKey));
+		Assert.assertEquals("last" + lastKeys.get(1), table.get(lastKeys.get(1)));
+	}
+
+	@Test
+	public void testResize() {
+		final PackedBlockTable<Integer> table = new PackedBlockTable<Integer>();
+		final Map<Long, Integer> expected = new HashMap<Long, Integer>();
+		final int initialCapacity = table.capacity();
+		int index = 0;
+		for (int x = -16; x < 16; x++) {
+			for (int z = -16; z < 16; z++) {
+				for (int y = 0; y < 4; y++) {
+					final long key = MathUtil.longBlockHash(x, y, z);
+					table.put(key, index);
+					expected.put(key, index);
+					index++;
+				}
+			}
+		}
+		Assert.assertEquals(expected.size(), table.size());
+		Assert.assertTrue(table.capacity() > initialCapacity);
+		Assert.assertEquals("Capacity must remain a power of two", 0, table.capacity() & (table.capacity() - 1));
+		Assert.assertTrue("Load factor exceeded", table.size() <= table.capacity() * 3 / 4);
+		assertContents(expected, table);
+
+		table.clear();
+		Assert.assertEquals(0, table.size());
+		for (long key : expected.keySet()) {
+			Assert.assertNull(table.get(key));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullValue() {
+		new PackedBlockTable<Object>().put(0L, null);
+	}
+
+	@Test
+	public void testPackUnpack() {
+		final int[] xz = {0, 1, -1, 15, -16, 123456, -123456, 33554431, -33554432};
+		final int[] ys = {0, 1, -1, 255, 256, 2047, -2048};
+		for (int x : xz) {
+			for (int y : ys) {
+				for (int z : xz) {
+					assertPackUnpack(x, y, z);
+				}
+			}
+		}
+		final Random random = new Random(5678);
+		for (int i = 0; i < 100000; i++) {
+			assertPackUnpack(random.nextInt(1 << 26) - (1 << 25), random.nextInt(1 << 12) - (1 << 11), random.nextInt(1 << 26) - (1 << 25));
+		}
+		Assert.assertFalse(MathUtil.longBlockHash(-1, 0, 0) == MathUtil.longBlockHash(0, 0, -1));
+		Assert.assertFalse(MathUtil.longBlockHash(0, -1, 0) == MathUtil.longBlockHash(0, 0, -1));
+	}
+
+	private static void assertPackUnpack(int x, int y, int z) {
+		final long key = MathUtil.longBlockHash(x, y, z);
+		Assert.assertEquals(x, MathUtil.longBlockHashX(key));
+		Assert.assertEquals(y, MathUtil.longBlockHashY(key));
+		Assert.assertEquals(z, MathUtil.longBlockHashZ(key));
+	}
+
+	private static <V> void assertContents(Map<Long, V> expected, PackedBlockTable<V> table) {
+		for (Map.Entry<Long, V> entry : expected.entrySet()) {
+			Assert.assertEquals(entry.getValue(), table.get(entry.getKey()));
+		}
+		int count = 0;
+		for (int slot = 0; slot < table.capacity(); slot++) {
+			final V value = table.getValueAt(slot);
+			if (value != null) {
+				Assert.assertEquals(expected.get(table.getKeyAt(slot)), value);
+				count++;
+			}
+		}
+		Assert.assertEquals(expected.size(), count);
+	}
+
+	/**
+	 * Finds keys that are stored in a slot of an empty table with the initial capacity
+	 */
+	private static List<Long> findKeys(int homeSlot, int count) {
+		final List<Long> keys = new ArrayList<Long>(count);
+		for (long key = 0; keys.size() < count; key++) {
+			final PackedBlockTable<Boolean> table = new PackedBlockTable<Boolean>();
+			table.put(key, Boolean.TRUE);
+			if (table.getValueAt(homeSlot) != null) {
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+}
@@ -0,0 +1,147 @@
+package com.bergerkiller.bukkit.common.internal.network;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import net.minecraft.util.io.netty.channel.ChannelHandlerContext;
+import net.minecraft.util.io.netty.channel.ChannelOutboundHandlerAdapter;
+import net.minecraft.util.io.netty.channel.embedded.EmbeddedChannel;
+
+import org.bukkit.entity.Player;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.bergerkiller.bukkit.common.protocol.PacketSendStatistics;
+
+/**
+ * Writes packets to an {@link EmbeddedChannel} buffered by a {@link PacketSendBuffer}, the same way
+ * the network manager does: every packet written is followed by a flush. Checks that the packets of
+ * a tick reach the socket using a single flush, in the order they were written.
+ */
+public class PacketSendBufferTest {
+	private static final int TICKS = 3;
+	private static final int PACKETS_PER_TICK = 40;
+	private FlushCounter counter;
+	private EmbeddedChannel channel;
+	private Player player;
+
+	@Before
+	public void setup() {
+		// Outbound, packets pass the packet handler, the send buffer and then the counter
+		counter = new FlushCounter();
+		channel = new EmbeddedChannel(counter);
+		channel.pipeline().addLast("packet_handler", new ChannelOutboundHandlerAdapter());
+		player = createPlayer();
+		PacketSendBuffer.bind(player, channel);
+		Assert.assertTrue(PacketSendBuffer.isBound(player));
+		Assert.assertNotNull(channel.pipeline().get(PacketSendBuffer.NAME));
+		// Start the tick statistics from here
+		PacketSendBuffer.flushAll();
+	}
+
+	@After
+	public void cleanup() {
+		PacketSendBuffer.unbind(player);
+		channel.runPendingTasks();
+		channel.finish();
+	}
+
+	@Test
+	public void testOneFlushPerTick() {
+		int packet = 0;
+		for (int tick = 1; tick <= TICKS; tick++) {
+			final int firstPacket = packet;
+			for (int i = 0; i < PACKETS_PER_TICK; i++) {
+				channel.write(packet++);
+				channel.flush();
+			}
+			// Nothing reaches the socket until the end of the tick
+			Assert.assertEquals(tick - 1, counter.flushes);
+			Assert.assertNull(channel.readOutbound());
+
+			PacketSendBuffer.flushAll();
+			channel.runPendingTasks();
+			Assert.assertEquals(tick, counter.flushes);
+			for (int i = firstPacket; i < packet; i++) {
+				Assert.assertEquals(i, channel.readOutbound());
+			}
+			Assert.assertNull(channel.readOutbound());
+
+			final PacketSendStatistics stats = PacketSendBuffer.getTickStatistics();
+			Assert.assertEquals(PACKETS_PER_TICK, stats.getPacketsWritten());
+			Assert.assertEquals(PACKETS_PER_TICK, stats.getFlushesRequested());
+		}
+
+		// A tick without packets does not flush
+		PacketSendBuffer.flushAll();
+		channel.runPendingTasks();
+		Assert.assertEquals(TICKS, counter.flushes);
+	}
+
+	@Test
+	public void testMaxPendingPackets() {
+		for (int i = 0; i < PacketSendBuffer.MAX_PENDING_PACKETS; i++) {
+			channel.write(i);
+			channel.flush();
+		}
+		// Flushed right away without waiting for the tick to end
+		Assert.assertEquals(1, counter.flushes);
+		for (int i = 0; i < PacketSendBuffer.MAX_PENDING_PACKETS; i++) {
+			Assert.assertEquals(i, channel.readOutbound());
+		}
+		Assert.assertNull(channel.readOutbound());
+	}
+
+	@Test
+	public void testUnbindFlushes() {
+		for (int i = 0; i < PACKETS_PER_TICK; i++) {
+			channel.write(i);
+			channel.flush();
+		}
+		PacketSendBuffer.unbind(player);
+		channel.runPendingTasks();
+		Assert.assertFalse(PacketSendBuffer.isBound(player));
+		Assert.assertNull(channel.pipeline().get(PacketSendBuffer.NAME));
+		Assert.assertEquals(1, counter.flushes);
+		for (int i = 0; i < PACKETS_PER_TICK; i++) {
+			Assert.assertEquals(i, channel.readOutbound());
+		}
+
+		// Flushes are no longer held back
+		channel.write(PACKETS_PER_TICK);
+		channel.flush();
+		Assert.assertEquals(2, counter.flushes);
+		Assert.assertEquals(PACKETS_PER_TICK, channel.readOutbound());
+	}
+
+	private static Player createPlayer() {
+		return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[] {Player.class}, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("equals")) {
+					return proxy == args[0];
+				} else if (method.getName().equals("hashCode")) {
+					return System.identityHashCode(proxy);
+				} else {
+					return null;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Counts the flushes that reach the socket
+	 */
+	private static class FlushCounter extends ChannelOutboundHandlerAdapter {
+		public int flushes = 0;
+
+		@Override
+		public void flush(ChannelHandlerContext ctx) throws Exception {
+			this.flushes++;
+			super.flush(ctx);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.bergerkiller.bukkit.common.nbt;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LazyTagCompoundTest {
+
+	@Test
+	public void testValues() throws IOException {
+		final LazyTagCompound compound = read(NBTStreamReaderTest.createPlayerData());
+		Assert.assertEquals(Arrays.asList("Pos", "Ints", "Blocks", "Dimension", "Inventory", "Abilities", "Last"), Arrays.asList(compound.keySet().toArray()));
+		Assert.assertEquals(NBTStreamReader.TYPE_INT_ARRAY, compound.getType("Ints"));
+		Assert.assertEquals(NBTStreamReader.TYPE_END, compound.getType("Missing"));
+		Assert.assertEquals(Integer.valueOf(-1), compound.getValue("Dimension"));
+		Assert.assertEquals(Long.valueOf(42L), compound.getValue("Last"));
+		Assert.assertEquals(Arrays.asList(1.0, 2.0, 3.0), compound.getValue("Pos"));
+		Assert.assertArrayEquals(new int[] {4, 5, 6}, (int[]) compound.getValue("Ints"));
+		Assert.assertArrayEquals(new byte[] {1, 2, 3, 4}, (byte[]) compound.getValue("Blocks"));
+		Assert.assertNull(compound.getValue("Missing"));
+		Assert.assertNull(compound.getCompound("Dimension"));
+
+		final LazyTagCompound location = compound.getCompound("Abilities").getCompound("Location");
+		Assert.assertEquals(Short.valueOf((short) 64), location.getValue("Y"));
+		Assert.assertEquals("world", location.getValue("World"));
+	}
+
+	@Test
+	public void testListOfCompounds() throws IOException {
+		final List<?> inventory = (List<?>) read(NBTStreamReaderTest.createPlayerData()).getValue("Inventory");
+		Assert.assertEquals(2, inventory.size());
+		final LazyTagCompound first = (LazyTagCompound) inventory.get(0);
+		Assert.assertEquals("minecraft:stone", first.getValue("id"));
+		Assert.assertEquals(Byte.valueOf((byte) 64), first.getValue("Count"));
+		Assert.assertEquals(1, ((LazyTagCompound) inventory.get(1)).size());
+		Assert.assertEquals("minecraft:dirt", ((LazyTagCompound) inventory.get(1)).getValue("id"));
+	}
+
+	@Test
+	public void testReadOnly() throws IOException {
+		final LazyTagCompound compound = read(NBTStreamReaderTest.createPlayerData());
+		((byte[]) compound.getValue("Blocks"))[0] = 10;
+		((int[]) compound.getValue("Ints"))[0] = 10;
+		Assert.assertArrayEquals(new byte[] {1, 2, 3, 4}, (byte[]) compound.getValue("Blocks"));
+		Assert.assertArrayEquals(new int[] {4, 5, 6}, (int[]) compound.getValue("Ints"));
+		try {
+			((List<?>) compound.getValue("Pos")).clear();
+			Assert.fail("Lists should not be modifiable");
+		} catch (UnsupportedOperationException ex) {
+			// Expected
+		}
+		Assert.assertEquals(3, ((List<?>) compound.getValue("Pos")).size());
+	}
+
+	@Test
+	public void testTruncated() throws IOException {
+		final byte[] data = NBTStreamReaderTest.createPlayerData();
+		// The header of the root compound is checked while reading, the tags when they are first accessed
+		for (int length = 0; length < data.length; length++) {
+			final byte[] truncated = Arrays.copyOf(data, length);
+			try {
+				read(truncated).getValue("Last");
+				Assert.fail("Reading data truncated to " + length + " bytes should fail");
+			} catch (IOException ex) {
+				Assert.assertTrue(length < 3);
+			} catch (IllegalStateException ex) {
+				// Expected
+			}
+		}
+	}
+
+	private static LazyTagCompound read(byte[] data) throws IOException {
+		return LazyTagCompound.readFromUncompressed(new ByteArrayInputStream(data));
+	}
+}
@@ -0,0 +1,91 @@
+package com.bergerkiller.bukkit.common.nbt;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.bergerkiller.bukkit.common.utils.NBTUtil;
+
+/**
+ * Measures reading a single value from a GZIP-compressed player data file using an {@link NBTStreamReader},
+ * using a {@link LazyTagCompound} and by reading the full compound using {@link NBTUtil#readCompound(InputStream)}.
+ * The file contains the data of {@link NBTStreamReaderTest#createPlayerData()}. The value read is either
+ * near the start or at the end of the root compound.<br><br>
+ *
+ * Run the main method to include the allocation rates reported by the GC profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NBTReadBenchmark {
+	@Param({"Dimension", "Last"})
+	public String key;
+	private File file;
+
+	@Setup
+	public void setup() throws IOException {
+		file = File.createTempFile("playerdata", ".dat");
+		final GZIPOutputStream stream = new GZIPOutputStream(new FileOutputStream(file));
+		try {
+			stream.write(NBTStreamReaderTest.createPlayerData());
+		} finally {
+			stream.close();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public Object streamReader() throws IOException {
+		return NBTStreamReader.find(file, key);
+	}
+
+	@Benchmark
+	public Object lazyCompound() throws IOException {
+		return LazyTagCompound.readFrom(file).getValue(key);
+	}
+
+	@Benchmark
+	public Object fullCompound() throws IOException {
+		final InputStream stream = new FileInputStream(file);
+		try {
+			return NBTUtil.readCompound(stream);
+		} finally {
+			stream.close();
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(NBTReadBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
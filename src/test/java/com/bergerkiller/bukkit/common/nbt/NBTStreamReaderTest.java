@@ -0,0 +1,166 @@
+package com.bergerkiller.bukkit.common.nbt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NBTStreamReaderTest {
+
+	@Test
+	public void testFind() throws IOException {
+		final byte[] data = createPlayerData();
+		Assert.assertEquals(Integer.valueOf(-1), reader(data).find("Dimension"));
+		Assert.assertEquals("world", reader(data).find("Abilities", "Location", "World"));
+		Assert.assertEquals(Float.valueOf(0.05f), reader(data).find("Abilities", "flySpeed"));
+		Assert.assertEquals(Long.valueOf(42L), reader(data).find("Last"));
+		Assert.assertArrayEquals(new int[] {4, 5, 6}, (int[]) reader(data).find("Ints"));
+		Assert.assertNull(reader(data).find("Missing"));
+		Assert.assertNull(reader(data).find("Abilities", "Missing"));
+		// Dimension is not a compound
+		Assert.assertNull(reader(data).find("Dimension", "World"));
+
+		// An empty path reads the whole root compound
+		final Map<?, ?> root = (Map<?, ?>) reader(data).find();
+		Assert.assertEquals(Arrays.asList("Pos", "Ints", "Blocks", "Dimension", "Inventory", "Abilities", "Last"), Arrays.asList(root.keySet().toArray()));
+	}
+
+	@Test
+	public void testSkip() throws IOException {
+		final byte[] data = createPlayerData();
+		final NBTStreamReader reader = reader(data);
+		Assert.assertEquals(NBTStreamReader.TYPE_COMPOUND, reader.readType());
+		reader.skipName();
+		// Skip the fixed-size list of doubles and the arrays
+		Assert.assertEquals(NBTStreamReader.TYPE_LIST, reader.readType());
+		Assert.assertEquals("Pos", reader.readName());
+		reader.skipPayload(NBTStreamReader.TYPE_LIST);
+		Assert.assertEquals(NBTStreamReader.TYPE_INT_ARRAY, reader.readType());
+		reader.skipName();
+		reader.skipPayload(NBTStreamReader.TYPE_INT_ARRAY);
+		Assert.assertEquals(NBTStreamReader.TYPE_BYTE_ARRAY, reader.readType());
+		reader.skipName();
+		reader.skipPayload(NBTStreamReader.TYPE_BYTE_ARRAY);
+		Assert.assertEquals(NBTStreamReader.TYPE_INT, reader.readType());
+		Assert.assertEquals("Dimension", reader.readName());
+		Assert.assertEquals(Integer.valueOf(-1), reader.readPayload(NBTStreamReader.TYPE_INT));
+	}
+
+	@Test
+	public void testListOfCompounds() throws IOException {
+		final List<?> inventory = (List<?>) reader(createPlayerData()).find("Inventory");
+		Assert.assertEquals(2, inventory.size());
+		Assert.assertEquals("minecraft:stone", ((Map<?, ?>) inventory.get(0)).get("id"));
+		Assert.assertEquals(Byte.valueOf((byte) 64), ((Map<?, ?>) inventory.get(0)).get("Count"));
+		Assert.assertEquals("minecraft:dirt", ((Map<?, ?>) inventory.get(1)).get("id"));
+
+		final List<?> pos = (List<?>) reader(createPlayerData()).find("Pos");
+		Assert.assertEquals(Arrays.asList(1.0, 2.0, 3.0), pos);
+	}
+
+	@Test
+	public void testTruncated() throws IOException {
+		final byte[] data = createPlayerData();
+		// Every possible truncation, whether inside a fixed-size list, an array or a nested compound, must fail
+		// The end of the root compound, after the last value, is not read
+		for (int length = 0; length < data.length - 1; length++) {
+			final byte[] truncated = Arrays.copyOf(data, length);
+			try {
+				reader(truncated).find("Last");
+				Assert.fail("Reading data truncated to " + length + " bytes should fail");
+			} catch (EOFException ex) {
+				// Expected
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnknownType() throws IOException {
+		final NBTWriter writer = new NBTWriter();
+		writer.begin(NBTStreamReader.TYPE_COMPOUND, "");
+		writer.begin((byte) 99, "Invalid");
+		writer.stream.writeInt(0);
+		reader(writer.toByteArray()).find("Last");
+	}
+
+	private static NBTStreamReader reader(byte[] data) {
+		return new NBTStreamReader(new ByteArrayInputStream(data));
+	}
+
+	/**
+	 * Creates the uncompressed data of a compound similar to a player data file
+	 */
+	static byte[] createPlayerData() throws IOException {
+		final NBTWriter writer = new NBTWriter();
+		writer.begin(NBTStreamReader.TYPE_COMPOUND, "");
+		writer.begin(NBTStreamReader.TYPE_LIST, "Pos");
+		writer.stream.writeByte(NBTStreamReader.TYPE_DOUBLE);
+		writer.stream.writeInt(3);
+		writer.stream.writeDouble(1.0);
+		writer.stream.writeDouble(2.0);
+		writer.stream.writeDouble(3.0);
+		writer.begin(NBTStreamReader.TYPE_INT_ARRAY, "Ints");
+		writer.stream.writeInt(3);
+		writer.stream.writeInt(4);
+		writer.stream.writeInt(5);
+		writer.stream.writeInt(6);
+		writer.begin(NBTStreamReader.TYPE_BYTE_ARRAY, "Blocks");
+		writer.stream.writeInt(4);
+		writer.stream.write(new byte[] {1, 2, 3, 4});
+		writer.begin(NBTStreamReader.TYPE_INT, "Dimension");
+		writer.stream.writeInt(-1);
+		writer.begin(NBTStreamReader.TYPE_LIST, "Inventory");
+		writer.stream.writeByte(NBTStreamReader.TYPE_COMPOUND);
+		writer.stream.writeInt(2);
+		writer.begin(NBTStreamReader.TYPE_STRING, "id");
+		writer.stream.writeUTF("minecraft:stone");
+		writer.begin(NBTStreamReader.TYPE_BYTE, "Count");
+		writer.stream.writeByte(64);
+		writer.end();
+		writer.begin(NBTStreamReader.TYPE_STRING, "id");
+		writer.stream.writeUTF("minecraft:dirt");
+		writer.end();
+		writer.begin(NBTStreamReader.TYPE_COMPOUND, "Abilities");
+		writer.begin(NBTStreamReader.TYPE_FLOAT, "flySpeed");
+		writer.stream.writeFloat(0.05f);
+		writer.begin(NBTStreamReader.TYPE_COMPOUND, "Location");
+		writer.begin(NBTStreamReader.TYPE_SHORT, "Y");
+		writer.stream.writeShort(64);
+		writer.begin(NBTStreamReader.TYPE_STRING, "World");
+		writer.stream.writeUTF("world");
+		writer.end();
+		writer.end();
+		writer.begin(NBTStreamReader.TYPE_LONG, "Last");
+		writer.stream.writeLong(42L);
+		writer.end();
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Writes raw NBT data, the payload of every tag is written to the stream after beginning it
+	 */
+	static class NBTWriter {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		public final DataOutputStream stream = new DataOutputStream(bytes);
+
+		public void begin(byte type, String name) throws IOException {
+			stream.writeByte(type);
+			stream.writeUTF(name);
+		}
+
+		public void end() throws IOException {
+			stream.writeByte(NBTStreamReader.TYPE_END);
+		}
+
+		public byte[] toByteArray() {
+			return bytes.toByteArray();
+		}
+	}
+}
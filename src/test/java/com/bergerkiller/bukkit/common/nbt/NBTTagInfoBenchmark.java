@@ -0,0 +1,118 @@
+package com.bergerkiller.bukkit.common.nbt;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.server.DispenserRegistry;
+import net.minecraft.server.PlayerInventory;
+
+import org.bukkit.Material;
+import org.bukkit.craftbukkit.inventory.CraftInventoryPlayer;
+import org.bukkit.craftbukkit.inventory.CraftItemStack;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.bergerkiller.bukkit.common.utils.NBTUtil;
+
+/**
+ * Measures creating tags and reading their data through {@link NBTTagInfo}, which uses generated
+ * constructors and field accessors, against calling the same Constructor and Field reflectively.
+ * Saving a full player inventory using {@link NBTUtil#saveInventory(Inventory, CommonTagList)}
+ * is measured as well, as it creates a tag for every value of every item.<br><br>
+ *
+ * Run the main method to include the allocation rates reported by the GC profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NBTTagInfoBenchmark {
+	private static final Material[] ITEM_TYPES = {Material.STONE, Material.DIAMOND_SWORD, Material.TORCH, Material.BREAD};
+	private NBTTagInfo intInfo, stringInfo;
+	private Constructor<?> intConstructor;
+	private Field intField;
+	private Integer intValue;
+	private String stringValue;
+	private Object intHandle, stringHandle;
+	private Inventory inventory;
+
+	@Setup
+	public void setup() throws Exception {
+		DispenserRegistry.b();
+		intValue = 12345;
+		stringValue = "minecraft:stone";
+		intInfo = NBTTagInfo.findInfo(intValue);
+		stringInfo = NBTTagInfo.findInfo(stringValue);
+		intConstructor = intInfo.constructor;
+		intConstructor.setAccessible(true);
+		intField = intInfo.dataField;
+		intHandle = intInfo.createHandle(intValue);
+		stringHandle = stringInfo.createHandle(stringValue);
+
+		// Fill all slots of a player inventory, set on the handle as no player owns it
+		final PlayerInventory handle = new PlayerInventory(null);
+		for (int i = 0; i < handle.items.length; i++) {
+			handle.items[i] = CraftItemStack.asNMSCopy(new ItemStack(ITEM_TYPES[i % ITEM_TYPES.length], 1 + i));
+		}
+		inventory = new CraftInventoryPlayer(handle);
+	}
+
+	@Benchmark
+	public Object createIntTag() {
+		return intInfo.createHandle(intValue);
+	}
+
+	@Benchmark
+	public Object createIntTagReflect() throws Exception {
+		return intConstructor.newInstance(intValue);
+	}
+
+	@Benchmark
+	public Object createStringTag() {
+		return stringInfo.createHandle(stringValue);
+	}
+
+	@Benchmark
+	public Object getIntData() {
+		return intInfo.getData(intHandle);
+	}
+
+	@Benchmark
+	public Object getIntDataReflect() throws Exception {
+		return intField.get(intHandle);
+	}
+
+	@Benchmark
+	public Object getStringData() {
+		return stringInfo.getData(stringHandle);
+	}
+
+	@Benchmark
+	public Object saveInventory() {
+		return NBTUtil.saveInventory(inventory, null);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(NBTTagInfoBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
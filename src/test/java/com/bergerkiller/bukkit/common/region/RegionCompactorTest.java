@@ -0,0 +1,313 @@
+package com.bergerkiller.bukkit.common.region;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.bergerkiller.bukkit.common.reflection.classes.RegionFileCacheRef;
+
+public class RegionCompactorTest {
+	private static final int SECTOR_SIZE = RegionFileReader.SECTOR_SIZE;
+	/**
+	 * Sums a hash of the data of every chunk
+	 */
+	private static final ChunkAggregator<Long> CHECKSUM = new ChunkAggregator<Long>() {
+		@Override
+		public Long createResult() {
+			return 0L;
+		}
+
+		@Override
+		public Long addChunk(Long result, ScannedChunk chunk) {
+			final ByteBuffer data = chunk.getData().getCompressedData();
+			long hash = 0;
+			while (data.hasRemaining()) {
+				hash = hash * 31 + data.get();
+			}
+			return result + hash;
+		}
+
+		@Override
+		public Long merge(Long first, Long second) {
+			return first + second;
+		}
+	};
+	private File folder;
+
+	@Before
+	public void setup() throws IOException {
+		folder = File.createTempFile("regiontest", "");
+		Assert.assertTrue(folder.delete() && folder.mkdir());
+	}
+
+	@After
+	public void cleanup() {
+		for (File file : folder.listFiles()) {
+			file.delete();
+		}
+		folder.delete();
+	}
+
+	@Test
+	public void testCompact() throws IOException {
+		// Chunks stored out of order, with unused sectors in between, one of them spanning multiple sectors
+		final ByteBuffer region = ByteBuffer.allocate(20 * SECTOR_SIZE);
+		final Random random = new Random(1234);
+		final byte[][] chunks = new byte[4][];
+		final int[][] layout = {{3, 0, 14, 1, 100}, {0, 5, 4, 3, 200}, {31, 31, 10, 2, 300}, {7, 2, 18, 2, 400}};
+		final int[] lengths = {500, 2 * SECTOR_SIZE + 10, 5000, 1};
+		for (int i = 0; i < layout.length; i++) {
+			chunks[i] = new byte[lengths[i]];
+			random.nextBytes(chunks[i]);
+			chunks[i][0] = RegionChunkData.COMPRESSION_ZLIB;
+			setLocation(region, layout[i][0], layout[i][1], layout[i][2], layout[i][3], layout[i][4]);
+			putChunk(region, layout[i][2], chunks[i]);
+		}
+		final File file = write("r.0.0.mca", region);
+
+		final RegionCompactionResult result = RegionCompactor.compact(file);
+		Assert.assertEquals(4, result.getChunkCount());
+		Assert.assertEquals(20 * SECTOR_SIZE, result.getOriginalSize());
+		Assert.assertEquals((2 + 1 + 3 + 2 + 1) * SECTOR_SIZE, result.getCompactedSize());
+		Assert.assertEquals(file.length(), result.getCompactedSize());
+		Assert.assertFalse(new File(file.getPath() + ".tmp").exists());
+
+		final RegionFileReader reader = new RegionFileReader(file);
+		try {
+			int expectedSector = RegionFileReader.HEADER_SECTORS;
+			for (int z = 0; z < 32; z++) {
+				for (int x = 0; x < 32; x++) {
+					int chunkIndex = -1;
+					for (int i = 0; i < layout.length; i++) {
+						if (layout[i][0] == x && layout[i][1] == z) {
+							chunkIndex = i;
+						}
+					}
+					if (chunkIndex == -1) {
+						Assert.assertFalse(reader.exists(x, z));
+						continue;
+					}
+					// Chunks are stored back-to-back, ordered by their coordinates
+					Assert.assertEquals(expectedSector, reader.getSectorOffset(x, z));
+					expectedSector += reader.getSectorCount(x, z);
+
+					final RegionChunkData data = reader.getChunkData(x, z);
+					Assert.assertEquals(layout[chunkIndex][4], data.getTimestamp());
+					Assert.assertEquals(RegionChunkData.COMPRESSION_ZLIB, data.getCompressionType());
+					final byte[] stored = chunks[chunkIndex];
+					final byte[] expected = new byte[stored.length - 1];
+					final byte[] compressed = new byte[data.getCompressedSize()];
+					System.arraycopy(stored, 1, expected, 0, expected.length);
+					data.getCompressedData().get(compressed);
+					Assert.assertArrayEquals(expected, compressed);
+				}
+			}
+			Assert.assertEquals(file.length() / SECTOR_SIZE, expectedSector);
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testRefuseOpened() throws IOException {
+		final File file = write("r.0.0.mca", createRegion());
+		final byte[] original = read(file);
+		RegionFileCacheRef.FILES.put(file, new Object());
+		try {
+			Assert.assertTrue(RegionCompactor.isOpened(file));
+			RegionCompactor.compact(file);
+			Assert.fail("Opened region file should not be compacted");
+		} catch (IllegalStateException ex) {
+			// Expected
+		} finally {
+			RegionFileCacheRef.FILES.remove(file);
+		}
+		Assert.assertFalse(RegionCompactor.isOpened(file));
+		Assert.assertArrayEquals(original, read(file));
+
+		// Once closed by the server, the region file is compacted again
+		Assert.assertEquals(1, RegionCompactor.compactFolder(folder).size());
+		Assert.assertEquals(3 * SECTOR_SIZE, file.length());
+	}
+
+	@Test
+	public void testOpenedWhileCompacting() throws IOException {
+		final File file = write("r.0.0.mca", createRegion());
+		final byte[] original = read(file);
+		try {
+			RegionCompactor.compact(file, new Runnable() {
+				@Override
+				public void run() {
+					RegionFileCacheRef.FILES.put(file, new Object());
+				}
+			});
+			Assert.fail("Region file opened while compacting should not be replaced");
+		} catch (IllegalStateException ex) {
+			// Expected
+		} finally {
+			RegionFileCacheRef.FILES.remove(file);
+		}
+		Assert.assertArrayEquals(original, read(file));
+		Assert.assertFalse(new File(file.getPath() + ".tmp").exists());
+	}
+
+	@Test
+	public void testChangedWhileCompacting() throws IOException {
+		final File file = write("r.0.0.mca", createRegion());
+		final byte[] original = read(file);
+		final byte[] changed = new byte[original.length + SECTOR_SIZE];
+		System.arraycopy(original, 0, changed, 0, original.length);
+		try {
+			RegionCompactor.compact(file, new Runnable() {
+				@Override
+				public void run() {
+					// The server appends a chunk to the end of the file
+					try {
+						final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+						try {
+							raf.setLength(changed.length);
+						} finally {
+							raf.close();
+						}
+					} catch (IOException ex) {
+						throw new RuntimeException(ex);
+					}
+				}
+			});
+			Assert.fail("Region file changed while compacting should not be replaced");
+		} catch (IllegalStateException ex) {
+			// Expected
+		}
+		Assert.assertArrayEquals(changed, read(file));
+		Assert.assertFalse(new File(file.getPath() + ".tmp").exists());
+	}
+
+	@Test
+	public void testInvalidChunk() throws IOException {
+		final ByteBuffer region = createRegion();
+		// Length larger than the sectors reserved
+		region.putInt(2 * SECTOR_SIZE, SECTOR_SIZE + 1);
+		final File file = write("r.0.0.mca", region);
+		final byte[] original = read(file);
+		try {
+			RegionCompactor.compact(file);
+			Assert.fail("Region file with an invalid chunk should not be compacted");
+		} catch (IOException ex) {
+			// Expected
+		}
+		Assert.assertArrayEquals(original, read(file));
+		Assert.assertFalse(new File(file.getPath() + ".tmp").exists());
+	}
+
+	@Test
+	public void testReadTime() throws IOException {
+		// Chunks of one to three sectors, stored in random order with unused sectors in between
+		final Random random = new Random(5678);
+		final List<Integer> indices = new ArrayList<Integer>();
+		for (int i = 0; i < RegionFileReader.CHUNK_COUNT; i++) {
+			indices.add(i);
+		}
+		Collections.shuffle(indices, random);
+		final int[] lengths = new int[RegionFileReader.CHUNK_COUNT];
+		final int[] offsets = new int[RegionFileReader.CHUNK_COUNT];
+		int sector = RegionFileReader.HEADER_SECTORS;
+		for (int index : indices) {
+			lengths[index] = 1 + random.nextInt(3 * SECTOR_SIZE - 5);
+			offsets[index] = sector;
+			sector += (lengths[index] + 4 + SECTOR_SIZE - 1) / SECTOR_SIZE + random.nextInt(5);
+		}
+		final ByteBuffer region = ByteBuffer.allocate(sector * SECTOR_SIZE);
+		for (int index = 0; index < RegionFileReader.CHUNK_COUNT; index++) {
+			final byte[] chunk = new byte[lengths[index]];
+			random.nextBytes(chunk);
+			chunk[0] = RegionChunkData.COMPRESSION_ZLIB;
+			setLocation(region, index & 31, index >> 5, offsets[index], (lengths[index] + 4 + SECTOR_SIZE - 1) / SECTOR_SIZE, index);
+			putChunk(region, offsets[index], chunk);
+		}
+		final File fragmented = write("r.0.0.mca", region);
+		final File compacted = write("r.1.0.mca", region);
+		final RegionCompactionResult result = RegionCompactor.compact(compacted);
+		Assert.assertTrue(result.getCompactedSize() < result.getOriginalSize());
+
+		// Both regions hold the same chunks, the checksum does not depend on the order chunks are read in
+		Assert.assertEquals(RegionScanner.scanRegion(CHECKSUM, fragmented), RegionScanner.scanRegion(CHECKSUM, compacted));
+
+		final long fragmentedTime = measureReadTime(fragmented);
+		final long compactedTime = measureReadTime(compacted);
+		System.out.println(String.format("Read %d chunks in %.2f ms from a fragmented region of %d KB, in %.2f ms from the compacted region of %d KB",
+				RegionFileReader.CHUNK_COUNT, fragmentedTime / 1.0E6, result.getOriginalSize() >> 10,
+				compactedTime / 1.0E6, result.getCompactedSize() >> 10));
+	}
+
+	/**
+	 * Reads all chunks of a region using the scanner, and gets the fastest time out of several runs
+	 */
+	private static long measureReadTime(File file) {
+		long bestTime = Long.MAX_VALUE;
+		for (int run = 0; run < 10; run++) {
+			final long startTime = System.nanoTime();
+			RegionScanner.scanRegion(CHECKSUM, file);
+			bestTime = Math.min(bestTime, System.nanoTime() - startTime);
+		}
+		return bestTime;
+	}
+
+	/**
+	 * Creates a region with a single chunk, followed by an unused sector
+	 */
+	private static ByteBuffer createRegion() {
+		final ByteBuffer region = ByteBuffer.allocate(4 * SECTOR_SIZE);
+		setLocation(region, 0, 0, 2, 1, 1234);
+		putChunk(region, 2, new byte[] {RegionChunkData.COMPRESSION_ZLIB, 1, 2, 3});
+		return region;
+	}
+
+	private File write(String name, ByteBuffer contents) throws IOException {
+		final File file = new File(folder, name);
+		final FileOutputStream stream = new FileOutputStream(file);
+		try {
+			stream.write(contents.array());
+		} finally {
+			stream.close();
+		}
+		return file;
+	}
+
+	private static byte[] read(File file) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final byte[] data = new byte[(int) raf.length()];
+			raf.readFully(data);
+			return data;
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static void setLocation(ByteBuffer region, int x, int z, int sectorOffset, int sectorCount, int timestamp) {
+		final int index = (x + (z << 5)) << 2;
+		region.putInt(index, (sectorOffset << 8) | sectorCount);
+		region.putInt(SECTOR_SIZE + index, timestamp);
+	}
+
+	/**
+	 * Stores the length and data of a chunk, where the data starts with the compression type
+	 */
+	private static void putChunk(ByteBuffer region, int sectorOffset, byte[] data) {
+		region.putInt(sectorOffset * SECTOR_SIZE, data.length);
+		for (int i = 0; i < data.length; i++) {
+			region.put(sectorOffset * SECTOR_SIZE + 4 + i, data[i]);
+		}
+	}
+}
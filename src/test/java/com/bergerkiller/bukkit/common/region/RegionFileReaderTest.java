@@ -0,0 +1,306 @@
+package com.bergerkiller.bukkit.common.region;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.bergerkiller.bukkit.common.bases.IntVector2;
+
+public class RegionFileReaderTest {
+	private static final int SECTOR_SIZE = RegionFileReader.SECTOR_SIZE;
+	private File folder;
+
+	@Before
+	public void setup() throws IOException {
+		folder = File.createTempFile("regiontest", "");
+		Assert.assertTrue(folder.delete() && folder.mkdir());
+	}
+
+	@After
+	public void cleanup() {
+		for (File file : folder.listFiles()) {
+			file.delete();
+		}
+		folder.delete();
+	}
+
+	@Test
+	public void testHeader() throws IOException {
+		final ByteBuffer region = ByteBuffer.allocate(4 * SECTOR_SIZE);
+		setLocation(region, 0, 0, 2, 1, 1234);
+		setLocation(region, 31, 31, 3, 1, 5678);
+		final File file = write("r.0.0.mca", region);
+
+		final RegionFileReader reader = new RegionFileReader(file);
+		try {
+			Assert.assertEquals(4 * SECTOR_SIZE, reader.getSize());
+			Assert.assertTrue(reader.exists(0, 0));
+			Assert.assertTrue(reader.exists(31, 31));
+			Assert.assertFalse(reader.exists(1, 0));
+			Assert.assertEquals(2, reader.getSectorOffset(0, 0));
+			Assert.assertEquals(1, reader.getSectorCount(0, 0));
+			Assert.assertEquals(1234, reader.getTimestamp(0, 0));
+			Assert.assertEquals(5678, reader.getTimestamp(31, 31));
+			Assert.assertEquals(0, reader.getTimestamp(1, 0));
+			Assert.assertNull(reader.getChunkData(1, 0));
+
+			// Absolute chunk coordinates, including negative ones, only use the lower 5 bits
+			Assert.assertEquals(1234, reader.getTimestamp(32, -32));
+			Assert.assertEquals(5678, reader.getTimestamp(-1, -1));
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testChunkData() throws IOException {
+		final byte[] contents = "chunk contents".getBytes("UTF-8");
+		final ByteBuffer region = ByteBuffer.allocate(3 * SECTOR_SIZE);
+		setLocation(region, 5, 7, 2, 1, 42);
+		putChunk(region, 2, RegionChunkData.COMPRESSION_ZLIB, deflate(contents));
+		final File file = write("r.-1.2.mca", region);
+
+		final RegionFileReader reader = new RegionFileReader(file);
+		try {
+			final RegionChunkData data = reader.getChunkData(5, 7);
+			Assert.assertNotNull(data);
+			Assert.assertEquals(5, data.getX());
+			Assert.assertEquals(7, data.getZ());
+			Assert.assertEquals(42, data.getTimestamp());
+			Assert.assertEquals(RegionChunkData.COMPRESSION_ZLIB, data.getCompressionType());
+			Assert.assertEquals(deflate(contents).length, data.getCompressedSize());
+			Assert.assertArrayEquals(contents, readAll(data.openStream()));
+			// Reading twice gives the same result
+			Assert.assertArrayEquals(contents, readAll(data.openStream()));
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testSectorBounds() throws IOException {
+		final ByteBuffer region = ByteBuffer.allocate(4 * SECTOR_SIZE);
+		// Stored inside the header
+		setLocation(region, 0, 0, 1, 1, 0);
+		// Stored past the end of the file
+		setLocation(region, 1, 0, 4, 1, 0);
+		// Length larger than the sectors reserved
+		setLocation(region, 2, 0, 2, 1, 0);
+		region.putInt(2 * SECTOR_SIZE, SECTOR_SIZE + 1);
+		// Length of zero
+		setLocation(region, 3, 0, 3, 1, 0);
+		region.putInt(3 * SECTOR_SIZE, 0);
+		// Reserved sectors extend past the end of the file, but the data itself does not
+		setLocation(region, 4, 0, 3, 2, 0);
+		final File file = write("r.0.0.mca", region);
+
+		final RegionFileReader reader = new RegionFileReader(file);
+		try {
+			for (int x = 0; x < 4; x++) {
+				try {
+					reader.getChunkData(x, 0);
+					Assert.fail("Chunk " + x + " should not be readable");
+				} catch (IOException ex) {
+					// Expected
+				}
+			}
+		} finally {
+			reader.close();
+		}
+
+		// Valid length at sector 3 for the last chunk
+		region.putInt(3 * SECTOR_SIZE, 10);
+		region.put(3 * SECTOR_SIZE + 4, RegionChunkData.COMPRESSION_ZLIB);
+		final RegionFileReader reader2 = new RegionFileReader(write("r.0.0.mca", region));
+		try {
+			Assert.assertEquals(9, reader2.getChunkData(4, 0).getCompressedSize());
+		} finally {
+			reader2.close();
+		}
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException {
+		final File file = write("r.0.0.mca", ByteBuffer.allocate(SECTOR_SIZE));
+		final RegionFileReader reader = new RegionFileReader(file);
+		try {
+			Assert.assertEquals(0, reader.getSize());
+			Assert.assertFalse(reader.exists(0, 0));
+			Assert.assertEquals(0, reader.getTimestamp(0, 0));
+			Assert.assertNull(reader.getChunkData(0, 0));
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testMissingFile() throws IOException {
+		new RegionFileReader(new File(folder, "r.0.0.mca"));
+	}
+
+	@Test
+	public void testClose() throws IOException {
+		final ByteBuffer region = ByteBuffer.allocate(3 * SECTOR_SIZE);
+		setLocation(region, 0, 0, 2, 1, 0);
+		putChunk(region, 2, RegionChunkData.COMPRESSION_ZLIB, deflate(new byte[100]));
+		final File file = write("r.0.0.mca", region);
+
+		final RegionFileReader reader = new RegionFileReader(file);
+		final RegionChunkData data = reader.getChunkData(0, 0);
+		final InputStream stream = data.openStream();
+		final ByteBuffer copy = data.getCompressedData();
+		Assert.assertTrue(reader.isOpen());
+		reader.close();
+		reader.close();
+		Assert.assertFalse(reader.isOpen());
+		try {
+			reader.exists(0, 0);
+			Assert.fail("Reader should be closed");
+		} catch (IllegalStateException ex) {
+			// Expected
+		}
+		try {
+			data.openStream();
+			Assert.fail("Chunk data of a closed reader should not be readable");
+		} catch (IllegalStateException ex) {
+			// Expected
+		}
+		try {
+			stream.read();
+			Assert.fail("Streams of a closed reader should not be readable");
+		} catch (IOException ex) {
+			// Expected
+		}
+		try {
+			data.getCompressedData();
+			Assert.fail("Chunk data of a closed reader should not be readable");
+		} catch (IllegalStateException ex) {
+			// Expected
+		}
+		// Copies of the data remain readable
+		Assert.assertArrayEquals(deflate(new byte[100]), readAll(copy));
+
+		// The mapping is released, so the file can be removed
+		Assert.assertTrue(file.delete());
+	}
+
+	@Test
+	public void testCloseWhileReading() throws Exception {
+		final byte[] contents = new byte[100000];
+		new Random(1234).nextBytes(contents);
+		final byte[] compressed = deflate(contents);
+		final int sectors = (compressed.length + 5 + SECTOR_SIZE - 1) / SECTOR_SIZE;
+		final ByteBuffer region = ByteBuffer.allocate((2 + sectors) * SECTOR_SIZE);
+		setLocation(region, 0, 0, 2, sectors, 0);
+		putChunk(region, 2, RegionChunkData.COMPRESSION_ZLIB, compressed);
+		final File file = write("r.0.0.mca", region);
+
+		// Threads keep reading the chunk until the reader is closed, which must only ever fail with an exception
+		final RegionFileReader reader = new RegionFileReader(file);
+		final RegionChunkData data = reader.getChunkData(0, 0);
+		final AtomicInteger reads = new AtomicInteger();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						while (true) {
+							Assert.assertArrayEquals(contents, readAll(data.openStream()));
+							reader.getTimestamp(0, 0);
+							reads.incrementAndGet();
+						}
+					} catch (IOException ex) {
+						// Closed while reading the stream
+					} catch (IllegalStateException ex) {
+						// Closed before opening the stream
+					} catch (Throwable t) {
+						failure.set(t);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		while (reads.get() < 10) {
+			Thread.sleep(1);
+		}
+		reader.close();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertNull(failure.get());
+		Assert.assertFalse(reader.isOpen());
+	}
+
+	@Test
+	public void testRegionCoordinates() {
+		Assert.assertEquals(new IntVector2(-3, 12), RegionFileReader.getRegionCoordinates(new File("r.-3.12.mca")));
+		Assert.assertNull(RegionFileReader.getRegionCoordinates(new File("r.0.0.mcr")));
+		Assert.assertNull(RegionFileReader.getRegionCoordinates(new File("r.a.0.mca")));
+		Assert.assertNull(RegionFileReader.getRegionCoordinates(new File("level.dat")));
+	}
+
+	private File write(String name, ByteBuffer contents) throws IOException {
+		final File file = new File(folder, name);
+		final FileOutputStream stream = new FileOutputStream(file);
+		try {
+			stream.write(contents.array());
+		} finally {
+			stream.close();
+		}
+		return file;
+	}
+
+	private static void setLocation(ByteBuffer region, int x, int z, int sectorOffset, int sectorCount, int timestamp) {
+		final int index = (x + (z << 5)) << 2;
+		region.putInt(index, (sectorOffset << 8) | sectorCount);
+		region.putInt(SECTOR_SIZE + index, timestamp);
+	}
+
+	private static void putChunk(ByteBuffer region, int sectorOffset, byte compression, byte[] data) {
+		region.putInt(sectorOffset * SECTOR_SIZE, data.length + 1);
+		region.put(sectorOffset * SECTOR_SIZE + 4, compression);
+		for (int i = 0; i < data.length; i++) {
+			region.put(sectorOffset * SECTOR_SIZE + 5 + i, data[i]);
+		}
+	}
+
+	private static byte[] deflate(byte[] data) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DeflaterOutputStream stream = new DeflaterOutputStream(bytes);
+		stream.write(data);
+		stream.close();
+		return bytes.toByteArray();
+	}
+
+	private static byte[] readAll(ByteBuffer buffer) {
+		final byte[] data = new byte[buffer.remaining()];
+		buffer.get(data);
+		return data;
+	}
+
+	private static byte[] readAll(InputStream stream) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[256];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+		stream.close();
+		return bytes.toByteArray();
+	}
+}
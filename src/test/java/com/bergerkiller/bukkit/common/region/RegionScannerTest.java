@@ -0,0 +1,233 @@
+package com.bergerkiller.bukkit.common.region;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.bergerkiller.bukkit.common.bases.IntVector2;
+import com.bergerkiller.bukkit.common.filtering.Filter;
+
+/**
+ * Scans a generated folder of region files, with chunks containing block sections and entities,
+ * and checks the results of the aggregators. The time taken to count all blocks is printed for
+ * increasing parallelism.
+ */
+public class RegionScannerTest {
+	private static final int SECTOR_SIZE = RegionFileReader.SECTOR_SIZE;
+	private static final int[][] REGIONS = {{0, 0}, {1, 0}, {-1, 0}, {0, -1}, {-1, -1}, {2, 3}, {-3, 1}, {1, 1}};
+	private static final int CHUNKS_PER_REGION = 128;
+	private static final String[] ENTITY_TYPES = {"Cow", "Pig", "Zombie"};
+	private File folder;
+	private final Map<IntVector2, Integer> timestamps = new HashMap<IntVector2, Integer>();
+	private final long[] blockCounts = new long[4096];
+	private final Map<String, Integer> entityCounts = new HashMap<String, Integer>();
+	private long compressedSize = 0;
+
+	@Before
+	public void setup() throws IOException {
+		folder = File.createTempFile("regiontest", "");
+		Assert.assertTrue(folder.delete() && folder.mkdir());
+		final Random random = new Random(4321);
+		for (int[] region : REGIONS) {
+			createRegion(random, region[0], region[1]);
+		}
+		// Files that are not region files are ignored
+		new File(folder, "r.0.0.mca.tmp").createNewFile();
+		new File(folder, "level.dat").createNewFile();
+	}
+
+	@After
+	public void cleanup() {
+		for (File file : folder.listFiles()) {
+			file.delete();
+		}
+		folder.delete();
+	}
+
+	@Test
+	public void testAggregators() {
+		final RegionScanner scanner = new RegionScanner(folder);
+		Assert.assertEquals(REGIONS.length, scanner.getRegionFiles().size());
+		Assert.assertEquals(Integer.valueOf(REGIONS.length * CHUNKS_PER_REGION), scanner.scan(ChunkAggregators.CHUNK_COUNT));
+		Assert.assertEquals(Long.valueOf(compressedSize), scanner.scan(ChunkAggregators.COMPRESSED_SIZE));
+		Assert.assertEquals(timestamps, scanner.scan(ChunkAggregators.CHUNK_TIMESTAMPS));
+		Assert.assertEquals(timestamps.keySet(), scanner.scan(ChunkAggregators.CHUNK_SIZES).keySet());
+		Assert.assertTrue(Arrays.equals(blockCounts, scanner.scan(ChunkAggregators.BLOCK_COUNTS)));
+		Assert.assertEquals(entityCounts, scanner.scan(ChunkAggregators.ENTITY_COUNTS));
+		Assert.assertEquals(new HashMap<String, Integer>(), scanner.scan(ChunkAggregators.TILE_ENTITY_COUNTS));
+
+		// Only the chunks of a single region pass the filter
+		final List<IntVector2> found = scanner.findChunks(new Filter<ScannedChunk>() {
+			@Override
+			public boolean isFiltered(ScannedChunk chunk) {
+				return (chunk.getX() >> 5) != 2 || (chunk.getZ() >> 5) != 3;
+			}
+		});
+		Assert.assertEquals(CHUNKS_PER_REGION, found.size());
+		Assert.assertEquals(CHUNKS_PER_REGION, new HashSet<IntVector2>(found).size());
+		for (IntVector2 chunk : found) {
+			Assert.assertTrue(timestamps.containsKey(chunk));
+		}
+	}
+
+	@Test
+	public void testParallelism() {
+		final RegionScanner scanner = new RegionScanner(folder);
+		// Warm up, so the first measurement is not slowed down by class loading and compilation
+		scanner.scan(ChunkAggregators.BLOCK_COUNTS);
+		long singleTime = 0;
+		for (int parallelism = 1; parallelism <= 8; parallelism <<= 1) {
+			scanner.setParallelism(parallelism);
+			Assert.assertEquals(parallelism, scanner.getParallelism());
+			final long startTime = System.nanoTime();
+			final long[] result = scanner.scan(ChunkAggregators.BLOCK_COUNTS);
+			final long time = System.nanoTime() - startTime;
+			if (parallelism == 1) {
+				singleTime = time;
+			}
+			Assert.assertTrue(Arrays.equals(blockCounts, result));
+			System.out.println(String.format("Counted the blocks of %d regions using %d thread(s) in %.1f ms (%.2fx)",
+					REGIONS.length, parallelism, time / 1.0E6, (double) singleTime / time));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidParallelism() {
+		new RegionScanner(folder).setParallelism(0);
+	}
+
+	@Test
+	public void testMissingFolder() {
+		final RegionScanner scanner = new RegionScanner(new File(folder, "missing"));
+		Assert.assertTrue(scanner.getRegionFiles().isEmpty());
+		Assert.assertEquals(Integer.valueOf(0), scanner.scan(ChunkAggregators.CHUNK_COUNT));
+	}
+
+	/**
+	 * Writes a region file with chunks at random positions, each chunk stored in as few sectors as possible
+	 */
+	private void createRegion(Random random, int regionX, int regionZ) throws IOException {
+		final List<Integer> free = new ArrayList<Integer>();
+		for (int i = 0; i < RegionFileReader.CHUNK_COUNT; i++) {
+			free.add(i);
+		}
+		final int[] indices = new int[CHUNKS_PER_REGION];
+		final byte[][] chunks = new byte[CHUNKS_PER_REGION][];
+		final int[] locations = new int[CHUNKS_PER_REGION];
+		final int[] chunkTimestamps = new int[CHUNKS_PER_REGION];
+		int sector = RegionFileReader.HEADER_SECTORS;
+		for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+			indices[i] = free.remove(random.nextInt(free.size()));
+			chunks[i] = createChunk(random);
+			chunkTimestamps[i] = random.nextInt(Integer.MAX_VALUE);
+			final int sectorCount = (chunks[i].length + 5 + SECTOR_SIZE - 1) / SECTOR_SIZE;
+			locations[i] = (sector << 8) | sectorCount;
+			sector += sectorCount;
+			timestamps.put(new IntVector2((regionX << 5) + (indices[i] & 31), (regionZ << 5) + (indices[i] >> 5)), chunkTimestamps[i]);
+			compressedSize += chunks[i].length;
+		}
+
+		final ByteBuffer region = ByteBuffer.allocate(sector * SECTOR_SIZE);
+		for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+			region.putInt(indices[i] << 2, locations[i]);
+			region.putInt(SECTOR_SIZE + (indices[i] << 2), chunkTimestamps[i]);
+			region.position((locations[i] >> 8) * SECTOR_SIZE);
+			region.putInt(chunks[i].length + 1);
+			region.put(RegionChunkData.COMPRESSION_ZLIB);
+			region.put(chunks[i]);
+		}
+		final FileOutputStream stream = new FileOutputStream(new File(folder, "r." + regionX + "." + regionZ + ".mca"));
+		try {
+			stream.write(region.array());
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Creates the zlib-compressed data of a chunk with one to four sections and a few entities
+	 */
+	private byte[] createChunk(Random random) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream stream = new DataOutputStream(new DeflaterOutputStream(bytes));
+		beginTag(stream, 10, "");
+		beginTag(stream, 10, "Level");
+		beginTag(stream, 3, "xPos");
+		stream.writeInt(random.nextInt());
+
+		// Sections of blocks, some using extended block ids
+		final int sectionCount = 1 + random.nextInt(4);
+		beginTag(stream, 9, "Sections");
+		stream.writeByte(10);
+		stream.writeInt(sectionCount);
+		for (int s = 0; s < sectionCount; s++) {
+			final byte[] blocks = new byte[4096];
+			final int fill = 1 + random.nextInt(16);
+			for (int i = 0; i < blocks.length; i++) {
+				blocks[i] = (byte) ((i % 7 == 0) ? 0 : fill);
+			}
+			beginTag(stream, 1, "Y");
+			stream.writeByte(s);
+			beginTag(stream, 7, "Blocks");
+			stream.writeInt(blocks.length);
+			stream.write(blocks);
+			final int ext = random.nextInt(4) == 0 ? 1 + random.nextInt(15) : 0;
+			if (ext != 0) {
+				final byte[] add = new byte[2048];
+				Arrays.fill(add, (byte) ((ext << 4) | ext));
+				beginTag(stream, 7, "Add");
+				stream.writeInt(add.length);
+				stream.write(add);
+			}
+			for (byte block : blocks) {
+				blockCounts[(ext << 8) | (block & 0xFF)]++;
+			}
+			stream.writeByte(0);
+		}
+
+		// Entities
+		final int entityCount = random.nextInt(4);
+		beginTag(stream, 9, "Entities");
+		stream.writeByte(10);
+		stream.writeInt(entityCount);
+		for (int e = 0; e < entityCount; e++) {
+			final String type = ENTITY_TYPES[random.nextInt(ENTITY_TYPES.length)];
+			beginTag(stream, 8, "id");
+			stream.writeUTF(type);
+			beginTag(stream, 9, "Pos");
+			stream.writeByte(6);
+			stream.writeInt(3);
+			for (int i = 0; i < 3; i++) {
+				stream.writeDouble(random.nextDouble());
+			}
+			stream.writeByte(0);
+			final Integer count = entityCounts.get(type);
+			entityCounts.put(type, (count == null) ? 1 : (count + 1));
+		}
+		stream.writeByte(0);
+		stream.writeByte(0);
+		stream.close();
+		return bytes.toByteArray();
+	}
+
+	private static void beginTag(DataOutputStream stream, int type, String name) throws IOException {
+		stream.writeByte(type);
+		stream.writeUTF(name);
+	}
+}
@@ -0,0 +1,94 @@
+package com.bergerkiller.bukkit.common.test;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.bergerkiller.bukkit.common.conversion.type.ConversionTypes;
+
+/**
+ * Verifies that the primitive converters do not allocate when converting numbers and booleans.
+ * The allocated bytes of the current thread are measured around a loop that is run
+ * often enough beforehand for the JIT compiler to have optimized it.
+ */
+public class ConversionAllocationTest {
+	private static final int WARMUP_ITERATIONS = 200000;
+	private static final int ITERATIONS = 100000;
+	private static final Object[] VALUES = {Byte.valueOf((byte) 12), Short.valueOf((short) -300), Integer.valueOf(70000),
+			Long.valueOf(5000000000L), Float.valueOf(1.5f), Double.valueOf(-2.25), null};
+	private static final Object[] BOOLEANS = {Boolean.TRUE, Boolean.FALSE, null};
+	private double sink;
+
+	@Test
+	public void testNumbersDoNotAllocate() {
+		final com.sun.management.ThreadMXBean bean = getThreadBean();
+		convertNumbers(WARMUP_ITERATIONS);
+		final long threadId = Thread.currentThread().getId();
+		final long before = bean.getThreadAllocatedBytes(threadId);
+		convertNumbers(ITERATIONS);
+		final long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+		// A single boxed value per iteration would allocate at least 16 bytes per iteration
+		Assert.assertTrue("Converting numbers allocated " + allocated + " bytes", allocated < ITERATIONS);
+	}
+
+	@Test
+	public void testBooleansDoNotAllocate() {
+		final com.sun.management.ThreadMXBean bean = getThreadBean();
+		convertBooleans(WARMUP_ITERATIONS);
+		final long threadId = Thread.currentThread().getId();
+		final long before = bean.getThreadAllocatedBytes(threadId);
+		convertBooleans(ITERATIONS);
+		final long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+		Assert.assertTrue("Converting booleans allocated " + allocated + " bytes", allocated < ITERATIONS);
+	}
+
+	@Test
+	public void testValues() {
+		Assert.assertEquals(12, ConversionTypes.toIntValue.convertInt(VALUES[0], 0));
+		Assert.assertEquals(70000, ConversionTypes.toIntValue.convertInt(VALUES[2], 0));
+		Assert.assertEquals(-1, ConversionTypes.toIntValue.convertInt(null, -1));
+		Assert.assertEquals(5000000000L, ConversionTypes.toLongValue.convertLong(VALUES[3], 0L));
+		Assert.assertEquals(-300, ConversionTypes.toShortValue.convertShort(VALUES[1], (short) 0));
+		Assert.assertEquals(-2.25, ConversionTypes.toDoubleValue.convertDouble(VALUES[5], 0.0), 0.0);
+		Assert.assertEquals(1.5f, ConversionTypes.toFloatValue.convertFloat(VALUES[4], 0.0f), 0.0f);
+		Assert.assertEquals(12, ConversionTypes.toByteValue.convertByte(VALUES[0], (byte) 0));
+		Assert.assertEquals(42, ConversionTypes.toIntValue.convertInt("42", 0));
+		Assert.assertEquals(7, ConversionTypes.toIntValue.convertInt("invalid", 7));
+		Assert.assertTrue(ConversionTypes.toBoolValue.convertBool(Boolean.TRUE, false));
+		Assert.assertTrue(ConversionTypes.toBoolValue.convertBool(null, true));
+	}
+
+	private void convertNumbers(int iterations) {
+		double total = 0.0;
+		for (int i = 0; i < iterations; i++) {
+			final Object value = VALUES[i % VALUES.length];
+			total += ConversionTypes.toByteValue.convertByte(value, (byte) 1);
+			total += ConversionTypes.toShortValue.convertShort(value, (short) 2);
+			total += ConversionTypes.toIntValue.convertInt(value, 3);
+			total += ConversionTypes.toLongValue.convertLong(value, 4L);
+			total += ConversionTypes.toFloatValue.convertFloat(value, 5.0f);
+			total += ConversionTypes.toDoubleValue.convertDouble(value, 6.0);
+		}
+		sink += total;
+	}
+
+	private void convertBooleans(int iterations) {
+		int total = 0;
+		for (int i = 0; i < iterations; i++) {
+			if (ConversionTypes.toBoolValue.convertBool(BOOLEANS[i % BOOLEANS.length], true)) {
+				total++;
+			}
+		}
+		sink += total;
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled());
+		return sunBean;
+	}
+}
@@ -0,0 +1,151 @@
+package com.bergerkiller.bukkit.common.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.util.io.netty.channel.embedded.EmbeddedChannel;
+
+import org.bukkit.entity.Player;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.bergerkiller.bukkit.common.internal.network.NetworkMetrics;
+import com.bergerkiller.bukkit.common.internal.network.OfflinePacketHandler;
+import com.bergerkiller.bukkit.common.protocol.ConnectionStatistics;
+import com.bergerkiller.bukkit.common.protocol.PacketReplay;
+import com.bergerkiller.bukkit.common.protocol.PacketType;
+import com.bergerkiller.bukkit.common.protocol.PacketTypeStatistics;
+
+/**
+ * Replays a simulated load of several players through an {@link OfflinePacketHandler}
+ * and checks the network metrics recorded per packet type and per connection.
+ */
+public class NetworkMetricsTest {
+	private static final int PLAYER_COUNT = 8;
+	private static final int SECONDS = 10;
+	private static final int CHUNK_SIZE = 4096;
+	private static final int PAYLOAD_SIZE = 256;
+
+	@Before
+	public void setup() {
+		NetworkMetrics.reset();
+		NetworkMetrics.setEnabled(true);
+	}
+
+	@After
+	public void cleanup() {
+		NetworkMetrics.setEnabled(false);
+		NetworkMetrics.reset();
+	}
+
+	@Test
+	public void testBandwidthByType() {
+		final Map<PacketType, Integer> counts = new HashMap<PacketType, Integer>();
+		final PacketReplay second = PacketReplay.create(createSecond(counts));
+		final OfflinePacketHandler handler = new OfflinePacketHandler();
+		final List<Player> players = new ArrayList<Player>();
+		for (int i = 0; i < PLAYER_COUNT; i++) {
+			final Player player = PacketDispatchBenchmark.createStub(Player.class);
+			NetworkMetrics.add(player);
+			players.add(player);
+			final EmbeddedChannel channel = PacketReplay.createChannel(handler, player);
+			second.replay(channel, SECONDS);
+			channel.finish();
+		}
+
+		// Show which packet types take up most of the bandwidth
+		final List<PacketTypeStatistics> stats = NetworkMetrics.getTypeStatistics();
+		long totalBytes = 0;
+		for (PacketTypeStatistics typeStats : stats) {
+			totalBytes += typeStats.getTotalBytes();
+		}
+		for (PacketTypeStatistics typeStats : stats) {
+			System.out.println(String.format("%-28s %8d packets %10d bytes %5.1f%%", typeStats.getType(),
+					typeStats.getPacketsSent() + typeStats.getPacketsReceived(), typeStats.getTotalBytes(),
+					100.0 * typeStats.getTotalBytes() / totalBytes));
+		}
+
+		Assert.assertEquals(counts.size(), stats.size());
+		for (PacketTypeStatistics typeStats : stats) {
+			final long expected = (long) counts.get(typeStats.getType()) * SECONDS * PLAYER_COUNT;
+			Assert.assertEquals(expected, typeStats.getPacketsSent() + typeStats.getPacketsReceived());
+		}
+		// Chunk data dominates, even though far more movement packets are sent
+		Assert.assertEquals(PacketType.OUT_MAP_CHUNK, stats.get(0).getType());
+		Assert.assertTrue(stats.get(0).getTotalBytes() > totalBytes / 2);
+		Assert.assertTrue(NetworkMetrics.getTypeStatistics(PacketType.OUT_ENTITY_MOVE_LOOK).getPacketsSent() > stats.get(0).getPacketsSent());
+
+		// Every connection received the same load, and together they account for all bytes
+		long connectionBytes = 0;
+		for (Player player : players) {
+			final ConnectionStatistics connection = NetworkMetrics.getConnectionStatistics(player);
+			Assert.assertNotNull(connection);
+			Assert.assertEquals(totalBytes / PLAYER_COUNT, connection.getBytesSent() + connection.getBytesReceived());
+			connectionBytes += connection.getBytesSent() + connection.getBytesReceived();
+		}
+		Assert.assertEquals(totalBytes, connectionBytes);
+	}
+
+	@Test
+	public void testQuitPlayerNotAdded() {
+		final OfflinePacketHandler handler = new OfflinePacketHandler();
+		final PacketReplay second = PacketReplay.create(createSecond(new HashMap<PacketType, Integer>()));
+		final Player joined = PacketDispatchBenchmark.createStub(Player.class);
+		final Player quit = PacketDispatchBenchmark.createStub(Player.class);
+		NetworkMetrics.add(joined);
+		NetworkMetrics.add(quit);
+		NetworkMetrics.remove(quit);
+
+		// Packets still handled by the network threads after a player quit must not add the player again
+		for (Player player : new Player[] {joined, quit}) {
+			final EmbeddedChannel channel = PacketReplay.createChannel(handler, player);
+			second.replay(channel, 1);
+			channel.finish();
+		}
+		Assert.assertNotNull(NetworkMetrics.getConnectionStatistics(joined));
+		Assert.assertNull(NetworkMetrics.getConnectionStatistics(quit));
+		// Packets of both players are still counted for their packet type
+		final long joinedBytes = NetworkMetrics.getConnectionStatistics(joined).getBytesSent();
+		Assert.assertEquals(2 * joinedBytes, NetworkMetrics.getTypeStatistics(PacketType.OUT_MAP_CHUNK).getBytesSent()
+				+ NetworkMetrics.getTypeStatistics(PacketType.OUT_ENTITY_MOVE_LOOK).getBytesSent()
+				+ NetworkMetrics.getTypeStatistics(PacketType.OUT_KEEP_ALIVE).getBytesSent()
+				+ NetworkMetrics.getTypeStatistics(PacketType.OUT_CUSTOM_PAYLOAD).getBytesSent());
+	}
+
+	/**
+	 * Creates the packets of a single second of play, 20 ticks, for one player.
+	 * Every tick, the movement of 10 nearby entities is sent and the player sends its position.
+	 * Two chunks are sent every second, next to a keep-alive and a plugin message.
+	 */
+	private static List<Object> createSecond(Map<PacketType, Integer> counts) {
+		final List<Object> packets = new ArrayList<Object>();
+		for (int tick = 0; tick < 20; tick++) {
+			for (int entity = 0; entity < 10; entity++) {
+				add(packets, counts, PacketType.OUT_ENTITY_MOVE_LOOK.newInstanceNull());
+			}
+			add(packets, counts, PacketType.IN_POSITION_LOOK.newInstanceNull());
+			if (tick % 10 == 0) {
+				final Object chunk = PacketType.OUT_MAP_CHUNK.newInstanceNull();
+				PacketType.OUT_MAP_CHUNK.buffer.set(chunk, new byte[CHUNK_SIZE]);
+				add(packets, counts, chunk);
+			}
+		}
+		add(packets, counts, PacketType.OUT_KEEP_ALIVE.newInstanceNull());
+		final Object payload = PacketType.OUT_CUSTOM_PAYLOAD.newInstanceNull();
+		PacketType.OUT_CUSTOM_PAYLOAD.tag.set(payload, "BungeeCord");
+		PacketType.OUT_CUSTOM_PAYLOAD.data.set(payload, new byte[PAYLOAD_SIZE]);
+		add(packets, counts, payload);
+		return packets;
+	}
+
+	private static void add(List<Object> packets, Map<PacketType, Integer> counts, Object packet) {
+		final PacketType type = PacketType.getType(packet);
+		final Integer count = counts.get(type);
+		counts.put(type, (count == null) ? 1 : (count + 1));
+		packets.add(packet);
+	}
+}
@@ -0,0 +1,173 @@
+package com.bergerkiller.bukkit.common.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.util.io.netty.channel.embedded.EmbeddedChannel;
+
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.bergerkiller.bukkit.common.events.PacketReceiveEvent;
+import com.bergerkiller.bukkit.common.events.PacketSendEvent;
+import com.bergerkiller.bukkit.common.internal.network.OfflinePacketHandler;
+import com.bergerkiller.bukkit.common.protocol.PacketListener;
+import com.bergerkiller.bukkit.common.protocol.PacketReplay;
+import com.bergerkiller.bukkit.common.protocol.PacketType;
+
+/**
+ * Measures the throughput and allocation of dispatching packets to 0, 1 and 10 listeners per packet type.
+ * The packets are replayed through an {@link OfflinePacketHandler} in an embedded channel, so no server is needed.
+ * A recording made using a PacketRecorder is replayed when the bkcommonlib.replay system property is set,
+ * otherwise a fixed mix of movement and keep-alive packets is used. One operation dispatches all packets once.<br><br>
+ *
+ * When not pooled, the listeners retain every event they receive. A retained event is not put back into
+ * the pool, so every dispatch creates a new event and packet, like before the events were pooled.<br><br>
+ *
+ * Run the main method to include the allocation rates reported by the GC profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketDispatchBenchmark {
+	@Param({"0", "1", "10"})
+	public int listenerCount;
+	@Param({"true", "false"})
+	public boolean pooled;
+	private PacketReplay replay;
+	private EmbeddedChannel channel;
+	private int dispatched;
+
+	@Setup
+	public void setup() throws IOException {
+		final String recording = System.getProperty("bkcommonlib.replay");
+		if (recording == null) {
+			replay = PacketReplay.create(createPackets());
+		} else {
+			replay = PacketReplay.load(new File(recording));
+			if (replay.getSkippedCount() > 0) {
+				System.out.println("Skipped " + replay.getSkippedCount() + " packets with fields that were not recorded");
+			}
+		}
+		final Set<PacketType> types = new LinkedHashSet<PacketType>();
+		for (Object packet : replay.getPackets()) {
+			types.add(PacketType.getType(packet));
+		}
+		final OfflinePacketHandler handler = new OfflinePacketHandler();
+		final Plugin plugin = createStub(Plugin.class);
+		for (int i = 0; i < listenerCount; i++) {
+			handler.addPacketListener(plugin, new PacketListener() {
+				@Override
+				public void onPacketReceive(PacketReceiveEvent event) {
+					if (!pooled) {
+						event.retain();
+					}
+					dispatched++;
+				}
+
+				@Override
+				public void onPacketSend(PacketSendEvent event) {
+					if (!pooled) {
+						event.retain();
+					}
+					dispatched++;
+				}
+			}, types.toArray(new PacketType[0]));
+		}
+		channel = PacketReplay.createChannel(handler, createStub(Player.class));
+	}
+
+	@TearDown
+	public void tearDown() {
+		channel.finish();
+	}
+
+	@Benchmark
+	public int dispatch() {
+		replay.replay(channel, 1);
+		return dispatched;
+	}
+
+	private static List<Object> createPackets() {
+		final PacketType[] mix = {PacketType.OUT_ENTITY_MOVE_LOOK, PacketType.OUT_ENTITY_MOVE, PacketType.OUT_ENTITY_LOOK,
+				PacketType.OUT_ENTITY_VELOCITY, PacketType.IN_POSITION_LOOK, PacketType.IN_FLYING,
+				PacketType.OUT_KEEP_ALIVE, PacketType.IN_KEEP_ALIVE};
+		final List<Object> packets = new ArrayList<Object>();
+		for (int i = 0; i < 100; i++) {
+			packets.add(mix[i % mix.length].newInstanceNull());
+		}
+		return packets;
+	}
+
+	/**
+	 * Creates an implementation of an interface whose methods do nothing and return default values
+	 */
+	static <T> T createStub(final Class<T> type) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				final String name = method.getName();
+				final Class<?> returnType = method.getReturnType();
+				if (name.equals("equals") && args != null && args.length == 1) {
+					return proxy == args[0];
+				} else if (name.equals("hashCode") && args == null) {
+					return System.identityHashCode(proxy);
+				} else if (name.equals("toString") && args == null) {
+					return "Offline" + type.getSimpleName();
+				} else if (returnType == boolean.class) {
+					return false;
+				} else if (returnType == char.class) {
+					return (char) 0;
+				} else if (returnType == byte.class) {
+					return (byte) 0;
+				} else if (returnType == short.class) {
+					return (short) 0;
+				} else if (returnType == int.class) {
+					return 0;
+				} else if (returnType == long.class) {
+					return 0L;
+				} else if (returnType == float.class) {
+					return 0.0f;
+				} else if (returnType == double.class) {
+					return 0.0;
+				} else {
+					return null;
+				}
+			}
+		}));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(PacketDispatchBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,186 @@
+package com.bergerkiller.bukkit.common.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.minecraft.util.io.netty.channel.embedded.EmbeddedChannel;
+
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.bergerkiller.bukkit.common.events.PacketReceiveEvent;
+import com.bergerkiller.bukkit.common.events.PacketSendEvent;
+import com.bergerkiller.bukkit.common.internal.network.OfflinePacketHandler;
+import com.bergerkiller.bukkit.common.protocol.CommonPacket;
+import com.bergerkiller.bukkit.common.protocol.PacketListener;
+import com.bergerkiller.bukkit.common.protocol.PacketMonitor;
+import com.bergerkiller.bukkit.common.protocol.PacketReplay;
+import com.bergerkiller.bukkit.common.protocol.PacketType;
+
+/**
+ * Registers and unregisters packet listeners and monitors from several threads,
+ * while packets are dispatched to them through an embedded channel.
+ */
+public class PacketHandlerConcurrencyTest {
+	private static final PacketType[] TYPES = {PacketType.OUT_ENTITY_MOVE, PacketType.OUT_ENTITY_LOOK,
+			PacketType.OUT_KEEP_ALIVE, PacketType.IN_FLYING, PacketType.IN_KEEP_ALIVE};
+	private static final int PACKET_COUNT = 50000;
+	private static final int THREAD_COUNT = 4;
+
+	@Test
+	public void testRegisterWhileDispatching() throws Throwable {
+		final OfflinePacketHandler handler = new OfflinePacketHandler();
+		final Plugin plugin = PacketDispatchBenchmark.createStub(Plugin.class);
+		final Player player = PacketDispatchBenchmark.createStub(Player.class);
+
+		// Every packet is a different instance, so it is known where it is in the dispatched sequence
+		final List<Object> packets = new ArrayList<Object>(PACKET_COUNT);
+		final Map<Object, Integer> packetIndices = new IdentityHashMap<Object, Integer>();
+		for (int i = 0; i < PACKET_COUNT; i++) {
+			final Object packet = TYPES[i % TYPES.length].newInstanceNull();
+			packetIndices.put(packet, i);
+			packets.add(packet);
+		}
+
+		// Registered during the entire test, these must receive every packet exactly once
+		final RecordingListener permanent = new RecordingListener(TYPES);
+		handler.addPacketListener(plugin, permanent, TYPES);
+		handler.addPacketMonitor(plugin, permanent, TYPES);
+
+		final ConcurrentLinkedQueue<RecordingListener> registered = new ConcurrentLinkedQueue<RecordingListener>();
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		final Thread[] threads = new Thread[THREAD_COUNT];
+		for (int t = 0; t < threads.length; t++) {
+			final Random random = new Random(t);
+			threads[t] = new Thread("Registration thread " + t) {
+				@Override
+				public void run() {
+					try {
+						while (!isInterrupted()) {
+							final Plugin owner = PacketDispatchBenchmark.createStub(Plugin.class);
+							final List<PacketType> types = new ArrayList<PacketType>();
+							for (PacketType type : TYPES) {
+								if (random.nextBoolean()) {
+									types.add(type);
+								}
+							}
+							final RecordingListener listener = new RecordingListener(types.toArray(new PacketType[0]));
+							registered.add(listener);
+							handler.addPacketListener(owner, listener, listener.types);
+							handler.addPacketMonitor(owner, listener, listener.types);
+							for (PacketType type : listener.types) {
+								Assert.assertTrue(handler.getListening(type).contains(owner));
+							}
+							Thread.yield();
+							if (random.nextBoolean()) {
+								handler.removePacketListener(listener);
+								handler.removePacketMonitor(listener);
+							} else {
+								handler.removePacketListeners(owner);
+							}
+						}
+					} catch (Throwable t) {
+						error.compareAndSet(null, t);
+					}
+				}
+			};
+			threads[t].start();
+		}
+
+		final EmbeddedChannel channel = PacketReplay.createChannel(handler, player);
+		try {
+			for (int i = 0; i < PACKET_COUNT; i++) {
+				final Object packet = packets.get(i);
+				if (PacketType.getType(packet).isOutGoing()) {
+					channel.writeAndFlush(packet);
+					Assert.assertSame(packet, channel.readOutbound());
+				} else {
+					channel.pipeline().fireChannelRead(packet);
+					Assert.assertSame(packet, channel.readInbound());
+				}
+				channel.checkException();
+			}
+		} finally {
+			for (Thread thread : threads) {
+				thread.interrupt();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			channel.finish();
+		}
+		if (error.get() != null) {
+			throw error.get();
+		}
+
+		Assert.assertEquals(packets, permanent.listened);
+		Assert.assertEquals(packets, permanent.monitored);
+		Assert.assertTrue("No listeners were registered while dispatching", registered.size() > THREAD_COUNT);
+		for (RecordingListener listener : registered) {
+			listener.verify(packets, packetIndices, listener.listened);
+			listener.verify(packets, packetIndices, listener.monitored);
+		}
+	}
+
+	/**
+	 * Records the packets dispatched to it, both as a listener and as a monitor
+	 */
+	private static class RecordingListener implements PacketListener, PacketMonitor {
+		public final PacketType[] types;
+		public final List<Object> listened = new ArrayList<Object>();
+		public final List<Object> monitored = new ArrayList<Object>();
+
+		public RecordingListener(PacketType[] types) {
+			this.types = types;
+		}
+
+		@Override
+		public void onPacketSend(PacketSendEvent event) {
+			listened.add(event.getPacket().getHandle());
+		}
+
+		@Override
+		public void onPacketReceive(PacketReceiveEvent event) {
+			listened.add(event.getPacket().getHandle());
+		}
+
+		@Override
+		public void onMonitorPacketSend(CommonPacket packet, Player player) {
+			monitored.add(packet.getHandle());
+		}
+
+		@Override
+		public void onMonitorPacketReceive(CommonPacket packet, Player player) {
+			monitored.add(packet.getHandle());
+		}
+
+		/**
+		 * Verifies that the packets received form an uninterrupted run of the packets dispatched of the registered types.
+		 * Once a listener sees a packet, it keeps receiving every packet until it is unregistered,
+		 * so anything else means a packet was lost, dispatched twice or dispatched out of order.
+		 */
+		public void verify(List<Object> packets, Map<Object, Integer> packetIndices, List<Object> received) {
+			if (received.isEmpty()) {
+				return;
+			}
+			final List<PacketType> typeList = Arrays.asList(types);
+			int index = packetIndices.get(received.get(0));
+			for (Object packet : received) {
+				while (index < packets.size() && !typeList.contains(PacketType.getType(packets.get(index)))) {
+					index++;
+				}
+				Assert.assertTrue("Packet of a type not listened for was dispatched", index < packets.size());
+				Assert.assertSame("Packet was lost, dispatched twice or out of order", packets.get(index), packet);
+				index++;
+			}
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.bergerkiller.bukkit.common.test;
+
+import java.io.File;
+import java.io.IOException;
+
+import net.minecraft.server.ChatComponentText;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.bergerkiller.bukkit.common.protocol.CommonPacket;
+import com.bergerkiller.bukkit.common.protocol.PacketRecorder;
+import com.bergerkiller.bukkit.common.protocol.PacketReplay;
+import com.bergerkiller.bukkit.common.protocol.PacketType;
+
+public class PacketRecorderTest {
+
+	@Test
+	public void testRecordAndLoad() throws IOException {
+		final File file = File.createTempFile("packets", ".dat");
+		try {
+			final PacketRecorder recorder = new PacketRecorder(file);
+			final Object payload = PacketType.OUT_CUSTOM_PAYLOAD.newInstanceNull();
+			PacketType.OUT_CUSTOM_PAYLOAD.tag.set(payload, "BungeeCord");
+			PacketType.OUT_CUSTOM_PAYLOAD.data.set(payload, new byte[] {1, 2, 3});
+			recorder.record(new CommonPacket(payload));
+
+			// The chat component can not be recorded, so this packet is skipped when loading
+			final Object chat = PacketType.OUT_CHAT.newInstanceNull();
+			PacketType.OUT_CHAT.chatComponent.set(chat, new ChatComponentText("Hello"));
+			recorder.record(new CommonPacket(chat));
+
+			// Fields that are null are recorded as such
+			recorder.record(new CommonPacket(PacketType.OUT_CHAT.newInstanceNull()));
+			recorder.record(new CommonPacket(PacketType.OUT_KEEP_ALIVE.newInstanceNull()));
+			Assert.assertEquals(4, recorder.getRecordedCount());
+			recorder.close();
+			Assert.assertFalse(recorder.isRecording());
+
+			final PacketReplay replay = PacketReplay.load(file);
+			Assert.assertEquals(3, replay.size());
+			Assert.assertEquals(1, replay.getSkippedCount());
+			final Object loaded = replay.getPackets().get(0);
+			Assert.assertEquals("BungeeCord", PacketType.OUT_CUSTOM_PAYLOAD.tag.get(loaded));
+			Assert.assertArrayEquals(new byte[] {1, 2, 3}, PacketType.OUT_CUSTOM_PAYLOAD.data.get(loaded));
+			Assert.assertSame(PacketType.OUT_CHAT, PacketType.getType(replay.getPackets().get(1)));
+			Assert.assertNull(PacketType.OUT_CHAT.chatComponent.get(replay.getPackets().get(1)));
+			Assert.assertSame(PacketType.OUT_KEEP_ALIVE, PacketType.getType(replay.getPackets().get(2)));
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.bergerkiller.bukkit.common.test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.bergerkiller.bukkit.common.reflection.MethodAccessor;
+import com.bergerkiller.bukkit.common.reflection.SafeMethod;
+
+/**
+ * Measures the cost of calling a method with no and with three arguments through a {@link SafeMethod}.
+ * The fixed-arity invoke methods are compared with the varargs invoke method, which is the only method
+ * available when calling through a {@link MethodAccessor}, with Method.invoke and with a direct call.<br><br>
+ *
+ * Run the main method to include the allocation rates reported by the GC profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SafeMethodBenchmark {
+	private Target target;
+	private Integer x, y, z;
+	private Method getMethod, sumMethod;
+	private SafeMethod<Integer> safeGet, safeSum;
+	private MethodAccessor<Integer> accessorGet, accessorSum;
+
+	@Setup
+	public void setup() throws NoSuchMethodException {
+		target = new Target();
+		x = 1;
+		y = 64;
+		z = -1;
+		getMethod = Target.class.getMethod("get");
+		sumMethod = Target.class.getMethod("sum", int.class, int.class, int.class);
+		safeGet = new SafeMethod<Integer>(getMethod);
+		safeSum = new SafeMethod<Integer>(sumMethod);
+		accessorGet = safeGet;
+		accessorSum = safeSum;
+	}
+
+	@Benchmark
+	public int directGet() {
+		return target.get();
+	}
+
+	@Benchmark
+	public Object reflectGet() throws Exception {
+		return getMethod.invoke(target);
+	}
+
+	@Benchmark
+	public Integer varargsGet() {
+		return accessorGet.invoke(target);
+	}
+
+	@Benchmark
+	public Integer fixedGet() {
+		return safeGet.invoke(target);
+	}
+
+	@Benchmark
+	public int directSum() {
+		return target.sum(x, y, z);
+	}
+
+	@Benchmark
+	public Object reflectSum() throws Exception {
+		return sumMethod.invoke(target, x, y, z);
+	}
+
+	@Benchmark
+	public Integer varargsSum() {
+		return accessorSum.invoke(target, x, y, z);
+	}
+
+	@Benchmark
+	public Integer fixedSum() {
+		return safeSum.invoke(target, x, y, z);
+	}
+
+	public static class Target {
+		private int value = 12;
+
+		public int get() {
+			return value;
+		}
+
+		public int sum(int x, int y, int z) {
+			return value + x + y + z;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(SafeMethodBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}